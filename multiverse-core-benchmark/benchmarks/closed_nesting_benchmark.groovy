@@ -0,0 +1,24 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.ClosedNestingDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "closed_nesting"
+
+for (def closedNesting in [false, true]) {
+    for (def k in 1..processorCount) {
+        def testCase = new GroovyTestCase()
+        testCase.name = "closed_nesting_${closedNesting}_with_${k}_threads"
+        testCase.threadCount = k
+        testCase.writerCount = 1
+        testCase.outerRefCount = 1000
+        testCase.hotRefCount = 4
+        testCase.closedNesting = closedNesting
+        testCase.transactionsPerThread = 1000 * 10
+        testCase.warmupRunIterationCount = k == 1 ? 1 : 0;
+        testCase.driver = ClosedNestingDriver.class
+        benchmark.add(testCase)
+    }
+}
+
+benchmark
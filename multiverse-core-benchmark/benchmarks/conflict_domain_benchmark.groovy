@@ -0,0 +1,22 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.ConflictDomainDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "conflict_domain"
+
+for (def domainCount in [1, 64]) {
+    for (def k in 1..processorCount) {
+        def testCase = new GroovyTestCase()
+        testCase.name = "conflict_domain_${domainCount}_domains_with_${k}_threads"
+        testCase.threadCount = k
+        testCase.conflictDomainCount = domainCount
+        testCase.refsPerThread = 64
+        testCase.transactionsPerThread = 1000 * 1000
+        testCase.warmupRunIterationCount = k == 1 ? 1 : 0;
+        testCase.driver = ConflictDomainDriver.class
+        benchmark.add(testCase)
+    }
+}
+
+benchmark
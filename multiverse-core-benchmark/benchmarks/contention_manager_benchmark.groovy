@@ -0,0 +1,23 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.ContentionManagerDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "contention_manager"
+
+for (def contentionManager in ["none", "karma", "polka", "greedy", "woundwait"]) {
+    for (def k in 1..processorCount) {
+        def testCase = new GroovyTestCase()
+        testCase.name = "contention_manager_${contentionManager}_with_${k}_short_threads"
+        testCase.shortThreadCount = k
+        testCase.longThreadCount = 1
+        testCase.refCount = 32
+        testCase.longTransactionsPerThread = 10 * 1000
+        testCase.contentionManager = contentionManager
+        testCase.warmupRunIterationCount = k == 1 ? 1 : 0;
+        testCase.driver = ContentionManagerDriver.class
+        benchmark.add(testCase)
+    }
+}
+
+benchmark
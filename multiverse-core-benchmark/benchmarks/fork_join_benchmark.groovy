@@ -0,0 +1,21 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.ForkJoinDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "fork_join"
+
+for (def forkCount in [1, 2, 4, 8].findAll { it <= processorCount }) {
+    def testCase = new GroovyTestCase()
+    testCase.name = "fork_join_with_${forkCount}_forks"
+    testCase.threadCount = 1
+    testCase.forkCount = forkCount
+    testCase.refCount = 100000
+    testCase.workPerRef = 50
+    testCase.transactionsPerThread = 200
+    testCase.warmupRunIterationCount = 1
+    testCase.driver = ForkJoinDriver.class
+    benchmark.add(testCase)
+}
+
+benchmark
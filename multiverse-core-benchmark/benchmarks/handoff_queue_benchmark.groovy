@@ -0,0 +1,23 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.HandoffQueueDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "handoff_queue"
+
+for (def consumerCount in [8, 32]) {
+    for (def handoff in [true, false]) {
+        def testCase = new GroovyTestCase()
+        testCase.name = "handoff_queue_${consumerCount}_consumers_handoff_${handoff}"
+        testCase.handoff = handoff
+        testCase.producerCount = 1
+        testCase.consumerCount = consumerCount
+        testCase.capacity = 100
+        testCase.itemCount = 100 * 1000
+        testCase.warmupRunIterationCount = 1
+        testCase.driver = HandoffQueueDriver.class
+        benchmark.add(testCase)
+    }
+}
+
+benchmark
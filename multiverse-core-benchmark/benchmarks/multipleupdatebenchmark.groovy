@@ -1,18 +1,25 @@
 import org.benchy.Benchmark
 import org.benchy.GroovyTestCase
-import org.multiverse.stms.beta.benchmarks.MultipleUpdateDriver
+import org.multiverse.stms.gamma.benchmarks.MultipleUpdateDriver
 
 def benchmark = new Benchmark()
 benchmark.name = "multiple_update"
 
-for (def k in 1..processorCount) {
-    def testCase = new GroovyTestCase()
-    testCase.name = "multiple_update_with_${k}_refs"
-    testCase.threadCount = 1
-    testCase.refCount = k
-    testCase.transactionsPerThread = 1000 * 1000 * 20
-    testCase.driver = MultipleUpdateDriver.class
-    benchmark.add(testCase)
-    testCase.warmupRunIterationCount = k==1?1:0;
+for (def transactionType in ["FatFixedLength", "LeanFixedLength"]) {
+    for (def linkedTranlocals in [false, true]) {
+        def layout = linkedTranlocals ? "linked" : "array"
+        for (def k in 2..20) {
+            def testCase = new GroovyTestCase()
+            testCase.name = "multiple_update_${transactionType}_${layout}_with_${k}_refs"
+            testCase.threadCount = 1
+            testCase.refCount = k
+            testCase.transactionType = transactionType
+            testCase.linkedTranlocals = linkedTranlocals
+            testCase.transactionsPerThread = 1000 * 1000 * 20
+            testCase.driver = MultipleUpdateDriver.class
+            benchmark.add(testCase)
+            testCase.warmupRunIterationCount = k == 2 ? 1 : 0;
+        }
+    }
 }
 benchmark
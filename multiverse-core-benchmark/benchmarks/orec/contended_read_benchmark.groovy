@@ -0,0 +1,24 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.orec.OrecContendedReadDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "orec_contended_read"
+
+for (def readerSlotCount in [0, 64]) {
+    for (def readLock in [false, true]) {
+        for (def k in [1, 2, 4, 8, 16, 32, 64]) {
+            def testCase = new GroovyTestCase()
+            testCase.name = "orec_contended_read_slots_${readerSlotCount}_readLock_${readLock}_with_${k}_threads"
+            testCase.threadCount = k
+            testCase.readerSlotCount = readerSlotCount
+            testCase.readLock = readLock
+            testCase.operationsPerThread = 1000 * 1000 * 20L
+            testCase.warmupRunIterationCount = k == 1 ? 1 : 0
+            testCase.driver = OrecContendedReadDriver.class
+            benchmark.add(testCase)
+        }
+    }
+}
+
+benchmark
@@ -0,0 +1,23 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.orec.OrecPhasedReadBiasedDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "orec_phased_read_biased"
+
+for (def readBiasedWriteThreshold in [0, 16]) {
+    for (def readPhaseUpdateInterval in [10, 100, 1000]) {
+        def testCase = new GroovyTestCase()
+        testCase.name = "orec_phased_read_biased_threshold_${readBiasedWriteThreshold}_update_every_${readPhaseUpdateInterval}"
+        testCase.readBiasedWriteThreshold = readBiasedWriteThreshold
+        testCase.readPhaseUpdateInterval = readPhaseUpdateInterval
+        testCase.phaseCount = 1000
+        testCase.readPhaseLength = 1000 * 1000L
+        testCase.writePhaseLength = 1000
+        testCase.warmupRunIterationCount = 1
+        testCase.driver = OrecPhasedReadBiasedDriver.class
+        benchmark.add(testCase)
+    }
+}
+
+benchmark
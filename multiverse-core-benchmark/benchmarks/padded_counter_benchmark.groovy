@@ -0,0 +1,21 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.PaddedCounterDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "padded_counter"
+
+for (def padded in [false, true]) {
+    for (def k in 1..processorCount) {
+        def testCase = new GroovyTestCase()
+        testCase.name = "padded_counter_padded_${padded}_with_${k}_threads"
+        testCase.threadCount = k
+        testCase.padded = padded
+        testCase.transactionsPerThread = 1000 * 1000 * 20
+        testCase.warmupRunIterationCount = k == 1 ? 1 : 0;
+        testCase.driver = PaddedCounterDriver.class
+        benchmark.add(testCase)
+    }
+}
+
+benchmark
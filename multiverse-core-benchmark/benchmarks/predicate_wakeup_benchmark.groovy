@@ -0,0 +1,19 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.PredicateWakeupDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "predicate_wakeup"
+
+for (def filtered in [true, false]) {
+    def testCase = new GroovyTestCase()
+    testCase.name = "predicate_wakeup_filtered_${filtered}"
+    testCase.filtered = filtered
+    testCase.waiterCount = 100
+    testCase.incrementCount = 100 * 1000
+    testCase.warmupRunIterationCount = 1
+    testCase.driver = PredicateWakeupDriver.class
+    benchmark.add(testCase)
+}
+
+benchmark
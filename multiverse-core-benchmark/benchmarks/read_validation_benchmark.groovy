@@ -0,0 +1,22 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.ReadValidationDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "read_validation"
+
+for (def validation in ["poormans", "richmans", "globalclock"]) {
+    for (def k in 1..processorCount) {
+        def testCase = new GroovyTestCase()
+        testCase.name = "read_validation_${validation}_with_${k}_threads"
+        testCase.threadCount = k
+        testCase.validation = validation
+        testCase.refCount = 256
+        testCase.transactionsPerThread = 1000 * 100
+        testCase.warmupRunIterationCount = k == 1 ? 1 : 0;
+        testCase.driver = ReadValidationDriver.class
+        benchmark.add(testCase)
+    }
+}
+
+benchmark
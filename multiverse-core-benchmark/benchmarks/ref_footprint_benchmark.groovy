@@ -0,0 +1,20 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.RefFootprintDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "ref_footprint"
+
+for (def padded in [false, true]) {
+    for (def refType in ["Long", "Integer", "Boolean", "Double", "Ref"]) {
+        def testCase = new GroovyTestCase()
+        testCase.name = "ref_footprint_${refType}_padded_${padded}"
+        testCase.refType = refType
+        testCase.padded = padded
+        testCase.refCount = 1000 * 1000
+        testCase.driver = RefFootprintDriver.class
+        benchmark.add(testCase)
+    }
+}
+
+benchmark
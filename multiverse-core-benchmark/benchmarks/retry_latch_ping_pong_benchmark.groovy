@@ -0,0 +1,18 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.RetryLatchPingPongDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "retry_latch_ping_pong"
+
+for (def parkingRetryLatch in [false, true]) {
+    def testCase = new GroovyTestCase()
+    testCase.name = "retry_latch_ping_pong_parking_${parkingRetryLatch}"
+    testCase.parkingRetryLatch = parkingRetryLatch
+    testCase.roundTrips = 1000 * 1000
+    testCase.warmupRunIterationCount = 1
+    testCase.driver = RetryLatchPingPongDriver.class
+    benchmark.add(testCase)
+}
+
+benchmark
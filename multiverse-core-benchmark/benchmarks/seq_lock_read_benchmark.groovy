@@ -0,0 +1,26 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.SeqLockReadDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "seq_lock_read"
+
+for (def transactionType in ["LeanMono", "LeanFixedLength", "FatMono", "FatFixedLength", "FatVariableLength"]) {
+    def refCount = transactionType.endsWith("Mono") ? 1 : 10
+    for (def seqLockEnabled in [false, true]) {
+        for (def k in 1..processorCount) {
+            def testCase = new GroovyTestCase()
+            testCase.name = "seq_lock_read_${transactionType}_seqlock_${seqLockEnabled}_with_${k}_threads"
+            testCase.threadCount = k
+            testCase.refCount = refCount
+            testCase.transactionType = transactionType
+            testCase.seqLockEnabled = seqLockEnabled
+            testCase.transactionsPerThread = 1000 * 1000 * 20
+            testCase.warmupRunIterationCount = k == 1 ? 1 : 0;
+            testCase.driver = SeqLockReadDriver.class
+            benchmark.add(testCase)
+        }
+    }
+}
+
+benchmark
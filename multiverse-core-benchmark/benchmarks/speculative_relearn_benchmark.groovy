@@ -0,0 +1,20 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.SpeculativeRelearnDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "speculative_relearn"
+
+for (def relearnInterval in [0, 100000]) {
+    def testCase = new GroovyTestCase()
+    testCase.name = "speculative_relearn_with_interval_${relearnInterval}"
+    testCase.threadCount = 1
+    testCase.relearnInterval = relearnInterval
+    testCase.warmupRefCount = 100
+    testCase.transactionsPerThread = 50 * 1000 * 1000
+    testCase.warmupRunIterationCount = 1
+    testCase.driver = SpeculativeRelearnDriver.class
+    benchmark.add(testCase)
+}
+
+benchmark
@@ -0,0 +1,19 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.ThreadLocalContextDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "thread_local_context"
+
+for (def threadLocalContext in [true, false]) {
+    def testCase = new GroovyTestCase()
+    testCase.name = "thread_local_context_${threadLocalContext}"
+    testCase.threadLocalContext = threadLocalContext
+    testCase.threadCount = 1000
+    testCase.transactionsPerThread = 10
+    testCase.warmupRunIterationCount = 1
+    testCase.driver = ThreadLocalContextDriver.class
+    benchmark.add(testCase)
+}
+
+benchmark
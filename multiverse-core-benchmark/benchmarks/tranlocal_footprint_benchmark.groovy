@@ -0,0 +1,20 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.TranlocalFootprintDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "tranlocal_footprint"
+
+for (def refCount in [10, 100, 1000]) {
+    def testCase = new GroovyTestCase()
+    testCase.name = "tranlocal_footprint_${refCount}_refs"
+    testCase.threadCount = 1
+    testCase.refCount = refCount
+    testCase.footprintCount = 1000 * 1000
+    testCase.transactionsPerThread = 1000 * 1000 * 1000 / refCount
+    testCase.warmupRunIterationCount = 1
+    testCase.driver = TranlocalFootprintDriver.class
+    benchmark.add(testCase)
+}
+
+benchmark
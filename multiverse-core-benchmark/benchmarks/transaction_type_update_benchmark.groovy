@@ -0,0 +1,24 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.TransactionTypeUpdateDriver
+
+//run once on Java 8 and once on Java 9 or higher to compare the Unsafe and the VarHandle based field access.
+def benchmark = new Benchmark();
+benchmark.name = "transaction_type_update_java_${System.getProperty('java.specification.version')}"
+
+for (def transactionType in ["LeanMono", "LeanFixedLength", "FatMono", "FatFixedLength", "FatVariableLength"]) {
+    def refCount = transactionType.endsWith("Mono") ? 1 : 10
+    for (def k in 1..processorCount) {
+        def testCase = new GroovyTestCase()
+        testCase.name = "transaction_type_update_${transactionType}_with_${k}_threads"
+        testCase.threadCount = k
+        testCase.refCount = refCount
+        testCase.transactionType = transactionType
+        testCase.transactionsPerThread = 1000 * 1000 * 20
+        testCase.warmupRunIterationCount = k == 1 ? 1 : 0;
+        testCase.driver = TransactionTypeUpdateDriver.class
+        benchmark.add(testCase)
+    }
+}
+
+benchmark
@@ -0,0 +1,22 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.VariableLengthCommitDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "variable_length_commit"
+
+for (def refCount in [1, 10]) {
+    for (def capacity in [16, 256, 4096, 65536]) {
+        def testCase = new GroovyTestCase()
+        testCase.name = "variable_length_commit_${refCount}_refs_capacity_${capacity}"
+        testCase.threadCount = 1
+        testCase.refCount = refCount
+        testCase.capacity = capacity
+        testCase.transactionsPerThread = 1000 * 1000 * 5
+        testCase.warmupRunIterationCount = 1
+        testCase.driver = VariableLengthCommitDriver.class
+        benchmark.add(testCase)
+    }
+}
+
+benchmark
@@ -0,0 +1,22 @@
+import org.benchy.Benchmark
+import org.benchy.GroovyTestCase
+import org.multiverse.stms.gamma.benchmarks.VariableLengthLookupDriver
+
+def benchmark = new Benchmark();
+benchmark.name = "variable_length_lookup"
+
+for (def missing in [false, true]) {
+    for (def refCount in [10, 100, 1000, 10000]) {
+        def testCase = new GroovyTestCase()
+        testCase.name = "variable_length_lookup_${refCount}_refs_missing_${missing}"
+        testCase.threadCount = 1
+        testCase.refCount = refCount
+        testCase.missing = missing
+        testCase.lookupsPerThread = 1000 * 1000 * 100
+        testCase.warmupRunIterationCount = 1
+        testCase.driver = VariableLengthLookupDriver.class
+        benchmark.add(testCase)
+    }
+}
+
+benchmark
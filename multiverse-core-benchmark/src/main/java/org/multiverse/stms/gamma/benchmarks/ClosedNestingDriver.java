@@ -0,0 +1,174 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.TestThread;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+
+import static org.benchy.BenchyUtils.format;
+import static org.multiverse.TestUtils.joinAll;
+import static org.multiverse.TestUtils.startAll;
+
+/**
+ * Measures the cost of conflicts in a small inner section of a large transaction. Every worker transaction reads
+ * a large number of cold refs and then executes an inner section that reads a few hot refs that are updated by the
+ * writer threads all the time. With closed nesting a conflict in the inner section only retries the inner section,
+ * without it the complete outer transaction (including its large read set) is restarted.
+ */
+public class ClosedNestingDriver extends BenchmarkDriver {
+
+    private int threadCount;
+    private int writerCount = 1;
+    private int outerRefCount = 1000;
+    private int hotRefCount = 4;
+    private boolean closedNesting = true;
+    private long transactionsPerThread;
+    private GammaStm stm;
+    private GammaTxnLong[] outerRefs;
+    private GammaTxnLong[] hotRefs;
+    private WorkerThread[] threads;
+    private WriteThread[] writeThreads;
+    private volatile boolean stop;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Thread count %s\n", threadCount);
+        System.out.printf("Multiverse > Writer count %s\n", writerCount);
+        System.out.printf("Multiverse > Outer ref count %s\n", outerRefCount);
+        System.out.printf("Multiverse > Hot ref count %s\n", hotRefCount);
+        System.out.printf("Multiverse > Closed nesting %s\n", closedNesting);
+        System.out.printf("Multiverse > Transactions per thread %s\n", transactionsPerThread);
+
+        stm = new GammaStm();
+        outerRefs = new GammaTxnLong[outerRefCount];
+        for (int k = 0; k < outerRefs.length; k++) {
+            outerRefs[k] = stm.getDefaultRefFactory().newTxnLong(0);
+        }
+        hotRefs = new GammaTxnLong[hotRefCount];
+        for (int k = 0; k < hotRefs.length; k++) {
+            hotRefs[k] = stm.getDefaultRefFactory().newTxnLong(0);
+        }
+
+        threads = new WorkerThread[threadCount];
+        for (int k = 0; k < threads.length; k++) {
+            threads[k] = new WorkerThread(k);
+        }
+        writeThreads = new WriteThread[writerCount];
+        for (int k = 0; k < writeThreads.length; k++) {
+            writeThreads[k] = new WriteThread(k);
+        }
+        stop = false;
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        startAll(writeThreads);
+        startAll(threads);
+        joinAll(threads);
+        stop = true;
+        joinAll(writeThreads);
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long totalDurationMs = 0;
+        long outerAttempts = 0;
+        long innerAttempts = 0;
+        for (WorkerThread t : threads) {
+            totalDurationMs += t.getDurationMs();
+            outerAttempts += t.outerAttempts;
+            innerAttempts += t.innerAttempts;
+        }
+
+        double transactionsPerSecond = BenchmarkUtils.transactionsPerSecond(
+                transactionsPerThread, totalDurationMs, threadCount);
+        double outerAttemptsPerTransaction = (1.0d * outerAttempts) / (transactionsPerThread * threadCount);
+        double innerAttemptsPerTransaction = (1.0d * innerAttempts) / (transactionsPerThread * threadCount);
+        System.out.printf("Multiverse > Performance %s transactions/second with %s threads\n",
+                format(transactionsPerSecond), threadCount);
+        System.out.printf("Multiverse > Outer attempts per transaction %s\n", format(outerAttemptsPerTransaction));
+        System.out.printf("Multiverse > Inner attempts per transaction %s\n", format(innerAttemptsPerTransaction));
+
+        testCaseResult.put("transactionsPerSecond", transactionsPerSecond);
+        testCaseResult.put("outerAttemptsPerTransaction", outerAttemptsPerTransaction);
+        testCaseResult.put("innerAttemptsPerTransaction", innerAttemptsPerTransaction);
+    }
+
+    class WriteThread extends TestThread {
+
+        public WriteThread(int id) {
+            super("WriteThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final GammaTxnLong[] _hotRefs = hotRefs;
+            long k = 0;
+            while (!stop) {
+                _hotRefs[(int) (k % _hotRefs.length)].atomicIncrementAndGet(1);
+                k++;
+            }
+        }
+    }
+
+    class WorkerThread extends TestThread {
+
+        private long outerAttempts;
+        private long innerAttempts;
+
+        public WorkerThread(int id) {
+            super("WorkerThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final long _transactionsPerThread = transactionsPerThread;
+            final GammaTxnLong[] _outerRefs = outerRefs;
+            final GammaTxnLong[] _hotRefs = hotRefs;
+            final GammaTxnLong result = stm.getDefaultRefFactory().newTxnLong(0);
+
+            final TxnExecutor outerExecutor = stm.newTxnFactoryBuilder()
+                    .setSpeculative(false)
+                    .setMaxRetries(100000)
+                    .newTxnExecutor();
+            final TxnExecutor innerExecutor = stm.newTxnFactoryBuilder()
+                    .setClosedNesting(closedNesting)
+                    .setMaxRetries(100000)
+                    .newTxnExecutor();
+
+            final TxnVoidCallable innerCallable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    innerAttempts++;
+                    GammaTxn btx = (GammaTxn) tx;
+                    long sum = 0;
+                    for (int k = 0; k < _hotRefs.length; k++) {
+                        sum += _hotRefs[k].get(btx);
+                    }
+                    result.set(btx, sum);
+                }
+            };
+
+            final TxnVoidCallable outerCallable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    outerAttempts++;
+                    GammaTxn btx = (GammaTxn) tx;
+                    for (int k = 0; k < _outerRefs.length; k++) {
+                        _outerRefs[k].get(btx);
+                    }
+                    innerExecutor.execute(innerCallable);
+                }
+            };
+
+            for (long k = 0; k < _transactionsPerThread; k++) {
+                outerExecutor.execute(outerCallable);
+            }
+        }
+    }
+}
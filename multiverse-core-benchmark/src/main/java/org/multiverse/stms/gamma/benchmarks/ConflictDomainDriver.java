@@ -0,0 +1,203 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.TestThread;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.GlobalConflictCounter;
+import org.multiverse.stms.gamma.LeanGammaTxnExecutor;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxnFactory;
+
+import static org.benchy.BenchyUtils.format;
+import static org.multiverse.TestUtils.joinAll;
+import static org.multiverse.TestUtils.startAll;
+
+/**
+ * Measures the throughput of reading transactions that use the richmans conflict scan while a writer keeps causing
+ * conflicts on a single hot ref (that is also read by a dedicated hot reader). With a single conflict domain every
+ * conflict forces all readers to do a full conflict scan, with multiple conflict domains only the transactions that
+ * read from the domain of the hot ref need to. The number of full conflict scans done by the readers is reported, so
+ * the number of scans with 1 and with multiple conflict domains can be compared for the same thread count.
+ */
+public class ConflictDomainDriver extends BenchmarkDriver {
+
+    private int threadCount;
+    private int conflictDomainCount = GlobalConflictCounter.MAX_DOMAIN_COUNT;
+    private int refsPerThread = 64;
+    private long transactionsPerThread;
+    private GammaStm stm;
+    private GammaTxnLong hotRef;
+    private GammaTxnLong[][] refs;
+    private ReadThread[] threads;
+    private WriteThread writeThread;
+    private HotReadThread hotReadThread;
+    private volatile boolean stop;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Thread count %s\n", threadCount);
+        System.out.printf("Multiverse > Conflict domain count %s\n", conflictDomainCount);
+        System.out.printf("Multiverse > Refs per thread %s\n", refsPerThread);
+        System.out.printf("Multiverse > Transactions per thread %s\n", transactionsPerThread);
+
+        GammaStmConfig config = new GammaStmConfig();
+        config.conflictDomainCount = conflictDomainCount;
+        stm = new GammaStm(config);
+
+        hotRef = stm.getTxRefFactoryBuilder()
+                .setConflictDomain(0)
+                .build()
+                .newTxnLong(0);
+
+        refs = new GammaTxnLong[threadCount][refsPerThread];
+        threads = new ReadThread[threadCount];
+        for (int k = 0; k < threads.length; k++) {
+            //every reader gets its own domain (when available) that is different from the domain of the hot ref.
+            int domain = conflictDomainCount == 1 ? 0 : 1 + (k % (conflictDomainCount - 1));
+            for (int l = 0; l < refsPerThread; l++) {
+                refs[k][l] = stm.getTxRefFactoryBuilder()
+                        .setConflictDomain(domain)
+                        .build()
+                        .newTxnLong(0);
+            }
+            threads[k] = new ReadThread(k);
+        }
+        writeThread = new WriteThread();
+        hotReadThread = new HotReadThread();
+        stop = false;
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        startAll(writeThread, hotReadThread);
+        startAll(threads);
+        joinAll(threads);
+        stop = true;
+        joinAll(writeThread, hotReadThread);
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long totalDurationMs = 0;
+        long fullConflictScanCount = 0;
+        for (ReadThread t : threads) {
+            totalDurationMs += t.getDurationMs();
+            fullConflictScanCount += t.fullConflictScanCount;
+        }
+        double fullConflictScansPerTransaction = (fullConflictScanCount * 1.0d) / (transactionsPerThread * threadCount);
+
+        double transactionsPerSecondPerThread = BenchmarkUtils.transactionsPerSecondPerThread(
+                transactionsPerThread, totalDurationMs, threadCount);
+        double transactionsPerSecond = BenchmarkUtils.transactionsPerSecond(
+                transactionsPerThread, totalDurationMs, threadCount);
+        System.out.printf("Multiverse > Performance %s transactions/second/thread with %s threads\n",
+                format(transactionsPerSecondPerThread), threadCount);
+        System.out.printf("Multiverse > Performance %s transactions/second with %s threads\n",
+                format(transactionsPerSecond), threadCount);
+        System.out.printf("Multiverse > Global conflict count %s\n", stm.getGlobalConflictCounter().count());
+        System.out.printf("Multiverse > Full conflict scans %s with %s threads and %s conflict domains\n",
+                fullConflictScanCount, threadCount, conflictDomainCount);
+        System.out.printf("Multiverse > Full conflict scans/transaction %s\n", format(fullConflictScansPerTransaction));
+
+        testCaseResult.put("transactionsPerSecondPerThread", transactionsPerSecondPerThread);
+        testCaseResult.put("transactionsPerSecond", transactionsPerSecond);
+        testCaseResult.put("globalConflictCount", stm.getGlobalConflictCounter().count());
+        testCaseResult.put("fullConflictScanCount", fullConflictScanCount);
+        testCaseResult.put("fullConflictScansPerTransaction", fullConflictScansPerTransaction);
+    }
+
+    private TxnExecutor newExecutor() {
+        GammaTxnConfig config = new GammaTxnConfig(stm)
+                .setMaximumPoorMansConflictScanLength(0)
+                .setSpeculative(false);
+        return new LeanGammaTxnExecutor(new FatVariableLengthGammaTxnFactory(config));
+    }
+
+    class WriteThread extends TestThread {
+
+        public WriteThread() {
+            super("WriteThread");
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            TxnExecutor executor = newExecutor();
+            TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    hotRef.increment((GammaTxn) tx);
+                }
+            };
+
+            while (!stop) {
+                executor.execute(callable);
+            }
+        }
+    }
+
+    class HotReadThread extends TestThread {
+
+        public HotReadThread() {
+            super("HotReadThread");
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            TxnExecutor executor = newExecutor();
+            TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    hotRef.get((GammaTxn) tx);
+                }
+            };
+
+            while (!stop) {
+                executor.execute(callable);
+            }
+        }
+    }
+
+    class ReadThread extends TestThread {
+
+        private final int id;
+        private long fullConflictScanCount;
+
+        public ReadThread(int id) {
+            super("ReadThread-" + id);
+            this.id = id;
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final long _transactionsPerThread = transactionsPerThread;
+            final GammaTxnLong[] _refs = refs[id];
+            TxnExecutor executor = newExecutor();
+            TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    GammaTxn btx = (GammaTxn) tx;
+                    final long scanCount = btx.fullConflictScanCount;
+                    try {
+                        for (int k = 0; k < _refs.length; k++) {
+                            _refs[k].get(btx);
+                        }
+                    } finally {
+                        //also counts the scans of an attempt that failed on a read conflict.
+                        fullConflictScanCount += btx.fullConflictScanCount - scanCount;
+                    }
+                }
+            };
+
+            for (long k = 0; k < _transactionsPerThread; k++) {
+                executor.execute(callable);
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.TestThread;
+import org.multiverse.api.LockMode;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.contention.ContentionManager;
+import org.multiverse.stms.gamma.contention.GreedyContentionManager;
+import org.multiverse.stms.gamma.contention.KarmaContentionManager;
+import org.multiverse.stms.gamma.contention.PolkaContentionManager;
+import org.multiverse.stms.gamma.contention.WoundWaitContentionManager;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.benchy.BenchyUtils.format;
+import static org.multiverse.TestUtils.joinAll;
+import static org.multiverse.TestUtils.startAll;
+
+/**
+ * Measures the latency of long transactions that update all refs of a small set of hot refs, while short
+ * transactions keep updating single refs of the same set. The long transactions lock the refs when they are opened,
+ * so the {@link ContentionManager} decides what happens on every lock conflict between a long and a short
+ * transaction. Without a contention manager the long transactions are aborted whenever a short transaction is
+ * committing one of their refs.
+ * <p/>
+ * The contentionManager can be 'none', 'karma', 'polka', 'greedy' or 'woundwait'.
+ */
+public class ContentionManagerDriver extends BenchmarkDriver {
+
+    private int shortThreadCount;
+    private int longThreadCount = 1;
+    private int refCount = 32;
+    private long longTransactionsPerThread;
+    private String contentionManager = "none";
+
+    private GammaStm stm;
+    private GammaTxnLong[] refs;
+    private ShortThread[] shortThreads;
+    private LongThread[] longThreads;
+    private volatile boolean stop;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Short thread count %s\n", shortThreadCount);
+        System.out.printf("Multiverse > Long thread count %s\n", longThreadCount);
+        System.out.printf("Multiverse > Ref count %s\n", refCount);
+        System.out.printf("Multiverse > Long transactions per thread %s\n", longTransactionsPerThread);
+        System.out.printf("Multiverse > Contention manager %s\n", contentionManager);
+
+        stm = new GammaStm();
+        refs = new GammaTxnLong[refCount];
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = stm.getDefaultRefFactory().newTxnLong(0);
+        }
+
+        shortThreads = new ShortThread[shortThreadCount];
+        for (int k = 0; k < shortThreads.length; k++) {
+            shortThreads[k] = new ShortThread(k);
+        }
+
+        longThreads = new LongThread[longThreadCount];
+        for (int k = 0; k < longThreads.length; k++) {
+            longThreads[k] = new LongThread(k);
+        }
+        stop = false;
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        startAll(shortThreads);
+        startAll(longThreads);
+        joinAll(longThreads);
+        stop = true;
+        joinAll(shortThreads);
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long[] latenciesNs = new long[(int) (longTransactionsPerThread * longThreadCount)];
+        int index = 0;
+        for (LongThread t : longThreads) {
+            System.arraycopy(t.latenciesNs, 0, latenciesNs, index, t.latenciesNs.length);
+            index += t.latenciesNs.length;
+        }
+        Arrays.sort(latenciesNs);
+
+        long shortTransactionCount = 0;
+        for (ShortThread t : shortThreads) {
+            shortTransactionCount += t.count;
+        }
+
+        long p50Us = percentile(latenciesNs, 0.50) / 1000;
+        long p99Us = percentile(latenciesNs, 0.99) / 1000;
+        long p999Us = percentile(latenciesNs, 0.999) / 1000;
+        long maxUs = latenciesNs[latenciesNs.length - 1] / 1000;
+
+        System.out.printf("Multiverse > Long transaction latency p50 %s us\n", p50Us);
+        System.out.printf("Multiverse > Long transaction latency p99 %s us\n", p99Us);
+        System.out.printf("Multiverse > Long transaction latency p99.9 %s us\n", p999Us);
+        System.out.printf("Multiverse > Long transaction latency max %s us\n", maxUs);
+        System.out.printf("Multiverse > Short transactions %s\n", format(shortTransactionCount));
+
+        testCaseResult.put("longLatencyP50Us", p50Us);
+        testCaseResult.put("longLatencyP99Us", p99Us);
+        testCaseResult.put("longLatencyP999Us", p999Us);
+        testCaseResult.put("longLatencyMaxUs", maxUs);
+        testCaseResult.put("shortTransactionCount", shortTransactionCount);
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private ContentionManager newContentionManager() {
+        if (contentionManager.equals("none")) {
+            return null;
+        } else if (contentionManager.equals("karma")) {
+            return new KarmaContentionManager();
+        } else if (contentionManager.equals("polka")) {
+            return new PolkaContentionManager();
+        } else if (contentionManager.equals("greedy")) {
+            return new GreedyContentionManager();
+        } else if (contentionManager.equals("woundwait")) {
+            return new WoundWaitContentionManager();
+        } else {
+            throw new IllegalStateException("Unknown contentionManager: " + contentionManager);
+        }
+    }
+
+    class ShortThread extends TestThread {
+
+        private long count;
+
+        public ShortThread(int id) {
+            super("ShortThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final Random random = new Random();
+            final GammaTxnLong[] _refs = refs;
+            TxnExecutor executor = stm.newTxnFactoryBuilder()
+                    .setContentionManager(newContentionManager())
+                    .setSpeculative(false)
+                    .newTxnExecutor();
+
+            TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    _refs[random.nextInt(_refs.length)].increment((GammaTxn) tx);
+                }
+            };
+
+            long _count = 0;
+            while (!stop) {
+                executor.execute(callable);
+                _count++;
+            }
+            count = _count;
+        }
+    }
+
+    class LongThread extends TestThread {
+
+        private final long[] latenciesNs = new long[(int) longTransactionsPerThread];
+
+        public LongThread(int id) {
+            super("LongThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final GammaTxnLong[] _refs = refs;
+            TxnExecutor executor = stm.newTxnFactoryBuilder()
+                    .setContentionManager(newContentionManager())
+                    .setWriteLockMode(LockMode.Exclusive)
+                    .setSpeculative(false)
+                    .setMaxRetries(Integer.MAX_VALUE)
+                    .newTxnExecutor();
+
+            TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    GammaTxn btx = (GammaTxn) tx;
+                    for (int k = 0; k < _refs.length; k++) {
+                        _refs[k].increment(btx);
+                    }
+                }
+            };
+
+            for (int k = 0; k < latenciesNs.length; k++) {
+                long startNs = System.nanoTime();
+                executor.execute(callable);
+                latenciesNs[k] = System.nanoTime() - startNs;
+            }
+        }
+    }
+}
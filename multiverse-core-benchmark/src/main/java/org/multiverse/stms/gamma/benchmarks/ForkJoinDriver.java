@@ -0,0 +1,145 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.TestThread;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.TxnFork;
+import org.multiverse.api.callables.TxnCallable;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+
+import static org.benchy.BenchyUtils.format;
+import static org.multiverse.TestUtils.joinAll;
+import static org.multiverse.TestUtils.startAll;
+
+/**
+ * Measures the speedup of forking children in a transaction with a large read/compute workload. Every transaction
+ * reads all refs, does some computation per value and writes the result. With a forkCount of 1 the transaction does
+ * all the work itself, else the refs are split in forkCount parts that are read and computed by forked children.
+ */
+public class ForkJoinDriver extends BenchmarkDriver {
+
+    private int threadCount = 1;
+    private int forkCount = 1;
+    private int refCount = 100000;
+    private int workPerRef = 50;
+    private long transactionsPerThread;
+    private GammaStm stm;
+    private GammaTxnLong[] refs;
+    private WorkerThread[] threads;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Thread count %s\n", threadCount);
+        System.out.printf("Multiverse > Fork count %s\n", forkCount);
+        System.out.printf("Multiverse > Ref count %s\n", refCount);
+        System.out.printf("Multiverse > Work per ref %s\n", workPerRef);
+        System.out.printf("Multiverse > Transactions per thread %s\n", transactionsPerThread);
+
+        GammaStmConfig config = new GammaStmConfig();
+        config.forkPoolSize = Math.max(forkCount, 1);
+        stm = new GammaStm(config);
+        refs = new GammaTxnLong[refCount];
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = stm.getDefaultRefFactory().newTxnLong(k);
+        }
+
+        threads = new WorkerThread[threadCount];
+        for (int k = 0; k < threads.length; k++) {
+            threads[k] = new WorkerThread(k);
+        }
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        startAll(threads);
+        joinAll(threads);
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long totalDurationMs = 0;
+        for (WorkerThread t : threads) {
+            totalDurationMs += t.getDurationMs();
+        }
+
+        double transactionsPerSecond = BenchmarkUtils.transactionsPerSecond(
+                transactionsPerThread, totalDurationMs, threadCount);
+        System.out.printf("Multiverse > Performance %s transactions/second with %s threads and %s forks\n",
+                format(transactionsPerSecond), threadCount, forkCount);
+
+        testCaseResult.put("transactionsPerSecond", transactionsPerSecond);
+    }
+
+    private long compute(Txn tx, int from, int to) {
+        final GammaTxnLong[] _refs = refs;
+        final int _workPerRef = workPerRef;
+        long result = 0;
+        for (int k = from; k < to; k++) {
+            long value = _refs[k].get(tx);
+            for (int l = 0; l < _workPerRef; l++) {
+                value = value * 31 + l;
+            }
+            result += value;
+        }
+        return result;
+    }
+
+    class WorkerThread extends TestThread {
+
+        public WorkerThread(int id) {
+            super("WorkerThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final long _transactionsPerThread = transactionsPerThread;
+            final int _forkCount = forkCount;
+            final int _refCount = refCount;
+            final GammaTxnLong result = stm.getDefaultRefFactory().newTxnLong(0);
+
+            final TxnExecutor executor = stm.newTxnFactoryBuilder()
+                    .setSpeculative(false)
+                    .setMaxRetries(100000)
+                    .newTxnExecutor();
+
+            final TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                @SuppressWarnings({"unchecked"})
+                public void call(Txn tx) throws Exception {
+                    if (_forkCount == 1) {
+                        result.set(tx, compute(tx, 0, _refCount));
+                        return;
+                    }
+
+                    final TxnFork<Long>[] forks = new TxnFork[_forkCount];
+                    final int partSize = _refCount / _forkCount;
+                    for (int k = 0; k < _forkCount; k++) {
+                        final int from = k * partSize;
+                        final int to = k == _forkCount - 1 ? _refCount : from + partSize;
+                        forks[k] = tx.fork(new TxnCallable<Long>() {
+                            @Override
+                            public Long call(Txn child) throws Exception {
+                                return compute(child, from, to);
+                            }
+                        });
+                    }
+
+                    long sum = 0;
+                    for (TxnFork<Long> fork : forks) {
+                        sum += fork.join();
+                    }
+                    result.set(tx, sum);
+                }
+            };
+
+            for (long k = 0; k < _transactionsPerThread; k++) {
+                executor.execute(callable);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.TestThread;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.collections.NaiveTxnLinkedList;
+import org.multiverse.stms.gamma.GammaStm;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.benchy.BenchyUtils.format;
+import static org.multiverse.TestUtils.joinAll;
+import static org.multiverse.TestUtils.startAll;
+
+/**
+ * Measures the cost of waking up the consumers of a queue. A number of producers put items on a queue and a number of
+ * consumers take them. If handoff is true, an item put only wakes up a single waiting consumer. Otherwise every put
+ * wakes up all waiting consumers, while only one of them can take the item.
+ */
+public class HandoffQueueDriver extends BenchmarkDriver {
+
+    private int producerCount = 1;
+    private int consumerCount = 32;
+    private int capacity = 100;
+    private long itemCount = 100 * 1000;
+    private boolean handoff = true;
+
+    private GammaStm stm;
+    private NaiveTxnLinkedList<Long> queue;
+    private ProducerThread[] producers;
+    private ConsumerThread[] consumers;
+    private final AtomicLong consumerAttempts = new AtomicLong();
+    private long durationMs;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Producer count %s\n", producerCount);
+        System.out.printf("Multiverse > Consumer count %s\n", consumerCount);
+        System.out.printf("Multiverse > Capacity %s\n", capacity);
+        System.out.printf("Multiverse > Item count %s\n", itemCount);
+        System.out.printf("Multiverse > Handoff %s\n", handoff);
+
+        stm = new GammaStm();
+        queue = new NaiveTxnLinkedList<Long>(stm, capacity, handoff);
+
+        producers = new ProducerThread[producerCount];
+        for (int k = 0; k < producers.length; k++) {
+            producers[k] = new ProducerThread(k, itemCount / producerCount);
+        }
+
+        consumers = new ConsumerThread[consumerCount];
+        for (int k = 0; k < consumers.length; k++) {
+            consumers[k] = new ConsumerThread(k, itemCount / consumerCount);
+        }
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        long startMs = System.currentTimeMillis();
+        startAll(consumers);
+        startAll(producers);
+        joinAll(producers);
+        joinAll(consumers);
+        durationMs = System.currentTimeMillis() - startMs;
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long transferred = (itemCount / consumerCount) * consumerCount;
+        double transfersPerSecond = (1000d * transferred) / durationMs;
+        double attemptsPerTake = (1d * consumerAttempts.get()) / transferred;
+        System.out.printf("Multiverse > Performance %s transfers/second\n", format(transfersPerSecond));
+        System.out.printf("Multiverse > Consumer attempts per take %s\n", format(attemptsPerTake));
+
+        testCaseResult.put("transfersPerSecond", transfersPerSecond);
+        testCaseResult.put("attemptsPerTake", attemptsPerTake);
+    }
+
+    private TxnExecutor newTxnExecutor() {
+        return stm.newTxnFactoryBuilder()
+                .setSpeculative(false)
+                .setMaxRetries(Integer.MAX_VALUE)
+                .newTxnExecutor();
+    }
+
+    class ProducerThread extends TestThread {
+        private final long count;
+
+        public ProducerThread(int id, long count) {
+            super("ProducerThread-" + id);
+            this.count = count;
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final TxnExecutor executor = newTxnExecutor();
+            final long[] item = new long[1];
+            final TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    queue.put(tx, item[0]);
+                }
+            };
+
+            for (long k = 0; k < count; k++) {
+                item[0] = k;
+                executor.execute(callable);
+            }
+        }
+    }
+
+    class ConsumerThread extends TestThread {
+        private final long count;
+
+        public ConsumerThread(int id, long count) {
+            super("ConsumerThread-" + id);
+            this.count = count;
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final TxnExecutor executor = newTxnExecutor();
+            final TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    consumerAttempts.incrementAndGet();
+                    queue.take(tx);
+                }
+            };
+
+            for (long k = 0; k < count; k++) {
+                executor.execute(callable);
+            }
+        }
+    }
+}
@@ -5,9 +5,16 @@ import org.junit.Before;
 import org.junit.Test;
 import org.multiverse.stms.gamma.GammaConstants;
 import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnBoolean;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnDouble;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnInteger;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
 import org.multiverse.stms.gamma.transactionalobjects.GammaTxnRef;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
 import org.multiverse.stms.gamma.transactions.lean.LeanFixedLengthGammaTxn;
 
+import static org.multiverse.stms.gamma.GammaStmUtils.doubleAsLong;
+
 public class LeanFixedLengthGammaBenchmark implements GammaConstants {
 
     private GammaStm stm;
@@ -94,4 +101,118 @@ public class LeanFixedLengthGammaBenchmark implements GammaConstants {
 
         System.out.println(ref1.toDebugString());
     }
+
+    @Test
+    public void testReadLong2() {
+        final long txCount = 1000 * 1000 * 1000;
+        GammaTxnLong ref1 = new GammaTxnLong(stm);
+        GammaTxnLong ref2 = new GammaTxnLong(stm);
+        LeanFixedLengthGammaTxn tx = new LeanFixedLengthGammaTxn(stm);
+
+        long startMs = System.currentTimeMillis();
+
+        for (long k = 0; k < txCount; k++) {
+            ref1.openForRead(tx, LOCKMODE_NONE);
+            ref2.openForRead(tx, LOCKMODE_NONE);
+            tx.commit();
+            tx.hardReset();
+        }
+
+        long durationMs = System.currentTimeMillis() - startMs;
+
+        String s = BenchyUtils.operationsPerSecondPerThreadAsString(txCount, durationMs, 1);
+
+        System.out.printf("Performance is %s transactions/second/thread\n", s);
+
+
+        System.out.println(ref1.toDebugString());
+    }
+
+    @Test
+    public void testTransferLong() {
+        final long txCount = 1000 * 1000 * 1000;
+        GammaTxnLong ref1 = new GammaTxnLong(stm);
+        GammaTxnLong ref2 = new GammaTxnLong(stm);
+        LeanFixedLengthGammaTxn tx = new LeanFixedLengthGammaTxn(stm);
+
+        long startMs = System.currentTimeMillis();
+
+        for (long k = 0; k < txCount; k++) {
+            ref1.openForWrite(tx, LOCKMODE_NONE).long_value--;
+            ref2.openForWrite(tx, LOCKMODE_NONE).long_value++;
+            tx.commit();
+            tx.hardReset();
+        }
+
+        long durationMs = System.currentTimeMillis() - startMs;
+
+        String s = BenchyUtils.operationsPerSecondPerThreadAsString(txCount, durationMs, 1);
+
+        System.out.printf("Performance is %s transactions/second/thread\n", s);
+
+
+        System.out.println(ref1.toDebugString());
+    }
+
+    @Test
+    public void testWriteMixed() {
+        final long txCount = 1000 * 1000 * 1000;
+        GammaTxnInteger ref1 = new GammaTxnInteger(stm);
+        GammaTxnBoolean ref2 = new GammaTxnBoolean(stm);
+        GammaTxnDouble ref3 = new GammaTxnDouble(stm);
+        GammaTxnRef<String> ref4 = new GammaTxnRef<String>(stm);
+        LeanFixedLengthGammaTxn tx = new LeanFixedLengthGammaTxn(stm);
+
+        long startMs = System.currentTimeMillis();
+
+        for (long k = 0; k < txCount; k++) {
+            ref1.openForWrite(tx, LOCKMODE_NONE).long_value++;
+            ref2.openForWrite(tx, LOCKMODE_NONE).long_value = k & 1;
+            ref3.openForWrite(tx, LOCKMODE_NONE).long_value = doubleAsLong(k);
+            ref4.openForWrite(tx, LOCKMODE_NONE).ref_value = "foo";
+            tx.commit();
+            tx.hardReset();
+        }
+
+        long durationMs = System.currentTimeMillis() - startMs;
+
+        String s = BenchyUtils.operationsPerSecondPerThreadAsString(txCount, durationMs, 1);
+
+        System.out.printf("Performance is %s transactions/second/thread\n", s);
+
+
+        System.out.println(ref1.toDebugString());
+    }
+
+    @Test
+    public void testUpdateLong2To20() {
+        for (int refCount = 2; refCount <= 20; refCount++) {
+            updateLong(refCount);
+        }
+    }
+
+    private void updateLong(int refCount) {
+        final long txCount = 1000 * 1000 * 100;
+        GammaTxnLong[] refs = new GammaTxnLong[refCount];
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = new GammaTxnLong(stm);
+        }
+        LeanFixedLengthGammaTxn tx = new LeanFixedLengthGammaTxn(new GammaTxnConfig(stm, refCount));
+
+        long startMs = System.currentTimeMillis();
+
+        for (long k = 0; k < txCount; k++) {
+            for (int l = 0; l < refs.length; l++) {
+                refs[l].openForWrite(tx, LOCKMODE_NONE).long_value++;
+            }
+            tx.commit();
+            tx.hardReset();
+        }
+
+        long durationMs = System.currentTimeMillis() - startMs;
+
+        String s = BenchyUtils.operationsPerSecondPerThreadAsString(txCount, durationMs, 1);
+
+        System.out.printf("Performance with %s refs is %s transactions/second/thread\n", refCount, s);
+    }
 }
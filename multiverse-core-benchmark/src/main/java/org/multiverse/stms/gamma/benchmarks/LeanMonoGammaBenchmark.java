@@ -5,9 +5,15 @@ import org.junit.Before;
 import org.junit.Test;
 import org.multiverse.stms.gamma.GammaConstants;
 import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnBoolean;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnDouble;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnInteger;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
 import org.multiverse.stms.gamma.transactionalobjects.GammaTxnRef;
 import org.multiverse.stms.gamma.transactions.lean.LeanMonoGammaTxn;
 
+import static org.multiverse.stms.gamma.GammaStmUtils.doubleAsLong;
+
 public class LeanMonoGammaBenchmark implements GammaConstants {
 
     private GammaStm stm;
@@ -60,4 +66,114 @@ public class LeanMonoGammaBenchmark implements GammaConstants {
         System.out.printf("Performance is %s transactions/second/thread\n", s);
         System.out.println(ref1.toDebugString());
     }
+
+    @Test
+    public void testReadLong() {
+        final long txCount = 5L * 1000 * 1000 * 1000;
+        final GammaTxnLong ref1 = new GammaTxnLong(stm);
+        final LeanMonoGammaTxn tx = new LeanMonoGammaTxn(stm);
+
+        final long startMs = System.currentTimeMillis();
+
+        for (long k = 0; k < txCount; k++) {
+            ref1.openForRead(tx, LOCKMODE_NONE);
+            tx.commit();
+            tx.hardReset();
+        }
+
+        long durationMs = System.currentTimeMillis() - startMs;
+
+        String s = BenchyUtils.operationsPerSecondPerThreadAsString(txCount, durationMs, 1);
+
+        System.out.printf("Performance is %s transactions/second/thread\n", s);
+        System.out.println(ref1.toDebugString());
+    }
+
+    @Test
+    public void testWriteLong() {
+        final long txCount = 1L * 1000 * 1000 * 1000;
+        final GammaTxnLong ref1 = new GammaTxnLong(stm);
+        final LeanMonoGammaTxn tx = new LeanMonoGammaTxn(stm);
+
+        final long startMs = System.currentTimeMillis();
+
+        for (long k = 0; k < txCount; k++) {
+            ref1.openForWrite(tx, LOCKMODE_NONE).long_value++;
+            tx.commit();
+            tx.hardReset();
+        }
+
+        long durationMs = System.currentTimeMillis() - startMs;
+
+        String s = BenchyUtils.operationsPerSecondPerThreadAsString(txCount, durationMs, 1);
+
+        System.out.printf("Performance is %s transactions/second/thread\n", s);
+        System.out.println(ref1.toDebugString());
+    }
+
+    @Test
+    public void testWriteInteger() {
+        final long txCount = 1L * 1000 * 1000 * 1000;
+        final GammaTxnInteger ref1 = new GammaTxnInteger(stm);
+        final LeanMonoGammaTxn tx = new LeanMonoGammaTxn(stm);
+
+        final long startMs = System.currentTimeMillis();
+
+        for (long k = 0; k < txCount; k++) {
+            ref1.openForWrite(tx, LOCKMODE_NONE).long_value++;
+            tx.commit();
+            tx.hardReset();
+        }
+
+        long durationMs = System.currentTimeMillis() - startMs;
+
+        String s = BenchyUtils.operationsPerSecondPerThreadAsString(txCount, durationMs, 1);
+
+        System.out.printf("Performance is %s transactions/second/thread\n", s);
+        System.out.println(ref1.toDebugString());
+    }
+
+    @Test
+    public void testWriteBoolean() {
+        final long txCount = 1L * 1000 * 1000 * 1000;
+        final GammaTxnBoolean ref1 = new GammaTxnBoolean(stm);
+        final LeanMonoGammaTxn tx = new LeanMonoGammaTxn(stm);
+
+        final long startMs = System.currentTimeMillis();
+
+        for (long k = 0; k < txCount; k++) {
+            ref1.openForWrite(tx, LOCKMODE_NONE).long_value = k & 1;
+            tx.commit();
+            tx.hardReset();
+        }
+
+        long durationMs = System.currentTimeMillis() - startMs;
+
+        String s = BenchyUtils.operationsPerSecondPerThreadAsString(txCount, durationMs, 1);
+
+        System.out.printf("Performance is %s transactions/second/thread\n", s);
+        System.out.println(ref1.toDebugString());
+    }
+
+    @Test
+    public void testWriteDouble() {
+        final long txCount = 1L * 1000 * 1000 * 1000;
+        final GammaTxnDouble ref1 = new GammaTxnDouble(stm);
+        final LeanMonoGammaTxn tx = new LeanMonoGammaTxn(stm);
+
+        final long startMs = System.currentTimeMillis();
+
+        for (long k = 0; k < txCount; k++) {
+            ref1.openForWrite(tx, LOCKMODE_NONE).long_value = doubleAsLong(k);
+            tx.commit();
+            tx.hardReset();
+        }
+
+        long durationMs = System.currentTimeMillis() - startMs;
+
+        String s = BenchyUtils.operationsPerSecondPerThreadAsString(txCount, durationMs, 1);
+
+        System.out.printf("Performance is %s transactions/second/thread\n", s);
+        System.out.println(ref1.toDebugString());
+    }
 }
@@ -5,9 +5,12 @@ import org.benchy.TestCaseResult;
 import org.multiverse.TestThread;
 import org.multiverse.stms.gamma.GammaConstants;
 import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
 import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
 import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
 import org.multiverse.stms.gamma.transactions.fat.FatFixedLengthGammaTxn;
+import org.multiverse.stms.gamma.transactions.lean.LeanFixedLengthGammaTxn;
 
 import static org.benchy.BenchyUtils.format;
 import static org.multiverse.TestUtils.joinAll;
@@ -15,6 +18,10 @@ import static org.multiverse.TestUtils.startAll;
 import static org.multiverse.stms.gamma.GammaTestUtils.makeReadBiased;
 
 /**
+ * Measures the update throughput of a fixed length transaction that updates refCount refs. The transactionType is
+ * either FatFixedLength or LeanFixedLength, and linkedTranlocals selects the chain instead of the array to look up the
+ * tranlocals (see GammaStmConfig.linkedTranlocalsEnabled).
+ *
  * @author Peter Veentjer
  */
 public class MultipleUpdateDriver extends BenchmarkDriver implements GammaConstants {
@@ -24,15 +31,21 @@ public class MultipleUpdateDriver extends BenchmarkDriver implements GammaConsta
     private long transactionsPerThread;
     private int refCount;
     private int threadCount;
+    private String transactionType = "FatFixedLength";
+    private boolean linkedTranlocals = false;
     private WriteThread[] threads;
 
     @Override
     public void setUp() {
         System.out.printf("Multiverse > Multiple update transaction benchmark\n");
         System.out.printf("Multiverse > Running with %s ref per transaction\n", refCount);
+        System.out.printf("Multiverse > Transaction type is %s\n", transactionType);
+        System.out.printf("Multiverse > Linked tranlocals %s\n", linkedTranlocals);
         System.out.printf("Multiverse > %s Transactions per thread\n", format(transactionsPerThread));
 
-        stm = new GammaStm();
+        GammaStmConfig config = new GammaStmConfig();
+        config.linkedTranlocalsEnabled = linkedTranlocals;
+        stm = new GammaStm(config);
         threads = new WriteThread[threadCount];
 
         for (int k = 0; k < threads.length; k++) {
@@ -40,6 +53,16 @@ public class MultipleUpdateDriver extends BenchmarkDriver implements GammaConsta
         }
     }
 
+    private GammaTxn newTransaction(GammaTxnConfig config) {
+        if (transactionType.equals("FatFixedLength")) {
+            return new FatFixedLengthGammaTxn(config);
+        } else if (transactionType.equals("LeanFixedLength")) {
+            return new LeanFixedLengthGammaTxn(config);
+        } else {
+            throw new IllegalStateException("Unknown transactionType " + transactionType);
+        }
+    }
+
     @Override
     public void processResults(TestCaseResult testCaseResult) {
         long totalDurationMs = 0;
@@ -86,7 +109,7 @@ public class MultipleUpdateDriver extends BenchmarkDriver implements GammaConsta
 
             GammaTxnConfig config = new GammaTxnConfig(stm, refs.length);
 
-            FatFixedLengthGammaTxn tx = new FatFixedLengthGammaTxn(config);
+            GammaTxn tx = newTransaction(config);
 
             long startMs = System.currentTimeMillis();
 
@@ -0,0 +1,104 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.TestThread;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaTxnRefFactory;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+
+import static org.benchy.BenchyUtils.format;
+import static org.multiverse.TestUtils.joinAll;
+import static org.multiverse.TestUtils.startAll;
+
+/**
+ * Like the {@link ContendedCounterDriver}, but every thread increments its own counter. The counters are created
+ * right after each other, so without padding they end up on the same cache lines and the threads still contend
+ * (false sharing) even though they never conflict.
+ */
+public class PaddedCounterDriver extends BenchmarkDriver {
+
+    private int threadCount;
+    private long transactionsPerThread;
+    private boolean padded;
+    private GammaStm stm;
+    private GammaTxnLong[] refs;
+    private IncThread[] threads;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Thread count %s\n", threadCount);
+        System.out.printf("Multiverse > Transactions per thread %s\n", transactionsPerThread);
+        System.out.printf("Multiverse > Padded %s \n", padded);
+
+        stm = new GammaStm();
+        GammaTxnRefFactory refFactory = stm.getTxRefFactoryBuilder()
+                .setPadded(padded)
+                .build();
+        refs = new GammaTxnLong[threadCount];
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = refFactory.newTxnLong(0);
+        }
+
+        threads = new IncThread[threadCount];
+        for (int k = 0; k < threads.length; k++) {
+            threads[k] = new IncThread(k);
+        }
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        startAll(threads);
+        joinAll(threads);
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long totalDurationMs = 0;
+        for (IncThread t : threads) {
+            totalDurationMs += t.getDurationMs();
+        }
+
+        double transactionsPerSecondPerThread = BenchmarkUtils.transactionsPerSecondPerThread(
+                transactionsPerThread, totalDurationMs, threadCount);
+        double transactionsPerSecond = BenchmarkUtils.transactionsPerSecond(
+                transactionsPerThread, totalDurationMs, threadCount);
+        System.out.printf("Multiverse > Performance %s transactions/second/thread with %s threads\n",
+                format(transactionsPerSecondPerThread), threadCount);
+        System.out.printf("Multiverse > Performance %s transactions/second with %s threads\n",
+                format(transactionsPerSecond), threadCount);
+
+        testCaseResult.put("transactionsPerSecondPerThread", transactionsPerSecondPerThread);
+        testCaseResult.put("transactionsPerSecond", transactionsPerSecond);
+    }
+
+    class IncThread extends TestThread {
+        private final GammaTxnLong ref;
+
+        public IncThread(int id) {
+            super("IncThread-" + id);
+            this.ref = refs[id];
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final long _incCount = transactionsPerThread;
+            final GammaTxnLong _ref = ref;
+            TxnExecutor executor = stm.newTxnFactoryBuilder()
+                    .newTxnExecutor();
+            TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    _ref.increment(tx);
+                }
+            };
+
+            for (long k = 0; k < _incCount; k++) {
+                executor.execute(callable);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.TestThread;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.benchy.BenchyUtils.format;
+import static org.multiverse.TestUtils.joinAll;
+import static org.multiverse.TestUtils.startAll;
+import static org.multiverse.api.predicates.LongPredicate.newLargerThanOrEqualsPredicate;
+
+/**
+ * Measures the cost of waking up transactions that wait for a different value of the same ref. A number of waiters
+ * each wait, using an await with a predicate, for their own turn of a counter that is increased by a single thread.
+ * So every increment is interesting for only one of the waiters. If filtered is true, the committing thread only wakes
+ * up the waiter of which the predicate matches. Otherwise the waiters read the counter before doing the await, so
+ * every increment wakes up all waiters.
+ */
+public class PredicateWakeupDriver extends BenchmarkDriver {
+
+    private int waiterCount = 100;
+    private long incrementCount = 100 * 1000;
+    private boolean filtered = true;
+
+    private GammaStm stm;
+    private GammaTxnLong counter;
+    private WaiterThread[] waiters;
+    private IncrementThread incrementThread;
+    private final AtomicLong attempts = new AtomicLong();
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Waiter count %s\n", waiterCount);
+        System.out.printf("Multiverse > Increment count %s\n", incrementCount);
+        System.out.printf("Multiverse > Filtered %s\n", filtered);
+
+        stm = new GammaStm();
+        counter = new GammaTxnLong(stm);
+
+        waiters = new WaiterThread[waiterCount];
+        for (int k = 0; k < waiters.length; k++) {
+            waiters[k] = new WaiterThread(k);
+        }
+        incrementThread = new IncrementThread();
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        startAll(waiters);
+        startAll(incrementThread);
+        joinAll(incrementThread);
+        joinAll(waiters);
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long durationMs = incrementThread.durationMs;
+        double incrementsPerSecond = (1000d * incrementCount) / durationMs;
+        double attemptsPerIncrement = (1d * attempts.get()) / incrementCount;
+        System.out.printf("Multiverse > Performance %s increments/second\n", format(incrementsPerSecond));
+        System.out.printf("Multiverse > Waiter attempts per increment %s\n", format(attemptsPerIncrement));
+
+        testCaseResult.put("incrementsPerSecond", incrementsPerSecond);
+        testCaseResult.put("attemptsPerIncrement", attemptsPerIncrement);
+    }
+
+    class IncrementThread extends TestThread {
+        private long durationMs;
+
+        public IncrementThread() {
+            super("IncrementThread");
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final long _incrementCount = incrementCount;
+            long startMs = System.currentTimeMillis();
+            for (long k = 0; k < _incrementCount; k++) {
+                counter.atomicIncrementAndGet(1);
+                //gives the woken up waiters a chance to run, otherwise the counter is increased without them.
+                Thread.yield();
+            }
+            durationMs = System.currentTimeMillis() - startMs;
+        }
+    }
+
+    class WaiterThread extends TestThread {
+        private final int id;
+        private long minimum;
+
+        public WaiterThread(int id) {
+            super("WaiterThread-" + id);
+            this.id = id;
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final TxnExecutor executor = stm.newTxnFactoryBuilder()
+                    .setSpeculative(false)
+                    .setMaxRetries(Integer.MAX_VALUE)
+                    .newTxnExecutor();
+
+            final boolean _filtered = filtered;
+            final TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    attempts.incrementAndGet();
+                    if (!_filtered) {
+                        counter.get(tx);
+                    }
+                    counter.await(tx, newLargerThanOrEqualsPredicate(minimum));
+                }
+            };
+
+            for (minimum = id + 1; minimum <= incrementCount; minimum += waiterCount) {
+                executor.execute(callable);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.TestThread;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.LeanGammaTxnExecutor;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxnFactory;
+
+import static org.benchy.BenchyUtils.format;
+import static org.multiverse.TestUtils.joinAll;
+import static org.multiverse.TestUtils.startAll;
+
+/**
+ * Compares the read validation engines for large read mostly transactions:
+ * <ol>
+ * <li>poormans: a full conflict scan on every read</li>
+ * <li>richmans: arrive/depart and a full conflict scan when the GlobalConflictCounter changes</li>
+ * <li>globalclock: TL2 style validation using the GlobalCommitClock</li>
+ * </ol>
+ * Every reader reads all refs, and a single writer updates one of the refs in a loop.
+ */
+public class ReadValidationDriver extends BenchmarkDriver {
+
+    private int threadCount;
+    private int refCount = 256;
+    private String validation = "richmans";
+    private long transactionsPerThread;
+    private GammaStm stm;
+    private GammaTxnLong[] refs;
+    private ReadThread[] threads;
+    private WriteThread writeThread;
+    private volatile boolean stop;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Thread count %s\n", threadCount);
+        System.out.printf("Multiverse > Ref count %s\n", refCount);
+        System.out.printf("Multiverse > Validation %s\n", validation);
+        System.out.printf("Multiverse > Transactions per thread %s\n", transactionsPerThread);
+
+        GammaStmConfig config = new GammaStmConfig();
+        config.globalCommitClockEnabled = validation.equals("globalclock");
+        stm = new GammaStm(config);
+
+        refs = new GammaTxnLong[refCount];
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = stm.getDefaultRefFactory().newTxnLong(0);
+        }
+
+        threads = new ReadThread[threadCount];
+        for (int k = 0; k < threads.length; k++) {
+            threads[k] = new ReadThread(k);
+        }
+        writeThread = new WriteThread();
+        stop = false;
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        startAll(writeThread);
+        startAll(threads);
+        joinAll(threads);
+        stop = true;
+        joinAll(writeThread);
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long totalDurationMs = 0;
+        for (ReadThread t : threads) {
+            totalDurationMs += t.getDurationMs();
+        }
+
+        double transactionsPerSecondPerThread = BenchmarkUtils.transactionsPerSecondPerThread(
+                transactionsPerThread, totalDurationMs, threadCount);
+        double transactionsPerSecond = BenchmarkUtils.transactionsPerSecond(
+                transactionsPerThread, totalDurationMs, threadCount);
+        System.out.printf("Multiverse > Performance %s transactions/second/thread with %s threads\n",
+                format(transactionsPerSecondPerThread), threadCount);
+        System.out.printf("Multiverse > Performance %s transactions/second with %s threads\n",
+                format(transactionsPerSecond), threadCount);
+
+        testCaseResult.put("transactionsPerSecondPerThread", transactionsPerSecondPerThread);
+        testCaseResult.put("transactionsPerSecond", transactionsPerSecond);
+    }
+
+    private TxnExecutor newExecutor() {
+        GammaTxnConfig config = new GammaTxnConfig(stm)
+                .setSpeculative(false)
+                .setMaximumPoorMansConflictScanLength(validation.equals("poormans") ? Integer.MAX_VALUE : 0);
+        return new LeanGammaTxnExecutor(new FatVariableLengthGammaTxnFactory(config));
+    }
+
+    class WriteThread extends TestThread {
+
+        public WriteThread() {
+            super("WriteThread");
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            TxnExecutor executor = newExecutor();
+            TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    refs[refs.length - 1].increment((GammaTxn) tx);
+                }
+            };
+
+            while (!stop) {
+                executor.execute(callable);
+            }
+        }
+    }
+
+    class ReadThread extends TestThread {
+
+        public ReadThread(int id) {
+            super("ReadThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final long _transactionsPerThread = transactionsPerThread;
+            final GammaTxnLong[] _refs = refs;
+            TxnExecutor executor = newExecutor();
+            TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    GammaTxn btx = (GammaTxn) tx;
+                    for (int k = 0; k < _refs.length; k++) {
+                        _refs[k].get(btx);
+                    }
+                }
+            };
+
+            for (long k = 0; k < _transactionsPerThread; k++) {
+                executor.execute(callable);
+            }
+        }
+    }
+}
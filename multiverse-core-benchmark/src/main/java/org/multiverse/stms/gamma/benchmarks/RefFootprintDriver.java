@@ -0,0 +1,82 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaTxnRefFactory;
+
+import static org.benchy.BenchyUtils.format;
+
+/**
+ * Measures the number of bytes a ref of the given refType (Long, Integer, Boolean, Double or Ref) takes on the heap.
+ * The footprint is determined by looking at the growth of the heap after creating refCount refs, so run it with a
+ * fixed heap size to get stable numbers.
+ */
+public class RefFootprintDriver extends BenchmarkDriver {
+
+    private String refType = "Long";
+    private int refCount = 1000 * 1000;
+    private boolean padded = false;
+
+    private GammaStm stm;
+    private GammaTxnRefFactory refFactory;
+    private double bytesPerRef;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Ref type is %s\n", refType);
+        System.out.printf("Multiverse > Ref count is %s\n", refCount);
+        System.out.printf("Multiverse > Padded %s\n", padded);
+
+        stm = new GammaStm();
+        refFactory = stm.getTxRefFactoryBuilder()
+                .setPadded(padded)
+                .build();
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        final Runtime runtime = Runtime.getRuntime();
+        final Object[] refs = new Object[refCount];
+
+        long usedBefore = usedMemory(runtime);
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = newRef();
+        }
+        long usedAfter = usedMemory(runtime);
+
+        //the array is used after the measurement, so the refs can't be collected before it is done.
+        System.out.printf("Multiverse > Measured the footprint of %s refs\n", refs.length);
+        bytesPerRef = (usedAfter - usedBefore) / (double) refs.length;
+    }
+
+    private Object newRef() {
+        if (refType.equals("Long")) {
+            return refFactory.newTxnLong(0);
+        } else if (refType.equals("Integer")) {
+            return refFactory.newTxnInteger(0);
+        } else if (refType.equals("Boolean")) {
+            return refFactory.newTxnBoolean(false);
+        } else if (refType.equals("Double")) {
+            return refFactory.newTxnDouble(0);
+        } else if (refType.equals("Ref")) {
+            return refFactory.newTxnRef(null);
+        } else {
+            throw new IllegalStateException("Unknown refType " + refType);
+        }
+    }
+
+    private static long usedMemory(Runtime runtime) {
+        for (int k = 0; k < 5; k++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        System.out.printf("Multiverse > Footprint %s bytes/ref for %s\n", format(bytesPerRef), refType);
+
+        testCaseResult.put("bytesPerRef", bytesPerRef);
+    }
+}
@@ -0,0 +1,108 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.TestThread;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+
+import static org.benchy.BenchyUtils.format;
+import static org.multiverse.TestUtils.joinAll;
+import static org.multiverse.TestUtils.startAll;
+
+/**
+ * Measures the wake-up latency of a blocking transaction. Two threads pass a token back and forth using a single
+ * ref; a thread that doesn't own the token blocks with a retry until the other thread hands it over. So every
+ * handover includes a wake-up of a thread waiting on a RetryLatch. If parkingRetryLatch is true, the
+ * {@link org.multiverse.api.blocking.ParkingRetryLatch} is used, otherwise the
+ * {@link org.multiverse.api.blocking.DefaultRetryLatch}.
+ */
+public class RetryLatchPingPongDriver extends BenchmarkDriver {
+
+    private long roundTrips = 1000 * 1000;
+    private boolean parkingRetryLatch = false;
+
+    private GammaStm stm;
+    private GammaTxnLong token;
+    private PingPongThread[] threads;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Round trips %s\n", roundTrips);
+        System.out.printf("Multiverse > Parking retry latch %s\n", parkingRetryLatch);
+
+        GammaStmConfig config = new GammaStmConfig();
+        config.parkingRetryLatchEnabled = parkingRetryLatch;
+        stm = new GammaStm(config);
+        token = new GammaTxnLong(stm);
+
+        threads = new PingPongThread[2];
+        for (int k = 0; k < threads.length; k++) {
+            threads[k] = new PingPongThread(k);
+        }
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        startAll(threads);
+        joinAll(threads);
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long durationMs = 0;
+        for (PingPongThread t : threads) {
+            durationMs = Math.max(durationMs, t.durationMs);
+        }
+
+        double roundTripsPerSecond = (1000d * roundTrips) / durationMs;
+        double latencyNs = (1000d * 1000 * durationMs) / (2 * roundTrips);
+        System.out.printf("Multiverse > Performance %s round trips/second\n", format(roundTripsPerSecond));
+        System.out.printf("Multiverse > Wake-up latency %s ns\n", format(latencyNs));
+
+        testCaseResult.put("roundTripsPerSecond", roundTripsPerSecond);
+        testCaseResult.put("latencyNs", latencyNs);
+    }
+
+    class PingPongThread extends TestThread {
+        private final int id;
+        private long durationMs;
+
+        public PingPongThread(int id) {
+            super("PingPongThread-" + id);
+            this.id = id;
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final TxnExecutor executor = stm.newTxnFactoryBuilder()
+                    .setSpeculative(false)
+                    .setMaxRetries(Integer.MAX_VALUE)
+                    .newTxnExecutor();
+
+            final TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    final long value = token.get(tx);
+                    if (value % 2 != id) {
+                        tx.retry();
+                    }
+                    token.set(tx, value + 1);
+                }
+            };
+
+            final long _roundTrips = roundTrips;
+            long startMs = System.currentTimeMillis();
+            for (long k = 0; k < _roundTrips; k++) {
+                executor.execute(callable);
+            }
+            durationMs = System.currentTimeMillis() - startMs;
+
+            System.out.printf("Multiverse > %s is finished in %s ms\n", getName(), durationMs);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.TestThread;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.fat.FatFixedLengthGammaTxn;
+import org.multiverse.stms.gamma.transactions.fat.FatMonoGammaTxn;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
+import org.multiverse.stms.gamma.transactions.lean.LeanFixedLengthGammaTxn;
+import org.multiverse.stms.gamma.transactions.lean.LeanMonoGammaTxn;
+
+import static org.benchy.BenchyUtils.format;
+import static org.multiverse.TestUtils.joinAll;
+import static org.multiverse.TestUtils.startAll;
+
+/**
+ * Measures the read throughput of readonly transactions with and without the seqlock (see
+ * GammaStmConfig.seqLockEnabled). All threads read the same refs, so the refs are shared in the caches of all
+ * processors. The transactionType is one of LeanMono, LeanFixedLength, FatMono, FatFixedLength or
+ * FatVariableLength; for the mono transactions the refCount needs to be 1.
+ */
+public class SeqLockReadDriver extends BenchmarkDriver implements GammaConstants {
+
+    private int threadCount = 1;
+    private long transactionsPerThread = 1000 * 1000 * 100;
+    private int refCount = 1;
+    private boolean seqLockEnabled = false;
+    private String transactionType = "FatMono";
+
+    private GammaStm stm;
+    private GammaTxnLong[] refs;
+    private ReadThread[] threads;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Thread count is %s\n", threadCount);
+        System.out.printf("Multiverse > Transactions/thread is %s\n", transactionsPerThread);
+        System.out.printf("Multiverse > Ref count is %s\n", refCount);
+        System.out.printf("Multiverse > SeqLock enabled is %s\n", seqLockEnabled);
+        System.out.printf("Multiverse > Transaction type is %s\n", transactionType);
+
+        GammaStmConfig config = new GammaStmConfig();
+        config.seqLockEnabled = seqLockEnabled;
+        stm = new GammaStm(config);
+
+        refs = new GammaTxnLong[refCount];
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = new GammaTxnLong(stm);
+        }
+
+        threads = new ReadThread[threadCount];
+        for (int k = 0; k < threads.length; k++) {
+            threads[k] = new ReadThread(k);
+        }
+    }
+
+    private GammaTxn newTransaction() {
+        GammaTxnConfig config = new GammaTxnConfig(stm, refCount)
+                .setReadonly(true)
+                .setDirtyCheckEnabled(false);
+
+        if (transactionType.equals("LeanMono")) {
+            return new LeanMonoGammaTxn(config);
+        } else if (transactionType.equals("LeanFixedLength")) {
+            return new LeanFixedLengthGammaTxn(config);
+        } else if (transactionType.equals("FatMono")) {
+            return new FatMonoGammaTxn(config);
+        } else if (transactionType.equals("FatFixedLength")) {
+            return new FatFixedLengthGammaTxn(config);
+        } else if (transactionType.equals("FatVariableLength")) {
+            return new FatVariableLengthGammaTxn(config);
+        } else {
+            throw new IllegalStateException("Unknown transactionType " + transactionType);
+        }
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        startAll(threads);
+        joinAll(threads);
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long totalDurationMs = 0;
+        for (ReadThread t : threads) {
+            totalDurationMs += t.durationMs;
+        }
+
+        double transactionsPerSecondPerThread = BenchmarkUtils.transactionsPerSecondPerThread(
+                transactionsPerThread, totalDurationMs, threadCount);
+        double transactionsPerSecond = BenchmarkUtils.transactionsPerSecond(
+                transactionsPerThread, totalDurationMs, threadCount);
+        System.out.printf("Multiverse > Performance %s transactions/second/thread with %s threads\n",
+                format(transactionsPerSecondPerThread), threadCount);
+        System.out.printf("Multiverse > Performance %s transactions/second with %s threads\n",
+                format(transactionsPerSecond), threadCount);
+
+        testCaseResult.put("transactionsPerSecondPerThread", transactionsPerSecondPerThread);
+        testCaseResult.put("transactionsPerSecond", transactionsPerSecond);
+    }
+
+    class ReadThread extends TestThread {
+        private long durationMs;
+
+        public ReadThread(int id) {
+            super("ReadThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final long _transactionsPerThread = transactionsPerThread;
+            final GammaTxnLong[] _refs = refs;
+            final GammaTxn tx = newTransaction();
+
+            long startMs = System.currentTimeMillis();
+            for (long k = 0; k < _transactionsPerThread; k++) {
+                for (int l = 0; l < _refs.length; l++) {
+                    _refs[l].openForRead(tx, LOCKMODE_NONE);
+                }
+                tx.commit();
+                tx.hardReset();
+            }
+
+            durationMs = System.currentTimeMillis() - startMs;
+            System.out.printf("Multiverse > %s is finished in %s ms\n", getName(), durationMs);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.TestThread;
+import org.multiverse.api.Txn;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaTxnExecutor;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+
+import static org.benchy.BenchyUtils.format;
+import static org.multiverse.TestUtils.joinAll;
+import static org.multiverse.TestUtils.startAll;
+
+/**
+ * Measures the effect of the speculative re-learning on a transaction family that only needs an expensive
+ * transaction during warm up. Every thread first executes a single transaction that updates warmupRefCount refs, so
+ * the family is upgraded to a variable length transaction, and then executes transactions that update a single ref.
+ * With a relearnInterval of 0 the family keeps using the variable length transaction, else it should be downgraded to
+ * a lean mono transaction again.
+ */
+public class SpeculativeRelearnDriver extends BenchmarkDriver {
+
+    private int threadCount = 1;
+    private int relearnInterval = 100000;
+    private int warmupRefCount = 100;
+    private long transactionsPerThread;
+    private GammaStm stm;
+    private GammaTxnExecutor executor;
+    private GammaTxnLong[] warmupRefs;
+    private WorkerThread[] threads;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Thread count %s\n", threadCount);
+        System.out.printf("Multiverse > Relearn interval %s\n", relearnInterval);
+        System.out.printf("Multiverse > Warmup ref count %s\n", warmupRefCount);
+        System.out.printf("Multiverse > Transactions per thread %s\n", transactionsPerThread);
+
+        stm = new GammaStm();
+        warmupRefs = new GammaTxnLong[warmupRefCount];
+        for (int k = 0; k < warmupRefs.length; k++) {
+            warmupRefs[k] = stm.getDefaultRefFactory().newTxnLong(0);
+        }
+
+        executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(true)
+                .setDirtyCheckEnabled(false)
+                .setSpeculativeRelearnInterval(relearnInterval)
+                .setFamilyName("SpeculativeRelearnDriver")
+                .newTxnExecutor();
+
+        threads = new WorkerThread[threadCount];
+        for (int k = 0; k < threads.length; k++) {
+            threads[k] = new WorkerThread(k);
+        }
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        startAll(threads);
+        joinAll(threads);
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long totalDurationMs = 0;
+        for (WorkerThread t : threads) {
+            totalDurationMs += t.getDurationMs();
+        }
+
+        double transactionsPerSecond = BenchmarkUtils.transactionsPerSecond(
+                transactionsPerThread, totalDurationMs, threadCount);
+        System.out.printf("Multiverse > Performance %s transactions/second with %s threads\n",
+                format(transactionsPerSecond), threadCount);
+        System.out.printf("Multiverse > Speculative state %s\n",
+                executor.getTxnFactory().getConfig().getSpeculativeConfiguration());
+
+        testCaseResult.put("transactionsPerSecond", transactionsPerSecond);
+    }
+
+    class WorkerThread extends TestThread {
+
+        public WorkerThread(int id) {
+            super("WorkerThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final long _transactionsPerThread = transactionsPerThread;
+            final GammaTxnLong[] _warmupRefs = warmupRefs;
+            final GammaTxnLong ref = stm.getDefaultRefFactory().newTxnLong(0);
+
+            executor.execute(new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    for (GammaTxnLong warmupRef : _warmupRefs) {
+                        warmupRef.incrementAndGet(tx, 1);
+                    }
+                }
+            });
+
+            final TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    ref.incrementAndGet(tx, 1);
+                }
+            };
+
+            for (long k = 0; k < _transactionsPerThread; k++) {
+                executor.execute(callable);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.benchy.BenchyUtils.format;
+
+/**
+ * Measures the memory per thread and the throughput of a lot of short living threads that each execute a few
+ * transactions; the kind of load that is typical for virtual threads. If threadLocalContext is true, the transaction
+ * context is stored in threadlocals, so each thread gets its own pools. Otherwise the transaction is propagated
+ * explicitly and the pools are shared using stripes.
+ * <p/>
+ * The memory per thread is determined by looking at the growth of the heap when all threads have executed their
+ * transactions and are still alive, so run it with a fixed heap size to get stable numbers.
+ */
+public class ThreadLocalContextDriver extends BenchmarkDriver {
+
+    private int threadCount = 1000;
+    private int transactionsPerThread = 10;
+    private boolean threadLocalContext = true;
+
+    private GammaStm stm;
+    private GammaTxnLong[] refs;
+    private TxnExecutor executor;
+    private double bytesPerThread;
+    private long durationMs;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Thread count %s\n", threadCount);
+        System.out.printf("Multiverse > Transactions per thread %s\n", transactionsPerThread);
+        System.out.printf("Multiverse > Threadlocal context %s\n", threadLocalContext);
+
+        stm = new GammaStm();
+        refs = new GammaTxnLong[threadCount];
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = new GammaTxnLong(stm);
+        }
+        executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(false)
+                .setThreadLocalContextEnabled(threadLocalContext)
+                .newTxnExecutor();
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        final Runtime runtime = Runtime.getRuntime();
+        final CountDownLatch executed = new CountDownLatch(threadCount);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final WorkerThread[] threads = new WorkerThread[threadCount];
+        for (int k = 0; k < threads.length; k++) {
+            threads[k] = new WorkerThread(refs[k], executed, release);
+        }
+
+        long usedBefore = usedMemory(runtime);
+        long startMs = System.currentTimeMillis();
+        for (WorkerThread thread : threads) {
+            thread.start();
+        }
+
+        await(executed);
+        durationMs = System.currentTimeMillis() - startMs;
+        //all threads are still alive, so everything they store in threadlocals can't be collected.
+        long usedAfter = usedMemory(runtime);
+
+        release.countDown();
+        for (WorkerThread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        bytesPerThread = (usedAfter - usedBefore) / (double) threadCount;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static long usedMemory(Runtime runtime) {
+        for (int k = 0; k < 5; k++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long transactionCount = (long) threadCount * transactionsPerThread;
+        double transactionsPerSecond = (1000d * transactionCount) / durationMs;
+
+        System.out.printf("Multiverse > Footprint %s bytes/thread\n", format(bytesPerThread));
+        System.out.printf("Multiverse > Performance %s transactions/second\n", format(transactionsPerSecond));
+
+        testCaseResult.put("bytesPerThread", bytesPerThread);
+        testCaseResult.put("transactionsPerSecond", transactionsPerSecond);
+    }
+
+    class WorkerThread extends Thread {
+        private final GammaTxnLong ref;
+        private final CountDownLatch executed;
+        private final CountDownLatch release;
+
+        WorkerThread(GammaTxnLong ref, CountDownLatch executed, CountDownLatch release) {
+            this.ref = ref;
+            this.executed = executed;
+            this.release = release;
+        }
+
+        @Override
+        public void run() {
+            final TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    ref.incrementAndGet(tx, 1);
+                }
+            };
+
+            final int _transactionsPerThread = transactionsPerThread;
+            for (int k = 0; k < _transactionsPerThread; k++) {
+                executor.execute(callable);
+            }
+
+            executed.countDown();
+            await(release);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.TestThread;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactionalobjects.Tranlocal;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
+
+import static org.benchy.BenchyUtils.format;
+import static org.multiverse.TestUtils.joinAll;
+import static org.multiverse.TestUtils.startAll;
+
+/**
+ * Measures the footprint of a Tranlocal and the throughput of readonly FatVariableLengthGammaTxns that read refCount
+ * refs. The footprint is determined by looking at the growth of the heap after creating footprintCount tranlocals,
+ * so run it with a fixed heap size to get stable numbers.
+ */
+public class TranlocalFootprintDriver extends BenchmarkDriver implements GammaConstants {
+
+    private int threadCount = 1;
+    private long transactionsPerThread = 1000 * 1000 * 10;
+    private int refCount = 100;
+    private int footprintCount = 1000 * 1000;
+
+    private GammaStmConfig config;
+    private GammaStm stm;
+    private ReadThread[] threads;
+    private double bytesPerTranlocal;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Thread count is %s\n", threadCount);
+        System.out.printf("Multiverse > Transactions/thread is %s\n", transactionsPerThread);
+        System.out.printf("Multiverse > Ref count is %s\n", refCount);
+        System.out.printf("Multiverse > Footprint count is %s\n", footprintCount);
+
+        config = new GammaStmConfig();
+        config.maximumPoorMansConflictScanLength = Math.max(config.maximumPoorMansConflictScanLength, refCount);
+        stm = new GammaStm(config);
+
+        threads = new ReadThread[threadCount];
+        for (int k = 0; k < threads.length; k++) {
+            threads[k] = new ReadThread(k);
+        }
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        bytesPerTranlocal = measureBytesPerTranlocal();
+
+        startAll(threads);
+        joinAll(threads);
+    }
+
+    private double measureBytesPerTranlocal() {
+        final Runtime runtime = Runtime.getRuntime();
+        final Tranlocal[] tranlocals = new Tranlocal[footprintCount];
+
+        long usedBefore = usedMemory(runtime);
+        for (int k = 0; k < tranlocals.length; k++) {
+            tranlocals[k] = new Tranlocal();
+        }
+        long usedAfter = usedMemory(runtime);
+
+        //the array is used after the measurement, so the tranlocals can't be collected before it is done.
+        System.out.printf("Multiverse > Measured the footprint of %s tranlocals\n", tranlocals.length);
+        return (usedAfter - usedBefore) / (double) tranlocals.length;
+    }
+
+    private static long usedMemory(Runtime runtime) {
+        for (int k = 0; k < 5; k++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long totalDurationMs = 0;
+        for (ReadThread t : threads) {
+            totalDurationMs += t.durationMs;
+        }
+
+        double transactionsPerSecondPerThread = BenchmarkUtils.transactionsPerSecondPerThread(
+                transactionsPerThread, totalDurationMs, threadCount);
+        double readsPerSecond = BenchmarkUtils.transactionsPerSecond(
+                transactionsPerThread * refCount, totalDurationMs, threadCount);
+        System.out.printf("Multiverse > Footprint %s bytes/tranlocal\n", format(bytesPerTranlocal));
+        System.out.printf("Multiverse > Performance %s transactions/second/thread with %s refs\n",
+                format(transactionsPerSecondPerThread), refCount);
+        System.out.printf("Multiverse > Performance %s reads/second with %s refs\n",
+                format(readsPerSecond), refCount);
+
+        testCaseResult.put("bytesPerTranlocal", bytesPerTranlocal);
+        testCaseResult.put("transactionsPerSecondPerThread", transactionsPerSecondPerThread);
+        testCaseResult.put("readsPerSecond", readsPerSecond);
+    }
+
+    class ReadThread extends TestThread {
+        private long durationMs;
+
+        public ReadThread(int id) {
+            super("ReadThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final long _transactionsPerThread = transactionsPerThread;
+            final GammaTxnConfig txConfig = new GammaTxnConfig(stm, config).setReadonly(true);
+            final FatVariableLengthGammaTxn tx = new FatVariableLengthGammaTxn(txConfig);
+
+            final GammaTxnLong[] refs = new GammaTxnLong[refCount];
+            for (int k = 0; k < refs.length; k++) {
+                refs[k] = new GammaTxnLong(stm);
+            }
+
+            long sum = 0;
+            long startMs = System.currentTimeMillis();
+            for (long k = 0; k < _transactionsPerThread; k++) {
+                for (int l = 0; l < refs.length; l++) {
+                    sum += refs[l].openForRead(tx, LOCKMODE_NONE).long_value;
+                }
+                tx.commit();
+                tx.hardReset();
+            }
+
+            durationMs = System.currentTimeMillis() - startMs;
+            System.out.printf("Multiverse > %s is finished in %s ms (sum %s)\n", getName(), durationMs, sum);
+        }
+    }
+}
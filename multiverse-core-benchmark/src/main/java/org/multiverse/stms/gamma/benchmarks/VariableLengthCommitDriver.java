@@ -0,0 +1,108 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.TestThread;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
+
+import static org.benchy.BenchyUtils.format;
+import static org.multiverse.TestUtils.joinAll;
+import static org.multiverse.TestUtils.startAll;
+
+/**
+ * Measures the commit costs of a FatVariableLengthGammaTxn that touches refCount refs, while the array of the
+ * transaction has the given capacity (the capacity is used as the minimalVariableLengthTransactionSize, so the
+ * array stays that big). The commit should only depend on the refCount and not on the capacity.
+ */
+public class VariableLengthCommitDriver extends BenchmarkDriver implements GammaConstants {
+
+    private int threadCount = 1;
+    private long transactionsPerThread = 1000 * 1000 * 10;
+    private int refCount = 10;
+    private int capacity = 16;
+
+    private GammaStmConfig config;
+    private GammaStm stm;
+    private UpdateThread[] threads;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Thread count is %s\n", threadCount);
+        System.out.printf("Multiverse > Transactions/thread is %s\n", transactionsPerThread);
+        System.out.printf("Multiverse > Ref count is %s\n", refCount);
+        System.out.printf("Multiverse > Capacity is %s\n", capacity);
+
+        config = new GammaStmConfig();
+        config.minimalVariableLengthTransactionSize = capacity;
+        config.maximumPoorMansConflictScanLength = Math.max(config.maximumPoorMansConflictScanLength, refCount);
+        stm = new GammaStm(config);
+
+        threads = new UpdateThread[threadCount];
+        for (int k = 0; k < threads.length; k++) {
+            threads[k] = new UpdateThread(k);
+        }
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        startAll(threads);
+        joinAll(threads);
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long totalDurationMs = 0;
+        for (UpdateThread t : threads) {
+            totalDurationMs += t.durationMs;
+        }
+
+        double transactionsPerSecondPerThread = BenchmarkUtils.transactionsPerSecondPerThread(
+                transactionsPerThread, totalDurationMs, threadCount);
+        double transactionsPerSecond = BenchmarkUtils.transactionsPerSecond(
+                transactionsPerThread, totalDurationMs, threadCount);
+        System.out.printf("Multiverse > Performance %s transactions/second/thread with capacity %s\n",
+                format(transactionsPerSecondPerThread), capacity);
+        System.out.printf("Multiverse > Performance %s transactions/second with capacity %s\n",
+                format(transactionsPerSecond), capacity);
+
+        testCaseResult.put("transactionsPerSecondPerThread", transactionsPerSecondPerThread);
+        testCaseResult.put("transactionsPerSecond", transactionsPerSecond);
+    }
+
+    class UpdateThread extends TestThread {
+        private long durationMs;
+
+        public UpdateThread(int id) {
+            super("UpdateThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final long _transactionsPerThread = transactionsPerThread;
+            final GammaTxnLong[] refs = new GammaTxnLong[refCount];
+            for (int k = 0; k < refs.length; k++) {
+                refs[k] = new GammaTxnLong(stm);
+            }
+
+            final FatVariableLengthGammaTxn tx = new FatVariableLengthGammaTxn(
+                    new GammaTxnConfig(stm, config).setDirtyCheckEnabled(false));
+
+            long startMs = System.currentTimeMillis();
+            for (long k = 0; k < _transactionsPerThread; k++) {
+                for (int l = 0; l < refs.length; l++) {
+                    refs[l].openForWrite(tx, LOCKMODE_NONE).long_value++;
+                }
+                tx.commit();
+                tx.hardReset();
+            }
+
+            durationMs = System.currentTimeMillis() - startMs;
+            System.out.printf("Multiverse > %s is finished in %s ms\n", getName(), durationMs);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.multiverse.stms.gamma.benchmarks;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.TestCaseResult;
+import org.multiverse.TestThread;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
+
+import static org.benchy.BenchyUtils.format;
+import static org.multiverse.TestUtils.joinAll;
+import static org.multiverse.TestUtils.startAll;
+
+/**
+ * Measures the costs of finding the tranlocal of a ref in a FatVariableLengthGammaTxn that has refCount refs opened.
+ * If missing is true, the refs looked up are not opened by the transaction, so the costs of a miss are measured
+ * (which is what happens every time a ref is opened for the first time).
+ */
+public class VariableLengthLookupDriver extends BenchmarkDriver implements GammaConstants {
+
+    private int threadCount = 1;
+    private long lookupsPerThread = 1000 * 1000 * 100;
+    private int refCount = 10;
+    private boolean missing = false;
+
+    private GammaStmConfig config;
+    private GammaStm stm;
+    private LookupThread[] threads;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Thread count is %s\n", threadCount);
+        System.out.printf("Multiverse > Lookups/thread is %s\n", lookupsPerThread);
+        System.out.printf("Multiverse > Ref count is %s\n", refCount);
+        System.out.printf("Multiverse > Missing is %s\n", missing);
+
+        config = new GammaStmConfig();
+        config.maximumPoorMansConflictScanLength = Math.max(config.maximumPoorMansConflictScanLength, refCount);
+        stm = new GammaStm(config);
+
+        threads = new LookupThread[threadCount];
+        for (int k = 0; k < threads.length; k++) {
+            threads[k] = new LookupThread(k);
+        }
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        startAll(threads);
+        joinAll(threads);
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long totalDurationMs = 0;
+        for (LookupThread t : threads) {
+            totalDurationMs += t.durationMs;
+        }
+
+        double lookupsPerSecondPerThread = BenchmarkUtils.transactionsPerSecondPerThread(
+                lookupsPerThread, totalDurationMs, threadCount);
+        double lookupsPerSecond = BenchmarkUtils.transactionsPerSecond(
+                lookupsPerThread, totalDurationMs, threadCount);
+        System.out.printf("Multiverse > Performance %s lookups/second/thread with %s refs\n",
+                format(lookupsPerSecondPerThread), refCount);
+        System.out.printf("Multiverse > Performance %s lookups/second with %s refs\n",
+                format(lookupsPerSecond), refCount);
+
+        testCaseResult.put("lookupsPerSecondPerThread", lookupsPerSecondPerThread);
+        testCaseResult.put("lookupsPerSecond", lookupsPerSecond);
+    }
+
+    class LookupThread extends TestThread {
+        private long durationMs;
+
+        public LookupThread(int id) {
+            super("LookupThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final long _lookupsPerThread = lookupsPerThread;
+            final FatVariableLengthGammaTxn tx = new FatVariableLengthGammaTxn(new GammaTxnConfig(stm, config));
+
+            final GammaTxnLong[] refs = new GammaTxnLong[refCount];
+            for (int k = 0; k < refs.length; k++) {
+                refs[k] = new GammaTxnLong(stm);
+                refs[k].openForRead(tx, LOCKMODE_NONE);
+            }
+
+            final GammaTxnLong[] lookupRefs;
+            if (missing) {
+                lookupRefs = new GammaTxnLong[refCount];
+                for (int k = 0; k < lookupRefs.length; k++) {
+                    lookupRefs[k] = new GammaTxnLong(stm);
+                }
+            } else {
+                lookupRefs = refs;
+            }
+
+            long found = 0;
+            long startMs = System.currentTimeMillis();
+            int index = 0;
+            for (long k = 0; k < _lookupsPerThread; k++) {
+                if (tx.getRefTranlocal(lookupRefs[index]) != null) {
+                    found++;
+                }
+                index++;
+                if (index == lookupRefs.length) {
+                    index = 0;
+                }
+            }
+
+            durationMs = System.currentTimeMillis() - startMs;
+            System.out.printf("Multiverse > %s is finished in %s ms (found %s)\n", getName(), durationMs, found);
+            tx.abort();
+        }
+    }
+}
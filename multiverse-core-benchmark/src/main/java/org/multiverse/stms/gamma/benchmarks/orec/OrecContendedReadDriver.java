@@ -0,0 +1,111 @@
+package org.multiverse.stms.gamma.benchmarks.orec;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.BenchyUtils;
+import org.benchy.TestCaseResult;
+import org.multiverse.TestThread;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+
+import static org.benchy.BenchyUtils.format;
+import static org.multiverse.TestUtils.joinAll;
+import static org.multiverse.TestUtils.startAll;
+
+/**
+ * Measures how reads on a single hot orec scale with the number of threads. Every thread does arrive/depart cycles
+ * (optionally with a readlock) on the same orec. With a readerSlotCount of 0 all threads cas the orec itself, else
+ * the threads arrive on the reader slots of the orec.
+ */
+public class OrecContendedReadDriver extends BenchmarkDriver implements GammaConstants {
+
+    private int threadCount = 1;
+    private long operationsPerThread = 1000 * 1000 * 100;
+    private int readerSlotCount = 0;
+    private boolean readLock = false;
+
+    private GammaStm stm;
+    private GammaTxnLong orec;
+    private ReadThread[] threads;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Thread count is %s\n", threadCount);
+        System.out.printf("Multiverse > Operations/thread is %s\n", operationsPerThread);
+        System.out.printf("Multiverse > Reader slot count is %s\n", readerSlotCount);
+        System.out.printf("Multiverse > Readlock is %s\n", readLock);
+
+        GammaStmConfig config = new GammaStmConfig();
+        config.readerSlotCount = readerSlotCount;
+        stm = new GammaStm(config);
+        orec = new GammaTxnLong(stm);
+        if (readerSlotCount > 0) {
+            orec.___inflateReaderSlots();
+        }
+
+        threads = new ReadThread[threadCount];
+        for (int k = 0; k < threads.length; k++) {
+            threads[k] = new ReadThread(k);
+        }
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        startAll(threads);
+        joinAll(threads);
+    }
+
+    @Override
+    public void processResults(TestCaseResult testCaseResult) {
+        long totalDurationMs = 0;
+        for (ReadThread t : threads) {
+            totalDurationMs += t.getDurationMs();
+        }
+
+        double readsPerSecond = BenchyUtils.operationsPerSecond(
+                operationsPerThread * threadCount, totalDurationMs / threadCount, 1);
+        System.out.printf("Multiverse > Performance %s read-cycles/second with %s threads\n",
+                format(readsPerSecond), threadCount);
+        System.out.printf("Multiverse > Orec %s\n", orec.___toOrecString());
+
+        testCaseResult.put("transactionsPerSecond", readsPerSecond);
+    }
+
+    class ReadThread extends TestThread {
+
+        public ReadThread(int id) {
+            super("ReadThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            final long _operationsPerThread = operationsPerThread;
+            final GammaTxnLong _orec = orec;
+            final boolean _readLock = readLock;
+            final int slot = _orec.___getReaderSlots() == null ? -1 : _orec.___readerSlot();
+
+            for (long k = 0; k < _operationsPerThread; k++) {
+                int arriveStatus = _orec.arriveForReading(slot, 64, _readLock);
+                if (arriveStatus == FAILURE) {
+                    continue;
+                }
+
+                if ((arriveStatus & MASK_READER_SLOT) != 0) {
+                    _orec.departFromReaderSlot(slot, _readLock, false);
+                } else if (_readLock) {
+                    if ((arriveStatus & MASK_UNREGISTERED) == 0) {
+                        _orec.departAfterReadingAndUnlock();
+                    } else {
+                        _orec.unlockByUnregistered();
+                    }
+                } else if ((arriveStatus & MASK_UNREGISTERED) == 0) {
+                    _orec.departAfterReading();
+                } else if (_orec.arriveAndLock(64, LOCKMODE_EXCLUSIVE) != FAILURE) {
+                    //the orec became read biased, an update makes it update biased again.
+                    _orec.departAfterUpdateAndUnlock();
+                }
+            }
+        }
+    }
+}
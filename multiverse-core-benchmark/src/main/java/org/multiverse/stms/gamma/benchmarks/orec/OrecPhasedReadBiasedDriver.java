@@ -0,0 +1,92 @@
+package org.multiverse.stms.gamma.benchmarks.orec;
+
+import org.benchy.BenchmarkDriver;
+import org.benchy.BenchyUtils;
+import org.benchy.TestCaseResult;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.ReadBiasStatistics;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+
+import static org.benchy.BenchyUtils.format;
+
+/**
+ * A phased variant of the {@link OrecReadBiasedReadDriver}: the orec alternates between a read heavy phase (with an
+ * update every readPhaseUpdateInterval reads) and a write heavy phase. With a readBiasedWriteThreshold of 0 every
+ * update in the read phase makes the orec update biased again, with a higher threshold the occasional updates are
+ * absorbed and the orec only flips when the write phase starts. The {@link ReadBiasStatistics} show the number of
+ * transitions.
+ */
+public class OrecPhasedReadBiasedDriver extends BenchmarkDriver implements GammaConstants {
+
+    private long phaseCount = 1000;
+    private long readPhaseLength = 1000 * 1000;
+    private long readPhaseUpdateInterval = 100;
+    private long writePhaseLength = 1000;
+    private int readBiasedWriteThreshold = 16;
+
+    private GammaStm stm;
+    private GammaTxnLong orec;
+
+    @Override
+    public void setUp() {
+        System.out.printf("Multiverse > Phase count is %s\n", phaseCount);
+        System.out.printf("Multiverse > Read phase length is %s\n", readPhaseLength);
+        System.out.printf("Multiverse > Read phase update interval is %s\n", readPhaseUpdateInterval);
+        System.out.printf("Multiverse > Write phase length is %s\n", writePhaseLength);
+        System.out.printf("Multiverse > Read biased write threshold is %s\n", readBiasedWriteThreshold);
+
+        GammaStmConfig config = new GammaStmConfig();
+        config.readBiasedWriteThreshold = readBiasedWriteThreshold;
+        stm = new GammaStm(config);
+        orec = new GammaTxnLong(stm);
+    }
+
+    @Override
+    public void run(TestCaseResult testCaseResult) {
+        final long _phaseCount = phaseCount;
+        final long _readPhaseLength = readPhaseLength;
+        final long _readPhaseUpdateInterval = readPhaseUpdateInterval;
+        final long _writePhaseLength = writePhaseLength;
+        final GammaTxnLong _orec = orec;
+
+        for (long phase = 0; phase < _phaseCount; phase++) {
+            for (long k = 1; k <= _readPhaseLength; k++) {
+                if (k % _readPhaseUpdateInterval == 0) {
+                    update(_orec);
+                } else {
+                    read(_orec);
+                }
+            }
+
+            for (long k = 0; k < _writePhaseLength; k++) {
+                update(_orec);
+            }
+        }
+    }
+
+    private static void read(GammaTxnLong orec) {
+        int arriveStatus = orec.arrive(0);
+        if ((arriveStatus & MASK_UNREGISTERED) == 0) {
+            orec.departAfterReading();
+        }
+    }
+
+    private static void update(GammaTxnLong orec) {
+        orec.arriveAndLock(0, LOCKMODE_EXCLUSIVE);
+        orec.departAfterUpdateAndUnlock();
+    }
+
+    @Override
+    public void processResults(TestCaseResult result) {
+        long operationCount = phaseCount * (readPhaseLength + writePhaseLength);
+        double operationsPerSecond = BenchyUtils.operationsPerSecond(operationCount, result.getDurationMs(), 1);
+        ReadBiasStatistics statistics = stm.getReadBiasStatistics();
+
+        result.put("transactionsPerSecond", operationsPerSecond);
+        System.out.printf("Multiverse > Performance %s operations/second\n", format(operationsPerSecond));
+        System.out.printf("Multiverse > %s\n", statistics);
+        System.out.printf("Multiverse > Orec %s\n", orec.___toOrecString());
+    }
+}
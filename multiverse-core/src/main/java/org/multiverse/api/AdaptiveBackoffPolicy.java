@@ -0,0 +1,265 @@
+package org.multiverse.api;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+import static org.multiverse.api.TxnThreadLocal.getThreadLocalTxn;
+
+/**
+ * A {@link BackoffPolicy} that adapts its delays based on feedback of the transactions it is used for. Where the
+ * {@link DefaultBackoffPolicy} only looks at the attempt, this policy keeps state per transaction family (keyed by
+ * the {@link TxnConfig#getFamilyName()}):
+ * <ol>
+ * <li>the abort rate: an exponentially weighted moving average of the fraction of attempts that fail.</li>
+ * <li>the commit latency: an exponentially weighted moving average of the duration of a successful attempt.</li>
+ * </ol>
+ * The delay is the commit latency (about the time a conflicting transaction needs to complete) multiplied by the
+ * abort rate, doubled on every attempt and randomized. So under light contention the delay stays small and under
+ * heavy contention it grows. Depending on the length of the delay, the thread spins (very short delays where
+ * giving up the cpu is too expensive), yields or parks.
+ * <p/>
+ * The TxnExecutors of the GammaStm resolve the family once and report every commit to it (see
+ * {@link #getFamily(TxnConfig)}). If the policy is called directly (e.g. by atomic operations), the family of the
+ * transaction bound to the current thread is used, or a shared family if there is none.
+ * <p/>
+ * The statistics are updated without synchronization, so concurrent updates can get lost. Since they are only
+ * used as a hint, this is not a problem.
+ *
+ * @author Peter Veentjer.
+ */
+public final class AdaptiveBackoffPolicy implements BackoffPolicy {
+
+    public static final long DEFAULT_MAX_DELAY_NS = 10 * 1000 * 1000;
+
+    //delays shorter than this are spun, since giving up the cpu costs more.
+    public static final long SPIN_LIMIT_NS = 2 * 1000;
+
+    //delays shorter than this are yielded, longer delays are parked.
+    public static final long YIELD_LIMIT_NS = 50 * 1000;
+
+    //the weight of a new sample in the moving averages.
+    private static final double ALPHA = 0.125;
+
+    //the commit latency that is assumed before anything has been measured.
+    private static final long INITIAL_COMMIT_LATENCY_NS = 1000;
+
+    //the maximum number of times the delay is doubled.
+    private static final int MAX_SHIFT = 16;
+
+    private final ConcurrentMap<String, Family> families = new ConcurrentHashMap<String, Family>();
+    private final Family defaultFamily;
+    private final long maxDelayNs;
+
+    /**
+     * Creates an AdaptiveBackoffPolicy with {@link #DEFAULT_MAX_DELAY_NS} as maximum delay.
+     */
+    public AdaptiveBackoffPolicy() {
+        this(DEFAULT_MAX_DELAY_NS);
+    }
+
+    /**
+     * Creates an AdaptiveBackoffPolicy.
+     *
+     * @param maxDelayNs the maximum delay in nanoseconds.
+     * @throws IllegalArgumentException if maxDelayNs is smaller than 1.
+     */
+    public AdaptiveBackoffPolicy(long maxDelayNs) {
+        if (maxDelayNs < 1) {
+            throw new IllegalArgumentException("maxDelayNs can't be smaller than 1, maxDelayNs was " + maxDelayNs);
+        }
+
+        this.maxDelayNs = maxDelayNs;
+        this.defaultFamily = new Family("default", maxDelayNs);
+    }
+
+    /**
+     * Returns the Family for the transactions with the given configuration. Anonymous families (no family name was
+     * configured) get a Family that is not stored in this policy, so they don't leak.
+     *
+     * @param config the configuration of the transactions.
+     * @return the Family.
+     * @throws NullPointerException if config is null.
+     */
+    public Family getFamily(TxnConfig config) {
+        if (config == null) {
+            throw new NullPointerException();
+        }
+
+        if (config.isAnonymous()) {
+            return new Family(config.getFamilyName(), maxDelayNs);
+        }
+
+        return getFamily(config.getFamilyName());
+    }
+
+    /**
+     * Returns the Family with the given family name. If it doesn't exist, it is created.
+     *
+     * @param familyName the name of the family.
+     * @return the Family.
+     * @throws NullPointerException if familyName is null.
+     */
+    public Family getFamily(String familyName) {
+        if (familyName == null) {
+            throw new NullPointerException();
+        }
+
+        Family family = families.get(familyName);
+        if (family == null) {
+            Family newFamily = new Family(familyName, maxDelayNs);
+            family = families.putIfAbsent(familyName, newFamily);
+            if (family == null) {
+                family = newFamily;
+            }
+        }
+        return family;
+    }
+
+    @Override
+    public void delay(int attempt) throws InterruptedException {
+        currentFamily().delay(attempt);
+    }
+
+    @Override
+    public void delayUninterruptible(int attempt) {
+        currentFamily().delayUninterruptible(attempt);
+    }
+
+    private Family currentFamily() {
+        Txn txn = getThreadLocalTxn();
+        if (txn == null) {
+            return defaultFamily;
+        }
+
+        TxnConfig config = txn.getConfig();
+        if (config.isAnonymous()) {
+            return defaultFamily;
+        }
+
+        return getFamily(config.getFamilyName());
+    }
+
+    /**
+     * The backoff state of a single transaction family. A Family is a BackoffPolicy itself, so a TxnExecutor can
+     * use it directly.
+     */
+    public static final class Family implements BackoffPolicy {
+
+        private final String familyName;
+        private final long maxDelayNs;
+        private volatile double abortRate;
+        private volatile double commitLatencyNs = INITIAL_COMMIT_LATENCY_NS;
+
+        Family(String familyName, long maxDelayNs) {
+            this.familyName = familyName;
+            this.maxDelayNs = maxDelayNs;
+        }
+
+        public String getFamilyName() {
+            return familyName;
+        }
+
+        /**
+         * Returns the moving average of the fraction of attempts that failed.
+         *
+         * @return the abort rate, between 0 and 1.
+         */
+        public double getAbortRate() {
+            return abortRate;
+        }
+
+        /**
+         * Returns the moving average of the duration of a successful attempt.
+         *
+         * @return the commit latency in nanoseconds.
+         */
+        public double getCommitLatencyNs() {
+            return commitLatencyNs;
+        }
+
+        /**
+         * Registers that a transaction of this family has committed.
+         *
+         * @param attemptStartNs the System.nanoTime() when the successful attempt started.
+         */
+        public void registerCommit(long attemptStartNs) {
+            final long latencyNs = System.nanoTime() - attemptStartNs;
+            commitLatencyNs += ALPHA * (latencyNs - commitLatencyNs);
+            abortRate -= ALPHA * abortRate;
+        }
+
+        /**
+         * Registers that an attempt of a transaction of this family has failed.
+         */
+        public void registerAbort() {
+            abortRate += ALPHA * (1 - abortRate);
+        }
+
+        /**
+         * Calculates the delay for the given attempt, based on the current statistics.
+         *
+         * @param attempt the attempt.
+         * @return the delay in nanoseconds.
+         */
+        public long calcDelayNs(int attempt) {
+            final int shift = attempt < 1 ? 0 : Math.min(attempt - 1, MAX_SHIFT);
+            final double delayNs = commitLatencyNs * abortRate * (1L << shift);
+            return delayNs >= maxDelayNs ? maxDelayNs : (long) delayNs;
+        }
+
+        @Override
+        public void delay(int attempt) throws InterruptedException {
+            delayUninterruptible(attempt);
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+
+        @Override
+        public void delayUninterruptible(int attempt) {
+            registerAbort();
+
+            final long maxDelayNs = calcDelayNs(attempt);
+            if (maxDelayNs == 0) {
+                return;
+            }
+
+            //randomize to prevent that the conflicting transactions retry at the same moment.
+            final long delayNs = random(maxDelayNs);
+
+            if (delayNs < SPIN_LIMIT_NS) {
+                final long endNs = System.nanoTime() + delayNs;
+                while (System.nanoTime() < endNs) {
+                    //spin
+                }
+            } else if (delayNs < YIELD_LIMIT_NS) {
+                final long endNs = System.nanoTime() + delayNs;
+                do {
+                    Thread.yield();
+                } while (System.nanoTime() < endNs);
+            } else {
+                parkNanos(delayNs);
+            }
+        }
+
+        private static long random(long bound) {
+            //a cheap xorshift based on the time; the quality is good enough to spread the retries.
+            long x = System.nanoTime() ^ (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L);
+            x ^= x << 21;
+            x ^= x >>> 35;
+            x ^= x << 4;
+            return (x & Long.MAX_VALUE) % (bound + 1);
+        }
+
+        @Override
+        public String toString() {
+            return "AdaptiveBackoffPolicy.Family{" +
+                    "familyName='" + familyName + '\'' +
+                    ", abortRate=" + abortRate +
+                    ", commitLatencyNs=" + commitLatencyNs +
+                    '}';
+        }
+    }
+}
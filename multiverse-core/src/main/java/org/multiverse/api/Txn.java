@@ -1,7 +1,10 @@
 package org.multiverse.api;
 
+import org.multiverse.api.callables.TxnCallable;
 import org.multiverse.api.lifecycle.TxnListener;
 
+import java.util.concurrent.Executor;
+
 /**
  * The unit of work for {@link Stm}. The transaction make sure that changes on {@link TxnObject} instances are:
  * <ol>
@@ -196,4 +199,42 @@ public interface Txn {
      *
      */
     void register(TxnListener listener);
+
+    /**
+     * Forks a child that executes the callable in parallel with this Txn. The child sees the state of this
+     * Txn at the moment of the fork; its changes are private until the returned {@link TxnFork} is joined, then
+     * they are merged into this Txn. If the child conflicts with this Txn or with a sibling that was joined before
+     * it, the callable is executed again on this Txn when joining.
+     *
+     * <p>Children that are not joined explicitly are joined when this Txn prepares or commits, and are discarded when
+     * it aborts.
+     *
+     * <p>The child is executed by the default fork Executor of the {@link Stm}.
+     *
+     * @param callable the callable to execute in the child.
+     * @param <E>      the type of the result of the callable.
+     * @return the TxnFork to join the child.
+     * @throws NullPointerException if callable is null. If the transaction is still alive, it is aborted.
+     * @throws org.multiverse.api.exceptions.IllegalTxnStateException
+     *                              if the transaction is not active.
+     * @throws org.multiverse.api.exceptions.ControlFlowError
+     *
+     */
+    <E> TxnFork<E> fork(TxnCallable<E> callable);
+
+    /**
+     * Forks a child that executes the callable in parallel with this Txn using the given Executor. See
+     * {@link #fork(org.multiverse.api.callables.TxnCallable)} for more details.
+     *
+     * @param callable the callable to execute in the child.
+     * @param executor the Executor that executes the child.
+     * @param <E>      the type of the result of the callable.
+     * @return the TxnFork to join the child.
+     * @throws NullPointerException if callable or executor is null. If the transaction is still alive, it is aborted.
+     * @throws org.multiverse.api.exceptions.IllegalTxnStateException
+     *                              if the transaction is not active.
+     * @throws org.multiverse.api.exceptions.ControlFlowError
+     *
+     */
+    <E> TxnFork<E> fork(TxnCallable<E> callable, Executor executor);
 }
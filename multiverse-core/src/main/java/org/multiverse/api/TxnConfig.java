@@ -101,6 +101,16 @@ public interface TxnConfig {
      */
     String getFamilyName();
 
+    /**
+     * Checks if this Txn is anonymous, so no family name has been set explicitly and a generated one is used.
+     * Anonymous transactions can't be recognized as the same family over different TxnExecutors, so information
+     * about the family (e.g. for learning or backoff) should not be kept for them.
+     *
+     * @return true if anonymous, false otherwise.
+     * @see TxnFactoryBuilder#setFamilyName(String)
+     */
+    boolean isAnonymous();
+
     /**
      * Checks if this Txn is readonly. With a readonly transaction you can prevent any updates or
      * new objects being created.
@@ -188,4 +198,22 @@ public interface TxnConfig {
      * @see TxnFactoryBuilder#setMaxRetries(int)
      */
     int getMaxRetries();
+
+    /**
+     * Checks if the {@link Txn} is irrevocable. An irrevocable transaction is guaranteed not to abort because of
+     * a conflict.
+     *
+     * @return true if the transaction is irrevocable.
+     * @see TxnFactoryBuilder#setIrrevocable(boolean)
+     */
+    boolean isIrrevocable();
+
+    /**
+     * Returns the number of failed attempts after which the {@link TxnExecutor} promotes the transaction to an
+     * irrevocable one. Integer.MAX_VALUE indicates that the transaction is never promoted.
+     *
+     * @return the number of failed attempts before the transaction becomes irrevocable.
+     * @see TxnFactoryBuilder#setIrrevocableAfterAttempts(int)
+     */
+    int getIrrevocableAfterAttempts();
 }
@@ -3,6 +3,7 @@ package org.multiverse.api;
 import org.multiverse.*;
 import org.multiverse.api.callables.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 /**
  * An TxnExecutor is responsible for executing an atomic callable. It is created by the {@link TxnFactoryBuilder}
@@ -236,4 +237,25 @@ public interface TxnExecutor extends MultiverseConstants{
     */
      void executeChecked(TxnVoidCallable callable)throws Exception;
 
+   /**
+    * Executes the transactional callable asynchronously using the given {@link java.util.concurrent.Executor}. The
+    * callable always is executed in a new transaction, even if the calling thread already has one.
+    *
+    * <p>If the callable does a {@link Txn#retry()}, no thread is blocked while waiting for a change: the execution is
+    * registered on the refs read and when one of them changes, the callable is submitted to the Executor again. So a
+    * lot of executions can be waiting for a change without needing a thread each. Just like with the blocking execute,
+    * the total time spent waiting is limited by the timeout of the transaction.
+    *
+    * <p>The returned {@link TxnFuture} completes with the result of the callable, or fails with the exception thrown
+    * by the callable (checked exceptions are not wrapped), with a
+    * {@link org.multiverse.api.exceptions.TooManyRetriesException} or with a
+    * {@link org.multiverse.api.exceptions.RetryTimeoutException}. Cancelling the TxnFuture prevents the callable from
+    * being executed again.
+    *
+    * @param callable the callable to execute.
+    * @param executor the Executor to execute the attempts on.
+    * @return the TxnFuture containing the result of the execution.
+    * @throws NullPointerException if callable or executor is null.
+    */
+    <E> TxnFuture<E> executeAsync(TxnCallable<E> callable, Executor executor);
 }
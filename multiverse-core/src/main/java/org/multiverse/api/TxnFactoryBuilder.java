@@ -235,6 +235,40 @@ public interface TxnFactoryBuilder {
      */
     TxnFactoryBuilder setMaxRetries(int maxRetries);
 
+    /**
+     * Sets if the {@link Txn} is irrevocable. An irrevocable transaction is guaranteed not to abort because of a
+     * conflict, so the work it has done is never thrown away. This is useful for large transactions that otherwise
+     * could run into a {@link org.multiverse.api.exceptions.TooManyRetriesException} under contention.
+     *
+     * <p>The price is concurrency: an irrevocable transaction locks everything it touches and only a single
+     * irrevocable transaction can run at any given moment. Other transactions that conflict with it are the ones
+     * that need to abort.
+     *
+     * <p>It depends on the {@link Stm} implementation if irrevocable transactions are supported.
+     *
+     * @param irrevocable true if the transaction should be irrevocable.
+     * @return the updated TxnFactoryBuilder
+     * @see TxnConfig#isIrrevocable()
+     * @see #setIrrevocableAfterAttempts(int)
+     */
+    TxnFactoryBuilder setIrrevocable(boolean irrevocable);
+
+    /**
+     * Sets the number of failed attempts after which a {@link Txn} executed by the {@link TxnExecutor} is promoted
+     * to an irrevocable transaction, so that it is guaranteed to complete. The default is Integer.MAX_VALUE, which
+     * means that the transaction is never promoted.
+     *
+     * <p>Only failures caused by read/write conflicts count; a transaction that retries because it is
+     * blocking (see {@link StmUtils#retry()}) is not promoted.
+     *
+     * @param attempts the number of failed attempts after which the transaction becomes irrevocable.
+     * @return the updated TxnFactoryBuilder
+     * @throws IllegalArgumentException if attempts is smaller than 1.
+     * @see TxnConfig#getIrrevocableAfterAttempts()
+     * @see #setIrrevocable(boolean)
+     */
+    TxnFactoryBuilder setIrrevocableAfterAttempts(int attempts);
+
     /**
      * Sets the {@link IsolationLevel} on the {@link Txn}.
      *
@@ -0,0 +1,29 @@
+package org.multiverse.api;
+
+/**
+ * The result of a child forked by {@link Txn#fork(org.multiverse.api.callables.TxnCallable)}. The child runs in
+ * parallel with the parent {@link Txn} and its changes become part of the parent when it is joined.
+ *
+ * <p>A TxnFork is not thread-safe; it should only be joined by the thread that executes the parent transaction.
+ *
+ * @param <E> the type of the result of the child.
+ * @author Peter Veentjer.
+ */
+public interface TxnFork<E> {
+
+    /**
+     * Waits for the child to complete and merges its changes into the parent transaction. If the child conflicted
+     * with the parent or with one of its siblings, it is executed again by the calling thread, this time directly on
+     * the parent transaction. Joining a TxnFork that already has been joined returns the same result.
+     *
+     * <p>If the child failed with an exception, it is rethrown. A checked exception is wrapped in an
+     * {@link org.multiverse.api.exceptions.InvisibleCheckedException}.
+     *
+     * @return the result of the child.
+     * @throws org.multiverse.api.exceptions.TxnExecutionException
+     *          if the parent transaction is not in the correct state.
+     * @throws org.multiverse.api.exceptions.ControlFlowError
+     *
+     */
+    E join();
+}
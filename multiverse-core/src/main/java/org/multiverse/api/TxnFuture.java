@@ -0,0 +1,32 @@
+package org.multiverse.api;
+
+import java.util.concurrent.Future;
+
+/**
+ * The result of an asynchronous execution of a transactional callable, see
+ * {@link TxnExecutor#executeAsync(org.multiverse.api.callables.TxnCallable, java.util.concurrent.Executor)}.
+ *
+ * <p>Apart from the blocking methods of the {@link Future}, a TxnFuture can notify a callback when it completes,
+ * so the result can be processed without blocking a thread.
+ *
+ * <p>If the callable failed, the exception it has thrown is available as the cause of the
+ * {@link java.util.concurrent.ExecutionException} thrown by {@link #get()}; a checked exception isn't wrapped in an
+ * {@link org.multiverse.api.exceptions.InvisibleCheckedException}.
+ *
+ * @param <E> the type of the result of the callable.
+ * @author Peter Veentjer.
+ */
+public interface TxnFuture<E> extends Future<E> {
+
+    /**
+     * Registers a callback that is executed when this TxnFuture completes, fails or is cancelled. If the TxnFuture
+     * already is done, the callback is executed immediately by the calling thread; otherwise it is executed by the
+     * thread that completes the TxnFuture.
+     *
+     * <p>The callback should not block, since it could be executed by a thread that just committed a transaction.
+     *
+     * @param callback the callback to execute.
+     * @throws NullPointerException if callback is null.
+     */
+    void onComplete(Runnable callback);
+}
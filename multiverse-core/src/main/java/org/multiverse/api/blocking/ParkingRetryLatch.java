@@ -0,0 +1,370 @@
+package org.multiverse.api.blocking;
+
+import org.multiverse.api.exceptions.RetryInterruptedException;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.lang.String.format;
+
+/**
+ * A {@link RetryLatch} that doesn't rely on the intrinsic lock, but on {@link LockSupport#park(Object)} and
+ * {@link LockSupport#unpark(Thread)}. A waiting thread first spins for a short time and then parks itself on a
+ * (lock free) list of waiters.
+ * <p/>
+ * The advantages compared to the {@link DefaultRetryLatch} are that:
+ * <ol>
+ * <li>an open of a latch nobody is waiting on, only costs a compare and set instead of a monitor.</li>
+ * <li>a waiting virtual thread doesn't pin its carrier thread, because it doesn't wait inside a synchronized
+ * block.</li>
+ * <li>if the latch is opened quickly, the waiting thread doesn't need to be parked/unparked at all.</li>
+ * </ol>
+ * The spin is adaptive: if the latch was opened while spinning, the next await spins longer; if it wasn't, the next
+ * await spins shorter. A latch is used by a single transaction, so the spin adapts to the behavior of the
+ * transactions executed by a single thread.
+ * <p/>
+ * The era and the open status are stored in a single long, so they can be changed atomically without a lock: the
+ * open status in the lowest bit and the era (relative to Long.MIN_VALUE) in the other bits.
+ *
+ * @author Peter Veentjer
+ */
+public final class ParkingRetryLatch implements RetryLatch {
+
+    public static final int MIN_SPINS = 16;
+    public static final int MAX_SPINS = 4096;
+
+    private static final boolean SPINNING_ALLOWED = Runtime.getRuntime().availableProcessors() > 1;
+
+    private static final long MASK_OPEN = 1L;
+
+    private static final AtomicLongFieldUpdater<ParkingRetryLatch> STATE
+            = AtomicLongFieldUpdater.newUpdater(ParkingRetryLatch.class, "state");
+
+    private static final AtomicReferenceFieldUpdater<ParkingRetryLatch, Waiter> WAITERS
+            = AtomicReferenceFieldUpdater.newUpdater(ParkingRetryLatch.class, Waiter.class, "waiters");
+
+    @SuppressWarnings({"UnusedDeclaration"})
+    private volatile long state = 0;
+    @SuppressWarnings({"UnusedDeclaration"})
+    private volatile Waiter waiters;
+    //only used by the thread that awaits, so no need for it to be volatile.
+    private int spins = MIN_SPINS * 4;
+
+    private static long eraOf(final long state) {
+        return (state >>> 1) + Long.MIN_VALUE;
+    }
+
+    private static boolean isOpen(final long state) {
+        return (state & MASK_OPEN) != 0;
+    }
+
+    //true if the await can complete; so the latch is open or the era has changed.
+    private boolean isDone(final long expectedEra) {
+        final long current = state;
+        return isOpen(current) || eraOf(current) != expectedEra;
+    }
+
+    @Override
+    public void open(final long expectedEra) {
+        while (true) {
+            final long current = state;
+            if (isOpen(current) || eraOf(current) != expectedEra) {
+                return;
+            }
+
+            if (STATE.compareAndSet(this, current, current | MASK_OPEN)) {
+                unparkWaiters();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        while (true) {
+            final long current = state;
+            //increments the era and clears the open bit.
+            final long update = ((current >>> 1) + 1) << 1;
+            if (STATE.compareAndSet(this, current, update)) {
+                break;
+            }
+        }
+
+        //threads waiting for the old era need to be notified.
+        unparkWaiters();
+    }
+
+    private void unparkWaiters() {
+        if (waiters == null) {
+            return;
+        }
+
+        Waiter waiter = WAITERS.getAndSet(this, null);
+        while (waiter != null) {
+            final Thread thread = waiter.thread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+            waiter = waiter.next;
+        }
+    }
+
+    /**
+     * Spins for a short time to see if the await completes.
+     *
+     * @param expectedEra the expected era.
+     * @return true if the await completed while spinning, false if the thread needs to be parked.
+     */
+    private boolean spin(final long expectedEra) {
+        if (!SPINNING_ALLOWED) {
+            return false;
+        }
+
+        final int spins = this.spins;
+        for (int k = 0; k < spins; k++) {
+            if (isDone(expectedEra)) {
+                this.spins = Math.min(MAX_SPINS, spins * 2);
+                return true;
+            }
+        }
+
+        this.spins = Math.max(MIN_SPINS, spins >> 1);
+        return false;
+    }
+
+    private Waiter addWaiter() {
+        final Waiter waiter = new Waiter(Thread.currentThread());
+        while (true) {
+            final Waiter head = waiters;
+            waiter.next = head;
+            if (WAITERS.compareAndSet(this, head, waiter)) {
+                return waiter;
+            }
+        }
+    }
+
+    /**
+     * Removes the waiter from the list of waiters. If the await completes because of a timeout or an interrupt, or
+     * because the latch was opened before the waiter was added, the waiter still is in the list; without removing it
+     * the waiters of a latch that doesn't get opened would pile up.
+     * <p/>
+     * The waiter is marked as removed by clearing its thread, and the list is scanned to unlink all removed waiters.
+     * If a race with another thread is detected, the scan starts over.
+     *
+     * @param waiter the Waiter to remove.
+     */
+    private void removeWaiter(final Waiter waiter) {
+        waiter.thread = null;
+
+        retry:
+        while (true) {
+            Waiter predecessor = null;
+            Waiter node = waiters;
+            while (node != null) {
+                final Waiter successor = node.next;
+                if (node.thread != null) {
+                    predecessor = node;
+                } else if (predecessor != null) {
+                    predecessor.next = successor;
+                    //the predecessor itself has been removed in the meantime, so the unlink could be lost.
+                    if (predecessor.thread == null) {
+                        continue retry;
+                    }
+                } else if (!WAITERS.compareAndSet(this, node, successor)) {
+                    continue retry;
+                }
+                node = successor;
+            }
+            return;
+        }
+    }
+
+    /**
+     * Returns the number of waiters in the list. Should only be used for testing and inspection.
+     *
+     * @return the number of waiters.
+     */
+    int getWaiterCount() {
+        int count = 0;
+        for (Waiter node = waiters; node != null; node = node.next) {
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public void await(final long expectedEra, final String transactionFamilyName) {
+        if (isDone(expectedEra)) {
+            return;
+        }
+
+        if (Thread.interrupted()) {
+            Thread.currentThread().interrupt();
+            throw newRetryInterruptedException(transactionFamilyName);
+        }
+
+        if (spin(expectedEra)) {
+            return;
+        }
+
+        final Waiter waiter = addWaiter();
+        try {
+            //the latch could have been opened before the waiter was added, so it needs to be checked again.
+            while (!isDone(expectedEra)) {
+                LockSupport.park(this);
+
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw newRetryInterruptedException(transactionFamilyName);
+                }
+            }
+        } finally {
+            removeWaiter(waiter);
+        }
+    }
+
+    @Override
+    public void awaitUninterruptible(final long expectedEra) {
+        if (isDone(expectedEra)) {
+            return;
+        }
+
+        if (spin(expectedEra)) {
+            return;
+        }
+
+        boolean restoreInterrupt = false;
+
+        final Waiter waiter = addWaiter();
+        try {
+            while (!isDone(expectedEra)) {
+                LockSupport.park(this);
+
+                //the interrupt status needs to be cleared, else the park returns immediately.
+                if (Thread.interrupted()) {
+                    restoreInterrupt = true;
+                }
+            }
+        } finally {
+            removeWaiter(waiter);
+        }
+
+        if (restoreInterrupt) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public long awaitNanosUninterruptible(final long expectedEra, long nanosTimeout) {
+        if (isDone(expectedEra)) {
+            return nanosTimeout;
+        }
+
+        if (nanosTimeout <= 0) {
+            return -1;
+        }
+
+        final long startNs = System.nanoTime();
+        if (spin(expectedEra)) {
+            return nanosTimeout - (System.nanoTime() - startNs);
+        }
+
+        boolean restoreInterrupt = false;
+        final Waiter waiter = addWaiter();
+        try {
+            while (!isDone(expectedEra)) {
+                final long remainingNs = nanosTimeout - (System.nanoTime() - startNs);
+                if (remainingNs <= 0) {
+                    return -1;
+                }
+
+                LockSupport.parkNanos(this, remainingNs);
+
+                if (Thread.interrupted()) {
+                    restoreInterrupt = true;
+                }
+            }
+
+            return nanosTimeout - (System.nanoTime() - startNs);
+        } finally {
+            removeWaiter(waiter);
+            if (restoreInterrupt) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public long awaitNanos(final long expectedEra, long nanosTimeout, final String transactionFamilyName) {
+        if (isDone(expectedEra)) {
+            return nanosTimeout;
+        }
+
+        if (nanosTimeout <= 0) {
+            return -1;
+        }
+
+        if (Thread.interrupted()) {
+            Thread.currentThread().interrupt();
+            throw newRetryInterruptedException(transactionFamilyName);
+        }
+
+        final long startNs = System.nanoTime();
+        if (spin(expectedEra)) {
+            return nanosTimeout - (System.nanoTime() - startNs);
+        }
+
+        final Waiter waiter = addWaiter();
+        try {
+            while (!isDone(expectedEra)) {
+                final long remainingNs = nanosTimeout - (System.nanoTime() - startNs);
+                if (remainingNs <= 0) {
+                    return -1;
+                }
+
+                LockSupport.parkNanos(this, remainingNs);
+
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw newRetryInterruptedException(transactionFamilyName);
+                }
+            }
+
+            return nanosTimeout - (System.nanoTime() - startNs);
+        } finally {
+            removeWaiter(waiter);
+        }
+    }
+
+    private static RetryInterruptedException newRetryInterruptedException(final String transactionFamilyName) {
+        return new RetryInterruptedException(
+                format("[%s] Was interrupted while waiting on the retry", transactionFamilyName));
+    }
+
+    @Override
+    public long getEra() {
+        return eraOf(state);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return isOpen(state);
+    }
+
+    @Override
+    public String toString() {
+        final long current = state;
+        return format("ParkingRetryLatch(open=%s, era=%s)", isOpen(current), eraOf(current));
+    }
+
+    static final class Waiter {
+        //null once the waiter has been removed.
+        volatile Thread thread;
+        volatile Waiter next;
+
+        Waiter(Thread thread) {
+            this.thread = thread;
+        }
+    }
+}
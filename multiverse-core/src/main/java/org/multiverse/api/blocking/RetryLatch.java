@@ -14,29 +14,7 @@ package org.multiverse.api.blocking;
  *
  * @author Peter Veentjer.
  */
-public interface RetryLatch {
-
-    /**
-     * Checks if the Latch is open.
-     *
-     * @return true if the Latch is open, false otherwise.
-     */
-    boolean isOpen();
-
-    /**
-     * Opens this latch only if the expectedEra is the same. If the expectedEra is not the same, the call is ignored.
-     * If the Latch already is open, this call is also ignored.
-     *
-     * @param expectedEra the expected era.
-     */
-    void open(long expectedEra);
-
-    /**
-     * Gets the current era.
-     *
-     * @return the current era.
-     */
-    long getEra();
+public interface RetryLatch extends RetryListener {
 
     /**
      * Awaits for this latch to open. This call is not responsive to interrupts.
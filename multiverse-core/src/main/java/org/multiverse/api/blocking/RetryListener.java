@@ -0,0 +1,42 @@
+package org.multiverse.api.blocking;
+
+/**
+ * The listener that is registered on the transactional objects read by a transaction that does a retry. A change of
+ * one of these objects opens the listener, which signals that the transaction can be retried.
+ * <p/>
+ * The listener works based on an era, just like the {@link RetryLatch}: an open with an older era is ignored, so a
+ * registration that still is attached to an object that wasn't changed can't open the listener after it has been
+ * reset. Unlike the RetryLatch, a RetryListener doesn't need to support waiting for it to open; it can for example
+ * continue the transaction asynchronously when it is opened.
+ *
+ * @author Peter Veentjer.
+ */
+public interface RetryListener {
+
+    /**
+     * Checks if the listener is open.
+     *
+     * @return true if the listener is open, false otherwise.
+     */
+    boolean isOpen();
+
+    /**
+     * Opens this listener only if the expectedEra is the same. If the expectedEra is not the same, the call is
+     * ignored. If the listener already is open, this call is also ignored.
+     *
+     * @param expectedEra the expected era.
+     */
+    void open(long expectedEra);
+
+    /**
+     * Gets the current era.
+     *
+     * @return the current era.
+     */
+    long getEra();
+
+    /**
+     * Closes the listener and increments the era, so that the opens of the existing registrations are ignored.
+     */
+    void reset();
+}
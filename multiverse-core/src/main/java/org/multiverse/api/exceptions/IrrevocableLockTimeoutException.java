@@ -0,0 +1,26 @@
+package org.multiverse.api.exceptions;
+
+/**
+ * A {@link TxnExecutionException} thrown when an irrevocable transaction fails to acquire a lock within the
+ * configured time. An irrevocable transaction doesn't abort on a conflict but keeps on waiting for the lock; if the
+ * transaction holding the lock doesn't cooperate (e.g. it doesn't do any transactional work anymore), the irrevocable
+ * transaction would wait forever. So instead of hanging, the transaction is aborted with this exception.
+ *
+ * <p>The exception is not retried by the {@link org.multiverse.api.TxnExecutor}, since retrying the irrevocable
+ * transaction would run into the same lock again.
+ *
+ * @author Peter Veentjer.
+ */
+public class IrrevocableLockTimeoutException extends TxnExecutionException {
+
+    private static final long serialVersionUID = 0;
+
+    /**
+     * Creates a new IrrevocableLockTimeoutException.
+     *
+     * @param message the message of the exception.
+     */
+    public IrrevocableLockTimeoutException(String message) {
+        super(message);
+    }
+}
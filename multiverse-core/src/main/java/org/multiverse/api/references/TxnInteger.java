@@ -671,4 +671,41 @@ public interface TxnInteger extends TxnObject {
      *                  is guaranteed to have been aborted.
      */
     void await(Txn txn, IntPredicate predicate);
+
+    /**
+     * Awaits until the predicate holds, just like {@link #await(IntPredicate)}, but a change that makes the predicate
+     * hold only wakes up one of the transactions waiting for a handoff on this ref instead of all of them. If the
+     * transaction that is woken up doesn't write this ref, because it aborts or commits without a change, the next
+     * waiting transaction is woken up. This prevents a thundering herd when many transactions wait for the same
+     * change, but only one of them can use it, e.g. consumers of a queue.
+     *
+     * <p>This call lifts on the {@link org.multiverse.api.Txn} stored in the {@link org.multiverse.api.TxnThreadLocal}.
+     *
+     * @param predicate the predicate to evaluate.
+     * @throws NullPointerException if predicate is null. When there is a non dead txn,
+     *                              it will be aborted.
+     * @throws org.multiverse.api.exceptions.TxnExecutionException
+     *                  if something failed while using the txn. The txn is guaranteed to have been aborted.
+     * @throws org.multiverse.api.exceptions.ControlFlowError
+     *                  if the Stm needs to control the flow in a different way than normal returns of exceptions. The txn
+     *                  is guaranteed to have been aborted.
+     */
+    void awaitHandoff(IntPredicate predicate);
+
+    /**
+     * Awaits until the predicate holds using the provided txn, just like {@link #await(Txn, IntPredicate)}, but a
+     * change that makes the predicate hold only wakes up one of the transactions waiting for a handoff on this ref.
+     * See {@link #awaitHandoff(IntPredicate)} for more information.
+     *
+     * @param txn the {@link Txn} used for this operation.
+     * @param predicate the predicate to evaluate.
+     * @throws NullPointerException if predicate is null or txn is null. When there is a non dead txn,
+     *                              it will be aborted.
+     * @throws org.multiverse.api.exceptions.TxnExecutionException
+     *                  if something failed while using the txn. The txn is guaranteed to have been aborted.
+     * @throws org.multiverse.api.exceptions.ControlFlowError
+     *                  if the Stm needs to control the flow in a different way than normal returns of exceptions. The txn
+     *                  is guaranteed to have been aborted.
+     */
+    void awaitHandoff(Txn txn, IntPredicate predicate);
 }
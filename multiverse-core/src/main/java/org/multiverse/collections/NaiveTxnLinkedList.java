@@ -6,6 +6,7 @@ import org.multiverse.api.collections.TxnDeque;
 import org.multiverse.api.collections.TxnIterator;
 import org.multiverse.api.collections.TxnList;
 import org.multiverse.api.exceptions.TodoException;
+import org.multiverse.api.predicates.IntPredicate;
 import org.multiverse.api.references.TxnInteger;
 import org.multiverse.api.references.TxnRef;
 import org.multiverse.api.references.TxnRefFactory;
@@ -14,6 +15,8 @@ import java.util.NoSuchElementException;
 
 import static org.multiverse.api.TxnThreadLocal.getRequiredThreadLocalTxn;
 import static org.multiverse.api.TxnThreadLocal.getThreadLocalTxn;
+import static org.multiverse.api.predicates.IntPredicate.newLargerThanPredicate;
+import static org.multiverse.api.predicates.IntPredicate.newSmallerThanPredicate;
 
 /**
  * A LinkedList implementation that also acts as a TxnQueue, TxnDeque.
@@ -27,12 +30,31 @@ public final class NaiveTxnLinkedList<E> extends AbstractTxnCollection<E>
     private final TxnInteger size;
     private final TxnRef<Entry<E>> head;
     private final TxnRef<Entry<E>> tail;
+    //if a blocking put or take waits for a handoff, so that a change of the size only wakes up a single waiter.
+    private final boolean handoff;
+    private final IntPredicate notEmptyPredicate;
+    private final IntPredicate notFullPredicate;
 
     public NaiveTxnLinkedList(Stm stm) {
         this(stm, Integer.MAX_VALUE);
     }
 
     public NaiveTxnLinkedList(Stm stm, int capacity) {
+        this(stm, capacity, false);
+    }
+
+    /**
+     * Creates a NaiveTxnLinkedList.
+     *
+     * @param stm      the Stm the list is created for.
+     * @param capacity the maximum number of items.
+     * @param handoff  if a put or take that blocks waits for a handoff (see
+     *                 {@link TxnInteger#awaitHandoff(Txn, IntPredicate)}). So an item put only wakes up a single
+     *                 waiting take instead of all of them, and the same goes for an item taken and the puts waiting
+     *                 for space. This is useful when many threads block on the same queue.
+     * @throws IllegalArgumentException if capacity is smaller than 0.
+     */
+    public NaiveTxnLinkedList(Stm stm, int capacity, boolean handoff) {
         super(stm);
 
         if (capacity < 0) {
@@ -43,6 +65,9 @@ public final class NaiveTxnLinkedList<E> extends AbstractTxnCollection<E>
         this.size = stm.getDefaultRefFactory().newTxnInteger(0);
         this.head = stm.getDefaultRefFactory().newTxnRef(null);
         this.tail = stm.getDefaultRefFactory().newTxnRef(null);
+        this.handoff = handoff;
+        this.notEmptyPredicate = newLargerThanPredicate(0);
+        this.notFullPredicate = newSmallerThanPredicate(capacity);
     }
 
     @Override
@@ -50,6 +75,10 @@ public final class NaiveTxnLinkedList<E> extends AbstractTxnCollection<E>
         return capacity;
     }
 
+    public boolean isHandoff() {
+        return handoff;
+    }
+
     @Override
     public E set(int index, E element) {
         return set(getThreadLocalTxn(), index, element);
@@ -356,6 +385,10 @@ public final class NaiveTxnLinkedList<E> extends AbstractTxnCollection<E>
 
     @Override
     public void putFirst(Txn txn, E item) {
+        if (handoff) {
+            size.awaitHandoff(txn, notFullPredicate);
+        }
+
         if (!offerFirst(txn, item)) {
             txn.retry();
         }
@@ -378,6 +411,10 @@ public final class NaiveTxnLinkedList<E> extends AbstractTxnCollection<E>
 
     @Override
     public void putLast(Txn txn, E item) {
+        if (handoff) {
+            size.awaitHandoff(txn, notFullPredicate);
+        }
+
         if (!offerLast(txn, item)) {
             txn.retry();
         }
@@ -402,6 +439,10 @@ public final class NaiveTxnLinkedList<E> extends AbstractTxnCollection<E>
 
     @Override
     public E takeFirst(Txn txn) {
+        if (handoff) {
+            size.awaitHandoff(txn, notEmptyPredicate);
+        }
+
         E item = pollFirst(txn);
         if (item == null) {
             txn.retry();
@@ -416,6 +457,10 @@ public final class NaiveTxnLinkedList<E> extends AbstractTxnCollection<E>
 
     @Override
     public E takeLast(Txn txn) {
+        if (handoff) {
+            size.awaitHandoff(txn, notEmptyPredicate);
+        }
+
         E item = pollLast(txn);
         if (item == null) {
             txn.retry();
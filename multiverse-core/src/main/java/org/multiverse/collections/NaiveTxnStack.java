@@ -4,24 +4,46 @@ import org.multiverse.api.Stm;
 import org.multiverse.api.Txn;
 import org.multiverse.api.collections.TxnIterator;
 import org.multiverse.api.collections.TxnStack;
+import org.multiverse.api.predicates.IntPredicate;
 import org.multiverse.api.references.TxnInteger;
 import org.multiverse.api.references.TxnRef;
 
 import java.util.NoSuchElementException;
 
 import static org.multiverse.api.TxnThreadLocal.getThreadLocalTxn;
+import static org.multiverse.api.predicates.IntPredicate.newLargerThanPredicate;
+import static org.multiverse.api.predicates.IntPredicate.newSmallerThanPredicate;
 
 public final class NaiveTxnStack<E> extends AbstractTxnCollection<E> implements TxnStack<E> {
 
     private final int capacity;
     private final TxnRef<Node<E>> head;
     private final TxnInteger size;
+    //if a blocking push or pop waits for a handoff, so that a change of the size only wakes up a single waiter.
+    private final boolean handoff;
+    private final IntPredicate notEmptyPredicate;
+    private final IntPredicate notFullPredicate;
 
     public NaiveTxnStack(Stm stm) {
         this(stm, Integer.MAX_VALUE);
     }
 
     public NaiveTxnStack(Stm stm, int capacity) {
+        this(stm, capacity, false);
+    }
+
+    /**
+     * Creates a NaiveTxnStack.
+     *
+     * @param stm      the Stm the stack is created for.
+     * @param capacity the maximum number of items.
+     * @param handoff  if a push or pop that blocks waits for a handoff (see
+     *                 {@link TxnInteger#awaitHandoff(Txn, IntPredicate)}). So an item pushed only wakes up a single
+     *                 waiting pop instead of all of them, and the same goes for an item popped and the pushes waiting
+     *                 for space. This is useful when many threads block on the same stack.
+     * @throws IllegalArgumentException if capacity is smaller than 0.
+     */
+    public NaiveTxnStack(Stm stm, int capacity, boolean handoff) {
         super(stm);
 
         if (capacity < 0) {
@@ -31,6 +53,9 @@ public final class NaiveTxnStack<E> extends AbstractTxnCollection<E> implements
         this.capacity = capacity;
         this.head = stm.getDefaultRefFactory().newTxnRef(null);
         this.size = stm.getDefaultRefFactory().newTxnInteger(0);
+        this.handoff = handoff;
+        this.notEmptyPredicate = newLargerThanPredicate(0);
+        this.notFullPredicate = newSmallerThanPredicate(capacity);
     }
 
     @Override
@@ -42,6 +67,10 @@ public final class NaiveTxnStack<E> extends AbstractTxnCollection<E> implements
         return capacity;
     }
 
+    public boolean isHandoff() {
+        return handoff;
+    }
+
     @Override
     public void clear(Txn txn) {
         int s = size.get(txn);
@@ -104,7 +133,9 @@ public final class NaiveTxnStack<E> extends AbstractTxnCollection<E> implements
             throw new NullPointerException();
         }
 
-        if (size.get(txn) == capacity) {
+        if (handoff) {
+            size.awaitHandoff(txn, notFullPredicate);
+        } else if (size.get(txn) == capacity) {
             txn.retry();
         }
 
@@ -119,7 +150,9 @@ public final class NaiveTxnStack<E> extends AbstractTxnCollection<E> implements
 
     @Override
     public E pop(Txn txn) {
-        if (size.get(txn) == 0) {
+        if (handoff) {
+            size.awaitHandoff(txn, notEmptyPredicate);
+        } else if (size.get(txn) == 0) {
             txn.retry();
         }
 
@@ -1,8 +1,22 @@
 package org.multiverse.stms.gamma;
 
+import org.multiverse.api.AdaptiveBackoffPolicy;
 import org.multiverse.api.BackoffPolicy;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnFuture;
+import org.multiverse.api.TxnThreadLocal;
+import org.multiverse.api.callables.TxnCallable;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
 import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
 import org.multiverse.stms.gamma.transactions.GammaTxnFactory;
+import org.multiverse.stms.gamma.transactions.GammaTxnPool;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
+
+import java.util.concurrent.Executor;
+
+import static org.multiverse.api.TxnThreadLocal.getThreadLocalTxnContainer;
+import static org.multiverse.stms.gamma.transactions.StripedGammaTxnPool.putStripedGammaTxnPool;
+import static org.multiverse.stms.gamma.transactions.StripedGammaTxnPool.takeStripedGammaTxnPool;
 
 /**
  * An abstract {@link GammaTxnExecutor} implementation.
@@ -13,6 +27,12 @@ public abstract class AbstractGammaTxnExecutor implements GammaTxnExecutor {
     protected final GammaTxnFactory txnFactory;
     protected final GammaTxnConfig txnConfig;
     protected final BackoffPolicy backoffPolicy;
+    //the family to report the commits to if the backoffPolicy is adaptive, null otherwise.
+    protected final AdaptiveBackoffPolicy.Family backoffFamily;
+    //the config used when a transaction is promoted to an irrevocable one, null if it never is.
+    protected final GammaTxnConfig irrevocableConfig;
+    //if the transaction and the pools are stored in threadlocals, or propagated explicitly and striped.
+    protected final boolean threadLocalContextEnabled;
 
     public AbstractGammaTxnExecutor(final GammaTxnFactory txnFactory) {
         if (txnFactory == null) {
@@ -20,6 +40,163 @@ public abstract class AbstractGammaTxnExecutor implements GammaTxnExecutor {
         }
         this.txnFactory = txnFactory;
         this.txnConfig = txnFactory.getConfig();
-        this.backoffPolicy = txnConfig.backoffPolicy;
+        if (txnConfig.backoffPolicy instanceof AdaptiveBackoffPolicy) {
+            this.backoffFamily = ((AdaptiveBackoffPolicy) txnConfig.backoffPolicy).getFamily(txnConfig);
+            this.backoffPolicy = backoffFamily;
+        } else {
+            this.backoffFamily = null;
+            this.backoffPolicy = txnConfig.backoffPolicy;
+        }
+        if (txnConfig.irrevocableAfterAttempts == Integer.MAX_VALUE || txnConfig.irrevocable) {
+            this.irrevocableConfig = null;
+        } else {
+            this.irrevocableConfig = txnConfig.setIrrevocable(true).init();
+        }
+        this.threadLocalContextEnabled = txnConfig.threadLocalContextEnabled;
+    }
+
+    @Override
+    public final <E> TxnFuture<E> executeAsync(final TxnCallable<E> callable, final Executor executor) {
+        if (callable == null || executor == null) {
+            throw new NullPointerException();
+        }
+
+        final GammaTxnAsyncExecution<E> execution = new GammaTxnAsyncExecution<E>(this, callable, executor);
+        execution.submit();
+        return execution.future;
+    }
+
+    /**
+     * Gets the Container for the transaction executed by this TxnExecutor. If the threadlocal context is disabled,
+     * a new Container is returned that isn't published, so the transaction only is propagated explicitly.
+     *
+     * @return the Container.
+     */
+    protected final TxnThreadLocal.Container getTxnContainer() {
+        return threadLocalContextEnabled ? getThreadLocalTxnContainer() : new TxnThreadLocal.Container();
+    }
+
+    /**
+     * Creates the Container for an execute that got the outer transaction passed explicitly. The Container isn't
+     * published, so a transaction started by the execute only is propagated through the callable.
+     *
+     * @param outer the outer transaction, can be null.
+     * @return the created Container.
+     */
+    protected final TxnThreadLocal.Container newTxnContainer(final Txn outer) {
+        final TxnThreadLocal.Container container = new TxnThreadLocal.Container();
+        container.txn = outer;
+        if (threadLocalContextEnabled) {
+            //else every execute would create its own GammaTxnPool.
+            container.txPool = takeTxnPool(getThreadLocalTxnContainer());
+        }
+        return container;
+    }
+
+    /**
+     * Takes the GammaTxnPool to take the transaction from. If the threadlocal context is enabled, this is the
+     * GammaTxnPool stored in the Container, otherwise one is taken from the {@link
+     * org.multiverse.stms.gamma.transactions.StripedGammaTxnPool} and it needs to be released using
+     * {@link #releaseTxnPool(GammaTxnPool)}.
+     *
+     * @param container the Container of the current thread.
+     * @return the GammaTxnPool.
+     */
+    protected final GammaTxnPool takeTxnPool(final TxnThreadLocal.Container container) {
+        if (!threadLocalContextEnabled) {
+            return takeStripedGammaTxnPool();
+        }
+
+        GammaTxnPool pool = (GammaTxnPool) container.txPool;
+        if (pool == null) {
+            pool = new GammaTxnPool();
+            container.txPool = pool;
+        }
+        return pool;
+    }
+
+    /**
+     * Releases the GammaTxnPool taken with {@link #takeTxnPool(TxnThreadLocal.Container)} after the transaction
+     * has been put back in it.
+     *
+     * @param pool the GammaTxnPool to release.
+     */
+    protected final void releaseTxnPool(final GammaTxnPool pool) {
+        if (!threadLocalContextEnabled) {
+            putStripedGammaTxnPool(pool);
+        }
+    }
+
+    /**
+     * Checks if the transaction should be promoted to an irrevocable transaction after it failed on a conflict.
+     *
+     * @param tx the transaction that failed.
+     * @return true if the next attempt should be irrevocable.
+     */
+    protected final boolean isIrrevocablePromotionNeeded(final GammaTxn tx) {
+        return irrevocableConfig != null
+                && !tx.config.irrevocable
+                && tx.attempt >= txnConfig.irrevocableAfterAttempts;
+    }
+
+    /**
+     * Replaces the failed transaction by an irrevocable one for the next attempt. The irrevocable transaction always
+     * is a {@link FatVariableLengthGammaTxn}, so it can't fail on a speculative configuration error.
+     *
+     * @param failingTx the transaction that failed.
+     * @param pool      the GammaTxnPool to take the new transaction from.
+     * @return the irrevocable transaction.
+     */
+    protected final GammaTxn promoteToIrrevocable(final GammaTxn failingTx, final GammaTxnPool pool) {
+        FatVariableLengthGammaTxn tx = pool.takeMap();
+        if (tx == null) {
+            tx = new FatVariableLengthGammaTxn(irrevocableConfig);
+        } else {
+            tx.init(irrevocableConfig);
+        }
+
+        tx.copyForSpeculativeFailure(failingTx);
+        return tx;
+    }
+
+    /**
+     * Starts a closed nested transaction in the given transaction. Closed nesting needs a
+     * {@link FatVariableLengthGammaTxn}, so other transactions fail with a SpeculativeConfigurationError so the
+     * outer transaction is restarted with a FatVariableLengthGammaTxn.
+     *
+     * @param tx the transaction to start the nested transaction in.
+     * @return the FatVariableLengthGammaTxn running the nested transaction.
+     */
+    protected final FatVariableLengthGammaTxn beginNested(final GammaTxn tx) {
+        if (tx.transactionType != GammaConstants.TRANSACTIONTYPE_FAT_VARIABLE_LENGTH) {
+            throw tx.abortOnNestingDetected();
+        }
+
+        final FatVariableLengthGammaTxn nestedTx = (FatVariableLengthGammaTxn) tx;
+        nestedTx.beginNested();
+        return nestedTx;
+    }
+
+    /**
+     * Checks if a nested transaction that failed on a read/write-conflict can be retried on its own. If it can't, the
+     * complete transaction is aborted and the conflict needs to be propagated to the executor of the outer transaction.
+     *
+     * @param tx      the transaction running the nested transaction.
+     * @param attempt the attempt of the nested transaction.
+     * @return true if the nested transaction should be retried.
+     */
+    protected final boolean retryNestedAfterConflict(final FatVariableLengthGammaTxn tx, final int attempt) {
+        if (attempt >= txnConfig.maxRetries) {
+            tx.abortIfAlive();
+            return false;
+        }
+
+        if (!tx.rollbackNestedOnConflict()) {
+            return false;
+        }
+
+        backoffPolicy.delayUninterruptible(attempt);
+        tx.beginNested();
+        return true;
     }
 }
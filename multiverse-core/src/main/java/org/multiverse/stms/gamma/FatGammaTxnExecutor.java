@@ -4,11 +4,11 @@ import org.multiverse.api.*;
 import org.multiverse.api.exceptions.*;
 import org.multiverse.api.callables.*;
 import org.multiverse.stms.gamma.transactions.*;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
 import java.util.concurrent.Callable;
 import java.util.logging.Logger;
 
 import static java.lang.String.format;
-import static org.multiverse.api.TxnThreadLocal.*;
 
 /**
  * The {@link TxnExecutor} made for the GammaStm.
@@ -43,19 +43,63 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
         }
     }
 
-     public <E> E execute(final TxnCallable<E> callable){
+    private <E> E executeNested(
+        final GammaTxn tx, final TxnCallable<E> callable)throws Exception{
 
+        final FatVariableLengthGammaTxn nestedTx = beginNested(tx);
+        int attempt = 1;
+        while (true) {
+            boolean rollback = true;
+            try {
+                E result = callable.call(nestedTx);
+                nestedTx.commitNested();
+                rollback = false;
+                return result;
+            } catch (ReadWriteConflict e) {
+                rollback = false;
+                if(TRACING_ENABLED){
+                    if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                        logger.info(format("[%s] Encountered a read or write conflict in a nested txn",
+                            txnConfig.familyName));
+                    }
+                }
+
+                if (!retryNestedAfterConflict(nestedTx, attempt)) {
+                    throw e;
+                }
+                attempt++;
+            } catch (RetryError e) {
+                rollback = false;
+                throw nestedTx.rollbackNestedOnRetry(e);
+            } finally {
+                if (rollback) {
+                    nestedTx.rollbackNested();
+                }
+            }
+        }
+    }
+
+    @Override
+    public final <E> E execute(final TxnCallable<E> callable){
         if(callable == null){
             throw new NullPointerException();
         }
 
-        TxnThreadLocal.Container transactionContainer = getThreadLocalTxnContainer();
-        GammaTxnPool pool = (GammaTxnPool) transactionContainer.txPool;
-        if (pool == null) {
-            pool = new GammaTxnPool();
-            transactionContainer.txPool = pool;
+        return executeIn(getTxnContainer(), callable);
+    }
+
+    @Override
+    public final <E> E execute(final Txn outer, final TxnCallable<E> callable){
+        if(callable == null){
+            throw new NullPointerException();
         }
 
+        return executeIn(newTxnContainer(outer), callable);
+    }
+
+    private <E> E executeIn(
+        final TxnThreadLocal.Container transactionContainer, final TxnCallable<E> callable){
+
         GammaTxn tx = (GammaTxn)transactionContainer.txn;
         if(tx == null || !tx.isAlive()){
             tx = null;
@@ -73,6 +117,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                             }
                         }
 
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         return execute(tx, transactionContainer, pool, callable);
@@ -85,7 +130,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                                 }
                             }
 
-                        return callable.call(tx);
+                        return txnConfig.closedNesting ? executeNested(tx, callable) : callable.call(tx);
                     }
                 case Mandatory:
                     if (tx == null) {
@@ -144,6 +189,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                             }
                         }
 
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         return execute(tx, transactionContainer, pool, callable);
@@ -157,6 +203,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         GammaTxn suspendedTransaction = tx;
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         try {
@@ -198,13 +245,22 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
         Error cause = null;
 
         try{
+            final SpeculativeGammaLearner learner = txnConfig.speculativeLearner;
+            final long learnerStartNs = learner == null ? 0 : learner.startTxn();
             boolean abort = true;
             try {
                 do {
                     try {
                         cause = null;
+                        final long attemptStartNs = backoffFamily == null ? 0 : System.nanoTime();
                         E result = callable.call(tx);
                         tx.commit();
+                        if (backoffFamily != null) {
+                            backoffFamily.registerCommit(attemptStartNs);
+                        }
+                        if (learner != null) {
+                            learner.registerCommit(learnerStartNs);
+                        }
                         abort = false;
                         return result;
                     } catch (RetryError e) {
@@ -238,6 +294,20 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         backoffPolicy.delayUninterruptible(tx.getAttempt());
+
+                        if (isIrrevocablePromotionNeeded(tx)) {
+                            if(TRACING_ENABLED){
+                                if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                                    logger.info(format("[%s] Promoting to an irrevocable txn after %s attempts",
+                                        txnConfig.familyName, tx.getAttempt()));
+                                }
+                            }
+
+                            GammaTxn old = tx;
+                            tx = promoteToIrrevocable(old, pool);
+                            pool.put(old);
+                            transactionContainer.txn = tx;
+                        }
                     }
                 } while (tx.softReset());
             } finally {
@@ -246,6 +316,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                 }
 
                 pool.put(tx);
+                releaseTxnPool(pool);
                 transactionContainer.txn = null;
             }
         }catch(RuntimeException e){
@@ -277,19 +348,63 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
         }
     }
 
-     public  int execute(final TxnIntCallable callable){
+    private  int executeNested(
+        final GammaTxn tx, final TxnIntCallable callable)throws Exception{
+
+        final FatVariableLengthGammaTxn nestedTx = beginNested(tx);
+        int attempt = 1;
+        while (true) {
+            boolean rollback = true;
+            try {
+                int result = callable.call(nestedTx);
+                nestedTx.commitNested();
+                rollback = false;
+                return result;
+            } catch (ReadWriteConflict e) {
+                rollback = false;
+                if(TRACING_ENABLED){
+                    if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                        logger.info(format("[%s] Encountered a read or write conflict in a nested txn",
+                            txnConfig.familyName));
+                    }
+                }
+
+                if (!retryNestedAfterConflict(nestedTx, attempt)) {
+                    throw e;
+                }
+                attempt++;
+            } catch (RetryError e) {
+                rollback = false;
+                throw nestedTx.rollbackNestedOnRetry(e);
+            } finally {
+                if (rollback) {
+                    nestedTx.rollbackNested();
+                }
+            }
+        }
+    }
 
+    @Override
+    public final int execute(final TxnIntCallable callable){
         if(callable == null){
             throw new NullPointerException();
         }
 
-        TxnThreadLocal.Container transactionContainer = getThreadLocalTxnContainer();
-        GammaTxnPool pool = (GammaTxnPool) transactionContainer.txPool;
-        if (pool == null) {
-            pool = new GammaTxnPool();
-            transactionContainer.txPool = pool;
+        return executeIn(getTxnContainer(), callable);
+    }
+
+    @Override
+    public final int execute(final Txn outer, final TxnIntCallable callable){
+        if(callable == null){
+            throw new NullPointerException();
         }
 
+        return executeIn(newTxnContainer(outer), callable);
+    }
+
+    private int executeIn(
+        final TxnThreadLocal.Container transactionContainer, final TxnIntCallable callable){
+
         GammaTxn tx = (GammaTxn)transactionContainer.txn;
         if(tx == null || !tx.isAlive()){
             tx = null;
@@ -307,6 +422,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                             }
                         }
 
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         return execute(tx, transactionContainer, pool, callable);
@@ -319,7 +435,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                                 }
                             }
 
-                        return callable.call(tx);
+                        return txnConfig.closedNesting ? executeNested(tx, callable) : callable.call(tx);
                     }
                 case Mandatory:
                     if (tx == null) {
@@ -378,6 +494,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                             }
                         }
 
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         return execute(tx, transactionContainer, pool, callable);
@@ -391,6 +508,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         GammaTxn suspendedTransaction = tx;
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         try {
@@ -432,13 +550,22 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
         Error cause = null;
 
         try{
+            final SpeculativeGammaLearner learner = txnConfig.speculativeLearner;
+            final long learnerStartNs = learner == null ? 0 : learner.startTxn();
             boolean abort = true;
             try {
                 do {
                     try {
                         cause = null;
+                        final long attemptStartNs = backoffFamily == null ? 0 : System.nanoTime();
                         int result = callable.call(tx);
                         tx.commit();
+                        if (backoffFamily != null) {
+                            backoffFamily.registerCommit(attemptStartNs);
+                        }
+                        if (learner != null) {
+                            learner.registerCommit(learnerStartNs);
+                        }
                         abort = false;
                         return result;
                     } catch (RetryError e) {
@@ -472,6 +599,20 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         backoffPolicy.delayUninterruptible(tx.getAttempt());
+
+                        if (isIrrevocablePromotionNeeded(tx)) {
+                            if(TRACING_ENABLED){
+                                if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                                    logger.info(format("[%s] Promoting to an irrevocable txn after %s attempts",
+                                        txnConfig.familyName, tx.getAttempt()));
+                                }
+                            }
+
+                            GammaTxn old = tx;
+                            tx = promoteToIrrevocable(old, pool);
+                            pool.put(old);
+                            transactionContainer.txn = tx;
+                        }
                     }
                 } while (tx.softReset());
             } finally {
@@ -480,6 +621,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                 }
 
                 pool.put(tx);
+                releaseTxnPool(pool);
                 transactionContainer.txn = null;
             }
         }catch(RuntimeException e){
@@ -511,19 +653,63 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
         }
     }
 
-     public  long execute(final TxnLongCallable callable){
+    private  long executeNested(
+        final GammaTxn tx, final TxnLongCallable callable)throws Exception{
+
+        final FatVariableLengthGammaTxn nestedTx = beginNested(tx);
+        int attempt = 1;
+        while (true) {
+            boolean rollback = true;
+            try {
+                long result = callable.call(nestedTx);
+                nestedTx.commitNested();
+                rollback = false;
+                return result;
+            } catch (ReadWriteConflict e) {
+                rollback = false;
+                if(TRACING_ENABLED){
+                    if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                        logger.info(format("[%s] Encountered a read or write conflict in a nested txn",
+                            txnConfig.familyName));
+                    }
+                }
 
+                if (!retryNestedAfterConflict(nestedTx, attempt)) {
+                    throw e;
+                }
+                attempt++;
+            } catch (RetryError e) {
+                rollback = false;
+                throw nestedTx.rollbackNestedOnRetry(e);
+            } finally {
+                if (rollback) {
+                    nestedTx.rollbackNested();
+                }
+            }
+        }
+    }
+
+    @Override
+    public final long execute(final TxnLongCallable callable){
         if(callable == null){
             throw new NullPointerException();
         }
 
-        TxnThreadLocal.Container transactionContainer = getThreadLocalTxnContainer();
-        GammaTxnPool pool = (GammaTxnPool) transactionContainer.txPool;
-        if (pool == null) {
-            pool = new GammaTxnPool();
-            transactionContainer.txPool = pool;
+        return executeIn(getTxnContainer(), callable);
+    }
+
+    @Override
+    public final long execute(final Txn outer, final TxnLongCallable callable){
+        if(callable == null){
+            throw new NullPointerException();
         }
 
+        return executeIn(newTxnContainer(outer), callable);
+    }
+
+    private long executeIn(
+        final TxnThreadLocal.Container transactionContainer, final TxnLongCallable callable){
+
         GammaTxn tx = (GammaTxn)transactionContainer.txn;
         if(tx == null || !tx.isAlive()){
             tx = null;
@@ -541,6 +727,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                             }
                         }
 
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         return execute(tx, transactionContainer, pool, callable);
@@ -553,7 +740,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                                 }
                             }
 
-                        return callable.call(tx);
+                        return txnConfig.closedNesting ? executeNested(tx, callable) : callable.call(tx);
                     }
                 case Mandatory:
                     if (tx == null) {
@@ -612,6 +799,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                             }
                         }
 
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         return execute(tx, transactionContainer, pool, callable);
@@ -625,6 +813,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         GammaTxn suspendedTransaction = tx;
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         try {
@@ -666,13 +855,22 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
         Error cause = null;
 
         try{
+            final SpeculativeGammaLearner learner = txnConfig.speculativeLearner;
+            final long learnerStartNs = learner == null ? 0 : learner.startTxn();
             boolean abort = true;
             try {
                 do {
                     try {
                         cause = null;
+                        final long attemptStartNs = backoffFamily == null ? 0 : System.nanoTime();
                         long result = callable.call(tx);
                         tx.commit();
+                        if (backoffFamily != null) {
+                            backoffFamily.registerCommit(attemptStartNs);
+                        }
+                        if (learner != null) {
+                            learner.registerCommit(learnerStartNs);
+                        }
                         abort = false;
                         return result;
                     } catch (RetryError e) {
@@ -706,6 +904,20 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         backoffPolicy.delayUninterruptible(tx.getAttempt());
+
+                        if (isIrrevocablePromotionNeeded(tx)) {
+                            if(TRACING_ENABLED){
+                                if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                                    logger.info(format("[%s] Promoting to an irrevocable txn after %s attempts",
+                                        txnConfig.familyName, tx.getAttempt()));
+                                }
+                            }
+
+                            GammaTxn old = tx;
+                            tx = promoteToIrrevocable(old, pool);
+                            pool.put(old);
+                            transactionContainer.txn = tx;
+                        }
                     }
                 } while (tx.softReset());
             } finally {
@@ -714,6 +926,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                 }
 
                 pool.put(tx);
+                releaseTxnPool(pool);
                 transactionContainer.txn = null;
             }
         }catch(RuntimeException e){
@@ -745,19 +958,63 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
         }
     }
 
-     public  double execute(final TxnDoubleCallable callable){
+    private  double executeNested(
+        final GammaTxn tx, final TxnDoubleCallable callable)throws Exception{
+
+        final FatVariableLengthGammaTxn nestedTx = beginNested(tx);
+        int attempt = 1;
+        while (true) {
+            boolean rollback = true;
+            try {
+                double result = callable.call(nestedTx);
+                nestedTx.commitNested();
+                rollback = false;
+                return result;
+            } catch (ReadWriteConflict e) {
+                rollback = false;
+                if(TRACING_ENABLED){
+                    if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                        logger.info(format("[%s] Encountered a read or write conflict in a nested txn",
+                            txnConfig.familyName));
+                    }
+                }
 
+                if (!retryNestedAfterConflict(nestedTx, attempt)) {
+                    throw e;
+                }
+                attempt++;
+            } catch (RetryError e) {
+                rollback = false;
+                throw nestedTx.rollbackNestedOnRetry(e);
+            } finally {
+                if (rollback) {
+                    nestedTx.rollbackNested();
+                }
+            }
+        }
+    }
+
+    @Override
+    public final double execute(final TxnDoubleCallable callable){
         if(callable == null){
             throw new NullPointerException();
         }
 
-        TxnThreadLocal.Container transactionContainer = getThreadLocalTxnContainer();
-        GammaTxnPool pool = (GammaTxnPool) transactionContainer.txPool;
-        if (pool == null) {
-            pool = new GammaTxnPool();
-            transactionContainer.txPool = pool;
+        return executeIn(getTxnContainer(), callable);
+    }
+
+    @Override
+    public final double execute(final Txn outer, final TxnDoubleCallable callable){
+        if(callable == null){
+            throw new NullPointerException();
         }
 
+        return executeIn(newTxnContainer(outer), callable);
+    }
+
+    private double executeIn(
+        final TxnThreadLocal.Container transactionContainer, final TxnDoubleCallable callable){
+
         GammaTxn tx = (GammaTxn)transactionContainer.txn;
         if(tx == null || !tx.isAlive()){
             tx = null;
@@ -775,6 +1032,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                             }
                         }
 
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         return execute(tx, transactionContainer, pool, callable);
@@ -787,7 +1045,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                                 }
                             }
 
-                        return callable.call(tx);
+                        return txnConfig.closedNesting ? executeNested(tx, callable) : callable.call(tx);
                     }
                 case Mandatory:
                     if (tx == null) {
@@ -846,6 +1104,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                             }
                         }
 
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         return execute(tx, transactionContainer, pool, callable);
@@ -859,6 +1118,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         GammaTxn suspendedTransaction = tx;
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         try {
@@ -900,13 +1160,22 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
         Error cause = null;
 
         try{
+            final SpeculativeGammaLearner learner = txnConfig.speculativeLearner;
+            final long learnerStartNs = learner == null ? 0 : learner.startTxn();
             boolean abort = true;
             try {
                 do {
                     try {
                         cause = null;
+                        final long attemptStartNs = backoffFamily == null ? 0 : System.nanoTime();
                         double result = callable.call(tx);
                         tx.commit();
+                        if (backoffFamily != null) {
+                            backoffFamily.registerCommit(attemptStartNs);
+                        }
+                        if (learner != null) {
+                            learner.registerCommit(learnerStartNs);
+                        }
                         abort = false;
                         return result;
                     } catch (RetryError e) {
@@ -940,6 +1209,20 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         backoffPolicy.delayUninterruptible(tx.getAttempt());
+
+                        if (isIrrevocablePromotionNeeded(tx)) {
+                            if(TRACING_ENABLED){
+                                if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                                    logger.info(format("[%s] Promoting to an irrevocable txn after %s attempts",
+                                        txnConfig.familyName, tx.getAttempt()));
+                                }
+                            }
+
+                            GammaTxn old = tx;
+                            tx = promoteToIrrevocable(old, pool);
+                            pool.put(old);
+                            transactionContainer.txn = tx;
+                        }
                     }
                 } while (tx.softReset());
             } finally {
@@ -948,6 +1231,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                 }
 
                 pool.put(tx);
+                releaseTxnPool(pool);
                 transactionContainer.txn = null;
             }
         }catch(RuntimeException e){
@@ -979,19 +1263,63 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
         }
     }
 
-     public  boolean execute(final TxnBooleanCallable callable){
+    private  boolean executeNested(
+        final GammaTxn tx, final TxnBooleanCallable callable)throws Exception{
+
+        final FatVariableLengthGammaTxn nestedTx = beginNested(tx);
+        int attempt = 1;
+        while (true) {
+            boolean rollback = true;
+            try {
+                boolean result = callable.call(nestedTx);
+                nestedTx.commitNested();
+                rollback = false;
+                return result;
+            } catch (ReadWriteConflict e) {
+                rollback = false;
+                if(TRACING_ENABLED){
+                    if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                        logger.info(format("[%s] Encountered a read or write conflict in a nested txn",
+                            txnConfig.familyName));
+                    }
+                }
+
+                if (!retryNestedAfterConflict(nestedTx, attempt)) {
+                    throw e;
+                }
+                attempt++;
+            } catch (RetryError e) {
+                rollback = false;
+                throw nestedTx.rollbackNestedOnRetry(e);
+            } finally {
+                if (rollback) {
+                    nestedTx.rollbackNested();
+                }
+            }
+        }
+    }
 
+    @Override
+    public final boolean execute(final TxnBooleanCallable callable){
         if(callable == null){
             throw new NullPointerException();
         }
 
-        TxnThreadLocal.Container transactionContainer = getThreadLocalTxnContainer();
-        GammaTxnPool pool = (GammaTxnPool) transactionContainer.txPool;
-        if (pool == null) {
-            pool = new GammaTxnPool();
-            transactionContainer.txPool = pool;
+        return executeIn(getTxnContainer(), callable);
+    }
+
+    @Override
+    public final boolean execute(final Txn outer, final TxnBooleanCallable callable){
+        if(callable == null){
+            throw new NullPointerException();
         }
 
+        return executeIn(newTxnContainer(outer), callable);
+    }
+
+    private boolean executeIn(
+        final TxnThreadLocal.Container transactionContainer, final TxnBooleanCallable callable){
+
         GammaTxn tx = (GammaTxn)transactionContainer.txn;
         if(tx == null || !tx.isAlive()){
             tx = null;
@@ -1009,6 +1337,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                             }
                         }
 
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         return execute(tx, transactionContainer, pool, callable);
@@ -1021,7 +1350,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                                 }
                             }
 
-                        return callable.call(tx);
+                        return txnConfig.closedNesting ? executeNested(tx, callable) : callable.call(tx);
                     }
                 case Mandatory:
                     if (tx == null) {
@@ -1080,6 +1409,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                             }
                         }
 
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         return execute(tx, transactionContainer, pool, callable);
@@ -1093,6 +1423,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         GammaTxn suspendedTransaction = tx;
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         try {
@@ -1134,13 +1465,22 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
         Error cause = null;
 
         try{
+            final SpeculativeGammaLearner learner = txnConfig.speculativeLearner;
+            final long learnerStartNs = learner == null ? 0 : learner.startTxn();
             boolean abort = true;
             try {
                 do {
                     try {
                         cause = null;
+                        final long attemptStartNs = backoffFamily == null ? 0 : System.nanoTime();
                         boolean result = callable.call(tx);
                         tx.commit();
+                        if (backoffFamily != null) {
+                            backoffFamily.registerCommit(attemptStartNs);
+                        }
+                        if (learner != null) {
+                            learner.registerCommit(learnerStartNs);
+                        }
                         abort = false;
                         return result;
                     } catch (RetryError e) {
@@ -1174,6 +1514,20 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         backoffPolicy.delayUninterruptible(tx.getAttempt());
+
+                        if (isIrrevocablePromotionNeeded(tx)) {
+                            if(TRACING_ENABLED){
+                                if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                                    logger.info(format("[%s] Promoting to an irrevocable txn after %s attempts",
+                                        txnConfig.familyName, tx.getAttempt()));
+                                }
+                            }
+
+                            GammaTxn old = tx;
+                            tx = promoteToIrrevocable(old, pool);
+                            pool.put(old);
+                            transactionContainer.txn = tx;
+                        }
                     }
                 } while (tx.softReset());
             } finally {
@@ -1182,6 +1536,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                 }
 
                 pool.put(tx);
+                releaseTxnPool(pool);
                 transactionContainer.txn = null;
             }
         }catch(RuntimeException e){
@@ -1213,19 +1568,63 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
         }
     }
 
-     public  void execute(final TxnVoidCallable callable){
+    private  void executeNested(
+        final GammaTxn tx, final TxnVoidCallable callable)throws Exception{
+
+        final FatVariableLengthGammaTxn nestedTx = beginNested(tx);
+        int attempt = 1;
+        while (true) {
+            boolean rollback = true;
+            try {
+                callable.call(nestedTx);
+                nestedTx.commitNested();
+                rollback = false;
+                return;
+            } catch (ReadWriteConflict e) {
+                rollback = false;
+                if(TRACING_ENABLED){
+                    if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                        logger.info(format("[%s] Encountered a read or write conflict in a nested txn",
+                            txnConfig.familyName));
+                    }
+                }
 
+                if (!retryNestedAfterConflict(nestedTx, attempt)) {
+                    throw e;
+                }
+                attempt++;
+            } catch (RetryError e) {
+                rollback = false;
+                throw nestedTx.rollbackNestedOnRetry(e);
+            } finally {
+                if (rollback) {
+                    nestedTx.rollbackNested();
+                }
+            }
+        }
+    }
+
+    @Override
+    public final void execute(final TxnVoidCallable callable){
         if(callable == null){
             throw new NullPointerException();
         }
 
-        TxnThreadLocal.Container transactionContainer = getThreadLocalTxnContainer();
-        GammaTxnPool pool = (GammaTxnPool) transactionContainer.txPool;
-        if (pool == null) {
-            pool = new GammaTxnPool();
-            transactionContainer.txPool = pool;
+        executeIn(getTxnContainer(), callable);
+    }
+
+    @Override
+    public final void execute(final Txn outer, final TxnVoidCallable callable){
+        if(callable == null){
+            throw new NullPointerException();
         }
 
+        executeIn(newTxnContainer(outer), callable);
+    }
+
+    private void executeIn(
+        final TxnThreadLocal.Container transactionContainer, final TxnVoidCallable callable){
+
         GammaTxn tx = (GammaTxn)transactionContainer.txn;
         if(tx == null || !tx.isAlive()){
             tx = null;
@@ -1243,6 +1642,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                             }
                         }
 
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         execute(tx, transactionContainer,pool, callable);
@@ -1256,7 +1656,11 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                                 }
                             }
 
-                        callable.call(tx);
+                        if (txnConfig.closedNesting) {
+                            executeNested(tx, callable);
+                        } else {
+                            callable.call(tx);
+                        }
                         return;
                     }
                 case Mandatory:
@@ -1318,6 +1722,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                             }
                         }
 
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         execute(tx, transactionContainer, pool, callable);
@@ -1332,6 +1737,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         GammaTxn suspendedTransaction = tx;
+                        final GammaTxnPool pool = takeTxnPool(transactionContainer);
                         tx = txnFactory.newTransaction(pool);
                         transactionContainer.txn = tx;
                         try {
@@ -1375,13 +1781,22 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
         Error cause = null;
 
         try{
+            final SpeculativeGammaLearner learner = txnConfig.speculativeLearner;
+            final long learnerStartNs = learner == null ? 0 : learner.startTxn();
             boolean abort = true;
             try {
                 do {
                     try {
                         cause = null;
+                        final long attemptStartNs = backoffFamily == null ? 0 : System.nanoTime();
                         callable.call(tx);
                         tx.commit();
+                        if (backoffFamily != null) {
+                            backoffFamily.registerCommit(attemptStartNs);
+                        }
+                        if (learner != null) {
+                            learner.registerCommit(learnerStartNs);
+                        }
                         abort = false;
                         return;
                     } catch (RetryError e) {
@@ -1415,6 +1830,20 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         backoffPolicy.delayUninterruptible(tx.getAttempt());
+
+                        if (isIrrevocablePromotionNeeded(tx)) {
+                            if(TRACING_ENABLED){
+                                if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                                    logger.info(format("[%s] Promoting to an irrevocable txn after %s attempts",
+                                        txnConfig.familyName, tx.getAttempt()));
+                                }
+                            }
+
+                            GammaTxn old = tx;
+                            tx = promoteToIrrevocable(old, pool);
+                            pool.put(old);
+                            transactionContainer.txn = tx;
+                        }
                     }
                 } while (tx.softReset());
             } finally {
@@ -1423,6 +1852,7 @@ public final class FatGammaTxnExecutor extends AbstractGammaTxnExecutor{
                 }
 
                 pool.put(tx);
+                releaseTxnPool(pool);
                 transactionContainer.txn = null;
             }
         }catch(RuntimeException e){
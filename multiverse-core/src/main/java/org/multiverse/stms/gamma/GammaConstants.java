@@ -13,6 +13,8 @@ public interface GammaConstants extends MultiverseConstants {
     int MASK_SUCCESS = 1;
     int MASK_UNREGISTERED = MASK_SUCCESS * 2;
     int MASK_CONFLICT = MASK_UNREGISTERED * 2;
+    //the arrive was done on a ReaderSlots slot instead of on the orec itself.
+    int MASK_READER_SLOT = MASK_CONFLICT * 2;
 
     int REGISTRATION_DONE = 0;
     int REGISTRATION_NOT_NEEDED = 1;
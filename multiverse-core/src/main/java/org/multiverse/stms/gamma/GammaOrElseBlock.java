@@ -3,6 +3,8 @@ package org.multiverse.stms.gamma;
 import org.multiverse.api.*;
 import org.multiverse.api.callables.*;
 import org.multiverse.api.exceptions.*;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
 import static org.multiverse.api.TxnThreadLocal.*;
 
 public class GammaOrElseBlock implements OrElseBlock{
@@ -34,10 +36,57 @@ public class GammaOrElseBlock implements OrElseBlock{
             throw new TxnMandatoryException("No txn is found, but one is required for the orelse");
         }
 
+        final GammaTxn gammaTxn = (GammaTxn) txn;
+        if(gammaTxn.transactionType != GammaConstants.TRANSACTIONTYPE_FAT_VARIABLE_LENGTH){
+            //only the variable length transaction supports closed nesting, but as long as the either doesn't retry
+            //there is nothing to roll back. So the transaction only is upgraded when the either retries.
+            try{
+                return either.call(gammaTxn);
+            }catch(RetryError retry){
+                throw gammaTxn.abortOnNestingDetected();
+            }
+        }
+
+        final FatVariableLengthGammaTxn tx = (FatVariableLengthGammaTxn) gammaTxn;
+        tx.beginNested();
+        boolean rollback = true;
         try{
-            return either.call(txn);
+            E result = either.call(tx);
+            tx.commitNested();
+            rollback = false;
+            return result;
         }catch(RetryError retry){
-            return orelse.call(txn);
+            //the changes of the either are discarded, but its reads are kept so the transaction can block on them.
+            rollback = false;
+            tx.rollbackNestedKeepingReads();
+        }catch(ReadWriteConflict conflict){
+            rollback = false;
+            tx.abort();
+            throw conflict;
+        }finally{
+            if(rollback){
+                tx.rollbackNested();
+            }
+        }
+
+        tx.beginNested();
+        rollback = true;
+        try{
+            E result = orelse.call(tx);
+            tx.commitNested();
+            rollback = false;
+            return result;
+        }catch(RetryError retry){
+            rollback = false;
+            throw tx.rollbackNestedOnRetry(retry);
+        }catch(ReadWriteConflict conflict){
+            rollback = false;
+            tx.abort();
+            throw conflict;
+        }finally{
+            if(rollback){
+                tx.rollbackNested();
+            }
         }
     }
 
@@ -67,10 +116,57 @@ public class GammaOrElseBlock implements OrElseBlock{
             throw new TxnMandatoryException("No txn is found, but one is required for the orelse");
         }
 
+        final GammaTxn gammaTxn = (GammaTxn) txn;
+        if(gammaTxn.transactionType != GammaConstants.TRANSACTIONTYPE_FAT_VARIABLE_LENGTH){
+            //only the variable length transaction supports closed nesting, but as long as the either doesn't retry
+            //there is nothing to roll back. So the transaction only is upgraded when the either retries.
+            try{
+                return either.call(gammaTxn);
+            }catch(RetryError retry){
+                throw gammaTxn.abortOnNestingDetected();
+            }
+        }
+
+        final FatVariableLengthGammaTxn tx = (FatVariableLengthGammaTxn) gammaTxn;
+        tx.beginNested();
+        boolean rollback = true;
+        try{
+            int result = either.call(tx);
+            tx.commitNested();
+            rollback = false;
+            return result;
+        }catch(RetryError retry){
+            //the changes of the either are discarded, but its reads are kept so the transaction can block on them.
+            rollback = false;
+            tx.rollbackNestedKeepingReads();
+        }catch(ReadWriteConflict conflict){
+            rollback = false;
+            tx.abort();
+            throw conflict;
+        }finally{
+            if(rollback){
+                tx.rollbackNested();
+            }
+        }
+
+        tx.beginNested();
+        rollback = true;
         try{
-            return either.call(txn);
+            int result = orelse.call(tx);
+            tx.commitNested();
+            rollback = false;
+            return result;
         }catch(RetryError retry){
-            return orelse.call(txn);
+            rollback = false;
+            throw tx.rollbackNestedOnRetry(retry);
+        }catch(ReadWriteConflict conflict){
+            rollback = false;
+            tx.abort();
+            throw conflict;
+        }finally{
+            if(rollback){
+                tx.rollbackNested();
+            }
         }
     }
 
@@ -100,10 +196,57 @@ public class GammaOrElseBlock implements OrElseBlock{
             throw new TxnMandatoryException("No txn is found, but one is required for the orelse");
         }
 
+        final GammaTxn gammaTxn = (GammaTxn) txn;
+        if(gammaTxn.transactionType != GammaConstants.TRANSACTIONTYPE_FAT_VARIABLE_LENGTH){
+            //only the variable length transaction supports closed nesting, but as long as the either doesn't retry
+            //there is nothing to roll back. So the transaction only is upgraded when the either retries.
+            try{
+                return either.call(gammaTxn);
+            }catch(RetryError retry){
+                throw gammaTxn.abortOnNestingDetected();
+            }
+        }
+
+        final FatVariableLengthGammaTxn tx = (FatVariableLengthGammaTxn) gammaTxn;
+        tx.beginNested();
+        boolean rollback = true;
+        try{
+            long result = either.call(tx);
+            tx.commitNested();
+            rollback = false;
+            return result;
+        }catch(RetryError retry){
+            //the changes of the either are discarded, but its reads are kept so the transaction can block on them.
+            rollback = false;
+            tx.rollbackNestedKeepingReads();
+        }catch(ReadWriteConflict conflict){
+            rollback = false;
+            tx.abort();
+            throw conflict;
+        }finally{
+            if(rollback){
+                tx.rollbackNested();
+            }
+        }
+
+        tx.beginNested();
+        rollback = true;
         try{
-            return either.call(txn);
+            long result = orelse.call(tx);
+            tx.commitNested();
+            rollback = false;
+            return result;
         }catch(RetryError retry){
-            return orelse.call(txn);
+            rollback = false;
+            throw tx.rollbackNestedOnRetry(retry);
+        }catch(ReadWriteConflict conflict){
+            rollback = false;
+            tx.abort();
+            throw conflict;
+        }finally{
+            if(rollback){
+                tx.rollbackNested();
+            }
         }
     }
 
@@ -133,10 +276,57 @@ public class GammaOrElseBlock implements OrElseBlock{
             throw new TxnMandatoryException("No txn is found, but one is required for the orelse");
         }
 
+        final GammaTxn gammaTxn = (GammaTxn) txn;
+        if(gammaTxn.transactionType != GammaConstants.TRANSACTIONTYPE_FAT_VARIABLE_LENGTH){
+            //only the variable length transaction supports closed nesting, but as long as the either doesn't retry
+            //there is nothing to roll back. So the transaction only is upgraded when the either retries.
+            try{
+                return either.call(gammaTxn);
+            }catch(RetryError retry){
+                throw gammaTxn.abortOnNestingDetected();
+            }
+        }
+
+        final FatVariableLengthGammaTxn tx = (FatVariableLengthGammaTxn) gammaTxn;
+        tx.beginNested();
+        boolean rollback = true;
         try{
-            return either.call(txn);
+            double result = either.call(tx);
+            tx.commitNested();
+            rollback = false;
+            return result;
         }catch(RetryError retry){
-            return orelse.call(txn);
+            //the changes of the either are discarded, but its reads are kept so the transaction can block on them.
+            rollback = false;
+            tx.rollbackNestedKeepingReads();
+        }catch(ReadWriteConflict conflict){
+            rollback = false;
+            tx.abort();
+            throw conflict;
+        }finally{
+            if(rollback){
+                tx.rollbackNested();
+            }
+        }
+
+        tx.beginNested();
+        rollback = true;
+        try{
+            double result = orelse.call(tx);
+            tx.commitNested();
+            rollback = false;
+            return result;
+        }catch(RetryError retry){
+            rollback = false;
+            throw tx.rollbackNestedOnRetry(retry);
+        }catch(ReadWriteConflict conflict){
+            rollback = false;
+            tx.abort();
+            throw conflict;
+        }finally{
+            if(rollback){
+                tx.rollbackNested();
+            }
         }
     }
 
@@ -166,10 +356,57 @@ public class GammaOrElseBlock implements OrElseBlock{
             throw new TxnMandatoryException("No txn is found, but one is required for the orelse");
         }
 
+        final GammaTxn gammaTxn = (GammaTxn) txn;
+        if(gammaTxn.transactionType != GammaConstants.TRANSACTIONTYPE_FAT_VARIABLE_LENGTH){
+            //only the variable length transaction supports closed nesting, but as long as the either doesn't retry
+            //there is nothing to roll back. So the transaction only is upgraded when the either retries.
+            try{
+                return either.call(gammaTxn);
+            }catch(RetryError retry){
+                throw gammaTxn.abortOnNestingDetected();
+            }
+        }
+
+        final FatVariableLengthGammaTxn tx = (FatVariableLengthGammaTxn) gammaTxn;
+        tx.beginNested();
+        boolean rollback = true;
+        try{
+            boolean result = either.call(tx);
+            tx.commitNested();
+            rollback = false;
+            return result;
+        }catch(RetryError retry){
+            //the changes of the either are discarded, but its reads are kept so the transaction can block on them.
+            rollback = false;
+            tx.rollbackNestedKeepingReads();
+        }catch(ReadWriteConflict conflict){
+            rollback = false;
+            tx.abort();
+            throw conflict;
+        }finally{
+            if(rollback){
+                tx.rollbackNested();
+            }
+        }
+
+        tx.beginNested();
+        rollback = true;
         try{
-            return either.call(txn);
+            boolean result = orelse.call(tx);
+            tx.commitNested();
+            rollback = false;
+            return result;
         }catch(RetryError retry){
-            return orelse.call(txn);
+            rollback = false;
+            throw tx.rollbackNestedOnRetry(retry);
+        }catch(ReadWriteConflict conflict){
+            rollback = false;
+            tx.abort();
+            throw conflict;
+        }finally{
+            if(rollback){
+                tx.rollbackNested();
+            }
         }
     }
 
@@ -200,12 +437,58 @@ public class GammaOrElseBlock implements OrElseBlock{
             throw new TxnMandatoryException("No txn is found, but one is required for the orelse");
         }
 
+        final GammaTxn gammaTxn = (GammaTxn) txn;
+        if(gammaTxn.transactionType != GammaConstants.TRANSACTIONTYPE_FAT_VARIABLE_LENGTH){
+            //only the variable length transaction supports closed nesting, but as long as the either doesn't retry
+            //there is nothing to roll back. So the transaction only is upgraded when the either retries.
+            try{
+                either.call(gammaTxn);
+                return;
+            }catch(RetryError retry){
+                throw gammaTxn.abortOnNestingDetected();
+            }
+        }
+
+        final FatVariableLengthGammaTxn tx = (FatVariableLengthGammaTxn) gammaTxn;
+        tx.beginNested();
+        boolean rollback = true;
         try{
-            either.call(txn);
+            either.call(tx);
+            tx.commitNested();
+            rollback = false;
             return;
         }catch(RetryError retry){
-            orelse.call(txn);
+            //the changes of the either are discarded, but its reads are kept so the transaction can block on them.
+            rollback = false;
+            tx.rollbackNestedKeepingReads();
+        }catch(ReadWriteConflict conflict){
+            rollback = false;
+            tx.abort();
+            throw conflict;
+        }finally{
+            if(rollback){
+                tx.rollbackNested();
+            }
+        }
+
+        tx.beginNested();
+        rollback = true;
+        try{
+            orelse.call(tx);
+            tx.commitNested();
+            rollback = false;
             return;
+        }catch(RetryError retry){
+            rollback = false;
+            throw tx.rollbackNestedOnRetry(retry);
+        }catch(ReadWriteConflict conflict){
+            rollback = false;
+            tx.abort();
+            throw conflict;
+        }finally{
+            if(rollback){
+                tx.rollbackNested();
+            }
         }
     }
-}
\ No newline at end of file
+}
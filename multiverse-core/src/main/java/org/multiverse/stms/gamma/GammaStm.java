@@ -4,6 +4,7 @@ import org.multiverse.api.*;
 import org.multiverse.api.collections.TxnCollectionsFactory;
 import org.multiverse.api.lifecycle.TxnListener;
 import org.multiverse.collections.NaiveTxnCollectionFactory;
+import org.multiverse.stms.gamma.contention.ContentionManager;
 import org.multiverse.stms.gamma.transactionalobjects.*;
 import org.multiverse.stms.gamma.transactions.*;
 import org.multiverse.stms.gamma.transactions.fat.FatFixedLengthGammaTxn;
@@ -12,12 +13,30 @@ import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
 import org.multiverse.stms.gamma.transactions.lean.LeanFixedLengthGammaTxn;
 import org.multiverse.stms.gamma.transactions.lean.LeanMonoGammaTxn;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.multiverse.stms.gamma.transactions.StripedGammaTxnPool.putStripedGammaTxnPool;
+import static org.multiverse.stms.gamma.transactions.StripedGammaTxnPool.takeStripedGammaTxnPool;
 import static org.multiverse.stms.gamma.transactions.ThreadLocalGammaTxnPool.getThreadLocalGammaTxnPool;
 
 
 @SuppressWarnings({"ClassWithTooManyFields"})
 public final class GammaStm implements Stm {
 
+    //the interval in which the cancelled timeouts are removed from the queue of the timeout scheduler.
+    public static final long TIMEOUT_PURGE_INTERVAL_MS = 1000;
+
     /**
      * Creates a GammaStm implementation optimized for speed. This method probably will be invoked
      * by the {@link GlobalStmInstance}.
@@ -32,7 +51,9 @@ public final class GammaStm implements Stm {
     public final int defaultMaxRetries;
     public final int spinCount;
     public final BackoffPolicy defaultBackoffPolicy;
-    public final GlobalConflictCounter globalConflictCounter = new GlobalConflictCounter();
+    public final GlobalConflictCounter globalConflictCounter;
+    public final GlobalCommitClock globalCommitClock;
+    public final IrrevocableToken irrevocableToken = new IrrevocableToken();
     public final GammaTxnRefFactoryImpl defaultRefFactory = new GammaTxnRefFactoryImpl();
     public final GammaTxnRefFactoryBuilder refFactoryBuilder = new GammaTxnRefFactoryBuilderImpl();
     public final GammaTxnExecutor defaultxnExecutor;
@@ -40,7 +61,19 @@ public final class GammaStm implements Stm {
     public final NaiveTxnCollectionFactory defaultTransactionalCollectionFactory
             = new NaiveTxnCollectionFactory(this);
     public final int readBiasedThreshold;
+    public final int readBiasedWriteThreshold;
+    public final ReadBiasStatistics readBiasStatistics = new ReadBiasStatistics();
     public final GammaOrElseBlock defaultOrElseBlock = new GammaOrElseBlock();
+    public final int forkPoolSize;
+    public final int readerSlotCount;
+    public final long irrevocableLockTimeoutNs;
+    public final boolean seqLockEnabled;
+    public final boolean parkingRetryLatchEnabled;
+    public final boolean linkedTranlocalsEnabled;
+    private volatile ExecutorService forkExecutor;
+    private volatile ScheduledExecutorService timeoutScheduler;
+    private final ConcurrentMap<String, SpeculativeGammaLearner> speculativeLearners
+            = new ConcurrentHashMap<String, SpeculativeGammaLearner>();
 
     public GammaStm() {
         this(new GammaStmConfig());
@@ -49,6 +82,8 @@ public final class GammaStm implements Stm {
     public GammaStm(GammaStmConfig config) {
         config.validate();
 
+        this.globalConflictCounter = new GlobalConflictCounter(config.conflictDomainCount);
+        this.globalCommitClock = config.globalCommitClockEnabled ? new GlobalCommitClock() : null;
         this.defaultMaxRetries = config.maxRetries;
         this.spinCount = config.spinCount;
         this.defaultBackoffPolicy = config.backoffPolicy;
@@ -58,6 +93,13 @@ public final class GammaStm implements Stm {
                 .setSpeculative(false)
                 .newTxnExecutor();
         this.readBiasedThreshold = config.readBiasedThreshold;
+        this.readBiasedWriteThreshold = config.readBiasedWriteThreshold;
+        this.forkPoolSize = config.forkPoolSize;
+        this.readerSlotCount = config.readerSlotCount;
+        this.irrevocableLockTimeoutNs = config.irrevocableLockTimeoutNs;
+        this.seqLockEnabled = config.seqLockEnabled;
+        this.parkingRetryLatchEnabled = config.parkingRetryLatchEnabled;
+        this.linkedTranlocalsEnabled = config.linkedTranlocalsEnabled;
     }
 
     @Override
@@ -79,6 +121,129 @@ public final class GammaStm implements Stm {
         return globalConflictCounter;
     }
 
+    /**
+     * Returns the GlobalCommitClock used for read consistency.
+     *
+     * @return the GlobalCommitClock, or null if the GlobalConflictCounter is used.
+     */
+    public final GlobalCommitClock getGlobalCommitClock() {
+        return globalCommitClock;
+    }
+
+    /**
+     * Returns the ReadBiasStatistics that count the transitions of the orecs between update biased and readbiased.
+     *
+     * @return the ReadBiasStatistics.
+     */
+    public final ReadBiasStatistics getReadBiasStatistics() {
+        return readBiasStatistics;
+    }
+
+    /**
+     * Returns the IrrevocableToken that makes sure that at most one irrevocable transaction is running.
+     *
+     * @return the IrrevocableToken.
+     */
+    public final IrrevocableToken getIrrevocableToken() {
+        return irrevocableToken;
+    }
+
+    /**
+     * Returns the Executor that runs the children forked by {@link Txn#fork(org.multiverse.api.callables.TxnCallable)}.
+     * The pool is created lazily and consists of daemon threads, so it doesn't prevent the JVM from exiting.
+     *
+     * @return the Executor.
+     */
+    public final Executor getForkExecutor() {
+        ExecutorService executor = forkExecutor;
+        if (executor != null) {
+            return executor;
+        }
+
+        synchronized (this) {
+            if (forkExecutor == null) {
+                forkExecutor = Executors.newFixedThreadPool(forkPoolSize, new ThreadFactory() {
+                    private final AtomicInteger threadCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "GammaStm-fork-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            return forkExecutor;
+        }
+    }
+
+    /**
+     * Returns the ScheduledExecutorService that ends the waits of the asynchronous executions (see
+     * {@link TxnExecutor#executeAsync(org.multiverse.api.callables.TxnCallable, Executor)}) with a timeout. It is
+     * created lazily and consists of a single daemon thread, so it doesn't prevent the JVM from exiting.
+     *
+     * @return the ScheduledExecutorService.
+     */
+    public final ScheduledExecutorService getTimeoutScheduler() {
+        ScheduledExecutorService scheduler = timeoutScheduler;
+        if (scheduler != null) {
+            return scheduler;
+        }
+
+        synchronized (this) {
+            if (timeoutScheduler == null) {
+                final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "GammaStm-timeout");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+                //a wait that ends before its timeout cancels the timeout, but a cancelled task stays in the queue
+                //till its delay has passed. So the queue is purged regularly, else an execution would be kept
+                //reachable for its full timeout.
+                executor.scheduleWithFixedDelay(new Runnable() {
+                    @Override
+                    public void run() {
+                        executor.purge();
+                    }
+                }, TIMEOUT_PURGE_INTERVAL_MS, TIMEOUT_PURGE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                timeoutScheduler = executor;
+            }
+            return timeoutScheduler;
+        }
+    }
+
+    /**
+     * Returns the SpeculativeGammaLearner of the transaction family with the given name. Only named speculative
+     * families with re-learning enabled are registered. If multiple factories are created for the same family, the
+     * last one created is returned.
+     *
+     * @param familyName the name of the transaction family.
+     * @return the SpeculativeGammaLearner, or null if not found.
+     */
+    public final SpeculativeGammaLearner getSpeculativeLearner(final String familyName) {
+        return speculativeLearners.get(familyName);
+    }
+
+    /**
+     * Returns a read only view of the SpeculativeGammaLearners of all named speculative transaction families, so the
+     * current speculative state of every family can be inspected.
+     *
+     * @return the SpeculativeGammaLearners by family name.
+     */
+    public final Map<String, SpeculativeGammaLearner> getSpeculativeLearners() {
+        return Collections.unmodifiableMap(speculativeLearners);
+    }
+
+    private void registerSpeculativeLearner(final GammaTxnConfig config) {
+        final SpeculativeGammaLearner learner = config.speculativeLearner;
+        if (learner != null && !config.isAnonymous) {
+            speculativeLearners.put(config.familyName, learner);
+        }
+    }
+
     private final class GammaTxnFactoryBuilderImpl implements GammaTxnFactoryBuilder {
 
         private final GammaTxnConfig config;
@@ -206,6 +371,16 @@ public final class GammaStm implements Stm {
             return new GammaTxnFactoryBuilderImpl(config.setBackoffPolicy(backoffPolicy));
         }
 
+        @Override
+        public final GammaTxnFactoryBuilder setContentionManager(final ContentionManager contentionManager) {
+            //noinspection ObjectEquality
+            if (contentionManager == config.contentionManager) {
+                return this;
+            }
+
+            return new GammaTxnFactoryBuilderImpl(config.setContentionManager(contentionManager));
+        }
+
         @Override
         public final GammaTxnFactoryBuilder setDirtyCheckEnabled(final boolean dirtyCheckEnabled) {
             if (dirtyCheckEnabled == config.dirtyCheck) {
@@ -261,6 +436,51 @@ public final class GammaStm implements Stm {
             return new GammaTxnFactoryBuilderImpl(config.setMaxRetries(maxRetries));
         }
 
+        @Override
+        public final GammaTxnFactoryBuilder setIrrevocable(final boolean irrevocable) {
+            if (irrevocable == config.irrevocable) {
+                return this;
+            }
+
+            return new GammaTxnFactoryBuilderImpl(config.setIrrevocable(irrevocable));
+        }
+
+        @Override
+        public final GammaTxnFactoryBuilder setIrrevocableAfterAttempts(final int attempts) {
+            if (attempts == config.irrevocableAfterAttempts) {
+                return this;
+            }
+
+            return new GammaTxnFactoryBuilderImpl(config.setIrrevocableAfterAttempts(attempts));
+        }
+
+        @Override
+        public final GammaTxnFactoryBuilder setClosedNesting(final boolean closedNesting) {
+            if (closedNesting == config.closedNesting) {
+                return this;
+            }
+
+            return new GammaTxnFactoryBuilderImpl(config.setClosedNesting(closedNesting));
+        }
+
+        @Override
+        public final GammaTxnFactoryBuilder setSpeculativeRelearnInterval(final int interval) {
+            if (interval == config.speculativeRelearnInterval) {
+                return this;
+            }
+
+            return new GammaTxnFactoryBuilderImpl(config.setSpeculativeRelearnInterval(interval));
+        }
+
+        @Override
+        public final GammaTxnFactoryBuilder setThreadLocalContextEnabled(final boolean enabled) {
+            if (enabled == config.threadLocalContextEnabled) {
+                return this;
+            }
+
+            return new GammaTxnFactoryBuilderImpl(config.setThreadLocalContextEnabled(enabled));
+        }
+
         @Override
         public final GammaTxnExecutor newTxnExecutor() {
             config.init();
@@ -280,7 +500,9 @@ public final class GammaStm implements Stm {
         public GammaTxnFactory newTransactionFactory() {
             config.init();
 
-            if (config.isSpeculative()) {
+            //an irrevocable transaction should not fail on a speculative configuration error.
+            if (config.isSpeculative() && !config.irrevocable) {
+                registerSpeculativeLearner(config);
                 return new SpeculativeGammaTxnFactory(config, this);
             } else {
                 return new NonSpeculativeGammaTxnFactory(config,this);
@@ -294,29 +516,65 @@ public final class GammaStm implements Stm {
     }
 
     private final class GammaTxnRefFactoryImpl implements GammaTxnRefFactory {
+
+        //-1 indicates that the conflict domain is derived from the identity hashcode of the ref.
+        private final int conflictDomain;
+        private final int historyDepth;
+        private final boolean padded;
+
+        GammaTxnRefFactoryImpl() {
+            this(-1, 0, false);
+        }
+
+        GammaTxnRefFactoryImpl(final int conflictDomain, final int historyDepth, final boolean padded) {
+            this.conflictDomain = conflictDomain;
+            this.historyDepth = historyDepth;
+            this.padded = padded;
+        }
+
+        private <R extends BaseGammaTxnRef> R init(final R ref) {
+            if (conflictDomain >= 0) {
+                ref.___setConflictDomain(conflictDomain);
+            }
+            if (historyDepth > 0) {
+                ref.___setHistoryDepth(historyDepth);
+            }
+            return ref;
+        }
+
         @Override
         public final <E> GammaTxnRef<E> newTxnRef(E value) {
-            return new GammaTxnRef<E>(GammaStm.this, value);
+            return init(padded
+                    ? new PaddedGammaTxnRef<E>(GammaStm.this, value)
+                    : new GammaTxnRef<E>(GammaStm.this, value));
         }
 
         @Override
         public final GammaTxnInteger newTxnInteger(int value) {
-            return new GammaTxnInteger(GammaStm.this, value);
+            return init(padded
+                    ? new PaddedGammaTxnInteger(GammaStm.this, value)
+                    : new GammaTxnInteger(GammaStm.this, value));
         }
 
         @Override
         public final GammaTxnBoolean newTxnBoolean(boolean value) {
-            return new GammaTxnBoolean(GammaStm.this, value);
+            return init(padded
+                    ? new PaddedGammaTxnBoolean(GammaStm.this, value)
+                    : new GammaTxnBoolean(GammaStm.this, value));
         }
 
         @Override
         public final GammaTxnDouble newTxnDouble(double value) {
-            return new GammaTxnDouble(GammaStm.this, value);
+            return init(padded
+                    ? new PaddedGammaTxnDouble(GammaStm.this, value)
+                    : new GammaTxnDouble(GammaStm.this, value));
         }
 
         @Override
         public final GammaTxnLong newTxnLong(long value) {
-            return new GammaTxnLong(GammaStm.this, value);
+            return init(padded
+                    ? new PaddedGammaTxnLong(GammaStm.this, value)
+                    : new GammaTxnLong(GammaStm.this, value));
         }
     }
 
@@ -337,9 +595,67 @@ public final class GammaStm implements Stm {
     }
 
     private final class GammaTxnRefFactoryBuilderImpl implements GammaTxnRefFactoryBuilder {
+
+        private final int conflictDomain;
+        private final int historyDepth;
+        private final boolean padded;
+
+        GammaTxnRefFactoryBuilderImpl() {
+            this(-1, 0, false);
+        }
+
+        GammaTxnRefFactoryBuilderImpl(final int conflictDomain, final int historyDepth, final boolean padded) {
+            this.conflictDomain = conflictDomain;
+            this.historyDepth = historyDepth;
+            this.padded = padded;
+        }
+
+        @Override
+        public GammaTxnRefFactoryBuilder setConflictDomain(final int conflictDomain) {
+            if (conflictDomain < 0 || conflictDomain >= globalConflictCounter.getDomainCount()) {
+                throw new IllegalArgumentException(
+                        "conflictDomain should be between 0 and " + (globalConflictCounter.getDomainCount() - 1)
+                                + ", but was " + conflictDomain);
+            }
+
+            if (conflictDomain == this.conflictDomain) {
+                return this;
+            }
+
+            return new GammaTxnRefFactoryBuilderImpl(conflictDomain, historyDepth, padded);
+        }
+
+        @Override
+        public GammaTxnRefFactoryBuilder setHistoryDepth(final int historyDepth) {
+            if (historyDepth < 0) {
+                throw new IllegalArgumentException(
+                        "historyDepth can't be smaller than 0, historyDepth was " + historyDepth);
+            }
+
+            if (historyDepth > 0 && globalCommitClock == null) {
+                throw new IllegalStateException(
+                        "historyDepth can only be used in combination with GammaStmConfig.globalCommitClockEnabled");
+            }
+
+            if (historyDepth == this.historyDepth) {
+                return this;
+            }
+
+            return new GammaTxnRefFactoryBuilderImpl(conflictDomain, historyDepth, padded);
+        }
+
+        @Override
+        public GammaTxnRefFactoryBuilder setPadded(final boolean padded) {
+            if (padded == this.padded) {
+                return this;
+            }
+
+            return new GammaTxnRefFactoryBuilderImpl(conflictDomain, historyDepth, padded);
+        }
+
         @Override
         public GammaTxnRefFactory build() {
-            return new GammaTxnRefFactoryImpl();
+            return new GammaTxnRefFactoryImpl(conflictDomain, historyDepth, padded);
         }
     }
 
@@ -365,7 +681,16 @@ public final class GammaStm implements Stm {
 
         @Override
         public final GammaTxn newTxn() {
-            return newTransaction(getThreadLocalGammaTxnPool());
+            if (config.threadLocalContextEnabled) {
+                return newTransaction(getThreadLocalGammaTxnPool());
+            }
+
+            final GammaTxnPool pool = takeStripedGammaTxnPool();
+            try {
+                return newTransaction(pool);
+            } finally {
+                putStripedGammaTxnPool(pool);
+            }
         }
 
         @Override
@@ -409,7 +734,16 @@ public final class GammaStm implements Stm {
 
         @Override
         public final GammaTxn newTxn() {
-            return newTransaction(getThreadLocalGammaTxnPool());
+            if (config.threadLocalContextEnabled) {
+                return newTransaction(getThreadLocalGammaTxnPool());
+            }
+
+            final GammaTxnPool pool = takeStripedGammaTxnPool();
+            try {
+                return newTransaction(pool);
+            } finally {
+                putStripedGammaTxnPool(pool);
+            }
         }
 
         @Override
@@ -422,7 +756,10 @@ public final class GammaStm implements Stm {
         @Override
         public final GammaTxn newTransaction(final GammaTxnPool pool) {
             final SpeculativeGammaConfiguration speculativeConfiguration = config.speculativeConfiguration.get();
-            final int length = speculativeConfiguration.minimalLength;
+            //orelse and closed nesting need the nested scopes only the variable length transaction provides.
+            final int length = speculativeConfiguration.orelseDetected
+                    ? Integer.MAX_VALUE
+                    : speculativeConfiguration.minimalLength;
 
             if (length <= 1) {
                 if (speculativeConfiguration.fat) {
@@ -7,9 +7,11 @@ import org.multiverse.api.LockMode;
 import org.multiverse.api.PropagationLevel;
 import org.multiverse.api.TraceLevel;
 import org.multiverse.api.lifecycle.TxnListener;
+import org.multiverse.stms.gamma.contention.ContentionManager;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static java.lang.String.format;
 
@@ -127,12 +129,31 @@ public final class GammaStmConfig {
      */
     public int maxFixedLengthTransactionSize = 20;
 
+    /**
+     * If the fixed length transactions keep their tranlocals in a doubly linked chain where a tranlocal that is opened
+     * is moved in front, instead of scanning an array in the order the refs have been opened. A ref that is opened
+     * over and over again is found sooner in the chain, but moving it in front costs a few writes on every open.
+     * <p/>
+     * The array is the default; the chain is kept so both can be compared with the same benchmarks.
+     */
+    public boolean linkedTranlocalsEnabled = false;
+
     /**
      * If a transaction fails for a read/write conflict it should not hammer the system by trying again and running in the same conflict
      * The default backoff policy helps to back threads of by sleeping/yielding.
      */
     public BackoffPolicy backoffPolicy = DefaultBackoffPolicy.MAX_100_MS;
 
+    /**
+     * The {@link ContentionManager} that decides what to do when a transaction fails to acquire a lock because another
+     * transaction holds it: wait, abort itself or abort the other transaction. If null (the default), a transaction
+     * only spins for the lock and aborts itself if it doesn't come available; the backoffPolicy is then the only
+     * reaction on the conflict.
+     * <p/>
+     * Using a contention manager forces fat transactions.
+     */
+    public ContentionManager contentionManager = null;
+
     /**
      * With the trace level you have control if you get output of transactions executing. It helps with debugging. If the
      * org.multiverse.MultiverseConstants.___TracingEnabled is not set to true, this value is ignored and the whole profiling
@@ -171,6 +192,89 @@ public final class GammaStmConfig {
      */
     public int readBiasedThreshold = 128;
 
+    /**
+     * The write score at which a readbiased transactional object becomes update biased again. Every update of a
+     * readbiased object increases the score by 2 and every read that needs to arrive on it after an update decreases
+     * it by 1, so a readbiased object only becomes update biased again if the updates start to dominate. Once update
+     * biased, an update halves the readonly count instead of clearing it and the object starts half way the
+     * readBiasedThreshold. Refs that alternate between read heavy and write heavy phases don't keep flipping between
+     * both modes this way. The value can't be larger than 1023; 0 makes the first update of a readbiased object
+     * update biased again (and clears the readonly count on every update).
+     */
+    public int readBiasedWriteThreshold = 16;
+
+    /**
+     * The number of conflict domains the {@link GlobalConflictCounter} is partitioned in. A transaction using the
+     * richmans conflict scan only needs to do a full conflict scan when a domain it has read from signals a conflict,
+     * so more domains means fewer unneeded full conflict scans. The value needs to be a power of 2 and can't be
+     * larger than 64. Setting it to 1 gives the behavior of a single global conflict counter.
+     */
+    public int conflictDomainCount = GlobalConflictCounter.MAX_DOMAIN_COUNT;
+
+    /**
+     * If the {@link GlobalCommitClock} should be used for read consistency (TL2 style) instead of the
+     * {@link GlobalConflictCounter}. With the clock, reads don't need to arrive/depart and a read can be validated
+     * against the start time of the transaction, instead of requiring a full conflict scan. The price is that every
+     * update needs to increase the clock.
+     */
+    public boolean globalCommitClockEnabled = false;
+
+    /**
+     * The number of threads of the pool that executes the children forked by {@link org.multiverse.api.Txn#fork}
+     * when no Executor is passed explicitly. The pool is created when the first child is forked.
+     */
+    public int forkPoolSize = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The number of transactions after which a speculative transaction family that has been upgraded (e.g. from a lean
+     * to a fat transaction) tries its initial speculative configuration again. The configuration with the best measured
+     * throughput is kept, so a rare orelse or lock during warm up doesn't pin the family to an expensive transaction
+     * forever. The default is 0, which disables the re-learning.
+     */
+    public int speculativeRelearnInterval = 0;
+
+    /**
+     * The number of slots of the {@link org.multiverse.stms.gamma.transactionalobjects.ReaderSlots} that are created
+     * for a ref once its readers start to contend on the orec. Readers on different slots don't contend, only the
+     * first reader of a slot arrives on the orec. The value needs to be 0 or a power of 2 not larger than 1024; 0
+     * disables the ReaderSlots. The default is the number of processors rounded up to a power of 2, or 0 if there
+     * is only 1 processor.
+     */
+    public int readerSlotCount = defaultReaderSlotCount();
+
+    private static int defaultReaderSlotCount() {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        if (processors <= 1) {
+            return 0;
+        }
+
+        return Integer.highestOneBit(Math.min(processors, 1024) - 1) << 1;
+    }
+
+    /**
+     * The maximum time in nanoseconds an irrevocable transaction waits for a lock held by another transaction. An
+     * irrevocable transaction doesn't abort on a conflict, so without a bound it would wait forever for a transaction
+     * that doesn't release its lock. If the time is exceeded, the transaction fails with an
+     * {@link org.multiverse.api.exceptions.IrrevocableLockTimeoutException}.
+     */
+    public long irrevocableLockTimeoutNs = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * If the exclusive lock of a ref also is stored in its version (seqlock style). A read that doesn't need to
+     * arrive on the orec then only needs one volatile read of the version before the value and one after it, instead
+     * of also reading the orec to check if the ref is exclusively locked. The price is that acquiring and releasing
+     * an exclusive lock also needs to update the version.
+     */
+    public boolean seqLockEnabled = false;
+
+    /**
+     * If the transactions wait for a retry on a {@link org.multiverse.api.blocking.ParkingRetryLatch} instead of a
+     * {@link org.multiverse.api.blocking.DefaultRetryLatch}. The ParkingRetryLatch spins for a short time and then
+     * parks the thread instead of waiting on a monitor, so a waiting virtual thread doesn't pin its carrier thread and
+     * an open doesn't need to acquire a monitor.
+     */
+    public boolean parkingRetryLatchEnabled = false;
+
     /**
      * Checks if the configuration is valid.
      *
@@ -195,6 +299,50 @@ public final class GammaStmConfig {
                             "readBiasedThreshold was " + readBiasedThreshold);
         }
 
+        if (readBiasedWriteThreshold < 0) {
+            throw new IllegalStateException(
+                    "[GammaStmConfig] readBiasedWriteThreshold can't be smaller than 0, " +
+                            "readBiasedWriteThreshold was " + readBiasedWriteThreshold);
+        }
+
+        if (readBiasedWriteThreshold > 1023) {
+            throw new IllegalStateException(
+                    "[GammaStmConfig] readBiasedWriteThreshold can't be larger than 1023, " +
+                            "readBiasedWriteThreshold was " + readBiasedWriteThreshold);
+        }
+
+        if (conflictDomainCount < 1
+                || conflictDomainCount > GlobalConflictCounter.MAX_DOMAIN_COUNT
+                || Integer.bitCount(conflictDomainCount) != 1) {
+            throw new IllegalStateException(
+                    "[GammaStmConfig] conflictDomainCount should be a power of 2 between 1 and "
+                            + GlobalConflictCounter.MAX_DOMAIN_COUNT + ", conflictDomainCount was " + conflictDomainCount);
+        }
+
+        if (readerSlotCount < 0 || readerSlotCount > 1024
+                || (readerSlotCount > 0 && Integer.bitCount(readerSlotCount) != 1)) {
+            throw new IllegalStateException(
+                    "[GammaStmConfig] readerSlotCount should be 0 or a power of 2 not larger than 1024, but was "
+                            + readerSlotCount);
+        }
+
+        if (speculativeRelearnInterval < 0) {
+            throw new IllegalStateException(
+                    "[GammaStmConfig] speculativeRelearnInterval can't be smaller than 0, but was "
+                            + speculativeRelearnInterval);
+        }
+
+        if (irrevocableLockTimeoutNs < 1) {
+            throw new IllegalStateException(
+                    "[GammaStmConfig] irrevocableLockTimeoutNs can't be smaller than 1, but was "
+                            + irrevocableLockTimeoutNs);
+        }
+
+        if (forkPoolSize < 1) {
+            throw new IllegalStateException(
+                    "[GammaStmConfig] forkPoolSize can't be smaller than 1, but was " + forkPoolSize);
+        }
+
         if (maximumPoorMansConflictScanLength < 0) {
             throw new IllegalStateException(
                     "[GammaStmConfig] maximumFullConflictScanSize can't be smaller than 0, " +
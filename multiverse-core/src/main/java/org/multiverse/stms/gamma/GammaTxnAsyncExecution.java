@@ -0,0 +1,382 @@
+package org.multiverse.stms.gamma;
+
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnThreadLocal;
+import org.multiverse.api.blocking.RetryListener;
+import org.multiverse.api.callables.TxnCallable;
+import org.multiverse.api.exceptions.ReadWriteConflict;
+import org.multiverse.api.exceptions.RetryError;
+import org.multiverse.api.exceptions.RetryTimeoutException;
+import org.multiverse.api.exceptions.SpeculativeConfigurationError;
+import org.multiverse.api.exceptions.TooManyRetriesException;
+import org.multiverse.stms.gamma.transactionalobjects.BaseGammaTxnRef;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.GammaTxnPool;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+
+/**
+ * The asynchronous execution of a {@link TxnCallable}, see
+ * {@link AbstractGammaTxnExecutor#executeAsync(TxnCallable, Executor)}.
+ *
+ * <p>The attempts are executed by the {@link Executor}. If an attempt does a retry, the thread isn't blocked until one
+ * of the refs read has changed. Instead the execution itself is registered as the {@link RetryListener} on the refs,
+ * and when it is opened by the commit of a change, the execution is submitted to the Executor again. The
+ * transaction is put back in the pool while waiting, so a pending execution only costs the execution itself and its
+ * registrations.
+ *
+ * <p>The hand over between the thread that runs an attempt and the thread that opens the listener is done using the
+ * status: the thread that changes it from waiting to RUNNING is the one that continues the execution. So the listener
+ * can safely be opened while the attempt that did the retry still is running. The same goes for the timeout and the
+ * cancelling of the TxnFuture, which end the wait without continuing the execution.
+ *
+ * <p>If the transaction has a timeout, the time spent waiting is limited to the remaining timeout, just like the
+ * blocking execute does. When it has elapsed, the TxnFuture fails with a {@link RetryTimeoutException}. The timeouts
+ * are done by the {@link GammaStm#getTimeoutScheduler()}.
+ *
+ * @param <E> the type of the result of the callable.
+ * @author Peter Veentjer.
+ */
+final class GammaTxnAsyncExecution<E> implements Runnable, RetryListener {
+
+    private static final int RUNNING = 0;
+
+    private static final long MASK_OPEN = 1L;
+
+    final GammaTxnFuture<E> future = new GammaTxnFuture<E>(this);
+
+    private final AbstractGammaTxnExecutor txnExecutor;
+    private final TxnCallable<E> callable;
+    private final Executor executor;
+    //RUNNING, or the number of the wait while waiting, so a timeout can't end a later wait.
+    private final AtomicInteger status = new AtomicInteger(RUNNING);
+    //the era and the open status (in the lowest bit).
+    private final AtomicLong listenerState = new AtomicLong();
+    //the fields below are only accessed by the thread that runs the execution; the status is used to hand them over.
+    private int attempt = 1;
+    private int waitCount;
+    private long remainingTimeoutNs;
+    private long waitStartNs;
+    //the timeout of the current wait, cancelled when the wait ends before the timeout fires.
+    private ScheduledFuture<?> timeoutTask;
+    //the number of the last wait whose timeout fired; it is set before the timeout tries to end the wait, so a
+    //timeout that fires before the status is set isn't lost.
+    private final AtomicInteger timedOutWait = new AtomicInteger();
+    //the handoff of the last retry; it is kept by the execution while the transaction is in the pool.
+    private BaseGammaTxnRef handoffOwner;
+    private Object handoffPredicate;
+
+    GammaTxnAsyncExecution(final AbstractGammaTxnExecutor txnExecutor, final TxnCallable<E> callable,
+                           final Executor executor) {
+        this.txnExecutor = txnExecutor;
+        this.callable = callable;
+        this.executor = executor;
+        this.remainingTimeoutNs = txnExecutor.txnConfig.timeoutNs;
+    }
+
+    /**
+     * Submits the execution to the Executor. If the Executor rejects it, the TxnFuture fails.
+     */
+    void submit() {
+        try {
+            executor.execute(this);
+        } catch (RuntimeException e) {
+            future.fail(e);
+        }
+    }
+
+    @Override
+    public void run() {
+        endWait();
+
+        if (future.isDone()) {
+            //the TxnFuture has been cancelled, so a wake-up this execution could have been handed is passed on.
+            passOnHandoff();
+            return;
+        }
+
+        //the execution could be run by a thread that just committed a transaction (a caller runs Executor), so
+        //the transaction of that thread is restored afterwards.
+        final TxnThreadLocal.Container container = txnExecutor.getTxnContainer();
+        final Txn previous = container.txn;
+        final GammaTxnPool pool = txnExecutor.takeTxnPool(container);
+        try {
+            execute(container, pool);
+        } finally {
+            container.txn = previous;
+            txnExecutor.releaseTxnPool(pool);
+        }
+    }
+
+    private void execute(final TxnThreadLocal.Container container, final GammaTxnPool pool) {
+        final GammaTxnConfig txnConfig = txnExecutor.txnConfig;
+
+        GammaTxn tx = takeTxn(pool);
+        Throwable cause = null;
+        try {
+            while (true) {
+                container.txn = tx;
+                try {
+                    cause = null;
+                    final long attemptStartNs = txnExecutor.backoffFamily == null ? 0 : System.nanoTime();
+                    final E result = callable.call(tx);
+                    tx.commit();
+                    if (txnExecutor.backoffFamily != null) {
+                        txnExecutor.backoffFamily.registerCommit(attemptStartNs);
+                    }
+                    putTxn(tx, pool);
+                    tx = null;
+                    future.complete(result);
+                    return;
+                } catch (RetryError e) {
+                    //the transaction already is aborted and this execution is registered on the refs it has read.
+                    if (tx.attempt >= txnConfig.getMaxRetries() && !tx.config.irrevocable) {
+                        reset();
+                        tx.passOnHandoff();
+                        break;
+                    }
+
+                    attempt = tx.attempt + 1;
+                    handoffOwner = tx.handoffOwner;
+                    handoffPredicate = tx.handoffPredicate;
+                    putTxn(tx, pool);
+                    tx = null;
+                    container.txn = null;
+
+                    if (!awaitAsync(txnConfig)) {
+                        //the execution continues when the listener is opened.
+                        return;
+                    }
+
+                    tx = takeTxn(pool);
+                    continue;
+                } catch (SpeculativeConfigurationError e) {
+                    final GammaTxn old = tx;
+                    tx = txnExecutor.txnFactory.upgradeAfterSpeculativeFailure(old, pool);
+                    putTxn(old, pool);
+                    replaceRetryListener(tx);
+                } catch (ReadWriteConflict e) {
+                    cause = e;
+                    txnExecutor.backoffPolicy.delayUninterruptible(tx.getAttempt());
+
+                    if (txnExecutor.isIrrevocablePromotionNeeded(tx)) {
+                        final GammaTxn old = tx;
+                        tx = txnExecutor.promoteToIrrevocable(old, pool);
+                        putTxn(old, pool);
+                        replaceRetryListener(tx);
+                    }
+                }
+
+                if (!tx.softReset()) {
+                    break;
+                }
+            }
+        } catch (Throwable e) {
+            if (tx != null) {
+                tx.abort();
+            }
+            future.fail(e);
+            return;
+        } finally {
+            if (tx != null) {
+                putTxn(tx, pool);
+            }
+        }
+
+        future.fail(new TooManyRetriesException(
+                format("[%s] Maximum number of %s retries has been reached",
+                        txnConfig.getFamilyName(), txnConfig.getMaxRetries()), cause));
+    }
+
+    private GammaTxn takeTxn(final GammaTxnPool pool) {
+        final GammaTxn tx = txnExecutor.txnFactory.newTransaction(pool);
+        tx.attempt = attempt;
+        tx.remainingTimeoutNs = remainingTimeoutNs;
+        tx.handoffOwner = handoffOwner;
+        tx.handoffPredicate = handoffPredicate;
+        handoffOwner = null;
+        handoffPredicate = null;
+        replaceRetryListener(tx);
+        return tx;
+    }
+
+    private void passOnHandoff() {
+        final BaseGammaTxnRef owner = handoffOwner;
+        if (owner == null) {
+            return;
+        }
+
+        //the registrations are made stale first, so that they can't be handed a wake-up anymore.
+        reset();
+        final Listeners listeners = owner.___removeListenersAfterHandoff(handoffPredicate);
+        handoffOwner = null;
+        handoffPredicate = null;
+        if (listeners != null) {
+            owner.___openListenersAfterAtomicWrite(listeners);
+        }
+    }
+
+    private void replaceRetryListener(final GammaTxn tx) {
+        tx.retryListener = this;
+    }
+
+    private void putTxn(final GammaTxn tx, final GammaTxnPool pool) {
+        if (tx.retryListener == this) {
+            tx.retryListener = tx.retryLatch;
+            pool.put(tx);
+        }
+    }
+
+    /**
+     * Marks the execution as waiting for the listener to be opened.
+     *
+     * @param txnConfig the configuration of the transactions.
+     * @return true if the listener already is opened and the execution should continue on the current thread, false if
+     *         the execution continues when the listener is opened (or has ended).
+     */
+    private boolean awaitAsync(final GammaTxnConfig txnConfig) {
+        final boolean timed = txnConfig.timeoutNs != Long.MAX_VALUE;
+        if (timed && remainingTimeoutNs <= 0) {
+            timeout();
+            return false;
+        }
+
+        waitCount = waitCount == Integer.MAX_VALUE ? 1 : waitCount + 1;
+        final int wait = waitCount;
+        if (timed) {
+            waitStartNs = System.nanoTime();
+            //the task is scheduled before the status is set, so the thread that ends the wait can cancel it.
+            timeoutTask = txnConfig.stm.getTimeoutScheduler().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    timedOutWait.set(wait);
+                    if (status.compareAndSet(wait, RUNNING)) {
+                        timeout();
+                    }
+                }
+            }, remainingTimeoutNs, TimeUnit.NANOSECONDS);
+        }
+        status.set(wait);
+
+        //the timeout could have fired before the status was set.
+        if (timed && timedOutWait.get() == wait && status.compareAndSet(wait, RUNNING)) {
+            timeout();
+            return false;
+        }
+
+        //the TxnFuture could have been cancelled, or the listener opened, before the status was set.
+        if (future.isDone()) {
+            if (status.compareAndSet(wait, RUNNING)) {
+                endWait();
+                reset();
+                passOnHandoff();
+            }
+            return false;
+        }
+
+        if (isOpen() && status.compareAndSet(wait, RUNNING)) {
+            endWait();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Subtracts the time spent waiting from the remaining timeout. Should only be called by the thread that ended the
+     * wait.
+     */
+    private void endWait() {
+        final ScheduledFuture<?> task = timeoutTask;
+        if (task != null) {
+            timeoutTask = null;
+            task.cancel(false);
+        }
+
+        if (waitStartNs != 0) {
+            remainingTimeoutNs -= System.nanoTime() - waitStartNs;
+            waitStartNs = 0;
+        }
+    }
+
+    private void timeout() {
+        waitStartNs = 0;
+        timeoutTask = null;
+        //the registrations are made stale, so they don't keep the execution reachable till the refs change.
+        reset();
+        passOnHandoff();
+        final GammaTxnConfig txnConfig = txnExecutor.txnConfig;
+        future.fail(new RetryTimeoutException(
+                format("[%s] Txn has timed out with a total timeout of %s ns",
+                        txnConfig.getFamilyName(), txnConfig.getTimeoutNs())));
+    }
+
+    /**
+     * Is called when the TxnFuture is cancelled. If the execution is waiting, the wait is ended and the registrations
+     * on the refs are made stale.
+     */
+    void cancelled() {
+        final int current = status.get();
+        if (current != RUNNING && status.compareAndSet(current, RUNNING)) {
+            endWait();
+            reset();
+            passOnHandoff();
+        }
+    }
+
+    // ======================= RetryListener =======================
+
+    @Override
+    public void open(final long expectedEra) {
+        while (true) {
+            final long current = listenerState.get();
+            if ((current & MASK_OPEN) != 0 || (current >>> 1) != expectedEra) {
+                return;
+            }
+
+            if (listenerState.compareAndSet(current, current | MASK_OPEN)) {
+                break;
+            }
+        }
+
+        final int current = status.get();
+        if (current != RUNNING && status.compareAndSet(current, RUNNING)) {
+            submit();
+        }
+    }
+
+    @Override
+    public void reset() {
+        while (true) {
+            final long current = listenerState.get();
+            //increments the era and clears the open bit.
+            final long update = ((current >>> 1) + 1) << 1;
+            if (listenerState.compareAndSet(current, update)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return (listenerState.get() & MASK_OPEN) != 0;
+    }
+
+    @Override
+    public long getEra() {
+        return listenerState.get() >>> 1;
+    }
+
+    @Override
+    public String toString() {
+        return format("GammaTxnAsyncExecution(family=%s, attempt=%s, %s)",
+                txnExecutor.txnConfig.familyName, attempt, future);
+    }
+}
@@ -1,6 +1,13 @@
 package org.multiverse.stms.gamma;
 
+import org.multiverse.api.Txn;
 import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnBooleanCallable;
+import org.multiverse.api.callables.TxnCallable;
+import org.multiverse.api.callables.TxnDoubleCallable;
+import org.multiverse.api.callables.TxnIntCallable;
+import org.multiverse.api.callables.TxnLongCallable;
+import org.multiverse.api.callables.TxnVoidCallable;
 import org.multiverse.stms.gamma.transactions.GammaTxnFactory;
 
 /**
@@ -12,4 +19,81 @@ public interface GammaTxnExecutor extends TxnExecutor {
 
     @Override
     GammaTxnFactory getTxnFactory();
+
+    /**
+     * Executes the transactional callable with an explicitly passed outer transaction, instead of the transaction
+     * found on the {@link org.multiverse.api.TxnThreadLocal}. The outer transaction is handled as specified by the
+     * {@link org.multiverse.api.PropagationLevel}; with the default 'Requires' the callable joins it, or a new
+     * transaction is started if it is null or not alive anymore. A transaction started by this call isn't published
+     * on the TxnThreadLocal, so it only is propagated through the callable.
+     * <p/>
+     * This is the way to nest executes when the threadlocal context is disabled (see
+     * {@link GammaTxnFactoryBuilder#setThreadLocalContextEnabled(boolean)}).
+     *
+     * @param outer    the outer transaction, can be null.
+     * @param callable the callable to execute.
+     * @return the result of the execution.
+     * @throws NullPointerException if callable is null.
+     * @throws org.multiverse.api.exceptions.InvisibleCheckedException if a checked exception is thrown by the callable.
+     */
+    <E> E execute(Txn outer, TxnCallable<E> callable);
+
+    /**
+     * Executes the transactional callable with an explicitly passed outer transaction. See
+     * {@link #execute(Txn, TxnCallable)} for more information.
+     *
+     * @param outer    the outer transaction, can be null.
+     * @param callable the callable to execute.
+     * @return the result of the execution.
+     * @throws NullPointerException if callable is null.
+     * @throws org.multiverse.api.exceptions.InvisibleCheckedException if a checked exception is thrown by the callable.
+     */
+    int execute(Txn outer, TxnIntCallable callable);
+
+    /**
+     * Executes the transactional callable with an explicitly passed outer transaction. See
+     * {@link #execute(Txn, TxnCallable)} for more information.
+     *
+     * @param outer    the outer transaction, can be null.
+     * @param callable the callable to execute.
+     * @return the result of the execution.
+     * @throws NullPointerException if callable is null.
+     * @throws org.multiverse.api.exceptions.InvisibleCheckedException if a checked exception is thrown by the callable.
+     */
+    long execute(Txn outer, TxnLongCallable callable);
+
+    /**
+     * Executes the transactional callable with an explicitly passed outer transaction. See
+     * {@link #execute(Txn, TxnCallable)} for more information.
+     *
+     * @param outer    the outer transaction, can be null.
+     * @param callable the callable to execute.
+     * @return the result of the execution.
+     * @throws NullPointerException if callable is null.
+     * @throws org.multiverse.api.exceptions.InvisibleCheckedException if a checked exception is thrown by the callable.
+     */
+    double execute(Txn outer, TxnDoubleCallable callable);
+
+    /**
+     * Executes the transactional callable with an explicitly passed outer transaction. See
+     * {@link #execute(Txn, TxnCallable)} for more information.
+     *
+     * @param outer    the outer transaction, can be null.
+     * @param callable the callable to execute.
+     * @return the result of the execution.
+     * @throws NullPointerException if callable is null.
+     * @throws org.multiverse.api.exceptions.InvisibleCheckedException if a checked exception is thrown by the callable.
+     */
+    boolean execute(Txn outer, TxnBooleanCallable callable);
+
+    /**
+     * Executes the transactional callable with an explicitly passed outer transaction. See
+     * {@link #execute(Txn, TxnCallable)} for more information.
+     *
+     * @param outer    the outer transaction, can be null.
+     * @param callable the callable to execute.
+     * @throws NullPointerException if callable is null.
+     * @throws org.multiverse.api.exceptions.InvisibleCheckedException if a checked exception is thrown by the callable.
+     */
+    void execute(Txn outer, TxnVoidCallable callable);
 }
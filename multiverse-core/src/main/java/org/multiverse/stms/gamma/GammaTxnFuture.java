@@ -0,0 +1,209 @@
+package org.multiverse.stms.gamma;
+
+import org.multiverse.api.TxnFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@link TxnFuture} of a {@link GammaTxnAsyncExecution}.
+ *
+ * @param <E> the type of the result.
+ * @author Peter Veentjer.
+ */
+final class GammaTxnFuture<E> implements TxnFuture<E> {
+
+    private static final Logger logger = Logger.getLogger(GammaTxnFuture.class.getName());
+
+    private static final int PENDING = 0;
+    private static final int COMPLETED = 1;
+    private static final int FAILED = 2;
+    private static final int CANCELLED = 3;
+
+    private final GammaTxnAsyncExecution<E> execution;
+    private volatile int state = PENDING;
+    private E result;
+    private Throwable failure;
+    private List<Runnable> callbacks;
+
+    GammaTxnFuture(final GammaTxnAsyncExecution<E> execution) {
+        this.execution = execution;
+    }
+
+    /**
+     * Completes this GammaTxnFuture with the given result.
+     *
+     * @param result the result.
+     * @return true if completed, false if the GammaTxnFuture already was done.
+     */
+    boolean complete(final E result) {
+        final List<Runnable> callbacks;
+        synchronized (this) {
+            if (state != PENDING) {
+                return false;
+            }
+
+            this.result = result;
+            this.state = COMPLETED;
+            callbacks = this.callbacks;
+            this.callbacks = null;
+            notifyAll();
+        }
+
+        executeCallbacks(callbacks);
+        return true;
+    }
+
+    /**
+     * Fails this GammaTxnFuture with the given cause.
+     *
+     * @param cause the cause of the failure.
+     * @return true if failed, false if the GammaTxnFuture already was done.
+     */
+    boolean fail(final Throwable cause) {
+        final List<Runnable> callbacks;
+        synchronized (this) {
+            if (state != PENDING) {
+                return false;
+            }
+
+            this.failure = cause;
+            this.state = FAILED;
+            callbacks = this.callbacks;
+            this.callbacks = null;
+            notifyAll();
+        }
+
+        executeCallbacks(callbacks);
+        return true;
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        final List<Runnable> callbacks;
+        synchronized (this) {
+            if (state != PENDING) {
+                return false;
+            }
+
+            this.state = CANCELLED;
+            callbacks = this.callbacks;
+            this.callbacks = null;
+            notifyAll();
+        }
+
+        execution.cancelled();
+        executeCallbacks(callbacks);
+        return true;
+    }
+
+    @Override
+    public void onComplete(final Runnable callback) {
+        if (callback == null) {
+            throw new NullPointerException();
+        }
+
+        synchronized (this) {
+            if (state == PENDING) {
+                if (callbacks == null) {
+                    callbacks = new ArrayList<Runnable>(1);
+                }
+                callbacks.add(callback);
+                return;
+            }
+        }
+
+        executeCallback(callback);
+    }
+
+    private static void executeCallbacks(final List<Runnable> callbacks) {
+        if (callbacks == null) {
+            return;
+        }
+
+        for (int k = 0; k < callbacks.size(); k++) {
+            executeCallback(callbacks.get(k));
+        }
+    }
+
+    private static void executeCallback(final Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            //a failing callback should not prevent the other callbacks from being executed.
+            logger.log(Level.WARNING, "Failed to execute a TxnFuture callback", e);
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    @Override
+    public boolean isDone() {
+        return state != PENDING;
+    }
+
+    @Override
+    public synchronized E get() throws InterruptedException, ExecutionException {
+        while (state == PENDING) {
+            wait();
+        }
+
+        return report();
+    }
+
+    @Override
+    public synchronized E get(final long timeout, final TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+
+        long remainingNs = unit.toNanos(timeout);
+        while (state == PENDING) {
+            if (remainingNs <= 0) {
+                throw new TimeoutException();
+            }
+
+            final long startNs = System.nanoTime();
+            TimeUnit.NANOSECONDS.timedWait(this, remainingNs);
+            remainingNs -= System.nanoTime() - startNs;
+        }
+
+        return report();
+    }
+
+    private E report() throws ExecutionException {
+        switch (state) {
+            case COMPLETED:
+                return result;
+            case FAILED:
+                throw new ExecutionException(failure);
+            case CANCELLED:
+                throw new CancellationException();
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (state) {
+            case PENDING:
+                return "GammaTxnFuture(pending)";
+            case COMPLETED:
+                return "GammaTxnFuture(completed)";
+            case FAILED:
+                return "GammaTxnFuture(failed)";
+            case CANCELLED:
+                return "GammaTxnFuture(cancelled)";
+            default:
+                throw new IllegalStateException();
+        }
+    }
+}
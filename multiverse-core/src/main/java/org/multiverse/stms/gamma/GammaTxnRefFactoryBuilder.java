@@ -9,6 +9,50 @@ import org.multiverse.api.references.TxnRefFactoryBuilder;
  */
 public interface GammaTxnRefFactoryBuilder extends TxnRefFactoryBuilder {
 
+    /**
+     * Sets the conflict domain of all refs created by the build {@link GammaTxnRefFactory}. Refs that are updated
+     * together can be placed in the same domain, so that conflicts on them don't force transactions reading from other
+     * domains to do a full conflict scan. If no domain is set, it is derived from the identity hashcode of the ref.
+     *
+     * @param conflictDomain the conflict domain.
+     * @return the updated GammaTxnRefFactoryBuilder.
+     * @throws IllegalArgumentException if conflictDomain is smaller than 0 or not smaller than
+     *                                  {@link GammaStmConfig#conflictDomainCount}.
+     * @see GlobalConflictCounter
+     */
+    GammaTxnRefFactoryBuilder setConflictDomain(int conflictDomain);
+
+    /**
+     * Sets the number of previously committed values all refs created by the build {@link GammaTxnRefFactory} keep.
+     * A readonly transaction that encounters a ref that has been updated after it started, can read the value as of
+     * its start from this history instead of aborting. Values that can't be read by any active readonly transaction
+     * anymore are reclaimed. A depth of 0 (the default) disables the history.
+     * <p/>
+     * The history can only be used if the {@link GlobalCommitClock} is enabled.
+     *
+     * @param historyDepth the maximum number of previously committed values to keep.
+     * @return the updated GammaTxnRefFactoryBuilder.
+     * @throws IllegalArgumentException if historyDepth is smaller than 0.
+     * @throws IllegalStateException    if historyDepth is larger than 0 and
+     *                                  {@link GammaStmConfig#globalCommitClockEnabled} is false.
+     */
+    GammaTxnRefFactoryBuilder setHistoryDepth(int historyDepth);
+
+    /**
+     * Sets if the refs created by the build {@link GammaTxnRefFactory} are padded. The fields of a ref (the orec, the
+     * version and the value) are packed next to each other, and refs that are allocated together (e.g. the refs in an
+     * array or in the same entity) end up next to each other in memory. So threads that each update their own ref
+     * can still invalidate each others cache lines (false sharing). A padded ref is followed by 128 bytes of padding,
+     * so it doesn't share a cache line with the ref allocated after it.
+     * <p/>
+     * Padding makes a ref a lot bigger, so it should only be used for hot refs. The default is false.
+     *
+     * @param padded true if the refs should be padded, false otherwise.
+     * @return the updated GammaTxnRefFactoryBuilder.
+     * @see org.multiverse.stms.gamma.transactionalobjects.PaddedGammaTxnLong
+     */
+    GammaTxnRefFactoryBuilder setPadded(boolean padded);
+
     @Override
     GammaTxnRefFactory build();
 }
@@ -0,0 +1,145 @@
+package org.multiverse.stms.gamma;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The GlobalCommitClock is an alternative to the {@link GlobalConflictCounter} for guaranteeing read consistency and is
+ * based on the TL2 global version clock. Every update of a transactional object is stamped with the time of the clock,
+ * so a reading transaction only needs to compare the version of a transactional object with the time it started
+ * (the read version) to know if it is consistent with everything read so far. Only if the version is newer than the
+ * read version, a full conflict scan is needed; if that succeeds, the read version is extended.
+ * <p/>
+ * The advantage compared to the GlobalConflictCounter is that reads don't need to arrive/depart on the orec, and that
+ * large reading transactions don't need to do a full conflict scan on every conflict in the system. The disadvantage
+ * is that every update needs to increase the clock, instead of only the updates that cause a conflict.
+ * <p/>
+ * To reduce the pressure on the clock, a failed increment is not retried: the time set by the competing update is
+ * used instead (this is the GV4 scheme of TL2). This is safe because the transactional objects updated by competing
+ * updates are all exclusively locked while the new version is determined.
+ * <p/>
+ * <h3>Snapshots</h3>
+ * <p/>
+ * Readonly transactions register their read version as a snapshot, so that refs that keep a history of committed
+ * values know which values could still be read (see {@link #getSnapshotHorizon()}). There is a limited number of
+ * snapshot slots; a transaction that can't get one just runs without a snapshot.
+ *
+ * @author Peter Veentjer.
+ */
+public final class GlobalCommitClock {
+
+    public static final int MAX_SNAPSHOT_COUNT = 64;
+
+    //the first version of a transactional object that was never updated under the clock.
+    private static final long VERSION_START = 1;
+
+    //the snapshot slots are spread out to prevent false sharing between them.
+    private static final int SNAPSHOT_STRIDE_SHIFT = 3;
+    private static final long SNAPSHOT_FREE = 0;
+    private static final long SNAPSHOT_CLAIMED = Long.MAX_VALUE;
+
+    private final AtomicLong clock = new AtomicLong(VERSION_START);
+    private final AtomicLongArray snapshots = new AtomicLongArray(MAX_SNAPSHOT_COUNT << SNAPSHOT_STRIDE_SHIFT);
+    private final AtomicInteger snapshotCount = new AtomicInteger();
+
+    /**
+     * Returns the current time of the clock.
+     *
+     * @return the current time.
+     */
+    public long time() {
+        return clock.get();
+    }
+
+    /**
+     * Increases the clock and returns the new time. The returned time is always larger than the time before the call
+     * was made.
+     *
+     * @return the new time.
+     */
+    public long tick() {
+        final long oldTime = clock.get();
+        final long newTime = oldTime + 1;
+        if (clock.compareAndSet(oldTime, newTime)) {
+            return newTime;
+        }
+
+        //another update has increased the clock, so we can use that time.
+        return clock.get();
+    }
+
+    /**
+     * Claims a snapshot slot. The slot needs to be released using {@link #releaseSnapshot(int)}.
+     *
+     * @param hint the slot to start looking from (for example the id of the current thread).
+     * @return the claimed slot, or -1 if all slots are in use.
+     */
+    public int claimSnapshot(final int hint) {
+        //the count is increased before the slot is published, so that a writer that sees no snapshots
+        //can be sure that snapshots published after that, will not need any of the older values.
+        snapshotCount.incrementAndGet();
+
+        for (int k = 0; k < MAX_SNAPSHOT_COUNT; k++) {
+            final int slot = (hint + k) & (MAX_SNAPSHOT_COUNT - 1);
+            final int index = slot << SNAPSHOT_STRIDE_SHIFT;
+            if (snapshots.get(index) == SNAPSHOT_FREE
+                    && snapshots.compareAndSet(index, SNAPSHOT_FREE, SNAPSHOT_CLAIMED)) {
+                return slot;
+            }
+        }
+
+        snapshotCount.decrementAndGet();
+        return -1;
+    }
+
+    /**
+     * Publishes the current time in a claimed snapshot slot and returns it as the read version.
+     * <p/>
+     * The time is published before it is used, and it is only used if the clock didn't change in the meantime. So
+     * every update that gets a newer time, is guaranteed to see the snapshot.
+     *
+     * @param slot the claimed slot.
+     * @return the read version.
+     */
+    public long publishSnapshot(final int slot) {
+        final int index = slot << SNAPSHOT_STRIDE_SHIFT;
+        long time;
+        do {
+            time = clock.get();
+            snapshots.set(index, time);
+        } while (clock.get() != time);
+        return time;
+    }
+
+    /**
+     * Releases a claimed snapshot slot.
+     *
+     * @param slot the slot to release.
+     */
+    public void releaseSnapshot(final int slot) {
+        snapshots.set(slot << SNAPSHOT_STRIDE_SHIFT, SNAPSHOT_FREE);
+        snapshotCount.decrementAndGet();
+    }
+
+    /**
+     * Returns the oldest read version of all published snapshots. A committed value that was replaced at or before
+     * this time can't be read by any snapshot anymore.
+     *
+     * @return the snapshot horizon, or Long.MAX_VALUE if there are no snapshots.
+     */
+    public long getSnapshotHorizon() {
+        if (snapshotCount.get() == 0) {
+            return Long.MAX_VALUE;
+        }
+
+        long horizon = Long.MAX_VALUE;
+        for (int slot = 0; slot < MAX_SNAPSHOT_COUNT; slot++) {
+            final long snapshot = snapshots.get(slot << SNAPSHOT_STRIDE_SHIFT);
+            if (snapshot != SNAPSHOT_FREE && snapshot < horizon) {
+                horizon = snapshot;
+            }
+        }
+        return horizon;
+    }
+}
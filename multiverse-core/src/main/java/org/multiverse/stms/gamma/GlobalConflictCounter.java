@@ -1,6 +1,7 @@
 package org.multiverse.stms.gamma;
 
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * The GlobalConflictCounter is used as a mechanism for guaranteeing read consistency. Depending on the configuration of the
@@ -14,17 +15,105 @@ import java.util.concurrent.atomic.AtomicLong;
  * Small transactions don't make use of this mechanism and do a full conflict scan every time. The advantage is that the pressure
  * on the GlobalConflictCounter is reduced and that expensive arrives/departs (requiring in most cases 1 or 2 cas operations)
  * are reduced as well.
+ * <p/>
+ * <h3>Conflict domains</h3>
+ * <p/>
+ * With a single counter, a conflict on one hot transactional object forces every reading transaction in the system to do a
+ * full conflict scan. To prevent this, the counter is partitioned in a number of conflict domains (a power of 2, at most 64).
+ * Every transactional object belongs to exactly one domain (based on its identity hashcode or explicitly configured) and
+ * a conflict is signalled on the domains of the objects that caused it. A transaction remembers the domains it has read
+ * from and only needs to do a full conflict scan if one of those domains has signalled.
+ * <p/>
+ * The total count is still maintained, so the common case (no conflict at all) remains a single volatile read.
  *
  * @author Peter Veentjer.
  */
 public final class GlobalConflictCounter {
 
+    public static final int MAX_DOMAIN_COUNT = 64;
+
+    //the domain counters are spread out to prevent false sharing between them.
+    private static final int DOMAIN_STRIDE_SHIFT = 3;
+
     private final AtomicLong counter = new AtomicLong();
+    private final AtomicLongArray domainCounters;
+    private final int domainCount;
+    private final int domainMask;
+
+    /**
+     * Creates a GlobalConflictCounter with a single conflict domain.
+     */
+    public GlobalConflictCounter() {
+        this(1);
+    }
+
+    /**
+     * Creates a GlobalConflictCounter with the given number of conflict domains.
+     *
+     * @param domainCount the number of conflict domains.
+     * @throws IllegalArgumentException if domainCount is not a power of 2 or not between 1 and {@link #MAX_DOMAIN_COUNT}.
+     */
+    public GlobalConflictCounter(final int domainCount) {
+        if (domainCount < 1 || domainCount > MAX_DOMAIN_COUNT || Integer.bitCount(domainCount) != 1) {
+            throw new IllegalArgumentException(
+                    "domainCount should be a power of 2 between 1 and " + MAX_DOMAIN_COUNT + ", but was " + domainCount);
+        }
+
+        this.domainCount = domainCount;
+        this.domainMask = domainCount - 1;
+        this.domainCounters = new AtomicLongArray(domainCount << DOMAIN_STRIDE_SHIFT);
+    }
+
+    /**
+     * Returns the number of conflict domains.
+     *
+     * @return the number of conflict domains.
+     */
+    public int getDomainCount() {
+        return domainCount;
+    }
+
+    /**
+     * Maps a hash to a conflict domain.
+     *
+     * @param hash the hash (normally the identity hashcode of a transactional object).
+     * @return the conflict domain.
+     */
+    public int toDomain(final int hash) {
+        //spread the bits since the low bits of identity hashes are not always evenly distributed.
+        final int h = hash ^ (hash >>> 16);
+        return (h ^ (h >>> 8)) & domainMask;
+    }
 
     /**
-     * Signals that a conflict occurred.
+     * Signals that a conflict occurred in an unknown domain. All domains will be signalled.
      */
     public void signalConflict() {
+        signalConflict(-1L);
+    }
+
+    /**
+     * Signals that a conflict occurred in the domains of the given domain mask. Bit n of the mask corresponds to
+     * domain n.
+     *
+     * @param domainMask the mask containing the domains that had a conflict.
+     */
+    public void signalConflict(long domainMask) {
+        if (domainCount < MAX_DOMAIN_COUNT) {
+            domainMask &= (1L << domainCount) - 1;
+        }
+
+        //the domains are increased before the total, so that a reader that sees the total change also sees the
+        //domain change.
+        while (domainMask != 0) {
+            final int domain = Long.numberOfTrailingZeros(domainMask);
+            domainMask &= domainMask - 1;
+
+            final int index = domain << DOMAIN_STRIDE_SHIFT;
+            final long oldCount = domainCounters.get(index);
+            domainCounters.compareAndSet(index, oldCount, oldCount + 1);
+        }
+
         final long oldCount = counter.get();
         counter.compareAndSet(oldCount, oldCount + 1);
     }
@@ -37,4 +126,38 @@ public final class GlobalConflictCounter {
     public long count() {
         return counter.get();
     }
+
+    /**
+     * Gets the current conflict count of a single domain. The actual value is not interesting, only the change is
+     * important.
+     *
+     * @param domain the domain.
+     * @return the current conflict count of the domain.
+     */
+    public long count(final int domain) {
+        return domainCounters.get(domain << DOMAIN_STRIDE_SHIFT);
+    }
+
+    /**
+     * Checks if any of the domains in the domainMask has signalled a conflict since the counts in the snapshot
+     * were taken. The snapshot is updated to the current counts, so a following call only sees new conflicts.
+     *
+     * @param domainMask the domains to check.
+     * @param snapshot   the counts of the domains, indexed by domain.
+     * @return true if at least one of the domains has signalled a conflict.
+     */
+    public boolean hasConflictSince(long domainMask, final long[] snapshot) {
+        boolean conflict = false;
+        while (domainMask != 0) {
+            final int domain = Long.numberOfTrailingZeros(domainMask);
+            domainMask &= domainMask - 1;
+
+            final long count = domainCounters.get(domain << DOMAIN_STRIDE_SHIFT);
+            if (snapshot[domain] != count) {
+                snapshot[domain] = count;
+                conflict = true;
+            }
+        }
+        return conflict;
+    }
 }
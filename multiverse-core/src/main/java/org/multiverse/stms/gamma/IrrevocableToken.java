@@ -0,0 +1,75 @@
+package org.multiverse.stms.gamma;
+
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+
+/**
+ * The IrrevocableToken makes sure that at most one irrevocable transaction is running in a {@link GammaStm}.
+ * <p/>
+ * An irrevocable transaction exclusively locks everything it reads or writes and keeps on waiting for a lock
+ * instead of giving up, so it will never abort because of a conflict. Other transactions yield to it because they
+ * fail to acquire the locks it holds. Two irrevocable transactions could deadlock on each other's locks, so the token
+ * is acquired before the first transactional object is opened (so while no locks are held) and released when the
+ * transaction commits or aborts.
+ *
+ * @author Peter Veentjer.
+ */
+public final class IrrevocableToken {
+
+    private static final int SPINS_BEFORE_YIELD = 100;
+    private static final int YIELDS_BEFORE_PARK = 10;
+    private static final long MAX_PARK_NS = 1000 * 1000;
+
+    private final AtomicReference<GammaTxn> owner = new AtomicReference<GammaTxn>();
+
+    /**
+     * Acquires the token for the given transaction and waits if it currently is owned by another transaction. The
+     * waiting can't be interrupted since an irrevocable transaction should not fail.
+     *
+     * @param tx the transaction that wants to acquire the token.
+     */
+    public void acquire(final GammaTxn tx) {
+        if (tx == null) {
+            throw new NullPointerException();
+        }
+
+        long parkNs = 1000;
+        for (int attempt = 1; ; attempt++) {
+            if (owner.get() == null && owner.compareAndSet(null, tx)) {
+                return;
+            }
+
+            if (attempt <= SPINS_BEFORE_YIELD) {
+                continue;
+            }
+
+            if (attempt <= SPINS_BEFORE_YIELD + YIELDS_BEFORE_PARK) {
+                Thread.yield();
+            } else {
+                parkNanos(parkNs);
+                parkNs = Math.min(parkNs * 2, MAX_PARK_NS);
+            }
+        }
+    }
+
+    /**
+     * Releases the token. If the token is not owned by the given transaction, the call is ignored.
+     *
+     * @param tx the transaction that owns the token.
+     */
+    public void release(final GammaTxn tx) {
+        owner.compareAndSet(tx, null);
+    }
+
+    /**
+     * Returns the transaction that currently owns the token.
+     *
+     * @return the owning transaction, or null if the token is free.
+     */
+    public GammaTxn getOwner() {
+        return owner.get();
+    }
+}
@@ -4,11 +4,11 @@ import org.multiverse.api.*;
 import org.multiverse.api.exceptions.*;
 import org.multiverse.api.callables.*;
 import org.multiverse.stms.gamma.transactions.*;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
 import java.util.concurrent.Callable;
 import java.util.logging.Logger;
 
 import static java.lang.String.format;
-import static org.multiverse.api.TxnThreadLocal.*;
 
 /**
  * The {@link TxnExecutor} made for the GammaStm.
@@ -41,20 +41,63 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
         }
     }
 
+    private <E> E executeNested(
+        final GammaTxn tx, final TxnCallable<E> callable)throws Exception{
+
+        final FatVariableLengthGammaTxn nestedTx = beginNested(tx);
+        int attempt = 1;
+        while (true) {
+            boolean rollback = true;
+            try {
+                E result = callable.call(nestedTx);
+                nestedTx.commitNested();
+                rollback = false;
+                return result;
+            } catch (ReadWriteConflict e) {
+                rollback = false;
+                if(TRACING_ENABLED){
+                    if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                        logger.info(format("[%s] Encountered a read or write conflict in a nested txn",
+                            txnConfig.familyName));
+                    }
+                }
+
+                if (!retryNestedAfterConflict(nestedTx, attempt)) {
+                    throw e;
+                }
+                attempt++;
+            } catch (RetryError e) {
+                rollback = false;
+                throw nestedTx.rollbackNestedOnRetry(e);
+            } finally {
+                if (rollback) {
+                    nestedTx.rollbackNested();
+                }
+            }
+        }
+    }
+
     @Override
     public final <E> E execute(final TxnCallable<E> callable){
-
         if(callable == null){
             throw new NullPointerException();
         }
 
-        final TxnThreadLocal.Container transactionContainer = getThreadLocalTxnContainer();
-        GammaTxnPool pool = (GammaTxnPool) transactionContainer.txPool;
-        if (pool == null) {
-            pool = new GammaTxnPool();
-            transactionContainer.txPool = pool;
+        return executeIn(getTxnContainer(), callable);
+    }
+
+    @Override
+    public final <E> E execute(final Txn outer, final TxnCallable<E> callable){
+        if(callable == null){
+            throw new NullPointerException();
         }
 
+        return executeIn(newTxnContainer(outer), callable);
+    }
+
+    private <E> E executeIn(
+        final TxnThreadLocal.Container transactionContainer, final TxnCallable<E> callable){
+
         GammaTxn tx = (GammaTxn)transactionContainer.txn;
         if(tx == null || !tx.isAlive()){
             tx = null;
@@ -63,18 +106,28 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
         Throwable cause = null;
         try{
             if(tx != null && tx.isAlive()){
-                return callable.call(tx);
+                return txnConfig.closedNesting ? executeNested(tx, callable) : callable.call(tx);
             }
 
+            final GammaTxnPool pool = takeTxnPool(transactionContainer);
             tx = txnFactory.newTransaction(pool);
             transactionContainer.txn=tx;
+            final SpeculativeGammaLearner learner = txnConfig.speculativeLearner;
+            final long learnerStartNs = learner == null ? 0 : learner.startTxn();
             boolean abort = true;
             try {
                 do {
                     try {
                         cause = null;
+                        final long attemptStartNs = backoffFamily == null ? 0 : System.nanoTime();
                         E result = callable.call(tx);
                         tx.commit();
+                        if (backoffFamily != null) {
+                            backoffFamily.registerCommit(attemptStartNs);
+                        }
+                        if (learner != null) {
+                            learner.registerCommit(learnerStartNs);
+                        }
                         abort = false;
                         return result;
                     } catch (RetryError e) {
@@ -108,6 +161,20 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         backoffPolicy.delayUninterruptible(tx.getAttempt());
+
+                        if (isIrrevocablePromotionNeeded(tx)) {
+                            if(TRACING_ENABLED){
+                                if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                                    logger.info(format("[%s] Promoting to an irrevocable txn after %s attempts",
+                                        txnConfig.familyName, tx.getAttempt()));
+                                }
+                            }
+
+                            GammaTxn old = tx;
+                            tx = promoteToIrrevocable(old, pool);
+                            pool.put(old);
+                            transactionContainer.txn = tx;
+                        }
                     }
                 } while (tx.softReset());
             } finally {
@@ -116,6 +183,7 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
                 }
 
                 pool.put(tx);
+                releaseTxnPool(pool);
                 transactionContainer.txn = null;
             }
         }catch(RuntimeException e){
@@ -147,20 +215,63 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
         }
     }
 
-    @Override
-    public final  int execute(final TxnIntCallable callable){
+    private  int executeNested(
+        final GammaTxn tx, final TxnIntCallable callable)throws Exception{
+
+        final FatVariableLengthGammaTxn nestedTx = beginNested(tx);
+        int attempt = 1;
+        while (true) {
+            boolean rollback = true;
+            try {
+                int result = callable.call(nestedTx);
+                nestedTx.commitNested();
+                rollback = false;
+                return result;
+            } catch (ReadWriteConflict e) {
+                rollback = false;
+                if(TRACING_ENABLED){
+                    if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                        logger.info(format("[%s] Encountered a read or write conflict in a nested txn",
+                            txnConfig.familyName));
+                    }
+                }
+
+                if (!retryNestedAfterConflict(nestedTx, attempt)) {
+                    throw e;
+                }
+                attempt++;
+            } catch (RetryError e) {
+                rollback = false;
+                throw nestedTx.rollbackNestedOnRetry(e);
+            } finally {
+                if (rollback) {
+                    nestedTx.rollbackNested();
+                }
+            }
+        }
+    }
 
+    @Override
+    public final int execute(final TxnIntCallable callable){
         if(callable == null){
             throw new NullPointerException();
         }
 
-        final TxnThreadLocal.Container transactionContainer = getThreadLocalTxnContainer();
-        GammaTxnPool pool = (GammaTxnPool) transactionContainer.txPool;
-        if (pool == null) {
-            pool = new GammaTxnPool();
-            transactionContainer.txPool = pool;
+        return executeIn(getTxnContainer(), callable);
+    }
+
+    @Override
+    public final int execute(final Txn outer, final TxnIntCallable callable){
+        if(callable == null){
+            throw new NullPointerException();
         }
 
+        return executeIn(newTxnContainer(outer), callable);
+    }
+
+    private int executeIn(
+        final TxnThreadLocal.Container transactionContainer, final TxnIntCallable callable){
+
         GammaTxn tx = (GammaTxn)transactionContainer.txn;
         if(tx == null || !tx.isAlive()){
             tx = null;
@@ -169,18 +280,28 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
         Throwable cause = null;
         try{
             if(tx != null && tx.isAlive()){
-                return callable.call(tx);
+                return txnConfig.closedNesting ? executeNested(tx, callable) : callable.call(tx);
             }
 
+            final GammaTxnPool pool = takeTxnPool(transactionContainer);
             tx = txnFactory.newTransaction(pool);
             transactionContainer.txn=tx;
+            final SpeculativeGammaLearner learner = txnConfig.speculativeLearner;
+            final long learnerStartNs = learner == null ? 0 : learner.startTxn();
             boolean abort = true;
             try {
                 do {
                     try {
                         cause = null;
+                        final long attemptStartNs = backoffFamily == null ? 0 : System.nanoTime();
                         int result = callable.call(tx);
                         tx.commit();
+                        if (backoffFamily != null) {
+                            backoffFamily.registerCommit(attemptStartNs);
+                        }
+                        if (learner != null) {
+                            learner.registerCommit(learnerStartNs);
+                        }
                         abort = false;
                         return result;
                     } catch (RetryError e) {
@@ -214,6 +335,20 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         backoffPolicy.delayUninterruptible(tx.getAttempt());
+
+                        if (isIrrevocablePromotionNeeded(tx)) {
+                            if(TRACING_ENABLED){
+                                if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                                    logger.info(format("[%s] Promoting to an irrevocable txn after %s attempts",
+                                        txnConfig.familyName, tx.getAttempt()));
+                                }
+                            }
+
+                            GammaTxn old = tx;
+                            tx = promoteToIrrevocable(old, pool);
+                            pool.put(old);
+                            transactionContainer.txn = tx;
+                        }
                     }
                 } while (tx.softReset());
             } finally {
@@ -222,6 +357,7 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
                 }
 
                 pool.put(tx);
+                releaseTxnPool(pool);
                 transactionContainer.txn = null;
             }
         }catch(RuntimeException e){
@@ -253,20 +389,63 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
         }
     }
 
-    @Override
-    public final  long execute(final TxnLongCallable callable){
+    private  long executeNested(
+        final GammaTxn tx, final TxnLongCallable callable)throws Exception{
+
+        final FatVariableLengthGammaTxn nestedTx = beginNested(tx);
+        int attempt = 1;
+        while (true) {
+            boolean rollback = true;
+            try {
+                long result = callable.call(nestedTx);
+                nestedTx.commitNested();
+                rollback = false;
+                return result;
+            } catch (ReadWriteConflict e) {
+                rollback = false;
+                if(TRACING_ENABLED){
+                    if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                        logger.info(format("[%s] Encountered a read or write conflict in a nested txn",
+                            txnConfig.familyName));
+                    }
+                }
 
+                if (!retryNestedAfterConflict(nestedTx, attempt)) {
+                    throw e;
+                }
+                attempt++;
+            } catch (RetryError e) {
+                rollback = false;
+                throw nestedTx.rollbackNestedOnRetry(e);
+            } finally {
+                if (rollback) {
+                    nestedTx.rollbackNested();
+                }
+            }
+        }
+    }
+
+    @Override
+    public final long execute(final TxnLongCallable callable){
         if(callable == null){
             throw new NullPointerException();
         }
 
-        final TxnThreadLocal.Container transactionContainer = getThreadLocalTxnContainer();
-        GammaTxnPool pool = (GammaTxnPool) transactionContainer.txPool;
-        if (pool == null) {
-            pool = new GammaTxnPool();
-            transactionContainer.txPool = pool;
+        return executeIn(getTxnContainer(), callable);
+    }
+
+    @Override
+    public final long execute(final Txn outer, final TxnLongCallable callable){
+        if(callable == null){
+            throw new NullPointerException();
         }
 
+        return executeIn(newTxnContainer(outer), callable);
+    }
+
+    private long executeIn(
+        final TxnThreadLocal.Container transactionContainer, final TxnLongCallable callable){
+
         GammaTxn tx = (GammaTxn)transactionContainer.txn;
         if(tx == null || !tx.isAlive()){
             tx = null;
@@ -275,18 +454,28 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
         Throwable cause = null;
         try{
             if(tx != null && tx.isAlive()){
-                return callable.call(tx);
+                return txnConfig.closedNesting ? executeNested(tx, callable) : callable.call(tx);
             }
 
+            final GammaTxnPool pool = takeTxnPool(transactionContainer);
             tx = txnFactory.newTransaction(pool);
             transactionContainer.txn=tx;
+            final SpeculativeGammaLearner learner = txnConfig.speculativeLearner;
+            final long learnerStartNs = learner == null ? 0 : learner.startTxn();
             boolean abort = true;
             try {
                 do {
                     try {
                         cause = null;
+                        final long attemptStartNs = backoffFamily == null ? 0 : System.nanoTime();
                         long result = callable.call(tx);
                         tx.commit();
+                        if (backoffFamily != null) {
+                            backoffFamily.registerCommit(attemptStartNs);
+                        }
+                        if (learner != null) {
+                            learner.registerCommit(learnerStartNs);
+                        }
                         abort = false;
                         return result;
                     } catch (RetryError e) {
@@ -320,6 +509,20 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         backoffPolicy.delayUninterruptible(tx.getAttempt());
+
+                        if (isIrrevocablePromotionNeeded(tx)) {
+                            if(TRACING_ENABLED){
+                                if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                                    logger.info(format("[%s] Promoting to an irrevocable txn after %s attempts",
+                                        txnConfig.familyName, tx.getAttempt()));
+                                }
+                            }
+
+                            GammaTxn old = tx;
+                            tx = promoteToIrrevocable(old, pool);
+                            pool.put(old);
+                            transactionContainer.txn = tx;
+                        }
                     }
                 } while (tx.softReset());
             } finally {
@@ -328,6 +531,7 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
                 }
 
                 pool.put(tx);
+                releaseTxnPool(pool);
                 transactionContainer.txn = null;
             }
         }catch(RuntimeException e){
@@ -359,20 +563,63 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
         }
     }
 
-    @Override
-    public final  double execute(final TxnDoubleCallable callable){
+    private  double executeNested(
+        final GammaTxn tx, final TxnDoubleCallable callable)throws Exception{
 
+        final FatVariableLengthGammaTxn nestedTx = beginNested(tx);
+        int attempt = 1;
+        while (true) {
+            boolean rollback = true;
+            try {
+                double result = callable.call(nestedTx);
+                nestedTx.commitNested();
+                rollback = false;
+                return result;
+            } catch (ReadWriteConflict e) {
+                rollback = false;
+                if(TRACING_ENABLED){
+                    if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                        logger.info(format("[%s] Encountered a read or write conflict in a nested txn",
+                            txnConfig.familyName));
+                    }
+                }
+
+                if (!retryNestedAfterConflict(nestedTx, attempt)) {
+                    throw e;
+                }
+                attempt++;
+            } catch (RetryError e) {
+                rollback = false;
+                throw nestedTx.rollbackNestedOnRetry(e);
+            } finally {
+                if (rollback) {
+                    nestedTx.rollbackNested();
+                }
+            }
+        }
+    }
+
+    @Override
+    public final double execute(final TxnDoubleCallable callable){
         if(callable == null){
             throw new NullPointerException();
         }
 
-        final TxnThreadLocal.Container transactionContainer = getThreadLocalTxnContainer();
-        GammaTxnPool pool = (GammaTxnPool) transactionContainer.txPool;
-        if (pool == null) {
-            pool = new GammaTxnPool();
-            transactionContainer.txPool = pool;
+        return executeIn(getTxnContainer(), callable);
+    }
+
+    @Override
+    public final double execute(final Txn outer, final TxnDoubleCallable callable){
+        if(callable == null){
+            throw new NullPointerException();
         }
 
+        return executeIn(newTxnContainer(outer), callable);
+    }
+
+    private double executeIn(
+        final TxnThreadLocal.Container transactionContainer, final TxnDoubleCallable callable){
+
         GammaTxn tx = (GammaTxn)transactionContainer.txn;
         if(tx == null || !tx.isAlive()){
             tx = null;
@@ -381,18 +628,28 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
         Throwable cause = null;
         try{
             if(tx != null && tx.isAlive()){
-                return callable.call(tx);
+                return txnConfig.closedNesting ? executeNested(tx, callable) : callable.call(tx);
             }
 
+            final GammaTxnPool pool = takeTxnPool(transactionContainer);
             tx = txnFactory.newTransaction(pool);
             transactionContainer.txn=tx;
+            final SpeculativeGammaLearner learner = txnConfig.speculativeLearner;
+            final long learnerStartNs = learner == null ? 0 : learner.startTxn();
             boolean abort = true;
             try {
                 do {
                     try {
                         cause = null;
+                        final long attemptStartNs = backoffFamily == null ? 0 : System.nanoTime();
                         double result = callable.call(tx);
                         tx.commit();
+                        if (backoffFamily != null) {
+                            backoffFamily.registerCommit(attemptStartNs);
+                        }
+                        if (learner != null) {
+                            learner.registerCommit(learnerStartNs);
+                        }
                         abort = false;
                         return result;
                     } catch (RetryError e) {
@@ -426,6 +683,20 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         backoffPolicy.delayUninterruptible(tx.getAttempt());
+
+                        if (isIrrevocablePromotionNeeded(tx)) {
+                            if(TRACING_ENABLED){
+                                if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                                    logger.info(format("[%s] Promoting to an irrevocable txn after %s attempts",
+                                        txnConfig.familyName, tx.getAttempt()));
+                                }
+                            }
+
+                            GammaTxn old = tx;
+                            tx = promoteToIrrevocable(old, pool);
+                            pool.put(old);
+                            transactionContainer.txn = tx;
+                        }
                     }
                 } while (tx.softReset());
             } finally {
@@ -434,6 +705,7 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
                 }
 
                 pool.put(tx);
+                releaseTxnPool(pool);
                 transactionContainer.txn = null;
             }
         }catch(RuntimeException e){
@@ -465,20 +737,63 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
         }
     }
 
-    @Override
-    public final  boolean execute(final TxnBooleanCallable callable){
+    private  boolean executeNested(
+        final GammaTxn tx, final TxnBooleanCallable callable)throws Exception{
+
+        final FatVariableLengthGammaTxn nestedTx = beginNested(tx);
+        int attempt = 1;
+        while (true) {
+            boolean rollback = true;
+            try {
+                boolean result = callable.call(nestedTx);
+                nestedTx.commitNested();
+                rollback = false;
+                return result;
+            } catch (ReadWriteConflict e) {
+                rollback = false;
+                if(TRACING_ENABLED){
+                    if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                        logger.info(format("[%s] Encountered a read or write conflict in a nested txn",
+                            txnConfig.familyName));
+                    }
+                }
 
+                if (!retryNestedAfterConflict(nestedTx, attempt)) {
+                    throw e;
+                }
+                attempt++;
+            } catch (RetryError e) {
+                rollback = false;
+                throw nestedTx.rollbackNestedOnRetry(e);
+            } finally {
+                if (rollback) {
+                    nestedTx.rollbackNested();
+                }
+            }
+        }
+    }
+
+    @Override
+    public final boolean execute(final TxnBooleanCallable callable){
         if(callable == null){
             throw new NullPointerException();
         }
 
-        final TxnThreadLocal.Container transactionContainer = getThreadLocalTxnContainer();
-        GammaTxnPool pool = (GammaTxnPool) transactionContainer.txPool;
-        if (pool == null) {
-            pool = new GammaTxnPool();
-            transactionContainer.txPool = pool;
+        return executeIn(getTxnContainer(), callable);
+    }
+
+    @Override
+    public final boolean execute(final Txn outer, final TxnBooleanCallable callable){
+        if(callable == null){
+            throw new NullPointerException();
         }
 
+        return executeIn(newTxnContainer(outer), callable);
+    }
+
+    private boolean executeIn(
+        final TxnThreadLocal.Container transactionContainer, final TxnBooleanCallable callable){
+
         GammaTxn tx = (GammaTxn)transactionContainer.txn;
         if(tx == null || !tx.isAlive()){
             tx = null;
@@ -487,18 +802,28 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
         Throwable cause = null;
         try{
             if(tx != null && tx.isAlive()){
-                return callable.call(tx);
+                return txnConfig.closedNesting ? executeNested(tx, callable) : callable.call(tx);
             }
 
+            final GammaTxnPool pool = takeTxnPool(transactionContainer);
             tx = txnFactory.newTransaction(pool);
             transactionContainer.txn=tx;
+            final SpeculativeGammaLearner learner = txnConfig.speculativeLearner;
+            final long learnerStartNs = learner == null ? 0 : learner.startTxn();
             boolean abort = true;
             try {
                 do {
                     try {
                         cause = null;
+                        final long attemptStartNs = backoffFamily == null ? 0 : System.nanoTime();
                         boolean result = callable.call(tx);
                         tx.commit();
+                        if (backoffFamily != null) {
+                            backoffFamily.registerCommit(attemptStartNs);
+                        }
+                        if (learner != null) {
+                            learner.registerCommit(learnerStartNs);
+                        }
                         abort = false;
                         return result;
                     } catch (RetryError e) {
@@ -532,6 +857,20 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         backoffPolicy.delayUninterruptible(tx.getAttempt());
+
+                        if (isIrrevocablePromotionNeeded(tx)) {
+                            if(TRACING_ENABLED){
+                                if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                                    logger.info(format("[%s] Promoting to an irrevocable txn after %s attempts",
+                                        txnConfig.familyName, tx.getAttempt()));
+                                }
+                            }
+
+                            GammaTxn old = tx;
+                            tx = promoteToIrrevocable(old, pool);
+                            pool.put(old);
+                            transactionContainer.txn = tx;
+                        }
                     }
                 } while (tx.softReset());
             } finally {
@@ -540,6 +879,7 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
                 }
 
                 pool.put(tx);
+                releaseTxnPool(pool);
                 transactionContainer.txn = null;
             }
         }catch(RuntimeException e){
@@ -571,20 +911,63 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
         }
     }
 
-    @Override
-    public final  void execute(final TxnVoidCallable callable){
+    private  void executeNested(
+        final GammaTxn tx, final TxnVoidCallable callable)throws Exception{
+
+        final FatVariableLengthGammaTxn nestedTx = beginNested(tx);
+        int attempt = 1;
+        while (true) {
+            boolean rollback = true;
+            try {
+                callable.call(nestedTx);
+                nestedTx.commitNested();
+                rollback = false;
+                return;
+            } catch (ReadWriteConflict e) {
+                rollback = false;
+                if(TRACING_ENABLED){
+                    if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                        logger.info(format("[%s] Encountered a read or write conflict in a nested txn",
+                            txnConfig.familyName));
+                    }
+                }
 
+                if (!retryNestedAfterConflict(nestedTx, attempt)) {
+                    throw e;
+                }
+                attempt++;
+            } catch (RetryError e) {
+                rollback = false;
+                throw nestedTx.rollbackNestedOnRetry(e);
+            } finally {
+                if (rollback) {
+                    nestedTx.rollbackNested();
+                }
+            }
+        }
+    }
+
+    @Override
+    public final void execute(final TxnVoidCallable callable){
         if(callable == null){
             throw new NullPointerException();
         }
 
-        final TxnThreadLocal.Container transactionContainer = getThreadLocalTxnContainer();
-        GammaTxnPool pool = (GammaTxnPool) transactionContainer.txPool;
-        if (pool == null) {
-            pool = new GammaTxnPool();
-            transactionContainer.txPool = pool;
+        executeIn(getTxnContainer(), callable);
+    }
+
+    @Override
+    public final void execute(final Txn outer, final TxnVoidCallable callable){
+        if(callable == null){
+            throw new NullPointerException();
         }
 
+        executeIn(newTxnContainer(outer), callable);
+    }
+
+    private void executeIn(
+        final TxnThreadLocal.Container transactionContainer, final TxnVoidCallable callable){
+
         GammaTxn tx = (GammaTxn)transactionContainer.txn;
         if(tx == null || !tx.isAlive()){
             tx = null;
@@ -593,19 +976,33 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
         Throwable cause = null;
         try{
             if(tx != null && tx.isAlive()){
-                callable.call(tx);
+                if (txnConfig.closedNesting) {
+                    executeNested(tx, callable);
+                } else {
+                    callable.call(tx);
+                }
                 return;
             }
 
+            final GammaTxnPool pool = takeTxnPool(transactionContainer);
             tx = txnFactory.newTransaction(pool);
             transactionContainer.txn=tx;
+            final SpeculativeGammaLearner learner = txnConfig.speculativeLearner;
+            final long learnerStartNs = learner == null ? 0 : learner.startTxn();
             boolean abort = true;
             try {
                 do {
                     try {
                         cause = null;
+                        final long attemptStartNs = backoffFamily == null ? 0 : System.nanoTime();
                         callable.call(tx);
                         tx.commit();
+                        if (backoffFamily != null) {
+                            backoffFamily.registerCommit(attemptStartNs);
+                        }
+                        if (learner != null) {
+                            learner.registerCommit(learnerStartNs);
+                        }
                         abort = false;
                         return;
                     } catch (RetryError e) {
@@ -639,6 +1036,20 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
                         }
 
                         backoffPolicy.delayUninterruptible(tx.getAttempt());
+
+                        if (isIrrevocablePromotionNeeded(tx)) {
+                            if(TRACING_ENABLED){
+                                if (txnConfig.getTraceLevel().isLoggableFrom(TraceLevel.Coarse)) {
+                                    logger.info(format("[%s] Promoting to an irrevocable txn after %s attempts",
+                                        txnConfig.familyName, tx.getAttempt()));
+                                }
+                            }
+
+                            GammaTxn old = tx;
+                            tx = promoteToIrrevocable(old, pool);
+                            pool.put(old);
+                            transactionContainer.txn = tx;
+                        }
                     }
                 } while (tx.softReset());
             } finally {
@@ -647,6 +1058,7 @@ public final class LeanGammaTxnExecutor extends AbstractGammaTxnExecutor{
                 }
 
                 pool.put(tx);
+                releaseTxnPool(pool);
                 transactionContainer.txn = null;
             }
         }catch(RuntimeException e){
@@ -1,9 +1,10 @@
 package org.multiverse.stms.gamma;
 
-import org.multiverse.api.blocking.RetryLatch;
+import org.multiverse.api.blocking.RetryListener;
+import org.multiverse.stms.gamma.transactionalobjects.AbstractGammaObject;
 
 /**
- * A Listeners object contains all the Latches of blockingAllowed transactions that listen to a write on a
+ * A Listeners object contains all the RetryListeners of blockingAllowed transactions that listen to a write on a
  * transactional object. Essentially it is a single linked list.
  * <p/>
  * This is an 'immutable' class. As long as it is registered to a transactional object, it should not be mutated.
@@ -17,8 +18,17 @@ import org.multiverse.api.blocking.RetryLatch;
  */
 public final class Listeners {
     public Listeners next;
-    public RetryLatch listener;
+    public RetryListener listener;
     public long listenerEra;
+    //the predicate the value of the transactional object needs to match before the listener is opened, or null if
+    //every write should open it. The type of the predicate depends on the type of the transactional object.
+    public Object predicate;
+    //if the listener waits for a handoff; a write that matches the predicate opens only one of the handoff listeners
+    //instead of all of them.
+    public boolean handoff;
+    //the transactional object the listeners were removed from, if they still need to be filtered before they are
+    //opened (see AbstractGammaObject.___removeListenersAfterWrite). Only set on the first Listeners of the list.
+    public AbstractGammaObject filterOwner;
     //public String threadName;
 
     /**
@@ -27,6 +37,9 @@ public final class Listeners {
      * <li>setting the next to null</li>
      * <li>setting the listener to null</li>
      * <li>setting the listenerEra to Long.MIN_VALUE</li>
+     * <li>setting the predicate to null</li>
+     * <li>setting the handoff to false</li>
+     * <li>setting the filterOwner to null</li>
      * </ol>
      * <p/>
      * This call is not threadsafe and should only be done by a transaction that has exclusive access to
@@ -36,10 +49,14 @@ public final class Listeners {
         next = null;
         listener = null;
         listenerEra = Long.MIN_VALUE;
+        predicate = null;
+        handoff = false;
+        filterOwner = null;
     }
 
     /**
-     * Opens all latches.
+     * Opens all latches. If the listeners still need to be filtered (see {@link #filterOwner}), only the listeners
+     * that match are opened and the others are registered again.
      * <p/>
      * All Listeners are put in the pool. The Latches are not put in the pool since no guarantee can be given
      * that the Latch is still registered on a different transactional object.
@@ -51,6 +68,15 @@ public final class Listeners {
      */
     public void openAll(final GammaObjectPool pool) {
         Listeners current = this;
+        final AbstractGammaObject owner = filterOwner;
+        if (owner != null) {
+            filterOwner = null;
+            current = owner.___filterListenersAfterWrite(this);
+            if (current == null) {
+                return;
+            }
+        }
+
         do {
             Listeners next = current.next;
             current.listener.open(current.listenerEra);
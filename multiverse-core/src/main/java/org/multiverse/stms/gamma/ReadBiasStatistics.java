@@ -0,0 +1,74 @@
+package org.multiverse.stms.gamma;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the transitions of the orecs of a {@link GammaStm} between update biased and readbiased. The counters
+ * are only increased on a transition or on an update of a readbiased orec (which already signals the
+ * {@link GlobalConflictCounter}), so they don't add contention to normal reads.
+ * <p/>
+ * If an orec keeps flipping between both modes (so both counters grow at the same pace) the
+ * {@link GammaStmConfig#readBiasedWriteThreshold} is too low for the workload.
+ *
+ * @author Peter Veentjer.
+ */
+public final class ReadBiasStatistics {
+
+    private final AtomicLong readBiasedCount = new AtomicLong();
+    private final AtomicLong updateBiasedCount = new AtomicLong();
+    private final AtomicLong absorbedUpdateCount = new AtomicLong();
+
+    public void signalReadBiased() {
+        readBiasedCount.incrementAndGet();
+    }
+
+    public void signalUpdateBiased() {
+        updateBiasedCount.incrementAndGet();
+    }
+
+    public void signalAbsorbedUpdate() {
+        absorbedUpdateCount.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of times an update biased orec became readbiased.
+     *
+     * @return the number of transitions to readbiased.
+     */
+    public long getReadBiasedCount() {
+        return readBiasedCount.get();
+    }
+
+    /**
+     * Returns the number of times a readbiased orec became update biased again.
+     *
+     * @return the number of transitions to update biased.
+     */
+    public long getUpdateBiasedCount() {
+        return updateBiasedCount.get();
+    }
+
+    /**
+     * Returns the number of updates of a readbiased orec that didn't make it update biased again.
+     *
+     * @return the number of absorbed updates.
+     */
+    public long getAbsorbedUpdateCount() {
+        return absorbedUpdateCount.get();
+    }
+
+    public void reset() {
+        readBiasedCount.set(0);
+        updateBiasedCount.set(0);
+        absorbedUpdateCount.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "ReadBiasStatistics{" +
+                "readBiasedCount=" + readBiasedCount.get() +
+                ", updateBiasedCount=" + updateBiasedCount.get() +
+                ", absorbedUpdateCount=" + absorbedUpdateCount.get() +
+                '}';
+    }
+}
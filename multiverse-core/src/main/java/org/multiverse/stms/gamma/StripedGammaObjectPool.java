@@ -0,0 +1,40 @@
+package org.multiverse.stms.gamma;
+
+import org.multiverse.utils.Stripes;
+
+/**
+ * A shared pool of {@link GammaObjectPool} instances that can be used instead of the
+ * {@link ThreadLocalGammaObjectPool}, so that a lot of (virtual) threads don't each get their own GammaObjectPool.
+ * A GammaObjectPool is taken out of the stripe of the current thread for the duration of its use and put back
+ * afterwards. See the {@link org.multiverse.stms.gamma.transactions.StripedGammaTxnPool} for more information.
+ *
+ * @author Peter Veentjer.
+ */
+public final class StripedGammaObjectPool {
+
+    private final static Stripes<GammaObjectPool> stripes = new Stripes<GammaObjectPool>();
+
+    /**
+     * Takes the GammaObjectPool from the stripe of the current thread. If the stripe is empty, a new GammaObjectPool
+     * is created.
+     *
+     * @return the GammaObjectPool.
+     */
+    public static GammaObjectPool takeStripedGammaObjectPool() {
+        final GammaObjectPool pool = stripes.take();
+        return pool == null ? new GammaObjectPool() : pool;
+    }
+
+    /**
+     * Puts the GammaObjectPool back in the stripe of the current thread. If the stripe already contains a
+     * GammaObjectPool, the GammaObjectPool is dropped.
+     *
+     * @param pool the GammaObjectPool to put back.
+     */
+    public static void putStripedGammaObjectPool(final GammaObjectPool pool) {
+        stripes.put(pool);
+    }
+
+    private StripedGammaObjectPool() {
+    }
+}
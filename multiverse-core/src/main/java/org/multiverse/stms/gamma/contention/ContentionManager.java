@@ -0,0 +1,54 @@
+package org.multiverse.stms.gamma.contention;
+
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+
+/**
+ * A ContentionManager decides what a transaction should do when it fails to acquire a lock on a transactional object
+ * because another transaction holds it. Where the {@link org.multiverse.api.BackoffPolicy} only gets to delay a
+ * transaction after it has been aborted, the ContentionManager is consulted while the lock is acquired, so it can
+ * let a transaction wait for the lock, abort itself, or abort the transaction that holds the lock.
+ * <p/>
+ * Aborting the other transaction is cooperative: the other transaction is marked, and it aborts itself on its next
+ * read, while it is waiting for a lock itself or just before it commits. So after {@link #ABORT_OTHER} the lock is
+ * not free immediately and the ContentionManager is consulted again until the lock has been acquired.
+ * <p/>
+ * The ContentionManager is called with increasing attempts for the same lock and an implementation should make sure
+ * that the waiting ends, so at some point {@link #ABORT_SELF} needs to be returned. Otherwise a transaction could
+ * wait forever on a transaction that doesn't cooperate (e.g. one that has locked a transactional object and doesn't
+ * do any transactional work anymore).
+ * <p/>
+ * The transaction that holds the lock is only known if it is a write or exclusive lock, so the other transaction
+ * can be null (e.g. when readlocks are held).
+ * <p/>
+ * A ContentionManager should be threadsafe since it is shared between all transactions of a GammaStm or family.
+ *
+ * @author Peter Veentjer.
+ */
+public interface ContentionManager {
+
+    /**
+     * Try to acquire the lock again. The ContentionManager already has done the delay (if any).
+     */
+    int WAIT = 0;
+
+    /**
+     * Give up acquiring the lock; the transaction will be aborted with a
+     * {@link org.multiverse.api.exceptions.ReadWriteConflict}.
+     */
+    int ABORT_SELF = 1;
+
+    /**
+     * Abort the transaction that holds the lock and try to acquire the lock again.
+     */
+    int ABORT_OTHER = 2;
+
+    /**
+     * Resolves a conflict between a transaction that wants to acquire a lock and the transaction that holds it.
+     *
+     * @param self    the transaction that wants to acquire the lock.
+     * @param other   the transaction that holds the lock, or null if not known.
+     * @param attempt the number of times the contention manager has been called for this lock (starts with 1).
+     * @return {@link #WAIT}, {@link #ABORT_SELF} or {@link #ABORT_OTHER}.
+     */
+    int resolve(GammaTxn self, GammaTxn other, int attempt);
+}
@@ -0,0 +1,31 @@
+package org.multiverse.stms.gamma.contention;
+
+/**
+ * The Greedy {@link ContentionManager} (Guerraoui, Herlihy and Pochon) gives priority to the transaction that started
+ * first. The start time is kept over failed attempts, so a transaction that keeps losing eventually is the oldest
+ * and will complete.
+ * <p/>
+ * A transaction aborts the other transaction if it is older, or if the other transaction is waiting for a lock
+ * itself (so a waiting transaction can't block an older one indirectly). Otherwise it waits.
+ *
+ * @author Peter Veentjer.
+ */
+public final class GreedyContentionManager extends StartTimeContentionManager {
+
+    /**
+     * Creates a GreedyContentionManager that gives up after {@link #DEFAULT_MAX_ATTEMPTS} attempts.
+     */
+    public GreedyContentionManager() {
+        this(DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Creates a GreedyContentionManager.
+     *
+     * @param maxAttempts the maximum number of attempts to acquire a lock before giving up.
+     * @throws IllegalArgumentException if maxAttempts is smaller than 1.
+     */
+    public GreedyContentionManager(final int maxAttempts) {
+        super(maxAttempts, true);
+    }
+}
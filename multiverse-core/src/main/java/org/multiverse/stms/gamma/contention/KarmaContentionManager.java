@@ -0,0 +1,55 @@
+package org.multiverse.stms.gamma.contention;
+
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+
+/**
+ * The Karma {@link ContentionManager} (Scherer and Scott) uses the amount of work a transaction has done as its
+ * priority. The karma of a transaction is the number of transactional objects it has opened, including the ones
+ * opened in previous failed attempts, so a transaction that keeps losing builds up karma.
+ * <p/>
+ * A transaction with more karma aborts the other transaction; otherwise it waits, and every time it waits its karma
+ * is increased by one, so it eventually is able to abort the other transaction.
+ *
+ * @author Peter Veentjer.
+ */
+@SuppressWarnings({"CallToThreadYield"})
+public final class KarmaContentionManager implements ContentionManager {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 1024;
+
+    private final int maxAttempts;
+
+    /**
+     * Creates a KarmaContentionManager that gives up after {@link #DEFAULT_MAX_ATTEMPTS} attempts.
+     */
+    public KarmaContentionManager() {
+        this(DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Creates a KarmaContentionManager.
+     *
+     * @param maxAttempts the maximum number of attempts to acquire a lock before giving up.
+     * @throws IllegalArgumentException if maxAttempts is smaller than 1.
+     */
+    public KarmaContentionManager(final int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts can't be smaller than 1, maxAttempts was " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public int resolve(final GammaTxn self, final GammaTxn other, final int attempt) {
+        if (attempt > maxAttempts) {
+            return ABORT_SELF;
+        }
+
+        if (other != null && self.getKarma() + attempt > other.getKarma()) {
+            return ABORT_OTHER;
+        }
+
+        Thread.yield();
+        return WAIT;
+    }
+}
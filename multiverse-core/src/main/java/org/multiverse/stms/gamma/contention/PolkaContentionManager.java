@@ -0,0 +1,67 @@
+package org.multiverse.stms.gamma.contention;
+
+import org.multiverse.api.BackoffPolicy;
+import org.multiverse.api.DefaultBackoffPolicy;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+
+/**
+ * The Polka {@link ContentionManager} (Scherer and Scott) combines the {@link KarmaContentionManager} with
+ * randomized exponential backoff: a transaction waits (using a {@link BackoffPolicy}) once for every unit of karma the
+ * other transaction has more than itself, before it aborts the other transaction.
+ * <p/>
+ * Compared to Karma the waiting periods grow, so a transaction with a lot of karma gets more time to complete.
+ *
+ * @author Peter Veentjer.
+ */
+public final class PolkaContentionManager implements ContentionManager {
+
+    //with the DefaultBackoffPolicy the delays of the first 64 attempts add up to less than a millisecond; the
+    //delays grow quadratically, so 1024 attempts would add up to more than half a minute.
+    public static final int DEFAULT_MAX_ATTEMPTS = 64;
+
+    private final BackoffPolicy backoffPolicy;
+    private final int maxAttempts;
+
+    /**
+     * Creates a PolkaContentionManager that uses the {@link DefaultBackoffPolicy} and gives up after
+     * {@link #DEFAULT_MAX_ATTEMPTS} attempts.
+     */
+    public PolkaContentionManager() {
+        this(DefaultBackoffPolicy.MAX_100_MS, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Creates a PolkaContentionManager.
+     *
+     * @param backoffPolicy the BackoffPolicy used to wait.
+     * @param maxAttempts   the maximum number of attempts to acquire a lock before giving up.
+     * @throws NullPointerException     if backoffPolicy is null.
+     * @throws IllegalArgumentException if maxAttempts is smaller than 1.
+     */
+    public PolkaContentionManager(final BackoffPolicy backoffPolicy, final int maxAttempts) {
+        if (backoffPolicy == null) {
+            throw new NullPointerException("backoffPolicy can't be null");
+        }
+
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts can't be smaller than 1, maxAttempts was " + maxAttempts);
+        }
+
+        this.backoffPolicy = backoffPolicy;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public int resolve(final GammaTxn self, final GammaTxn other, final int attempt) {
+        if (attempt > maxAttempts) {
+            return ABORT_SELF;
+        }
+
+        if (other != null && attempt > other.getKarma() - self.getKarma()) {
+            return ABORT_OTHER;
+        }
+
+        backoffPolicy.delayUninterruptible(attempt);
+        return WAIT;
+    }
+}
@@ -0,0 +1,48 @@
+package org.multiverse.stms.gamma.contention;
+
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+
+/**
+ * The shared implementation of the {@link ContentionManager}s that give priority to the transaction that started
+ * first (see the {@link GreedyContentionManager} and the {@link WoundWaitContentionManager}). The start time is kept
+ * over failed attempts, so a transaction that keeps losing eventually is the oldest and will complete.
+ *
+ * @author Peter Veentjer.
+ */
+@SuppressWarnings({"CallToThreadYield"})
+abstract class StartTimeContentionManager implements ContentionManager {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 1024;
+
+    private final int maxAttempts;
+    private final boolean abortWaiting;
+
+    /**
+     * Creates a StartTimeContentionManager.
+     *
+     * @param maxAttempts  the maximum number of attempts to acquire a lock before giving up.
+     * @param abortWaiting if a younger transaction that is waiting for a lock itself should be aborted as well.
+     * @throws IllegalArgumentException if maxAttempts is smaller than 1.
+     */
+    StartTimeContentionManager(final int maxAttempts, final boolean abortWaiting) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts can't be smaller than 1, maxAttempts was " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        this.abortWaiting = abortWaiting;
+    }
+
+    @Override
+    public final int resolve(final GammaTxn self, final GammaTxn other, final int attempt) {
+        if (attempt > maxAttempts) {
+            return ABORT_SELF;
+        }
+
+        if (other != null && (self.startTimeNs - other.startTimeNs < 0 || (abortWaiting && other.waiting))) {
+            return ABORT_OTHER;
+        }
+
+        Thread.yield();
+        return WAIT;
+    }
+}
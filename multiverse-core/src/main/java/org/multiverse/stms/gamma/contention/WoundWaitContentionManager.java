@@ -0,0 +1,30 @@
+package org.multiverse.stms.gamma.contention;
+
+/**
+ * The wound-wait {@link ContentionManager} (Rosenkrantz, Stearns and Lewis) known from databases: an older
+ * transaction 'wounds' (aborts) a younger transaction that holds the lock it wants, and a younger transaction waits
+ * for an older one. Just like with the {@link GreedyContentionManager}, the start time is kept over failed attempts.
+ * <p/>
+ * Since a transaction only waits for older transactions, there can't be a cycle of waiting transactions.
+ *
+ * @author Peter Veentjer.
+ */
+public final class WoundWaitContentionManager extends StartTimeContentionManager {
+
+    /**
+     * Creates a WoundWaitContentionManager that gives up after {@link #DEFAULT_MAX_ATTEMPTS} attempts.
+     */
+    public WoundWaitContentionManager() {
+        this(DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Creates a WoundWaitContentionManager.
+     *
+     * @param maxAttempts the maximum number of attempts to acquire a lock before giving up.
+     * @throws IllegalArgumentException if maxAttempts is smaller than 1.
+     */
+    public WoundWaitContentionManager(final int maxAttempts) {
+        super(maxAttempts, false);
+    }
+}
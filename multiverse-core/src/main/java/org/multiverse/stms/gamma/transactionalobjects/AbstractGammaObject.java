@@ -3,16 +3,20 @@ package org.multiverse.stms.gamma.transactionalobjects;
 import org.multiverse.api.TxnLock;
 import org.multiverse.api.LockMode;
 import org.multiverse.api.Txn;
+import org.multiverse.api.blocking.RetryListener;
 import org.multiverse.api.exceptions.PanicError;
 import org.multiverse.api.exceptions.TxnMandatoryException;
+import org.multiverse.stms.gamma.GammaObjectPool;
 import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GlobalCommitClock;
 import org.multiverse.stms.gamma.Listeners;
 import org.multiverse.stms.gamma.transactions.GammaTxn;
-import org.multiverse.utils.ToolUnsafe;
-import sun.misc.Unsafe;
 
 import static java.lang.String.format;
+import static org.multiverse.stms.gamma.transactionalobjects.GammaFieldAccess.*;
 import static org.multiverse.api.TxnThreadLocal.getThreadLocalTxn;
+import static org.multiverse.stms.gamma.StripedGammaObjectPool.putStripedGammaObjectPool;
+import static org.multiverse.stms.gamma.StripedGammaObjectPool.takeStripedGammaObjectPool;
 
 @SuppressWarnings({"OverlyComplexClass"})
 public abstract class AbstractGammaObject implements GammaObject, TxnLock {
@@ -24,20 +28,12 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
     public static final long MASK_OREC_SURPLUS = 0x000000FFFFFFFE00L;
     public static final long MASK_OREC_READONLY_COUNT = 0x00000000000003FFL;
 
-    protected static final Unsafe ___unsafe = ToolUnsafe.getUnsafe();
-    protected static final long listenersOffset;
-    protected static final long valueOffset;
+    //the bit in the version that is set while the object is exclusively locked. It is only used when the seqlock is
+    //enabled (see GammaStmConfig.seqLockEnabled).
+    public static final long MASK_VERSION_EXCLUSIVELOCK = 0x8000000000000000L;
 
-    static {
-        try {
-            listenersOffset = ___unsafe.objectFieldOffset(
-                    AbstractGammaObject.class.getDeclaredField("listeners"));
-            valueOffset = ___unsafe.objectFieldOffset(
-                    AbstractGammaObject.class.getDeclaredField("orec"));
-        } catch (Exception ex) {
-            throw new Error(ex);
-        }
-    }
+    //the increase of the write score of a readbiased orec on an update; every read that arrives decreases it by 1.
+    public static final int READBIASED_WRITE_WEIGHT = 2;
 
     public final GammaStm stm;
 
@@ -50,21 +46,21 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
     @SuppressWarnings({"VolatileLongOrDoubleField"})
     public volatile long orec;
 
+    //the lock owner, ReaderSlots, explicit conflict domain and history. Null until one of them is needed.
+    @SuppressWarnings({"UnusedDeclaration"})
+    public volatile GammaObjectExtension extension;
+
     //This field has a controlled JMM problem (just like the hashcode of String).
     protected int identityHashCode;
 
-    //it is important that the maximum threshold is not larger than 1023 (there are 10 bits for the readonly count)
-    private final int readBiasedThreshold;
-
     public AbstractGammaObject(GammaStm stm) {
         assert stm != null;
         this.stm = stm;
-        this.readBiasedThreshold = stm.readBiasedThreshold;
     }
 
     @Override
     public final long getVersion() {
-        return version;
+        return version & ~MASK_VERSION_EXCLUSIVELOCK;
     }
 
     @Override
@@ -77,20 +73,213 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
         return this;
     }
 
+    /**
+     * Removes the listeners that need to be opened after a write. Should only be called while the exclusive lock is
+     * held and after the new value has been written.
+     *
+     * <p>Listeners with a predicate (see {@link Listeners#predicate}) or handoff listeners (see
+     * {@link Listeners#handoff}) are not filtered here, since a predicate is foreign code that should not run while
+     * the lock is held. Instead the removed listeners are marked, and they are filtered when they are opened after
+     * the lock has been released (see {@link #___filterListenersAfterWrite(Listeners)}).
+     *
+     * @return the Listeners to open, or null if there are none.
+     */
     public final Listeners ___removeListenersAfterWrite() {
         if (listeners == null) {
             return null;
         }
 
-        Listeners removedListeners;
+        final Listeners removedListeners = removeListeners();
+
+        Listeners filtered = removedListeners;
+        while (filtered != null && filtered.predicate == null && !filtered.handoff) {
+            filtered = filtered.next;
+        }
+
+        //in most cases there are no listeners with a predicate or handoff, so there is nothing to filter.
+        if (filtered != null) {
+            removedListeners.filterOwner = this;
+        }
+        return removedListeners;
+    }
+
+    /**
+     * Removes the listeners that need to be opened when a transaction that could have been handed a wake-up by a
+     * handoff listener, doesn't use it; e.g. because it aborted. If the predicate still matches, the next handoff
+     * listener is opened.
+     *
+     * @param predicate the predicate of the handoff, or null if every value matches.
+     * @return the Listeners to open, or null if there are none.
+     */
+    public final Listeners ___removeListenersAfterHandoff(final Object predicate) {
+        if (listeners == null) {
+            return null;
+        }
+
+        if (predicate != null && !___evaluateListenerPredicate(predicate)) {
+            //the transaction that is going to make it match, opens the next handoff listener.
+            return null;
+        }
+
+        return ___filterListenersAfterWrite(removeListeners());
+    }
+
+    /**
+     * Filters the listeners that were removed from this transactional object: listeners with a predicate that
+     * doesn't match the current value are registered again, so they are evaluated on the next write, and of the
+     * handoff listeners that match, only the oldest one is opened.
+     *
+     * <p>This call is done without holding the exclusive lock, so a write can happen while the listeners are
+     * filtered. Such a write could have missed the listeners that are registered again, so if the version has
+     * changed, the listeners are removed and filtered again.
+     *
+     * @param removedListeners the removed listeners, can be null.
+     * @return the Listeners to open, or null if there are none.
+     */
+    public final Listeners ___filterListenersAfterWrite(Listeners removedListeners) {
+        Listeners open = null;
+        while (true) {
+            final long currentVersion = version;
+
+            final Listeners filtered = filterListenersAfterWrite(removedListeners);
+            if (filtered != null) {
+                Listeners tail = filtered;
+                while (tail.next != null) {
+                    tail = tail.next;
+                }
+                tail.next = open;
+                open = filtered;
+            }
+
+            if (currentVersion == version) {
+                return open;
+            }
+
+            removedListeners = removeListeners();
+        }
+    }
+
+    private Listeners removeListeners() {
         while (true) {
-            removedListeners = listeners;
-            if (___unsafe.compareAndSwapObject(this, listenersOffset, removedListeners, null)) {
+            final Listeners removedListeners = listeners;
+            if (removedListeners == null || casListeners(this, removedListeners, null)) {
                 return removedListeners;
             }
         }
     }
 
+    private Listeners filterListenersAfterWrite(Listeners removedListeners) {
+        Listeners open = null;
+        //the listeners to keep, in the same order as they were registered.
+        Listeners keepHead = null;
+        Listeners keepTail = null;
+        //the last matching handoff listener found (so the oldest one) and the listener to keep in front of it.
+        Listeners handoff = null;
+        Listeners handoffPrevious = null;
+        //the listeners of a queue often share the same predicate, so it only is evaluated once.
+        Object lastPredicate = null;
+        boolean lastMatch = false;
+        while (removedListeners != null) {
+            final Listeners next = removedListeners.next;
+            final RetryListener latch = removedListeners.listener;
+
+            //a listener of which the era has changed, isn't waiting anymore. So it is opened (which is a no-op) to
+            //prevent that it stays registered forever. The same goes for a handoff listener of which the latch
+            //already is opened; the waiting transaction already is woken up.
+            boolean keep = false;
+            if (latch.getEra() == removedListeners.listenerEra) {
+                final Object predicate = removedListeners.predicate;
+                boolean match = true;
+                if (predicate != null) {
+                    if (predicate != lastPredicate) {
+                        lastPredicate = predicate;
+                        lastMatch = ___evaluateListenerPredicate(predicate);
+                    }
+                    match = lastMatch;
+                }
+
+                if (!match) {
+                    keep = true;
+                } else if (removedListeners.handoff && !latch.isOpen()) {
+                    keep = true;
+                    handoff = removedListeners;
+                    handoffPrevious = keepTail;
+                }
+            }
+
+            if (keep) {
+                removedListeners.next = null;
+                if (keepTail == null) {
+                    keepHead = removedListeners;
+                } else {
+                    keepTail.next = removedListeners;
+                }
+                keepTail = removedListeners;
+            } else {
+                removedListeners.next = open;
+                open = removedListeners;
+            }
+
+            removedListeners = next;
+        }
+
+        if (handoff != null) {
+            if (handoffPrevious == null) {
+                keepHead = handoff.next;
+            } else {
+                handoffPrevious.next = handoff.next;
+            }
+
+            if (keepTail == handoff) {
+                keepTail = handoffPrevious;
+            }
+
+            handoff.next = open;
+            open = handoff;
+        }
+
+        if (keepHead != null) {
+            //other threads could be registering listeners concurrently.
+            while (true) {
+                final Listeners current = listeners;
+                keepTail.next = current;
+                if (casListeners(this, current, keepHead)) {
+                    break;
+                }
+            }
+        }
+
+        return open;
+    }
+
+    /**
+     * Evaluates the predicate of a listener against the current value of this transactional object. Is called
+     * without holding the exclusive lock, so a failing predicate can't leave the object locked. A predicate that
+     * fails is treated as matching, so the waiting transaction is woken up and sees the failure itself; a
+     * VirtualMachineError is rethrown.
+     *
+     * @param predicate the predicate of the listener.
+     * @return true if the listener should be opened, false if it should stay registered.
+     */
+    protected abstract boolean ___evaluateListenerPredicate(Object predicate);
+
+    /**
+     * Opens the listeners that were removed by a write that isn't done by a transaction (an atomic write), so there
+     * is no transaction to provide the GammaObjectPool. An atomic write isn't executed by a TxnExecutor, so it
+     * doesn't know if the thread uses the threadlocal context; the GammaObjectPool is taken from the
+     * {@link org.multiverse.stms.gamma.StripedGammaObjectPool} so nothing is left behind in the thread.
+     *
+     * @param listeners the Listeners to open.
+     */
+    public final void ___openListenersAfterAtomicWrite(final Listeners listeners) {
+        final GammaObjectPool pool = takeStripedGammaObjectPool();
+        try {
+            listeners.openAll(pool);
+        } finally {
+            putStripedGammaObjectPool(pool);
+        }
+    }
+
     //a controlled jmm problem here since identityHashCode is not synchronized/volatile/final.
     //this is the same as with the hashcode and String.
     @Override
@@ -105,6 +294,147 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
         return tmp;
     }
 
+    /**
+     * Returns the conflict domain this GammaObject belongs to (see the {@link org.multiverse.stms.gamma.GlobalConflictCounter}).
+     * If no domain has been set explicitly, it is derived from the identity hashcode.
+     *
+     * @return the conflict domain.
+     */
+    public final int getConflictDomain() {
+        final GammaObjectExtension ext = extension;
+        if (ext != null && ext.conflictDomain != 0) {
+            return ext.conflictDomain - 1;
+        }
+
+        return stm.globalConflictCounter.toDomain(identityHashCode());
+    }
+
+    /**
+     * Returns the mask of the conflict domain this GammaObject belongs to.
+     *
+     * @return the conflict domain mask.
+     */
+    public final long getConflictDomainMask() {
+        return 1L << getConflictDomain();
+    }
+
+    /**
+     * Sets the conflict domain explicitly. Should only be called before the object is published to other threads,
+     * normally this is done by the {@link org.multiverse.stms.gamma.GammaTxnRefFactory}.
+     *
+     * @param domain the conflict domain.
+     * @throws IllegalArgumentException if the domain is not valid for the GlobalConflictCounter of the stm.
+     */
+    public final void ___setConflictDomain(final int domain) {
+        if (domain < 0 || domain >= stm.globalConflictCounter.getDomainCount()) {
+            throw new IllegalArgumentException(
+                    format("conflictDomain should be between 0 and %s, but was %s",
+                            stm.globalConflictCounter.getDomainCount() - 1, domain));
+        }
+
+        ___inflateExtension().conflictDomain = domain + 1;
+    }
+
+    /**
+     * Creates the GammaObjectExtension if it doesn't exist yet.
+     *
+     * @return the GammaObjectExtension.
+     */
+    public final GammaObjectExtension ___inflateExtension() {
+        final GammaObjectExtension ext = extension;
+        if (ext != null) {
+            return ext;
+        }
+
+        casExtension(this, null, new GammaObjectExtension());
+        return extension;
+    }
+
+    /**
+     * Returns the ReaderSlots.
+     *
+     * @return the ReaderSlots, or null if they have not been created.
+     */
+    public final ReaderSlots ___getReaderSlots() {
+        final GammaObjectExtension ext = extension;
+        return ext == null ? null : ext.readerSlots;
+    }
+
+    /**
+     * Returns the transaction that holds the write or exclusive lock. It is only known if the transaction uses a
+     * ContentionManager or is irrevocable, and since it is recorded after the lock is acquired, it should only be
+     * used as a hint.
+     *
+     * @return the lock owner, or null if not known.
+     */
+    public final GammaTxn ___getLockOwner() {
+        final GammaObjectExtension ext = extension;
+        if (ext == null) {
+            return null;
+        }
+
+        final GammaTxn owner = ext.lockOwner;
+        if (owner == null || owner.contentionEpoch != ext.lockOwnerEpoch || !owner.isAlive()) {
+            return null;
+        }
+
+        return owner;
+    }
+
+    /**
+     * Records the transaction that acquired the write or exclusive lock. Should only be called by the transaction
+     * that just acquired the lock.
+     *
+     * @param tx the transaction that owns the lock.
+     */
+    public final void ___setLockOwner(final GammaTxn tx) {
+        final GammaObjectExtension ext = ___inflateExtension();
+        //the epoch is written first, so a reader that sees the owner sees its epoch or a newer one. A newer one
+        //belongs to another acquisition and doesn't match the epoch of the owner, so the owner is ignored.
+        ext.lockOwnerEpoch = tx.contentionEpoch;
+        ext.lockOwner = tx;
+    }
+
+    /**
+     * Returns the version an update of this object gets. Should only be called while the object is exclusively
+     * locked. If the {@link org.multiverse.stms.gamma.GlobalCommitClock} is used, the version is the new time of the
+     * clock, else it just is the current version incremented by one.
+     *
+     * @param currentVersion the version of the object.
+     * @return the new version.
+     */
+    public final long ___nextVersion(final long currentVersion) {
+        final GlobalCommitClock globalCommitClock = stm.globalCommitClock;
+        return globalCommitClock == null
+                ? (currentVersion & ~MASK_VERSION_EXCLUSIVELOCK) + 1
+                : globalCommitClock.tick();
+    }
+
+    /**
+     * Marks the version as exclusively locked if the seqlock is enabled. Should be called by the thread that just
+     * acquired the exclusive lock. The window between acquiring the lock and marking the version is harmless: a
+     * reader that sees the unmarked version could just as well have completed before the lock was acquired.
+     */
+    private void lockVersion() {
+        if (stm.seqLockEnabled) {
+            version = version | MASK_VERSION_EXCLUSIVELOCK;
+        }
+    }
+
+    /**
+     * Clears the exclusive lock from the version if the seqlock is enabled. Should be called by the thread that holds
+     * the lock, before the lock on the orec is released. A commit already replaced the version by the new (unmarked)
+     * version.
+     */
+    private void unlockVersion() {
+        if (stm.seqLockEnabled) {
+            final long current = version;
+            if ((current & MASK_VERSION_EXCLUSIVELOCK) != 0) {
+                version = current & ~MASK_VERSION_EXCLUSIVELOCK;
+            }
+        }
+    }
+
     public final int atomicGetLockModeAsInt() {
         final long current = orec;
 
@@ -204,7 +534,7 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
     }
 
     public final int getReadBiasedThreshold() {
-        return readBiasedThreshold;
+        return stm.readBiasedThreshold;
     }
 
     public final long getSurplus() {
@@ -219,8 +549,20 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
         return getReadonlyCount(orec);
     }
 
+    /**
+     * Returns the number of readlocks. If the ReaderSlots are used, a slot holds a single readlock on the orec for all
+     * its readers, so the readers in the slots are counted instead. The value is not a snapshot in that case.
+     *
+     * @return the number of readlocks.
+     */
     public final int getReadLockCount() {
-        return getReadLockCount(orec);
+        final int readLockCount = getReadLockCount(orec);
+        final ReaderSlots slots = ___getReaderSlots();
+        if (slots == null) {
+            return readLockCount;
+        }
+
+        return Math.max(0, readLockCount - slots.countNonEmpty(true) + (int) slots.count(true));
     }
 
     /**
@@ -243,21 +585,27 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
 
             final boolean isReadBiased = isReadBiased(current);
 
+            long next;
             if (isReadBiased) {
-                if (surplus == 0) {
-                    surplus = 1;
-                } else if (surplus == 1) {
-                    return MASK_SUCCESS + MASK_UNREGISTERED;
-                } else {
+                if (surplus > 1) {
                     throw new PanicError("Surplus for a readbiased orec can never be larger than 1");
                 }
+
+                //the readonly count of a readbiased orec is its write score, a read lowers it.
+                final int writeScore = getReadonlyCount(current);
+                if (surplus == 1 && writeScore == 0) {
+                    return MASK_SUCCESS + MASK_UNREGISTERED;
+                }
+
+                next = setSurplus(current, 1);
+                if (writeScore > 0) {
+                    next = setReadonlyCount(next, writeScore - 1);
+                }
             } else {
-                surplus++;
+                next = setSurplus(current, surplus + 1);
             }
 
-            final long next = setSurplus(current, surplus);
-
-            if (___unsafe.compareAndSwapLong(this, valueOffset, current, next)) {
+            if (casOrec(this, current, next)) {
                 int result = MASK_SUCCESS;
 
                 if (isReadBiased) {
@@ -266,6 +614,8 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
 
                 return result;
             }
+
+            onReaderContention();
         } while (spinCount >= 0);
 
         return FAILURE;
@@ -295,10 +645,11 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
                 next = setWriteLock(next, true);
             }
 
-            if (___unsafe.compareAndSwapLong(this, valueOffset, current, next)) {
+            if (casOrec(this, current, next)) {
                 int result = MASK_SUCCESS;
 
                 if (exclusiveLock) {
+                    lockVersion();
                     if (isReadBiased(current) || getSurplus(current) > 1) {
                         result += MASK_CONFLICT;
                     }
@@ -332,7 +683,8 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
             long next = setExclusiveLock(current, true);
             next = setWriteLock(next, false);
 
-            if (___unsafe.compareAndSwapLong(this, valueOffset, current, next)) {
+            if (casOrec(this, current, next)) {
+                lockVersion();
                 return isReadBiased(current) || getSurplus(current) > 1;
             }
         }
@@ -383,19 +735,26 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
                 next = setWriteLock(next, true);
             }
 
-            if (___unsafe.compareAndSwapLong(this, valueOffset, current, next)) {
+            if (casOrec(this, current, next)) {
                 int result = MASK_SUCCESS;
 
                 if (isReadBiased) {
                     result += MASK_UNREGISTERED;
                 }
 
-                if (lockMode == LOCKMODE_EXCLUSIVE && currentSurplus > 0) {
-                    result += MASK_CONFLICT;
+                if (lockMode == LOCKMODE_EXCLUSIVE) {
+                    lockVersion();
+                    if (currentSurplus > 0) {
+                        result += MASK_CONFLICT;
+                    }
                 }
 
                 return result;
             }
+
+            if (lockMode == LOCKMODE_READ) {
+                onReaderContention();
+            }
         } while (spinCount >= 0);
 
         return FAILURE;
@@ -434,7 +793,8 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
             long next = setSurplus(current, surplus);
             next = setExclusiveLock(next, true);
 
-            if (___unsafe.compareAndSwapLong(this, valueOffset, current, next)) {
+            if (casOrec(this, current, next)) {
+                lockVersion();
                 int result = MASK_SUCCESS;
 
                 if (isReadBiased) {
@@ -491,11 +851,14 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
                 next = setWriteLock(current, true);
             }
 
-            if (___unsafe.compareAndSwapLong(this, valueOffset, current, next)) {
+            if (casOrec(this, current, next)) {
                 int result = MASK_SUCCESS;
 
-                if (lockMode == LOCKMODE_EXCLUSIVE && currentSurplus > 1) {
-                    result += MASK_CONFLICT;
+                if (lockMode == LOCKMODE_EXCLUSIVE) {
+                    lockVersion();
+                    if (currentSurplus > 1) {
+                        result += MASK_CONFLICT;
+                    }
                 }
 
                 return result;
@@ -512,6 +875,7 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
      * made readbiased and the readonly count is set to 0.
      */
     public final void departAfterReading() {
+        final int readBiasedThreshold = stm.readBiasedThreshold;
         while (true) {
             final long current = orec;
 
@@ -544,7 +908,10 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
             long next = setIsReadBiased(current, isReadBiased);
             next = setReadonlyCount(next, readonlyCount);
             next = setSurplus(next, surplus);
-            if (___unsafe.compareAndSwapLong(this, valueOffset, current, next)) {
+            if (casOrec(this, current, next)) {
+                if (isReadBiased) {
+                    stm.readBiasStatistics.signalReadBiased();
+                }
                 return;
             }
         }
@@ -559,6 +926,9 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
      * if that happens).
      */
     public final void departAfterReadingAndUnlock() {
+        unlockVersion();
+
+        final int readBiasedThreshold = stm.readBiasedThreshold;
         while (true) {
             final long current = orec;
 
@@ -602,13 +972,26 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
             next = setIsReadBiased(next, isReadBiased);
             next = setReadonlyCount(next, readonlyCount);
             next = setSurplus(next, surplus);
-            if (___unsafe.compareAndSwapLong(this, valueOffset, current, next)) {
+            if (casOrec(this, current, next)) {
+                if (isReadBiased) {
+                    stm.readBiasStatistics.signalReadBiased();
+                }
                 return;
             }
         }
     }
 
+    /**
+     * Departs after an update and releases the exclusive lock.
+     * <p/>
+     * On an update biased orec the readonly count is halved. On a readbiased orec the write score (stored in the
+     * readonly count) is increased by {@link #READBIASED_WRITE_WEIGHT}; only when it reaches the
+     * readBiasedWriteThreshold of the stm, the orec becomes update biased again. With a readBiasedWriteThreshold of 0
+     * every update makes the orec update biased and clears the readonly count.
+     */
     public final void departAfterUpdateAndUnlock() {
+        unlockVersion();
+
         while (true) {
             final long current = orec;
 
@@ -623,26 +1006,43 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
                         "Can't departAfterUpdateAndUnlock is there is no surplus " + toOrecString(current));
             }
 
+            final int readonlyCount = getReadonlyCount(current);
+            final int writeThreshold = stm.readBiasedWriteThreshold;
+
             if (isReadBiased(current)) {
                 if (surplus > 1) {
                     throw new PanicError(
                             "The surplus can never be larger than 1 if readBiased " + toOrecString(current));
                 }
 
-                //there always is a conflict when a readbiased orec is updated.
-                surplus = 0;
-            } else {
-                surplus--;
+                //there always is a conflict when a readbiased orec is updated. The surplus is cleared, so the
+                //next reader needs to arrive again (and lowers the write score).
+                final int writeScore = readonlyCount + READBIASED_WRITE_WEIGHT;
+                if (writeScore < writeThreshold) {
+                    orec = setReadonlyCount(MASK_OREC_READBIASED, writeScore);
+                    stm.readBiasStatistics.signalAbsorbedUpdate();
+                } else {
+                    //the orec starts half way the readBiasedThreshold, so it can become readbiased again
+                    //relatively quickly if the updates were only a burst.
+                    orec = writeThreshold == 0 ? 0 : setReadonlyCount(0, stm.readBiasedThreshold >> 1);
+                    stm.readBiasStatistics.signalUpdateBiased();
+                }
+                return;
             }
 
+            surplus--;
+
+            //an update halves the readonly count instead of clearing it, so the readonly count decays with the
+            //updates and an orec that is mostly read still becomes readbiased.
+            final int decayedReadonlyCount = writeThreshold == 0 ? 0 : readonlyCount >> 1;
             if (surplus == 0) {
-                orec = 0;
+                orec = setReadonlyCount(0, decayedReadonlyCount);
                 return;
             }
 
-            final long next = setSurplus(0, surplus);
+            final long next = setReadonlyCount(setSurplus(0, surplus), decayedReadonlyCount);
 
-            if (___unsafe.compareAndSwapLong(this, valueOffset, current, next)) {
+            if (casOrec(this, current, next)) {
                 return;
             }
         }
@@ -654,6 +1054,8 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
      * ref.
      */
     public final void departAfterFailureAndUnlock() {
+        unlockVersion();
+
         while (true) {
             final long current = orec;
 
@@ -691,7 +1093,7 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
                 next = setReadLockCount(next, lockMode - 1);
             }
 
-            if (___unsafe.compareAndSwapLong(this, valueOffset, current, next)) {
+            if (casOrec(this, current, next)) {
                 return;
             }
         }
@@ -724,13 +1126,15 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
 
             long next = setSurplus(current, surplus);
 
-            if (___unsafe.compareAndSwapLong(this, valueOffset, current, next)) {
+            if (casOrec(this, current, next)) {
                 return;
             }
         }
     }
 
     public final void unlockByUnregistered() {
+        unlockVersion();
+
         while (true) {
             final long current = orec;
 
@@ -763,12 +1167,138 @@ public abstract class AbstractGammaObject implements GammaObject, TxnLock {
                 next = setWriteLock(next, false);
             }
 
-            if (___unsafe.compareAndSwapLong(this, valueOffset, current, next)) {
+            if (casOrec(this, current, next)) {
                 return;
             }
         }
     }
 
+    private void onReaderContention() {
+        if (stm.readerSlotCount > 0 && ___getReaderSlots() == null) {
+            casReaderSlots(___inflateExtension(), null, new ReaderSlots(stm.readerSlotCount));
+        }
+    }
+
+    /**
+     * Creates the ReaderSlots if they don't exist yet. Normally they are created once readers start to contend on
+     * the orec.
+     *
+     * @return the ReaderSlots, or null if the ReaderSlots are disabled (see GammaStmConfig.readerSlotCount).
+     */
+    public final ReaderSlots ___inflateReaderSlots() {
+        onReaderContention();
+        return ___getReaderSlots();
+    }
+
+    /**
+     * Returns the slot the calling thread uses when the ReaderSlots of this orec are created.
+     *
+     * @return the slot of the calling thread.
+     */
+    public final int ___readerSlot() {
+        return (int) Thread.currentThread().getId() & (stm.readerSlotCount - 1);
+    }
+
+    /**
+     * Arrives for reading, optionally with a readlock. If ReaderSlots have been created, the arrive is done on the
+     * given slot and only the first reader of the slot arrives on the orec; else this call is the same as
+     * {@link #arrive(int)} or {@link #arriveAndLock(int, int)} with a readlock.
+     * <p/>
+     * A plain arrive on a slot is done before checking the exclusive lock, so a writer that acquires the exclusive
+     * lock after this check sees the slot in the surplus of the orec, and signals a conflict. A readlock on a non
+     * empty slot doesn't need to check anything, since the orec is readlocked as long as the slot isn't empty.
+     *
+     * @param slot      the slot to use (see {@link #___readerSlot()}).
+     * @param spinCount the maximum number of times to spin if the orec is locked.
+     * @param readLock  true if a readlock should be acquired as well.
+     * @return the arrive status; {@link #MASK_READER_SLOT} is set if the arrive was done on the slot and the depart
+     *         needs to be done by {@link #departFromReaderSlot(int, boolean, boolean)}.
+     */
+    public final int arriveForReading(final int slot, int spinCount, final boolean readLock) {
+        final ReaderSlots slots = ___getReaderSlots();
+        if (slots == null) {
+            return readLock ? arriveAndLock(spinCount, LOCKMODE_READ) : arrive(spinCount);
+        }
+
+        do {
+            final long count = slots.get(slot, readLock);
+
+            if (count == 0) {
+                final int result = readLock ? arriveAndLock(spinCount, LOCKMODE_READ) : arrive(spinCount);
+                if (result == FAILURE) {
+                    return FAILURE;
+                }
+
+                //a readbiased orec doesn't count its readers, so there is nothing to share.
+                if ((result & MASK_UNREGISTERED) != 0) {
+                    return result;
+                }
+
+                if (slots.compareAndSet(slot, readLock, 0, 1)) {
+                    return result + MASK_READER_SLOT;
+                }
+
+                if (readLock) {
+                    departAfterFailureAndUnlock();
+                } else {
+                    departAfterFailure();
+                }
+                continue;
+            }
+
+            if (!slots.compareAndSet(slot, readLock, count, count + 1)) {
+                continue;
+            }
+
+            if (readLock || !hasExclusiveLock(orec)) {
+                return MASK_SUCCESS + MASK_READER_SLOT;
+            }
+
+            departFromReaderSlot(slot, false, false);
+            spinCount--;
+            yieldIfNeeded(spinCount);
+        } while (spinCount >= 0);
+
+        return FAILURE;
+    }
+
+    /**
+     * Departs from a slot of the ReaderSlots. The last reader of the slot departs from the orec.
+     *
+     * @param slot     the slot the arrive was done on.
+     * @param readLock true if the arrive was done with a readlock (which is released).
+     * @param failure  true if the depart is done after a failure, so the readonly count of the orec isn't increased.
+     */
+    public final void departFromReaderSlot(final int slot, final boolean readLock, final boolean failure) {
+        final ReaderSlots slots = extension.readerSlots;
+
+        while (true) {
+            final long count = slots.get(slot, readLock);
+            if (count <= 0) {
+                throw new PanicError("There is no reader in slot " + slot + " " + slots);
+            }
+
+            if (slots.compareAndSet(slot, readLock, count, count - 1)) {
+                if (count > 1) {
+                    return;
+                }
+                break;
+            }
+        }
+
+        if (readLock) {
+            if (failure) {
+                departAfterFailureAndUnlock();
+            } else {
+                departAfterReadingAndUnlock();
+            }
+        } else if (failure) {
+            departAfterFailure();
+        } else {
+            departAfterReading();
+        }
+    }
+
     public final String ___toOrecString() {
         return toOrecString(orec);
     }
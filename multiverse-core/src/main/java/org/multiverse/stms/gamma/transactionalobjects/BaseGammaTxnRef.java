@@ -3,14 +3,17 @@ package org.multiverse.stms.gamma.transactionalobjects;
 import org.multiverse.api.IsolationLevel;
 import org.multiverse.api.LockMode;
 import org.multiverse.api.Txn;
-import org.multiverse.api.blocking.RetryLatch;
+import org.multiverse.api.blocking.RetryListener;
 import org.multiverse.api.exceptions.LockedException;
+import org.multiverse.api.exceptions.PanicError;
 import org.multiverse.api.exceptions.TxnMandatoryException;
 import org.multiverse.api.functions.*;
+import org.multiverse.api.predicates.*;
 import org.multiverse.stms.gamma.GammaObjectPool;
 import org.multiverse.stms.gamma.GammaStm;
 import org.multiverse.stms.gamma.GammaStmUtils;
 import org.multiverse.stms.gamma.Listeners;
+import org.multiverse.stms.gamma.contention.ContentionManager;
 import org.multiverse.stms.gamma.transactions.GammaTxn;
 import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
 import org.multiverse.stms.gamma.transactions.fat.FatFixedLengthGammaTxn;
@@ -23,29 +26,135 @@ import static java.lang.Math.max;
 import static org.multiverse.api.TxnThreadLocal.getThreadLocalTxn;
 import static org.multiverse.stms.gamma.GammaStmUtils.asGammaTxn;
 import static org.multiverse.stms.gamma.GammaStmUtils.getRequiredThreadLocalGammaTxn;
-import static org.multiverse.stms.gamma.ThreadLocalGammaObjectPool.getThreadLocalGammaObjectPool;
+import static org.multiverse.stms.gamma.GammaStmUtils.longAsBoolean;
+import static org.multiverse.stms.gamma.GammaStmUtils.longAsDouble;
+import static org.multiverse.stms.gamma.transactionalobjects.GammaFieldAccess.*;
 import static org.multiverse.utils.Bugshaker.shakeBugs;
 
 @SuppressWarnings({"OverlyComplexClass", "OverlyCoupledClass"})
 public abstract class BaseGammaTxnRef extends AbstractGammaObject {
 
+    //the value is stored in the LongBackedGammaTxnRef.long_value or, if the type is TYPE_REF, in the
+    //GammaTxnRef.ref_value. The history, if any, is stored in the GammaObjectExtension.
     public final int type;
-    @SuppressWarnings({"VolatileLongOrDoubleField"})
-    public volatile long long_value;
-    public volatile Object ref_value;
 
     protected BaseGammaTxnRef(GammaStm stm, int type) {
         super(stm);
         this.type = type;
     }
 
+    //the committed value of a GammaTxnRef. Should only be called if the type is TYPE_REF.
+    private Object refValue() {
+        return ((GammaTxnRef) this).ref_value;
+    }
+
+    //the committed value of a LongBackedGammaTxnRef. Should only be called if the type is not TYPE_REF.
+    private long longValue() {
+        return ((LongBackedGammaTxnRef) this).long_value;
+    }
+
+    /**
+     * Sets the maximum number of previously committed values that is kept for readonly transactions. Should only
+     * be called before the ref is published to other threads, normally this is done by the
+     * {@link org.multiverse.stms.gamma.GammaTxnRefFactory}.
+     *
+     * @param historyDepth the maximum number of previously committed values to keep.
+     * @throws IllegalArgumentException if historyDepth is smaller than 0.
+     * @throws IllegalStateException    if historyDepth is larger than 0 and the stm doesn't use the
+     *                                  {@link org.multiverse.stms.gamma.GlobalCommitClock}.
+     */
+    public final void ___setHistoryDepth(final int historyDepth) {
+        if (historyDepth < 0) {
+            throw new IllegalArgumentException("historyDepth can't be smaller than 0, historyDepth was " + historyDepth);
+        }
+
+        if (historyDepth > 0 && stm.globalCommitClock == null) {
+            throw new IllegalStateException(
+                    "historyDepth can only be used in combination with GammaStmConfig.globalCommitClockEnabled");
+        }
+
+        if (historyDepth > 0 || extension != null) {
+            ___inflateExtension().historyDepth = historyDepth;
+        }
+    }
+
+    /**
+     * Returns the previously committed values, newest first.
+     *
+     * @return the history, or null if there is none.
+     */
+    public final VersionedValue ___getHistory() {
+        final GammaObjectExtension ext = extension;
+        return ext == null ? null : ext.history;
+    }
+
+    /**
+     * Stores the current committed value in the history. Should only be called while the ref is exclusively locked,
+     * before the new value is written. Values that can't be read by any snapshot anymore are reclaimed.
+     */
+    public final void ___pushHistory() {
+        final GammaObjectExtension ext = extension;
+        if (ext == null || ext.historyDepth == 0) {
+            return;
+        }
+
+        final int depth = ext.historyDepth;
+        final VersionedValue history = ext.history;
+
+        final long horizon = stm.globalCommitClock.getSnapshotHorizon();
+        final VersionedValue head = type == TYPE_REF
+                ? new VersionedValue(getVersion(), 0, refValue(), history)
+                : new VersionedValue(getVersion(), longValue(), null, history);
+
+        //a value is replaced at the version of its predecessor in the chain, once that is at or before the
+        //horizon, no snapshot can see the value anymore.
+        VersionedValue node = head;
+        int count = 1;
+        while (node.next != null) {
+            if (count == depth || node.version <= horizon) {
+                node.next = null;
+                break;
+            }
+            node = node.next;
+            count++;
+        }
+
+        ext.history = head;
+    }
+
+    /**
+     * Loads the value that was committed at the given read version from the history into the tranlocal.
+     *
+     * @param tranlocal   the tranlocal to load the value into.
+     * @param readVersion the read version.
+     * @return true if the value was found, false if it is not in the history (anymore).
+     */
+    public final boolean ___loadHistory(final Tranlocal tranlocal, final long readVersion) {
+        VersionedValue node = ___getHistory();
+        while (node != null) {
+            if (node.version <= readVersion) {
+                tranlocal.version = node.version;
+                if (type == TYPE_REF) {
+                    tranlocal.ref_value = node.ref_value;
+                    tranlocal.ref_oldValue = node.ref_value;
+                } else {
+                    tranlocal.long_value = node.long_value;
+                    tranlocal.long_oldValue = node.long_value;
+                }
+                return true;
+            }
+            node = node.next;
+        }
+        return false;
+    }
+
     @SuppressWarnings({"BooleanMethodIsAlwaysInverted"})
     public final boolean flattenCommute(final GammaTxn tx, final Tranlocal tranlocal, final int lockMode) {
         assert tranlocal.mode == TRANLOCAL_COMMUTING;
 
         final GammaTxnConfig config = tx.config;
 
-        tx.initLocalConflictCounter();
+        tx.initLocalConflictCounter(this);
 
         if (!load(tx, tranlocal, lockMode, config.spinCount, tx.richmansMansConflictScan)) {
             return false;
@@ -114,21 +223,36 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
     }
 
     public final Listeners commit(final Tranlocal tranlocal, final GammaObjectPool pool) {
+        return commit(tranlocal, pool, 0);
+    }
+
+    /**
+     * Commits the tranlocal. Should only be called when the ref is exclusively locked (if the tranlocal is dirty).
+     *
+     * @param tranlocal    the tranlocal to commit.
+     * @param pool         the GammaObjectPool.
+     * @param writeVersion the version the ref gets if it is updated, or 0 if the version should be determined
+     *                     by the ref itself (see {@link #___nextVersion(long)}).
+     * @return the listeners that need to be notified, or null if there are none.
+     */
+    public final Listeners commit(final Tranlocal tranlocal, final GammaObjectPool pool, final long writeVersion) {
         if (!tranlocal.isDirty) {
             releaseAfterReading(tranlocal, pool);
             return null;
         }
 
+        ___pushHistory();
+
         if (type == TYPE_REF) {
-            ref_value = tranlocal.ref_value;
+            setRefValueRelease((GammaTxnRef<?>) this, tranlocal.ref_value);
             //we need to set them to null to prevent memory leaks.
             tranlocal.ref_value = null;
             tranlocal.ref_oldValue = null;
         } else {
-            long_value = tranlocal.long_value;
+            setLongValueRelease((LongBackedGammaTxnRef) this, tranlocal.long_value);
         }
 
-        version = tranlocal.version + 1;
+        version = writeVersion == 0 ? ___nextVersion(tranlocal.version) : writeVersion;
 
         Listeners listenerAfterWrite = listeners;
 
@@ -140,17 +264,20 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
         return listenerAfterWrite;
     }
 
-    public final Listeners leanCommit(final Tranlocal tranlocal) {
-        assert type == TYPE_REF;
-
+    public final Listeners leanCommit(final Tranlocal tranlocal, final long writeVersion) {
         if (tranlocal.mode == TRANLOCAL_READ) {
             tranlocal.ref_value = null;
             tranlocal.owner = null;
             return null;
         }
 
-        ref_value = tranlocal.ref_value;
-        version = tranlocal.version + 1;
+        ___pushHistory();
+        if (type == TYPE_REF) {
+            setRefValueRelease((GammaTxnRef<?>) this, tranlocal.ref_value);
+        } else {
+            setLongValueRelease((LongBackedGammaTxnRef) this, tranlocal.long_value);
+        }
+        version = writeVersion == 0 ? ___nextVersion(tranlocal.version) : writeVersion;
 
         Listeners listenerAfterWrite = listeners;
 
@@ -221,9 +348,18 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             tranlocal.headCallable = null;
         }
 
+        departAndUnlockAfterFailure(tranlocal);
+        tranlocal.owner = null;
+    }
+
+    private void departAndUnlockAfterFailure(final Tranlocal tranlocal) {
         if (tranlocal.hasDepartObligation()) {
             if (tranlocal.isConstructing()) {
                 tranlocal.setLockMode(LOCKMODE_NONE);
+            } else if (tranlocal.readerSlot >= 0) {
+                departFromReaderSlot(tranlocal.readerSlot, tranlocal.getLockMode() == LOCKMODE_READ, true);
+                tranlocal.readerSlot = -1;
+                tranlocal.setLockMode(LOCKMODE_NONE);
             } else if (tranlocal.getLockMode() != LOCKMODE_NONE) {
                 departAfterFailureAndUnlock();
                 tranlocal.setLockMode(LOCKMODE_NONE);
@@ -235,8 +371,42 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             unlockByUnregistered();
             tranlocal.setLockMode(LOCKMODE_NONE);
         }
+    }
 
-        tranlocal.owner = null;
+    /**
+     * Restores the lock and the arrive a tranlocal had before a closed nested transaction changed them, when that
+     * nested transaction is rolled back (see FatVariableLengthGammaTxn.rollbackNested). A lock on the orec can't be
+     * downgraded, so everything the tranlocal holds is released and the lock or arrive it had is acquired again.
+     *
+     * @param tx               the transaction the tranlocal belongs to.
+     * @param tranlocal        the tranlocal to restore.
+     * @param lockMode         the lockMode the tranlocal had.
+     * @param departObligation if the tranlocal had arrived.
+     * @return false if the ref could have been updated in the meantime, so the read of the tranlocal can't be trusted
+     *         anymore and the transaction needs to abort.
+     */
+    public final boolean restoreLockAfterNestedRollback(
+            final GammaTxn tx, final Tranlocal tranlocal, final int lockMode, final boolean departObligation) {
+
+        departAndUnlockAfterFailure(tranlocal);
+
+        if (lockMode != LOCKMODE_NONE) {
+            return tryLockAndCheckConflict(tx, tranlocal, tx.config.spinCount, lockMode);
+        }
+
+        if (!departObligation) {
+            //the read is validated the same way as before the nested transaction started.
+            return true;
+        }
+
+        final int result = arrive(tx.config.spinCount);
+        if (result == FAILURE) {
+            return false;
+        }
+
+        tranlocal.hasDepartObligation = (result & MASK_UNREGISTERED) == 0;
+        //a writer that committed while the tranlocal wasn't arrived, didn't notice this transaction as a reader.
+        return tranlocal.version == getVersion();
     }
 
     public final void releaseAfterUpdate(final Tranlocal tranlocal, final GammaObjectPool pool) {
@@ -245,6 +415,8 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             tranlocal.ref_oldValue = null;
         }
 
+        //the exclusive lock is acquired on the orec itself, so the tranlocal has left its reader slot already.
+        assert tranlocal.readerSlot == -1;
         departAfterUpdateAndUnlock();
         tranlocal.lockMode = LOCKMODE_NONE;
         tranlocal.owner = null;
@@ -258,7 +430,11 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
         }
 
         if (tranlocal.hasDepartObligation()) {
-            if (tranlocal.getLockMode() != LOCKMODE_NONE) {
+            if (tranlocal.readerSlot >= 0) {
+                departFromReaderSlot(tranlocal.readerSlot, tranlocal.getLockMode() == LOCKMODE_READ, false);
+                tranlocal.readerSlot = -1;
+                tranlocal.setLockMode(LOCKMODE_NONE);
+            } else if (tranlocal.getLockMode() != LOCKMODE_NONE) {
                 departAfterReadingAndUnlock();
                 tranlocal.setLockMode(LOCKMODE_NONE);
             } else {
@@ -277,26 +453,57 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             final GammaTxn tx, final Tranlocal tranlocal, final int lockMode, int spinCount, final boolean arriveNeeded) {
 
         if (lockMode != LOCKMODE_NONE) {
-            final int result = arriveAndLock(spinCount, lockMode);
+            int result = FAILURE;
+            int slot = -1;
+            if (lockMode == LOCKMODE_READ && ___getReaderSlots() != null) {
+                slot = ___readerSlot();
+                result = arriveForReading(slot, spinCount, true);
+            }
 
+            //the ContentionManager and irrevocable transactions are only dealt with by acquireLock.
             if (result == FAILURE) {
-                return false;
+                result = acquireLock(tx, spinCount, LOCKMODE_NONE, false, lockMode);
+
+                if (result == FAILURE) {
+                    return false;
+                }
             }
 
             tranlocal.owner = this;
-            tranlocal.version = version;
+            //the version contains the exclusive lock if this transaction just acquired it and the seqlock is enabled.
+            tranlocal.version = getVersion();
             if (type == TYPE_REF) {
-                final Object value = ref_value;
+                final Object value = refValue();
                 tranlocal.ref_value = value;
                 tranlocal.ref_oldValue = value;
             } else {
-                final long value = long_value;
+                final long value = longValue();
                 tranlocal.long_value = value;
                 tranlocal.long_oldValue = value;
             }
-            tranlocal.lockMode = lockMode;
+            tranlocal.lockMode = (byte) lockMode;
             tranlocal.hasDepartObligation = (result & MASK_UNREGISTERED) == 0;
-            tx.commitConflict = (result & MASK_CONFLICT) != 0;
+            tranlocal.readerSlot = (short) ((result & MASK_READER_SLOT) != 0 ? slot : -1);
+            if ((result & MASK_CONFLICT) != 0) {
+                tx.registerCommitConflict(this);
+            }
+            return true;
+        }
+
+        if (!arriveNeeded && stm.seqLockEnabled) {
+            if (!seqLoad(tranlocal, spinCount)) {
+                return false;
+            }
+
+            tranlocal.owner = this;
+            tranlocal.lockMode = LOCKMODE_NONE;
+            tranlocal.hasDepartObligation = false;
+            tranlocal.readerSlot = -1;
+            if (type == TYPE_REF) {
+                tranlocal.ref_oldValue = tranlocal.ref_value;
+            } else {
+                tranlocal.long_oldValue = tranlocal.long_value;
+            }
             return true;
         }
 
@@ -307,13 +514,13 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             if (type == TYPE_REF) {
                 do {
                     readVersion = version;
-                    readRef = ref_value;
+                    readRef = refValue();
                     if (SHAKE_BUGS) shakeBugs();
                 } while (readVersion != version);
             } else {
                 do {
                     readVersion = version;
-                    readLong = long_value;
+                    readLong = longValue();
                     if (SHAKE_BUGS) shakeBugs();
                 } while (readVersion != version);
             }
@@ -321,8 +528,12 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             if (SHAKE_BUGS) shakeBugs();
 
             int arriveStatus;
+            int slot = -1;
             if (arriveNeeded) {
-                arriveStatus = arrive(spinCount);
+                if (___getReaderSlots() != null) {
+                    slot = ___readerSlot();
+                }
+                arriveStatus = arriveForReading(slot, spinCount, false);
             } else if (waitForExclusiveLockToBecomeFree(spinCount)) {
                 arriveStatus = MASK_SUCCESS + MASK_UNREGISTERED;
             } else {
@@ -340,6 +551,7 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
                 tranlocal.version = readVersion;
                 tranlocal.lockMode = LOCKMODE_NONE;
                 tranlocal.hasDepartObligation = (arriveStatus & MASK_UNREGISTERED) == 0;
+                tranlocal.readerSlot = (short) ((arriveStatus & MASK_READER_SLOT) != 0 ? slot : -1);
 
                 if (type == TYPE_REF) {
                     tranlocal.ref_value = readRef;
@@ -353,12 +565,56 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             }
 
             //we are not lucky, the value has changed. But before retrying, we need to depart if the arrive was normal
-            if ((arriveStatus & MASK_UNREGISTERED) == 0) {
+            if ((arriveStatus & MASK_READER_SLOT) != 0) {
+                departFromReaderSlot(slot, false, true);
+            } else if ((arriveStatus & MASK_UNREGISTERED) == 0) {
                 departAfterFailure();
             }
         }
     }
 
+    /**
+     * Loads the version and value into the tranlocal using the seqlock (see GammaStmConfig.seqLockEnabled): the
+     * version also contains the exclusive lock, so a consistent read only needs a read of the version before the
+     * value and one after it. The orec is not touched, so this can only be used for reads that don't need to arrive.
+     * Only the version and the value of the tranlocal are set.
+     *
+     * @param tranlocal the tranlocal to load the version and value into.
+     * @param spinCount the maximum number of times to spin while the ref is exclusively locked.
+     * @return true if the load was a success, false if the ref remained exclusively locked.
+     */
+    private boolean seqLoad(final Tranlocal tranlocal, int spinCount) {
+        while (true) {
+            final long readVersion = version;
+
+            if ((readVersion & MASK_VERSION_EXCLUSIVELOCK) != 0) {
+                spinCount--;
+                if (spinCount < 0) {
+                    return false;
+                }
+                continue;
+            }
+
+            if (type == TYPE_REF) {
+                final Object readRef = refValue();
+                if (SHAKE_BUGS) shakeBugs();
+                if (readVersion == version) {
+                    tranlocal.version = readVersion;
+                    tranlocal.ref_value = readRef;
+                    return true;
+                }
+            } else {
+                final long readLong = longValue();
+                if (SHAKE_BUGS) shakeBugs();
+                if (readVersion == version) {
+                    tranlocal.version = readVersion;
+                    tranlocal.long_value = readLong;
+                    return true;
+                }
+            }
+        }
+    }
+
     public final Tranlocal openForConstruction(GammaTxn tx) {
         if (tx == null) {
             throw new NullPointerException();
@@ -462,6 +718,10 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
                 throw tx.abortOpenForConstructionOnBadReference(this);
             }
 
+            if (tx.nestingLevel > 0) {
+                tx.backupForNested(tranlocal);
+            }
+
             return tranlocal;
         }
 
@@ -470,7 +730,6 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
         initTranlocalForConstruction(tranlocal);
         tx.hasWrites = true;
         tx.attach(tranlocal, identityHash);
-        tx.size++;
 
         return tranlocal;
     }
@@ -495,29 +754,16 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             throw tx.abortOnOpenForConstructionWhileEvaluatingCommute(this);
         }
 
-        Tranlocal found = null;
-        Tranlocal newNode = null;
-        Tranlocal node = tx.head;
-        while (true) {
-            if (node == null) {
-                break;
-            } else if (node.owner == this) {
-                found = node;
-                break;
-            } else if (node.owner == null) {
-                newNode = node;
-                break;
-            } else {
-                node = node.next;
-            }
-        }
+        final Tranlocal node = tx.lookup(this);
+        //noinspection ObjectEquality
+        final Tranlocal found = node != null && node.owner == this ? node : null;
+        final Tranlocal newNode = found == null ? node : null;
 
         if (found != null) {
             if (!found.isConstructing()) {
                 throw tx.abortOpenForConstructionOnBadReference(this);
             }
 
-            tx.shiftInFront(found);
             return found;
         }
 
@@ -528,7 +774,6 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
         newNode.owner = this;
         initTranlocalForConstruction(newNode);
         tx.size++;
-        tx.shiftInFront(newNode);
         tx.hasWrites = true;
         return newNode;
     }
@@ -582,20 +827,27 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             throw tx.abortOpenForReadOnBadStm(this);
         }
 
-        if (type != TYPE_REF) {
-            throw tx.abortOpenForReadOnNonRefTypeDetected(this);
-        }
-
         tranlocal.mode = TRANLOCAL_READ;
         tranlocal.owner = this;
+
+        if (stm.seqLockEnabled) {
+            if (!seqLoad(tranlocal, 64)) {
+                throw tx.abortOnReadWriteConflict(this);
+            }
+            return tranlocal;
+        }
+
+        final boolean isRef = type == TYPE_REF;
         for (; ;) {
-            //do the read of the version and ref. It needs to be repeated to make sure that the version we read, belongs to the
-            //value.
+            //do the read of the version and value. It needs to be repeated to make sure that the version we read,
+            //belongs to the value. Only one of the 2 values is used, depending on the type of the ref.
             Object readRef;
+            long readLong;
             long readVersion;
             do {
                 readVersion = version;
-                readRef = ref_value;
+                readRef = isRef ? refValue() : null;
+                readLong = isRef ? 0 : longValue();
                 if (SHAKE_BUGS) shakeBugs();
 
             } while (readVersion != version);
@@ -622,6 +874,7 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
                 //at this point we are sure that the read was unlocked.
                 tranlocal.version = readVersion;
                 tranlocal.ref_value = readRef;
+                tranlocal.long_value = readLong;
                 break;
             }
         }
@@ -638,32 +891,15 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             throw tx.abortOpenForReadOrWriteOnExplicitLockingDetected(this);
         }
 
-        if (tx.head.owner == this) {
-            return tx.head;
-        }
-
         //look inside the transaction if it already is opened for read or otherwise look for an empty spot to
         //place the read.
-        Tranlocal found = null;
-        Tranlocal newNode = null;
-        Tranlocal node = tx.head;
-        while (true) {
-            if (node == null) {
-                break;
-            } else if (node.owner == this) {
-                found = node;
-                break;
-            } else if (node.owner == null) {
-                newNode = node;
-                break;
-            } else {
-                node = node.next;
-            }
-        }
+        final Tranlocal node = tx.lookup(this);
+        //noinspection ObjectEquality
+        final Tranlocal found = node != null && node.owner == this ? node : null;
+        final Tranlocal newNode = found == null ? node : null;
 
         //we have found it.
         if (found != null) {
-            tx.shiftInFront(found);
             return found;
         }
 
@@ -678,10 +914,6 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             throw tx.abortOpenForReadOnBadStm(this);
         }
 
-        if (type != TYPE_REF) {
-            throw tx.abortOpenForReadOnNonRefTypeDetected(this);
-        }
-
         int size = tx.size;
         if (size > config.maximumPoorMansConflictScanLength) {
             throw tx.abortOnRichmanConflictScanDetected();
@@ -691,51 +923,59 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
         newNode.mode = TRANLOCAL_READ;
         newNode.isDirty = false;
         newNode.owner = this;
-        while (true) {
-            //JMM: nothing can jump behind the following statement
-            long readVersion;
-            Object readRef;
-            do {
-                readVersion = version;
-                readRef = ref_value;
-                if (SHAKE_BUGS) shakeBugs();
-            } while (readVersion != version);
+        final boolean seqLock = stm.seqLockEnabled;
+        if (seqLock) {
+            if (!seqLoad(newNode, 64)) {
+                throw tx.abortOnReadWriteConflict(this);
+            }
+        } else {
+            final boolean isRef = type == TYPE_REF;
+            while (true) {
+                //JMM: nothing can jump behind the following statement
+                long readVersion;
+                Object readRef;
+                long readLong;
+                do {
+                    readVersion = version;
+                    readRef = isRef ? refValue() : null;
+                    readLong = isRef ? 0 : longValue();
+                    if (SHAKE_BUGS) shakeBugs();
+                } while (readVersion != version);
 
-            //wait for the exclusive lock to come available.
-            int spinCount = 64;
-            for (; ;) {
+                //wait for the exclusive lock to come available.
+                int spinCount = 64;
+                for (; ;) {
+                    if (SHAKE_BUGS) shakeBugs();
+                    if (!hasExclusiveLock()) {
+                        break;
+                    }
+                    spinCount--;
+                    if (spinCount < 0) {
+                        throw tx.abortOnReadWriteConflict(this);
+                    }
+                }
                 if (SHAKE_BUGS) shakeBugs();
-                if (!hasExclusiveLock()) {
+
+                //check if the version and value we read are still the same, if they are not, we have read illegal
+                //memory, so we are going to try again.
+                if (readVersion == version && (isRef ? readRef == refValue() : readLong == longValue())) {
+                    //at this point we are sure that the read was unlocked.
+                    newNode.version = readVersion;
+                    newNode.ref_value = readRef;
+                    newNode.long_value = readLong;
                     break;
                 }
-                spinCount--;
-                if (spinCount < 0) {
-                    throw tx.abortOnReadWriteConflict(this);
-                }
-            }
-            if (SHAKE_BUGS) shakeBugs();
-
-            //check if the version and value we read are still the same, if they are not, we have read illegal memory,
-            //so we are going to try again.
-            if (readVersion == version && readRef == ref_value) {
-                //at this point we are sure that the read was unlocked.
-                newNode.version = readVersion;
-                newNode.ref_value = readRef;
-                break;
             }
         }
 
         tx.size = size + 1;
-        //lets put it in the front it isn't the first one that is opened.
-        if (tx.size > 1) {
-            tx.shiftInFront(newNode);
-        }
 
         //check if the transaction still is read consistent.
         if (tx.hasReads) {
-            node = tx.head;
-            do {
-                final BaseGammaTxnRef owner = node.owner;
+            final Tranlocal[] array = tx.array;
+            for (int k = 0; k < array.length; k++) {
+                final Tranlocal read = array[k];
+                final BaseGammaTxnRef owner = read.owner;
 
                 //if we are at the end, we are done.
                 if (owner == null) {
@@ -744,12 +984,11 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
 
                 if (SHAKE_BUGS) shakeBugs();
 
-                if (node != newNode && (owner.hasExclusiveLock() || owner.version != node.version)) {
+                //with the seqlock the version also contains the exclusive lock.
+                if (read != newNode && ((!seqLock && owner.hasExclusiveLock()) || owner.version != read.version)) {
                     throw tx.abortOnReadWriteConflict(this);
                 }
-
-                node = node.next;
-            } while (node != null);
+            }
         } else {
             tx.hasReads = true;
         }
@@ -840,22 +1079,10 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             throw tx.abortOnOpenForReadWhileEvaluatingCommute(this);
         }
 
-        Tranlocal found = null;
-        Tranlocal newNode = null;
-        Tranlocal node = tx.head;
-        while (true) {
-            if (node == null) {
-                break;
-            } else if (node.owner == this) {
-                found = node;
-                break;
-            } else if (node.owner == null) {
-                newNode = node;
-                break;
-            } else {
-                node = node.next;
-            }
-        }
+        final Tranlocal node = tx.lookup(this);
+        //noinspection ObjectEquality
+        final Tranlocal found = node != null && node.owner == this ? node : null;
+        final Tranlocal newNode = found == null ? node : null;
 
         desiredLockMode = config.readLockModeAsInt <= desiredLockMode ? desiredLockMode : config.readLockModeAsInt;
 
@@ -880,7 +1107,6 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
                 }
             }
 
-            tx.shiftInFront(found);
             return found;
         }
 
@@ -891,22 +1117,17 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
         tx.size++;
         initTranlocalForRead(config, newNode);
 
-        final boolean hasReadsBeforeLoading = tx.hasReads;
-        if (!hasReadsBeforeLoading) {
-            tx.localConflictCount = config.globalConflictCounter.count();
-            tx.hasReads = true;
-        }
+        tx.initLocalConflictCounter(this);
+        tx.hasReads = true;
 
         if (!load(tx, newNode, desiredLockMode, config.spinCount, tx.richmansMansConflictScan)) {
             throw tx.abortOnReadWriteConflict(this);
         }
 
-        //if (hasReadsBeforeLoading && !tx.isReadConsistent(newNode)) {
         if (!tx.isReadConsistent(newNode)) {
             throw tx.abortOnReadWriteConflict(this);
         }
 
-        tx.shiftInFront(newNode);
         return newNode;
     }
 
@@ -936,18 +1157,38 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             final int mode = tranlocal.mode;
 
             if (mode == TRANLOCAL_CONSTRUCTING) {
+                if (tx.nestingLevel > 0) {
+                    tx.backupForNested(tranlocal);
+                }
                 return tranlocal;
             }
 
             if (mode == TRANLOCAL_COMMUTING) {
                 if (!flattenCommute(tx, tranlocal, desiredLockMode)) {
+                    //the commuting functions are partially evaluated, so a nested transaction can't be rolled back.
+                    if (tx.nestingLevel > 0) {
+                        tx.abort();
+                    }
                     throw tx.abortOnReadWriteConflict(this);
                 }
 
+                if (tx.nestingLevel > 0) {
+                    tx.backupForNested(tranlocal);
+                }
                 return tranlocal;
             }
 
+            //the backup is made before the lock is acquired, so a rollback of the nested transaction restores the lock.
+            if (tx.nestingLevel > 0) {
+                tx.backupForNested(tranlocal);
+            }
+
             if (desiredLockMode > tranlocal.getLockMode()) {
+                //the lock of a tranlocal copied from the parent of a forked transaction is owned by the parent.
+                if (tranlocal.copiedFromParent) {
+                    throw tx.abortOnReadWriteConflict(this);
+                }
+
                 if (!tryLockAndCheckConflict(tx, tranlocal, config.spinCount, desiredLockMode)) {
                     throw tx.abortOnReadWriteConflict(this);
                 }
@@ -959,19 +1200,14 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
         final Tranlocal tranlocal = tx.pool.take(this);
         initTranlocalForRead(config, tranlocal);
         tx.attach(tranlocal, identityHash);
-        tx.size++;
 
-        final boolean hasReadsBeforeLoading = tx.hasReads;
-        if (!hasReadsBeforeLoading) {
-            tx.hasReads = true;
-            tx.localConflictCount = config.globalConflictCounter.count();
-        }
+        tx.initLocalConflictCounter(this);
+        tx.hasReads = true;
 
         if (!load(tx, tranlocal, desiredLockMode, config.spinCount, tx.richmansMansConflictScan)) {
             throw tx.abortOnReadWriteConflict(this);
         }
 
-        //if (hasReadsBeforeLoading && !tx.isReadConsistent(tranlocal)) {
         if (!tx.isReadConsistent(tranlocal)) {
             throw tx.abortOnReadWriteConflict(this);
         }
@@ -1227,24 +1463,16 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
         }
         Tranlocal found = null;
         Tranlocal newNode = null;
-        Tranlocal node = tx.head;
 
         if (config.writeLockModeAsInt > LOCKMODE_NONE) {
             found = openForWrite(tx, config.writeLockModeAsInt);
         } else {
-            while (true) {
-                if (node == null) {
-                    break;
-                } else //noinspection ObjectEquality
-                    if (node.owner == this) {
-                        found = node;
-                        break;
-                    } else if (node.owner == null) {
-                        newNode = node;
-                        break;
-                    } else {
-                        node = node.next;
-                    }
+            final Tranlocal node = tx.lookup(this);
+            //noinspection ObjectEquality
+            if (node != null && node.owner == this) {
+                found = node;
+            } else {
+                newNode = node;
             }
         }
 
@@ -1276,7 +1504,6 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
         }
 
         tx.size++;
-        tx.shiftInFront(newNode);
         tx.hasWrites = true;
         initTranlocalForCommute(config, newNode);
         newNode.addCommutingFunction(tx.pool, function);
@@ -1321,6 +1548,10 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
         if (indexOf > -1) {
             final Tranlocal tranlocal = tx.array[indexOf];
 
+            if (tx.nestingLevel > 0) {
+                tx.backupForNested(tranlocal);
+            }
+
             if (tranlocal.isCommuting()) {
                 tranlocal.addCommutingFunction(tx.pool, function);
                 return;
@@ -1347,7 +1578,6 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
         initTranlocalForCommute(config, tranlocal);
         tx.hasWrites = true;
         tx.attach(tranlocal, identityHash);
-        tx.size++;
         tranlocal.addCommutingFunction(tx.pool, function);
 
         int writeLockMode = config.writeLockModeAsInt;
@@ -1466,10 +1696,21 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
     public final long atomicGetLong() {
         assert type != TYPE_REF;
 
+        final boolean seqLock = stm.seqLockEnabled;
         int attempt = 1;
         do {
-            if (!hasExclusiveLock()) {
-                long read = long_value;
+            if (seqLock) {
+                //the version also contains the exclusive lock.
+                final long readVersion = version;
+                if ((readVersion & MASK_VERSION_EXCLUSIVELOCK) == 0) {
+                    long read = longValue();
+
+                    if (readVersion == version) {
+                        return read;
+                    }
+                }
+            } else if (!hasExclusiveLock()) {
+                long read = longValue();
 
                 if (!hasExclusiveLock()) {
                     return read;
@@ -1485,10 +1726,20 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
     public final Object atomicObjectGet() {
         assert type == TYPE_REF;
 
+        final boolean seqLock = stm.seqLockEnabled;
         int attempt = 1;
         do {
-            if (!hasExclusiveLock()) {
-                Object read = ref_value;
+            if (seqLock) {
+                //the version also contains the exclusive lock.
+                final long readVersion = version;
+                if ((readVersion & MASK_VERSION_EXCLUSIVELOCK) == 0) {
+                    Object read = refValue();
+                    if (readVersion == version) {
+                        return read;
+                    }
+                }
+            } else if (!hasExclusiveLock()) {
+                Object read = refValue();
                 if (!hasExclusiveLock()) {
                     return read;
                 }
@@ -1509,7 +1760,7 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             throw new LockedException();
         }
 
-        final long oldValue = long_value;
+        final long oldValue = longValue();
 
         if (oldValue == newValue) {
             if ((arriveStatus & MASK_UNREGISTERED) != 0) {
@@ -1522,20 +1773,19 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
         }
 
         if ((arriveStatus & MASK_CONFLICT) != 0) {
-            stm.globalConflictCounter.signalConflict();
+            stm.globalConflictCounter.signalConflict(getConflictDomainMask());
         }
 
-        long_value = newValue;
-        //noinspection NonAtomicOperationOnVolatileField
-        version++;
+        ___pushHistory();
+        setLongValueRelease((LongBackedGammaTxnRef) this, newValue);
+        version = ___nextVersion(version);
 
         final Listeners listeners = ___removeListenersAfterWrite();
 
         departAfterUpdateAndUnlock();
 
         if (listeners != null) {
-            final GammaObjectPool pool = getThreadLocalGammaObjectPool();
-            listeners.openAll(pool);
+            ___openListenersAfterAtomicWrite(listeners);
         }
 
         return returnOld ? oldValue : newValue;
@@ -1550,7 +1800,7 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             throw new LockedException();
         }
 
-        final Object oldValue = ref_value;
+        final Object oldValue = refValue();
 
         if (oldValue == newValue) {
             if ((arriveStatus & MASK_UNREGISTERED) != 0) {
@@ -1563,20 +1813,19 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
         }
 
         if ((arriveStatus & MASK_CONFLICT) != 0) {
-            stm.globalConflictCounter.signalConflict();
+            stm.globalConflictCounter.signalConflict(getConflictDomainMask());
         }
 
-        ref_value = newValue;
-        //noinspection NonAtomicOperationOnVolatileField
-        version++;
+        ___pushHistory();
+        setRefValueRelease((GammaTxnRef<?>) this, newValue);
+        version = ___nextVersion(version);
 
         final Listeners listeners = ___removeListenersAfterWrite();
 
         departAfterUpdateAndUnlock();
 
         if (listeners != null) {
-            final GammaObjectPool pool = getThreadLocalGammaObjectPool();
-            listeners.openAll(pool);
+            ___openListenersAfterAtomicWrite(listeners);
         }
 
         return returnOld ? oldValue : newValue;
@@ -1589,7 +1838,7 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             throw new LockedException();
         }
 
-        final long currentValue = long_value;
+        final long currentValue = longValue();
 
         if (currentValue != expectedValue) {
             departAfterFailureAndUnlock();
@@ -1607,18 +1856,18 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
         }
 
         if ((arriveStatus & MASK_CONFLICT) != 0) {
-            stm.globalConflictCounter.signalConflict();
+            stm.globalConflictCounter.signalConflict(getConflictDomainMask());
         }
 
-        long_value = newValue;
-        //noinspection NonAtomicOperationOnVolatileField
-        version++;
+        ___pushHistory();
+        setLongValueRelease((LongBackedGammaTxnRef) this, newValue);
+        version = ___nextVersion(version);
         final Listeners listeners = ___removeListenersAfterWrite();
 
         departAfterUpdateAndUnlock();
 
         if (listeners != null) {
-            listeners.openAll(getThreadLocalGammaObjectPool());
+            ___openListenersAfterAtomicWrite(listeners);
         }
 
         return true;
@@ -1680,33 +1929,38 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             return true;
         }
 
+        //locks are acquired on the orec itself, so the tranlocal first needs to leave its reader slot.
+        if (tranlocal.readerSlot >= 0) {
+            leaveReaderSlot(tranlocal, spinCount);
+        }
+
         //no lock currently is acquired, lets acquire it.
         if (currentLockMode == LOCKMODE_NONE) {
             final long expectedVersion = tranlocal.version;
 
             //if the version already is different, there is a conflict, we are done since since the lock doesn't need to be acquired.
-            if (expectedVersion != version) {
+            if (expectedVersion != getVersion()) {
                 return false;
             }
 
             if (tranlocal.hasDepartObligation()) {
-                int result = lockAfterArrive(spinCount, desiredLockMode);
+                int result = acquireLock(tx, spinCount, LOCKMODE_NONE, true, desiredLockMode);
                 if (result == FAILURE) {
                     return false;
                 }
 
                 if ((result & MASK_CONFLICT) != 0) {
-                    tx.commitConflict = true;
+                    tx.registerCommitConflict(this);
                 }
 
-                if (version != expectedVersion) {
+                if (getVersion() != expectedVersion) {
                     tranlocal.setDepartObligation(false);
                     departAfterFailureAndUnlock();
                     return false;
                 }
             } else {
                 //we need to arrive as well because the the tranlocal was readbiased, and no real arrive was done.
-                final int result = arriveAndLock(spinCount, desiredLockMode);
+                final int result = acquireLock(tx, spinCount, LOCKMODE_NONE, false, desiredLockMode);
 
                 if (result == FAILURE) {
                     return false;
@@ -1719,10 +1973,10 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
                 }
 
                 if ((result & MASK_CONFLICT) != 0) {
-                    tx.commitConflict = true;
+                    tx.registerCommitConflict(this);
                 }
 
-                if (version != expectedVersion) {
+                if (getVersion() != expectedVersion) {
                     return false;
                 }
             }
@@ -1733,14 +1987,14 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
 
         //if a readlock is acquired, we need to upgrade it to a write/exclusive-lock
         if (currentLockMode == LOCKMODE_READ) {
-            int result = upgradeReadLock(spinCount, desiredLockMode == LOCKMODE_EXCLUSIVE);
+            int result = acquireLock(tx, spinCount, LOCKMODE_READ, true, desiredLockMode);
 
             if (result == FAILURE) {
                 return false;
             }
 
             if ((result & MASK_CONFLICT) != 0) {
-                tx.commitConflict = true;
+                tx.registerCommitConflict(this);
             }
 
             tranlocal.setLockMode(desiredLockMode);
@@ -1749,26 +2003,254 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
 
         //so we have the write lock, its needs to be upgraded to a commit lock.
         if (upgradeWriteLock()) {
-            tx.commitConflict = true;
+            tx.registerCommitConflict(this);
         }
 
         tranlocal.setLockMode(LOCKMODE_EXCLUSIVE);
         return true;
     }
 
+    private void leaveReaderSlot(final Tranlocal tranlocal, final int spinCount) {
+        if (tranlocal.lockMode == LOCKMODE_READ) {
+            //the readlock is acquired on the orec before the slot is left, so the readlock is held all the time. This
+            //can't fail, a write or exclusive lock can't be acquired as long as the slot holds a readlock.
+            if (arriveAndLock(spinCount, LOCKMODE_READ) == FAILURE) {
+                throw new PanicError("Failed to move the readlock from the reader slot to the orec " + ___toOrecString());
+            }
+            departFromReaderSlot(tranlocal.readerSlot, true, true);
+        } else {
+            departFromReaderSlot(tranlocal.readerSlot, false, true);
+            //the arrive on the orec is done when the lock is acquired.
+            tranlocal.hasDepartObligation = false;
+        }
+        tranlocal.readerSlot = -1;
+    }
+
+    /**
+     * Acquires a lock for the given transaction. If the lock can't be acquired because another transaction holds it,
+     * the {@link ContentionManager} of the transaction (if any) decides if it should wait, give up or abort the
+     * other transaction.
+     *
+     * @param tx               the transaction that wants to acquire the lock.
+     * @param spinCount        the maximum number of times to spin for every attempt to acquire the lock.
+     * @param currentLockMode  the lock currently held by the transaction (LOCKMODE_NONE or LOCKMODE_READ).
+     * @param arrived          if the transaction already has arrived.
+     * @param desiredLockMode  the desired lockmode.
+     * @return the result of the lock operation.
+     */
+    private int acquireLock(
+            final GammaTxn tx, final int spinCount, final int currentLockMode, final boolean arrived,
+            final int desiredLockMode) {
+
+        int result = tryAcquireLock(spinCount, currentLockMode, arrived, desiredLockMode);
+
+        if (tx != null && tx.config.irrevocable) {
+            if (result == FAILURE) {
+                result = acquireLockIrrevocably(tx, spinCount, currentLockMode, arrived, desiredLockMode);
+            }
+
+            if (desiredLockMode != LOCKMODE_READ) {
+                ___setLockOwner(tx);
+            }
+            return result;
+        }
+
+        //the tx can be null if the lock is acquired without a transaction.
+        final ContentionManager contentionManager = tx == null ? null : tx.config.contentionManager;
+        if (contentionManager == null) {
+            return result;
+        }
+
+        if (result == FAILURE) {
+            result = acquireLockUnderContention(
+                    tx, contentionManager, spinCount, currentLockMode, arrived, desiredLockMode);
+        }
+
+        if (result != FAILURE && desiredLockMode != LOCKMODE_READ) {
+            ___setLockOwner(tx);
+        }
+
+        return result;
+    }
+
+    private int acquireLockUnderContention(
+            final GammaTxn tx, final ContentionManager contentionManager, final int spinCount,
+            final int currentLockMode, final boolean arrived, final int desiredLockMode) {
+
+        try {
+            for (int attempt = 1; ; attempt++) {
+                //the transaction could be aborted by another transaction while it is waiting.
+                if (tx.isAbortRequested()) {
+                    return FAILURE;
+                }
+
+                final GammaObjectExtension ext = extension;
+                final long holderEpoch = ext == null ? 0 : ext.lockOwnerEpoch;
+                final GammaTxn other = ___getLockOwner();
+                //noinspection ObjectEquality
+                final GammaTxn holder = other == tx ? null : other;
+
+                //an irrevocable transaction is never going to give up its locks, so yield to it.
+                if (holder != null && holder.config.irrevocable) {
+                    return FAILURE;
+                }
+
+                switch (contentionManager.resolve(tx, holder, attempt)) {
+                    case ContentionManager.WAIT:
+                        tx.waiting = true;
+                        break;
+                    case ContentionManager.ABORT_SELF:
+                        return FAILURE;
+                    case ContentionManager.ABORT_OTHER:
+                        if (holder != null) {
+                            holder.requestAbort(holderEpoch);
+                        }
+                        break;
+                    default:
+                        throw new IllegalStateException();
+                }
+
+                final int result = tryAcquireLock(spinCount, currentLockMode, arrived, desiredLockMode);
+                if (result != FAILURE) {
+                    return result;
+                }
+            }
+        } finally {
+            tx.waiting = false;
+        }
+    }
+
+    /**
+     * Keeps on trying to acquire the lock for an irrevocable transaction, since it is not allowed to fail. The other
+     * transactions eventually release their locks because they fail to acquire the locks held by the irrevocable
+     * transaction; a holder with a ContentionManager is asked to abort so that it doesn't need to wait that long.
+     * <p/>
+     * A holder that doesn't cooperate (e.g. one that doesn't do any transactional work anymore) would make the
+     * irrevocable transaction wait forever, so the waiting is bounded by the
+     * {@link org.multiverse.stms.gamma.GammaStmConfig#irrevocableLockTimeoutNs}.
+     *
+     * @throws org.multiverse.api.exceptions.IrrevocableLockTimeoutException if the lock can't be acquired in time.
+     */
+    private int acquireLockIrrevocably(
+            final GammaTxn tx, final int spinCount, final int currentLockMode, final boolean arrived,
+            final int desiredLockMode) {
+
+        final long deadlineNs = System.nanoTime() + stm.irrevocableLockTimeoutNs;
+        tx.waiting = true;
+        try {
+            while (true) {
+                final GammaObjectExtension ext = extension;
+                final long holderEpoch = ext == null ? 0 : ext.lockOwnerEpoch;
+                final GammaTxn holder = ___getLockOwner();
+                //noinspection ObjectEquality
+                if (holder != null && holder != tx) {
+                    holder.requestAbort(holderEpoch);
+                }
+
+                Thread.yield();
+
+                final int result = tryAcquireLock(spinCount, currentLockMode, arrived, desiredLockMode);
+                if (result != FAILURE) {
+                    return result;
+                }
+
+                if (System.nanoTime() - deadlineNs > 0) {
+                    throw tx.abortOnIrrevocableLockTimeout(this);
+                }
+            }
+        } finally {
+            tx.waiting = false;
+        }
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked"})
+    protected final boolean ___evaluateListenerPredicate(final Object predicate) {
+        try {
+            switch (type) {
+                case TYPE_REF:
+                    return ((Predicate) predicate).evaluate(refValue());
+                case TYPE_LONG:
+                    return ((LongPredicate) predicate).evaluate(longValue());
+                case TYPE_INT:
+                    return ((IntPredicate) predicate).evaluate((int) longValue());
+                case TYPE_BOOLEAN:
+                    return ((BooleanPredicate) predicate).evaluate(longAsBoolean(longValue()));
+                case TYPE_DOUBLE:
+                    return ((DoublePredicate) predicate).evaluate(longAsDouble(longValue()));
+                default:
+                    throw new IllegalStateException();
+            }
+        } catch (RuntimeException e) {
+            //the predicate is evaluated by the thread that did the write, after its commit. The failure should not
+            //prevent it from opening the other listeners, and the waiting transaction is woken up, so it will
+            //evaluate the predicate itself and see the failure.
+            return true;
+        } catch (VirtualMachineError e) {
+            //the jvm is in trouble, so this isn't a failure of the predicate that can be left to the waiter.
+            throw e;
+        } catch (Error e) {
+            return true;
+        }
+    }
+
+    private int tryAcquireLock(
+            final int spinCount, final int currentLockMode, final boolean arrived, final int desiredLockMode) {
+
+        if (currentLockMode == LOCKMODE_READ) {
+            return upgradeReadLock(spinCount, desiredLockMode == LOCKMODE_EXCLUSIVE);
+        }
+
+        return arrived ? lockAfterArrive(spinCount, desiredLockMode) : arriveAndLock(spinCount, desiredLockMode);
+    }
+
     public final int registerChangeListener(
-            final RetryLatch latch,
+            final RetryListener latch,
             final Tranlocal tranlocal,
             final GammaObjectPool pool,
             final long listenerEra) {
 
+        return registerChangeListener(latch, tranlocal, pool, listenerEra, null, false);
+    }
+
+    public final int registerChangeListener(
+            final RetryListener latch,
+            final Tranlocal tranlocal,
+            final GammaObjectPool pool,
+            final long listenerEra,
+            final Object predicate) {
+
+        return registerChangeListener(latch, tranlocal, pool, listenerEra, predicate, false);
+    }
+
+    /**
+     * Registers a listener that is opened when this ref is changed.
+     *
+     * @param latch       the RetryListener to open.
+     * @param tranlocal   the Tranlocal containing the version that was read.
+     * @param pool        the GammaObjectPool to take the Listeners from.
+     * @param listenerEra the era of the latch.
+     * @param predicate   the predicate the new value should match before the latch is opened, or null if every
+     *                    change should open it. The type should match the type of this ref.
+     * @param handoff     if a matching change should open only one of the handoff listeners instead of all of them.
+     * @return the result of the registration; REGISTRATION_DONE, REGISTRATION_NOT_NEEDED or REGISTRATION_NONE.
+     */
+    public final int registerChangeListener(
+            final RetryListener latch,
+            final Tranlocal tranlocal,
+            final GammaObjectPool pool,
+            final long listenerEra,
+            final Object predicate,
+            final boolean handoff) {
+
         if (tranlocal.isCommuting() || tranlocal.isConstructing()) {
             return REGISTRATION_NONE;
         }
 
         final long version = tranlocal.version;
 
-        if (version != this.version) {
+        //the version is compared without the exclusive lock (seqlock), a locked ref doesn't need to be a change.
+        if (version != getVersion()) {
             //if it currently already contains a different version, we are done.
             latch.open(listenerEra);
             return REGISTRATION_NOT_NEEDED;
@@ -1781,11 +2263,13 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
         //update.threadName = Thread.currentThread().getName();
         update.listener = latch;
         update.listenerEra = listenerEra;
+        update.predicate = predicate;
+        update.handoff = handoff;
 
         //we need to do this in a loop because other register thread could be contending for the same
         //listeners field.
         while (true) {
-            if (version != this.version) {
+            if (version != getVersion()) {
                 //if it currently already contains a different version, we are done.
                 latch.open(listenerEra);
                 return REGISTRATION_NOT_NEEDED;
@@ -1797,7 +2281,7 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             update.next = current;
 
             //lets try to register our listeners.
-            final boolean registered = ___unsafe.compareAndSwapObject(this, listenersOffset, current, update);
+            final boolean registered = casListeners(this, current, update);
             if (!registered) {
                 //so we are contending with another register thread, so lets try it again. Since the compareAndSwap
                 //didn't succeed, we know that the current thread still has exclusive ownership on the Listeners object
@@ -1806,8 +2290,8 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             }
 
             //the registration was a success. We need to make sure that the ___version hasn't changed.
-            //JMM: the volatile read of ___version can't jump in front of the unsafe.compareAndSwap.
-            if (version == this.version) {
+            //JMM: the volatile read of ___version can't jump in front of the compareAndSet.
+            if (version == getVersion()) {
                 //we are lucky, the registration was done successfully and we managed to cas the listener
                 //before the update (since the update we are interested in, hasn't happened yet). This means that
                 //the updating thread is now responsible for notifying the listeners. Retrieval of the most recently
@@ -1816,13 +2300,13 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             }
 
             //the version has changed, so an interesting write has happened. No registration is needed.
-            //JMM: the unsafe.compareAndSwap can't jump over the volatile read this.___version.
+            //JMM: the compareAndSet can't jump over the volatile read this.___version.
             //the update has taken place, we need to check if our listeners still is in place.
             //if it is, it should be removed and the listeners notified. If the listeners already has changed,
             //it is the task for the other to do the listener cleanup and notify them
             while (true) {
                 update = listeners;
-                final boolean removed = ___unsafe.compareAndSwapObject(this, listenersOffset, update, null);
+                final boolean removed = casListeners(this, update, null);
 
                 if (!removed) {
                     continue;
@@ -1844,7 +2328,8 @@ public abstract class BaseGammaTxnRef extends AbstractGammaObject {
             return false;
         }
 
-        if (hasExclusiveLock()) {
+        //with the seqlock the version also contains the exclusive lock, so the orec doesn't need to be checked.
+        if (!stm.seqLockEnabled && hasExclusiveLock()) {
             return true;
         }
 
@@ -0,0 +1,130 @@
+package org.multiverse.stms.gamma.transactionalobjects;
+
+import org.multiverse.stms.gamma.Listeners;
+import org.multiverse.utils.ToolUnsafe;
+import sun.misc.Unsafe;
+
+/**
+ * Contains the atomic operations on the fields of the {@link AbstractGammaObject}, the {@link GammaObjectExtension},
+ * the {@link LongBackedGammaTxnRef} and the {@link GammaTxnRef}.
+ *
+ * <p>This is the implementation for Java 6/8 and relies on the {@link Unsafe}. The multiverse-core jar is a
+ * multi-release jar; on Java 9 and higher the version in META-INF/versions/9 is used that relies on VarHandles, so
+ * no Unsafe access is needed. Both versions need to offer exactly the same static methods.
+ *
+ * <h3>Ordering</h3>
+ *
+ * <p>The compare and set of the orec and the listeners has volatile semantics (they are part of Dekker style
+ * constructions, e.g. the registration of a listener against the write of the version). The value of a ref is
+ * written with release semantics only: it is always written while the ref is exclusively locked and is followed by
+ * the volatile write of the version, so a reader that sees the value also sees the lock, and a reader that sees the
+ * new version also sees the new value. This removes a full fence for every write that is committed.
+ *
+ * @author Peter Veentjer.
+ */
+public final class GammaFieldAccess {
+
+    private static final Unsafe UNSAFE = ToolUnsafe.getUnsafe();
+    private static final long OREC_OFFSET;
+    private static final long LISTENERS_OFFSET;
+    private static final long EXTENSION_OFFSET;
+    private static final long READER_SLOTS_OFFSET;
+    private static final long LONG_VALUE_OFFSET;
+    private static final long REF_VALUE_OFFSET;
+
+    static {
+        try {
+            OREC_OFFSET = UNSAFE.objectFieldOffset(
+                    AbstractGammaObject.class.getDeclaredField("orec"));
+            LISTENERS_OFFSET = UNSAFE.objectFieldOffset(
+                    AbstractGammaObject.class.getDeclaredField("listeners"));
+            EXTENSION_OFFSET = UNSAFE.objectFieldOffset(
+                    AbstractGammaObject.class.getDeclaredField("extension"));
+            READER_SLOTS_OFFSET = UNSAFE.objectFieldOffset(
+                    GammaObjectExtension.class.getDeclaredField("readerSlots"));
+            LONG_VALUE_OFFSET = UNSAFE.objectFieldOffset(
+                    LongBackedGammaTxnRef.class.getDeclaredField("long_value"));
+            REF_VALUE_OFFSET = UNSAFE.objectFieldOffset(
+                    GammaTxnRef.class.getDeclaredField("ref_value"));
+        } catch (Exception ex) {
+            throw new Error(ex);
+        }
+    }
+
+    /**
+     * Compares and sets the orec. The compare and set is allowed to fail spuriously, so it should only be used
+     * in a retry loop.
+     *
+     * @param object   the object to update the orec of.
+     * @param expected the expected value of the orec.
+     * @param update   the new value of the orec.
+     * @return true if the update was a success, false otherwise.
+     */
+    public static boolean casOrec(AbstractGammaObject object, long expected, long update) {
+        return UNSAFE.compareAndSwapLong(object, OREC_OFFSET, expected, update);
+    }
+
+    /**
+     * Compares and sets the listeners. The compare and set is allowed to fail spuriously, so it should only be used
+     * in a retry loop.
+     *
+     * @param object   the object to update the listeners of.
+     * @param expected the expected listeners.
+     * @param update   the new listeners.
+     * @return true if the update was a success, false otherwise.
+     */
+    public static boolean casListeners(AbstractGammaObject object, Listeners expected, Listeners update) {
+        return UNSAFE.compareAndSwapObject(object, LISTENERS_OFFSET, expected, update);
+    }
+
+    /**
+     * Compares and sets the GammaObjectExtension. The compare and set doesn't fail spuriously.
+     *
+     * @param object   the object to update the GammaObjectExtension of.
+     * @param expected the expected GammaObjectExtension.
+     * @param update   the new GammaObjectExtension.
+     * @return true if the update was a success, false otherwise.
+     */
+    public static boolean casExtension(AbstractGammaObject object, GammaObjectExtension expected,
+                                       GammaObjectExtension update) {
+        return UNSAFE.compareAndSwapObject(object, EXTENSION_OFFSET, expected, update);
+    }
+
+    /**
+     * Compares and sets the ReaderSlots. The compare and set doesn't fail spuriously.
+     *
+     * @param extension the extension to update the ReaderSlots of.
+     * @param expected  the expected ReaderSlots.
+     * @param update    the new ReaderSlots.
+     * @return true if the update was a success, false otherwise.
+     */
+    public static boolean casReaderSlots(GammaObjectExtension extension, ReaderSlots expected, ReaderSlots update) {
+        return UNSAFE.compareAndSwapObject(extension, READER_SLOTS_OFFSET, expected, update);
+    }
+
+    /**
+     * Writes the long_value with release semantics. Should only be called while the ref is exclusively locked and
+     * the write should be followed by the (volatile) write of the version.
+     *
+     * @param ref   the ref to write the value of.
+     * @param value the new value.
+     */
+    public static void setLongValueRelease(LongBackedGammaTxnRef ref, long value) {
+        UNSAFE.putOrderedLong(ref, LONG_VALUE_OFFSET, value);
+    }
+
+    /**
+     * Writes the ref_value with release semantics. Should only be called while the ref is exclusively locked and
+     * the write should be followed by the (volatile) write of the version.
+     *
+     * @param ref   the ref to write the value of.
+     * @param value the new value.
+     */
+    public static void setRefValueRelease(GammaTxnRef<?> ref, Object value) {
+        UNSAFE.putOrderedObject(ref, REF_VALUE_OFFSET, value);
+    }
+
+    //we don't want instances.
+    private GammaFieldAccess() {
+    }
+}
@@ -0,0 +1,35 @@
+package org.multiverse.stms.gamma.transactionalobjects;
+
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+
+/**
+ * The state of an {@link AbstractGammaObject} that most objects never need: the owner of the lock when a
+ * ContentionManager is used, the ReaderSlots once readers contend, an explicitly set conflict domain and the history
+ * of a {@link BaseGammaTxnRef}. It is created the first time one of them is needed (see
+ * {@link AbstractGammaObject#___inflateExtension()}), so a plain ref doesn't pay for fields it doesn't use.
+ * <p/>
+ * Once set, the extension of an object is never replaced.
+ *
+ * @author Peter Veentjer.
+ */
+public final class GammaObjectExtension {
+
+    //the transaction that acquired the write or exclusive lock most recently and its contention epoch at that
+    //moment. They are only set if the transaction uses a ContentionManager or is irrevocable, and they are not
+    //cleared when the lock is released; so they only are a hint that is valid as long as the epoch is the current
+    //epoch of the transaction (see AbstractGammaObject.___getLockOwner).
+    public volatile GammaTxn lockOwner;
+    public volatile long lockOwnerEpoch;
+
+    //the slots readers arrive on once they started to contend on the orec, see ReaderSlots. Null if not created yet.
+    @SuppressWarnings({"UnusedDeclaration"})
+    public volatile ReaderSlots readerSlots;
+
+    //the explicitly set conflict domain + 1, 0 indicates that the domain is derived from the identity hashcode.
+    public int conflictDomain;
+
+    //the previously committed values, newest first. Only used if the historyDepth is larger than 0.
+    public volatile VersionedValue history;
+
+    public int historyDepth;
+}
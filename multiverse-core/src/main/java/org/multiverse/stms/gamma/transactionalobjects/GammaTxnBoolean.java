@@ -12,14 +12,14 @@ import org.multiverse.stms.gamma.transactions.GammaTxn;
 
 import static org.multiverse.api.GlobalStmInstance.getGlobalStmInstance;
 import static org.multiverse.stms.gamma.GammaStmUtils.*;
-import static org.multiverse.stms.gamma.ThreadLocalGammaObjectPool.getThreadLocalGammaObjectPool;
+import static org.multiverse.stms.gamma.transactionalobjects.GammaFieldAccess.*;
 
 /**
  * A {@link org.multiverse.api.references.TxnBoolean} for the {@link GammaStm}.
  *
  * @author Peter Veentjer.
  */
-public class GammaTxnBoolean extends BaseGammaTxnRef implements TxnBoolean {
+public class GammaTxnBoolean extends LongBackedGammaTxnRef implements TxnBoolean {
 
     public GammaTxnBoolean(boolean value){
         this((GammaStm) getGlobalStmInstance(),value);
@@ -268,19 +268,19 @@ public class GammaTxnBoolean extends BaseGammaTxnRef implements TxnBoolean {
         }
 
         if ((arriveStatus & MASK_CONFLICT) != 0) {
-            stm.globalConflictCounter.signalConflict();
+            stm.globalConflictCounter.signalConflict(getConflictDomainMask());
         }
 
-        long_value = booleanAsLong(newValue);
-        //noinspection NonAtomicOperationOnVolatileField
-        version++;
+        ___pushHistory();
+        setLongValueRelease(this, booleanAsLong(newValue));
+        version = ___nextVersion(version);
 
         final Listeners listeners = ___removeListenersAfterWrite();
 
         departAfterUpdateAndUnlock();
 
         if (listeners != null) {
-            listeners.openAll(getThreadLocalGammaObjectPool());
+            ___openListenersAfterAtomicWrite(listeners);
         }
 
         return returnOld ? oldValue : newValue;
@@ -319,11 +319,30 @@ public class GammaTxnBoolean extends BaseGammaTxnRef implements TxnBoolean {
     }
 
     public final void await(final GammaTxn tx, final BooleanPredicate predicate) {
+        await(tx, predicate, false);
+    }
+
+    @Override
+    public final void awaitHandoff(final BooleanPredicate predicate) {
+        awaitHandoff(getRequiredThreadLocalGammaTxn(), predicate);
+    }
+
+    @Override
+    public final void awaitHandoff(final Txn tx, final BooleanPredicate predicate) {
+        awaitHandoff(asGammaTxn(tx), predicate);
+    }
+
+    public final void awaitHandoff(final GammaTxn tx, final BooleanPredicate predicate) {
+        await(tx, predicate, true);
+    }
+
+    private void await(final GammaTxn tx, final BooleanPredicate predicate, final boolean handoff) {
+        final boolean filterable = tx.getRefTranlocal(this) == null;
         final Tranlocal tranlocal = openForRead(tx, LOCKMODE_NONE);
         boolean abort = true;
         try {
             if (!predicate.evaluate(longAsBoolean(tranlocal.long_value))) {
-                tx.retry();
+                tx.retry(filterable ? this : null, predicate, handoff);
             }
             abort = false;
         } finally {
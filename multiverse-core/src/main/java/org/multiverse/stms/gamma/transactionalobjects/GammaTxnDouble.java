@@ -12,10 +12,10 @@ import org.multiverse.stms.gamma.transactions.GammaTxn;
 
 import static org.multiverse.api.GlobalStmInstance.getGlobalStmInstance;
 import static org.multiverse.stms.gamma.GammaStmUtils.*;
-import static org.multiverse.stms.gamma.ThreadLocalGammaObjectPool.getThreadLocalGammaObjectPool;
+import static org.multiverse.stms.gamma.transactionalobjects.GammaFieldAccess.*;
 
 @SuppressWarnings({"OverlyComplexClass"})
-public class GammaTxnDouble extends BaseGammaTxnRef implements TxnDouble {
+public class GammaTxnDouble extends LongBackedGammaTxnRef implements TxnDouble {
 
     public GammaTxnDouble(double value) {
         this((GammaStm) getGlobalStmInstance(), value);
@@ -211,19 +211,19 @@ public class GammaTxnDouble extends BaseGammaTxnRef implements TxnDouble {
         }
 
         if ((arriveStatus & MASK_CONFLICT) != 0) {
-            stm.globalConflictCounter.signalConflict();
+            stm.globalConflictCounter.signalConflict(getConflictDomainMask());
         }
 
-        long_value = doubleAsLong(newValue);
-        //noinspection NonAtomicOperationOnVolatileField
-        version++;
+        ___pushHistory();
+        setLongValueRelease(this, doubleAsLong(newValue));
+        version = ___nextVersion(version);
 
         final Listeners listeners = ___removeListenersAfterWrite();
 
         departAfterUpdateAndUnlock();
 
         if (listeners != null) {
-            listeners.openAll(getThreadLocalGammaObjectPool());
+            ___openListenersAfterAtomicWrite(listeners);
         }
 
         return returnOld ? oldValue : newValue;
@@ -337,20 +337,20 @@ public class GammaTxnDouble extends BaseGammaTxnRef implements TxnDouble {
         }
 
         if ((arriveStatus & MASK_CONFLICT) != 0) {
-            stm.globalConflictCounter.signalConflict();
+            stm.globalConflictCounter.signalConflict(getConflictDomainMask());
         }
 
         final double newValue = oldValue + amount;
-        long_value = doubleAsLong(newValue);
-        //noinspection NonAtomicOperationOnVolatileField
-        version++;
+        ___pushHistory();
+        setLongValueRelease(this, doubleAsLong(newValue));
+        version = ___nextVersion(version);
 
         final Listeners listeners = ___removeListenersAfterWrite();
 
         departAfterUpdateAndUnlock();
 
         if (listeners != null) {
-            listeners.openAll(getThreadLocalGammaObjectPool());
+            ___openListenersAfterAtomicWrite(listeners);
         }
 
         return returnOld ? oldValue : newValue;
@@ -400,11 +400,30 @@ public class GammaTxnDouble extends BaseGammaTxnRef implements TxnDouble {
     }
 
     public final void await(final GammaTxn tx, final DoublePredicate predicate) {
+        await(tx, predicate, false);
+    }
+
+    @Override
+    public final void awaitHandoff(final DoublePredicate predicate) {
+        awaitHandoff(getRequiredThreadLocalGammaTxn(), predicate);
+    }
+
+    @Override
+    public final void awaitHandoff(final Txn tx, final DoublePredicate predicate) {
+        awaitHandoff(asGammaTxn(tx), predicate);
+    }
+
+    public final void awaitHandoff(final GammaTxn tx, final DoublePredicate predicate) {
+        await(tx, predicate, true);
+    }
+
+    private void await(final GammaTxn tx, final DoublePredicate predicate, final boolean handoff) {
+        final boolean filterable = tx.getRefTranlocal(this) == null;
         final Tranlocal tranlocal = openForRead(tx, LOCKMODE_NONE);
         boolean abort = true;
         try {
             if (!predicate.evaluate(longAsDouble(tranlocal.long_value))) {
-                tx.retry();
+                tx.retry(filterable ? this : null, predicate, handoff);
             }
             abort = false;
         } finally {
@@ -13,13 +13,13 @@ import org.multiverse.stms.gamma.transactions.GammaTxn;
 
 import static org.multiverse.api.GlobalStmInstance.getGlobalStmInstance;
 import static org.multiverse.stms.gamma.GammaStmUtils.*;
-import static org.multiverse.stms.gamma.ThreadLocalGammaObjectPool.getThreadLocalGammaObjectPool;
+import static org.multiverse.stms.gamma.transactionalobjects.GammaFieldAccess.*;
 
 /**
  * @author Peter Veentjer.
  */
 @SuppressWarnings({"OverlyComplexClass"})
-public class GammaTxnInteger extends BaseGammaTxnRef implements TxnInteger {
+public class GammaTxnInteger extends LongBackedGammaTxnRef implements TxnInteger {
 
     public GammaTxnInteger(int value) {
         this((GammaStm) getGlobalStmInstance(), value);
@@ -215,19 +215,19 @@ public class GammaTxnInteger extends BaseGammaTxnRef implements TxnInteger {
         }
 
         if ((arriveStatus & MASK_CONFLICT) != 0) {
-            stm.globalConflictCounter.signalConflict();
+            stm.globalConflictCounter.signalConflict(getConflictDomainMask());
         }
 
-        long_value = newValue;
-        //noinspection NonAtomicOperationOnVolatileField
-        version++;
+        ___pushHistory();
+        setLongValueRelease(this, newValue);
+        version = ___nextVersion(version);
 
         final Listeners listeners = ___removeListenersAfterWrite();
 
         departAfterUpdateAndUnlock();
 
         if (listeners != null) {
-            listeners.openAll(getThreadLocalGammaObjectPool());
+            ___openListenersAfterAtomicWrite(listeners);
         }
 
         return returnOld ? oldValue : newValue;
@@ -322,20 +322,20 @@ public class GammaTxnInteger extends BaseGammaTxnRef implements TxnInteger {
         }
 
         if ((arriveStatus & MASK_CONFLICT) != 0) {
-            stm.globalConflictCounter.signalConflict();
+            stm.globalConflictCounter.signalConflict(getConflictDomainMask());
         }
 
         final int newValue = oldValue + amount;
-        long_value = newValue;
-        //noinspection NonAtomicOperationOnVolatileField
-        version++;
+        ___pushHistory();
+        setLongValueRelease(this, newValue);
+        version = ___nextVersion(version);
 
         final Listeners listeners = ___removeListenersAfterWrite();
 
         departAfterUpdateAndUnlock();
 
         if (listeners != null) {
-            listeners.openAll(getThreadLocalGammaObjectPool());
+            ___openListenersAfterAtomicWrite(listeners);
         }
 
         return returnOld ? oldValue : newValue;
@@ -447,11 +447,30 @@ public class GammaTxnInteger extends BaseGammaTxnRef implements TxnInteger {
     }
 
     public final void await(final GammaTxn tx, final IntPredicate predicate) {
+        await(tx, predicate, false);
+    }
+
+    @Override
+    public final void awaitHandoff(final IntPredicate predicate) {
+        awaitHandoff(getRequiredThreadLocalGammaTxn(), predicate);
+    }
+
+    @Override
+    public final void awaitHandoff(final Txn tx, final IntPredicate predicate) {
+        awaitHandoff(asGammaTxn(tx), predicate);
+    }
+
+    public final void awaitHandoff(final GammaTxn tx, final IntPredicate predicate) {
+        await(tx, predicate, true);
+    }
+
+    private void await(final GammaTxn tx, final IntPredicate predicate, final boolean handoff) {
+        final boolean filterable = tx.getRefTranlocal(this) == null;
         final Tranlocal tranlocal = openForRead(tx, LOCKMODE_NONE);
         boolean abort = true;
         try {
             if (!predicate.evaluate((int) tranlocal.long_value)) {
-                tx.retry();
+                tx.retry(filterable ? this : null, predicate, handoff);
             }
             abort = false;
         } finally {
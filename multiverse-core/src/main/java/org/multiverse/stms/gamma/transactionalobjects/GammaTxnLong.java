@@ -14,7 +14,7 @@ import org.multiverse.stms.gamma.transactions.GammaTxn;
 import static org.multiverse.api.GlobalStmInstance.getGlobalStmInstance;
 import static org.multiverse.stms.gamma.GammaStmUtils.asGammaTxn;
 import static org.multiverse.stms.gamma.GammaStmUtils.getRequiredThreadLocalGammaTxn;
-import static org.multiverse.stms.gamma.ThreadLocalGammaObjectPool.getThreadLocalGammaObjectPool;
+import static org.multiverse.stms.gamma.transactionalobjects.GammaFieldAccess.*;
 
 /**
  * A {@link org.multiverse.api.references.TxnLong} for the {@link GammaStm}.
@@ -22,7 +22,7 @@ import static org.multiverse.stms.gamma.ThreadLocalGammaObjectPool.getThreadLoca
  * @author Peter Veentjer.
  */
 @SuppressWarnings({"OverlyComplexClass"})
-public class GammaTxnLong extends BaseGammaTxnRef implements TxnLong {
+public class GammaTxnLong extends LongBackedGammaTxnRef implements TxnLong {
 
     public GammaTxnLong(long value) {
         this((GammaStm) getGlobalStmInstance(), value);
@@ -211,19 +211,19 @@ public class GammaTxnLong extends BaseGammaTxnRef implements TxnLong {
         }
 
         if ((arriveStatus & MASK_CONFLICT) != 0) {
-            stm.globalConflictCounter.signalConflict();
+            stm.globalConflictCounter.signalConflict(getConflictDomainMask());
         }
 
-        long_value = newValue;
-        //noinspection NonAtomicOperationOnVolatileField
-        version++;
+        ___pushHistory();
+        setLongValueRelease(this, newValue);
+        version = ___nextVersion(version);
 
         final Listeners listeners = ___removeListenersAfterWrite();
 
         departAfterUpdateAndUnlock();
 
         if (listeners != null) {
-            listeners.openAll(getThreadLocalGammaObjectPool());
+            ___openListenersAfterAtomicWrite(listeners);
         }
 
         return returnOld ? oldValue : newValue;
@@ -337,20 +337,20 @@ public class GammaTxnLong extends BaseGammaTxnRef implements TxnLong {
         }
 
         if ((arriveStatus & MASK_CONFLICT) != 0) {
-            stm.globalConflictCounter.signalConflict();
+            stm.globalConflictCounter.signalConflict(getConflictDomainMask());
         }
 
         final long newValue = oldValue + amount;
-        long_value = newValue;
-        //noinspection NonAtomicOperationOnVolatileField
-        version++;
+        ___pushHistory();
+        setLongValueRelease(this, newValue);
+        version = ___nextVersion(version);
 
         final Listeners listeners = ___removeListenersAfterWrite();
 
         departAfterUpdateAndUnlock();
 
         if (listeners != null) {
-            listeners.openAll(getThreadLocalGammaObjectPool());
+            ___openListenersAfterAtomicWrite(listeners);
         }
 
         return newValue;
@@ -443,11 +443,31 @@ public class GammaTxnLong extends BaseGammaTxnRef implements TxnLong {
     }
 
     public final void await(final GammaTxn tx, final LongPredicate predicate) {
+        await(tx, predicate, false);
+    }
+
+    @Override
+    public final void awaitHandoff(final LongPredicate predicate) {
+        awaitHandoff(getRequiredThreadLocalGammaTxn(), predicate);
+    }
+
+    @Override
+    public final void awaitHandoff(final Txn tx, final LongPredicate predicate) {
+        awaitHandoff(asGammaTxn(tx), predicate);
+    }
+
+    public final void awaitHandoff(final GammaTxn tx, final LongPredicate predicate) {
+        await(tx, predicate, true);
+    }
+
+    private void await(final GammaTxn tx, final LongPredicate predicate, final boolean handoff) {
+        //if the ref was read before, the transaction could depend on any change, so the wake-ups can't be filtered.
+        final boolean filterable = tx.getRefTranlocal(this) == null;
         final Tranlocal tranlocal = openForRead(tx, LOCKMODE_NONE);
         boolean abort = true;
         try {
             if (!predicate.evaluate(tranlocal.long_value)) {
-                tx.retry();
+                tx.retry(filterable ? this : null, predicate, handoff);
             }
             abort = false;
         } finally {
@@ -12,9 +12,10 @@ import org.multiverse.stms.gamma.transactions.GammaTxn;
 
 import static org.multiverse.api.GlobalStmInstance.getGlobalStmInstance;
 import static org.multiverse.api.TxnThreadLocal.getRequiredThreadLocalTxn;
+import static org.multiverse.api.predicates.Predicates.newIsNotNullPredicate;
 import static org.multiverse.stms.gamma.GammaStmUtils.asGammaTxn;
 import static org.multiverse.stms.gamma.GammaStmUtils.getRequiredThreadLocalGammaTxn;
-import static org.multiverse.stms.gamma.ThreadLocalGammaObjectPool.getThreadLocalGammaObjectPool;
+import static org.multiverse.stms.gamma.transactionalobjects.GammaFieldAccess.*;
 
 /**
  * A {@link org.multiverse.api.references.TxnRef} tailored for the {@link GammaStm}.
@@ -25,6 +26,8 @@ import static org.multiverse.stms.gamma.ThreadLocalGammaObjectPool.getThreadLoca
 @SuppressWarnings({"OverlyComplexClass"})
 public class GammaTxnRef<E> extends BaseGammaTxnRef implements TxnRef<E> {
 
+    public volatile Object ref_value;
+
     public GammaTxnRef(E value) {
         this((GammaStm) getGlobalStmInstance(), value);
     }
@@ -221,19 +224,19 @@ public class GammaTxnRef<E> extends BaseGammaTxnRef implements TxnRef<E> {
         }
 
         if ((arriveStatus & MASK_CONFLICT) != 0) {
-            stm.globalConflictCounter.signalConflict();
+            stm.globalConflictCounter.signalConflict(getConflictDomainMask());
         }
 
-        ref_value = newValue;
-        //noinspection NonAtomicOperationOnVolatileField
-        version++;
+        ___pushHistory();
+        setRefValueRelease(this, newValue);
+        version = ___nextVersion(version);
 
         final Listeners listeners = ___removeListenersAfterWrite();
 
         departAfterUpdateAndUnlock();
 
         if (listeners != null) {
-            listeners.openAll(getThreadLocalGammaObjectPool());
+            ___openListenersAfterAtomicWrite(listeners);
         }
 
         return returnOld ? oldValue : newValue;
@@ -319,18 +322,18 @@ public class GammaTxnRef<E> extends BaseGammaTxnRef implements TxnRef<E> {
         }
 
         if ((arriveStatus & MASK_CONFLICT) != 0) {
-            stm.globalConflictCounter.signalConflict();
+            stm.globalConflictCounter.signalConflict(getConflictDomainMask());
         }
 
-        ref_value = newValue;
-        //noinspection NonAtomicOperationOnVolatileField
-        version++;
+        ___pushHistory();
+        setRefValueRelease(this, newValue);
+        version = ___nextVersion(version);
         final Listeners listeners = ___removeListenersAfterWrite();
 
         departAfterUpdateAndUnlock();
 
         if (listeners != null) {
-            listeners.openAll(getThreadLocalGammaObjectPool());
+            ___openListenersAfterAtomicWrite(listeners);
         }
 
         return true;
@@ -367,10 +370,11 @@ public class GammaTxnRef<E> extends BaseGammaTxnRef implements TxnRef<E> {
     }
 
     public final E awaitNotNullAndGet(final GammaTxn tx) {
+        final boolean filterable = tx.getRefTranlocal(this) == null;
         final Tranlocal tranlocal = openForRead(tx, LOCKMODE_NONE);
 
         if (tranlocal.ref_value == null) {
-            tx.retry();
+            tx.retry(filterable ? this : null, newIsNotNullPredicate());
         }
 
         return (E) tranlocal.ref_value;
@@ -418,11 +422,30 @@ public class GammaTxnRef<E> extends BaseGammaTxnRef implements TxnRef<E> {
     }
 
     public final void await(final GammaTxn tx, final Predicate<E> predicate) {
+        await(tx, predicate, false);
+    }
+
+    @Override
+    public final void awaitHandoff(final Predicate<E> predicate) {
+        awaitHandoff(getRequiredThreadLocalTxn(), predicate);
+    }
+
+    @Override
+    public final void awaitHandoff(final Txn tx, final Predicate<E> predicate) {
+        awaitHandoff(asGammaTxn(tx), predicate);
+    }
+
+    public final void awaitHandoff(final GammaTxn tx, final Predicate<E> predicate) {
+        await(tx, predicate, true);
+    }
+
+    private void await(final GammaTxn tx, final Predicate<E> predicate, final boolean handoff) {
+        final boolean filterable = tx.getRefTranlocal(this) == null;
         final Tranlocal tranlocal = openForRead(tx, LOCKMODE_NONE);
         boolean abort = true;
         try {
             if (!predicate.evaluate((E) tranlocal.ref_value)) {
-                tx.retry();
+                tx.retry(filterable ? this : null, predicate, handoff);
             }
             abort = false;
         } finally {
@@ -0,0 +1,17 @@
+package org.multiverse.stms.gamma.transactionalobjects;
+
+/**
+ * A {@link Tranlocal} that also is part of a doubly linked chain. It is only used by the fixed length transactions if
+ * the tranlocals are kept linked (see {@link org.multiverse.stms.gamma.GammaStmConfig#linkedTranlocalsEnabled}); the
+ * two extra fields would push every other Tranlocal over a single cache line.
+ * <p/>
+ * It isn't generic since the chain links the tranlocals of refs of different types; just like the array of the
+ * transaction, it is used for any type of ref.
+ *
+ * @author Peter Veentjer.
+ */
+public final class LinkedTranlocal extends Tranlocal<Object> {
+
+    public LinkedTranlocal next;
+    public LinkedTranlocal previous;
+}
@@ -0,0 +1,20 @@
+package org.multiverse.stms.gamma.transactionalobjects;
+
+import org.multiverse.stms.gamma.GammaStm;
+
+/**
+ * The base class of the refs whose value is stored in a long: the {@link GammaTxnLong}, {@link GammaTxnInteger},
+ * {@link GammaTxnBoolean} and {@link GammaTxnDouble}. The {@link GammaTxnRef} stores its value in an object field,
+ * so every ref only pays for the value field it actually uses.
+ *
+ * @author Peter Veentjer.
+ */
+public abstract class LongBackedGammaTxnRef extends BaseGammaTxnRef {
+
+    @SuppressWarnings({"VolatileLongOrDoubleField"})
+    public volatile long long_value;
+
+    protected LongBackedGammaTxnRef(GammaStm stm, int type) {
+        super(stm, type);
+    }
+}
@@ -0,0 +1,19 @@
+package org.multiverse.stms.gamma.transactionalobjects;
+
+import org.multiverse.stms.gamma.GammaStm;
+
+/**
+ * A {@link GammaTxnLong} padded against false sharing, see {@link PaddedGammaTxnRef}.
+ *
+ * @author Peter Veentjer.
+ */
+@SuppressWarnings({"UnusedDeclaration"})
+public final class PaddedGammaTxnLong extends GammaTxnLong {
+
+    private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
+    private long pad8, pad9, pad10, pad11, pad12, pad13, pad14, pad15;
+
+    public PaddedGammaTxnLong(final GammaStm stm, final long value) {
+        super(stm, value);
+    }
+}
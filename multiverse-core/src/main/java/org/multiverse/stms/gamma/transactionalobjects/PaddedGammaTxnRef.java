@@ -0,0 +1,28 @@
+package org.multiverse.stms.gamma.transactionalobjects;
+
+import org.multiverse.stms.gamma.GammaStm;
+
+/**
+ * A {@link GammaTxnRef} that is followed by 128 bytes of padding, so that the orec and value of refs that are
+ * allocated next to each other (e.g. in an array or in the same entity) don't share a cache line. Without the
+ * padding, threads that update independent refs still invalidate each other's cache lines (false sharing).
+ * <p/>
+ * The padding fields are declared in the subclass, so they are placed after the fields of the
+ * {@link AbstractGammaObject} and {@link BaseGammaTxnRef}. 128 bytes instead of 64 are used because of adjacent
+ * cache line prefetching.
+ * <p/>
+ * Padded refs are created using {@link org.multiverse.stms.gamma.GammaTxnRefFactoryBuilder#setPadded(boolean)}.
+ *
+ * @param <E>
+ * @author Peter Veentjer.
+ */
+@SuppressWarnings({"UnusedDeclaration"})
+public final class PaddedGammaTxnRef<E> extends GammaTxnRef<E> {
+
+    private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
+    private long pad8, pad9, pad10, pad11, pad12, pad13, pad14, pad15;
+
+    public PaddedGammaTxnRef(final GammaStm stm, final E value) {
+        super(stm, value);
+    }
+}
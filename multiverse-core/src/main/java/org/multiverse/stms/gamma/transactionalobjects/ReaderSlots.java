@@ -0,0 +1,100 @@
+package org.multiverse.stms.gamma.transactionalobjects;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A scalable non zero indicator (SNZI) for the readers of an {@link AbstractGammaObject}. Without it, every reader
+ * of an update biased orec needs to cas the orec to arrive and to depart, so all readers of a hot ref contend on the
+ * same cache line.
+ * <p/>
+ * With ReaderSlots a reader arrives on the slot of its thread. Only the reader that makes the count of a slot go from
+ * 0 to 1 arrives on the orec, and only the reader that makes it go back to 0 departs from the orec. So the surplus
+ * and the readlock count of the orec count the non empty slots instead of the readers; a writer still sees that
+ * readers are present by looking at the orec only, but readers on different slots don't contend anymore.
+ * <p/>
+ * Every slot has a counter for plain arrives and a counter for arrives with a readlock. The counters of different
+ * slots are placed on different cache lines.
+ * <p/>
+ * ReaderSlots are created once readers start to contend on an orec and are never removed.
+ *
+ * @author Peter Veentjer.
+ */
+public final class ReaderSlots {
+
+    //the number of longs between 2 slots; 8 longs is a 64 byte cache line.
+    private static final int STRIDE = 8;
+
+    public static final int MAX_SLOT_COUNT = 1 << 14;
+
+    private final AtomicLongArray counters;
+    private final int slotCount;
+
+    public ReaderSlots(int slotCount) {
+        if (slotCount < 1 || Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("slotCount should be a power of 2, but was " + slotCount);
+        }
+
+        //the slot is stored as a short in the Tranlocal.
+        if (slotCount > MAX_SLOT_COUNT) {
+            throw new IllegalArgumentException(
+                    "slotCount should not be larger than " + MAX_SLOT_COUNT + ", but was " + slotCount);
+        }
+
+        this.slotCount = slotCount;
+        //the first and the last stride are padding, so the slots don't share a cache line with other objects.
+        this.counters = new AtomicLongArray((slotCount + 2) * STRIDE);
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    private static int indexOf(final int slot, final boolean readLock) {
+        return (slot + 1) * STRIDE + (readLock ? 1 : 0);
+    }
+
+    public long get(final int slot, final boolean readLock) {
+        return counters.get(indexOf(slot, readLock));
+    }
+
+    public boolean compareAndSet(final int slot, final boolean readLock, final long expected, final long update) {
+        return counters.compareAndSet(indexOf(slot, readLock), expected, update);
+    }
+
+    /**
+     * Returns the total number of readers in all slots. The value is not a snapshot, so it should only be used
+     * for testing and inspection.
+     *
+     * @param readLock true if the readers with a readlock should be counted, false for the plain readers.
+     * @return the number of readers.
+     */
+    public long count(final boolean readLock) {
+        long count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            count += get(slot, readLock);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of slots that contain at least one reader. The value is not a snapshot, so it should only
+     * be used for testing and inspection.
+     *
+     * @param readLock true if the slots should be checked for readers with a readlock, false for the plain readers.
+     * @return the number of non empty slots.
+     */
+    public int countNonEmpty(final boolean readLock) {
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (get(slot, readLock) > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "ReaderSlots{slotCount=" + slotCount + ", readers=" + count(false) + ", readLocks=" + count(true) + '}';
+    }
+}
@@ -0,0 +1,25 @@
+package org.multiverse.stms.gamma.transactionalobjects;
+
+/**
+ * A previously committed value of a {@link BaseGammaTxnRef}. The VersionedValues of a ref form a chain (newest
+ * first) that is used by readonly transactions to read the value as of their read version when the ref has been
+ * updated after they started (see {@link BaseGammaTxnRef#___loadHistory(Tranlocal, long)}).
+ * <p/>
+ * Apart from the next field, a VersionedValue is immutable. The next field is only set to null when older values
+ * are reclaimed; a reader that sees a shortened chain just won't find the value it is looking for.
+ *
+ * @author Peter Veentjer.
+ */
+public final class VersionedValue {
+    public final long version;
+    public final long long_value;
+    public final Object ref_value;
+    public VersionedValue next;
+
+    public VersionedValue(long version, long long_value, Object ref_value, VersionedValue next) {
+        this.version = version;
+        this.long_value = long_value;
+        this.ref_value = ref_value;
+        this.next = next;
+    }
+}
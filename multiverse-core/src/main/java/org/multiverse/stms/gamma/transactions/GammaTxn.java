@@ -1,20 +1,28 @@
 package org.multiverse.stms.gamma.transactions;
 
 import org.multiverse.api.Txn;
+import org.multiverse.api.TxnFork;
 import org.multiverse.api.TxnStatus;
 import org.multiverse.api.blocking.DefaultRetryLatch;
+import org.multiverse.api.blocking.ParkingRetryLatch;
 import org.multiverse.api.blocking.RetryLatch;
+import org.multiverse.api.blocking.RetryListener;
+import org.multiverse.api.callables.TxnCallable;
 import org.multiverse.api.exceptions.*;
 import org.multiverse.api.functions.Function;
 import org.multiverse.api.lifecycle.TxnEvent;
 import org.multiverse.api.lifecycle.TxnListener;
 import org.multiverse.stms.gamma.GammaConstants;
 import org.multiverse.stms.gamma.GammaObjectPool;
+import org.multiverse.stms.gamma.GlobalCommitClock;
+import org.multiverse.stms.gamma.Listeners;
 import org.multiverse.stms.gamma.transactionalobjects.BaseGammaTxnRef;
 import org.multiverse.stms.gamma.transactionalobjects.GammaObject;
 import org.multiverse.stms.gamma.transactionalobjects.Tranlocal;
 
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.lang.String.format;
 import static org.multiverse.stms.gamma.GammaStmUtils.toDebugString;
@@ -27,6 +35,8 @@ import static org.multiverse.stms.gamma.GammaStmUtils.toDebugString;
 @SuppressWarnings({"OverlyComplexClass", "ClassWithTooManyFields", "OverlyCoupledClass"})
 public abstract class GammaTxn implements GammaConstants, Txn {
 
+    private static final AtomicInteger EPOCH_ID_GENERATOR = new AtomicInteger();
+
     public final GammaObjectPool pool = new GammaObjectPool();
     public int status = TX_ACTIVE;
     public GammaTxnConfig config;
@@ -35,16 +45,49 @@ public abstract class GammaTxn implements GammaConstants, Txn {
     public boolean hasWrites;
     public final int transactionType;
     public boolean richmansMansConflictScan;
+    //the number of full conflict scans isReadConsistent fell back to. It is never reset, so it counts the scans of all
+    //transactions executed with this object, and it is only updated by the thread executing the transaction.
+    public long fullConflictScanCount;
     public boolean abortOnly = false;
-    public final RetryLatch retryListener = new DefaultRetryLatch();
+    //the latch a retry waits on.
+    public final RetryLatch retryLatch;
+    //the listener registered on the refs read when doing a retry; normally the retryLatch, but an asynchronous
+    //execution replaces it by itself for the duration of its attempts.
+    public RetryListener retryListener;
     public ArrayList<TxnListener> listeners;
     public boolean commitConflict;
+    public long commitConflictDomains;
     public boolean evaluatingCommute = false;
+    //the clock the snapshot of this transaction is registered at, null if there is no snapshot.
+    public GlobalCommitClock snapshotClock;
+    public int snapshotSlot;
+    //the contention management state, only used if a ContentionManager is configured or if the transaction is
+    //irrevocable. The epoch identifies this transaction and its current attempt; an abort request is only honored
+    //if it was done for the current epoch (see requestAbort).
+    public volatile long contentionEpoch = (1L << 32) + (EPOCH_ID_GENERATOR.incrementAndGet() & 0xFFFFFFFFL);
+    public volatile long abortRequestedEpoch;
+    public volatile boolean waiting;
+    public long startTimeNs;
+    public int karma;
+    //if the IrrevocableToken of the stm is held, only used if the transaction is irrevocable.
+    public boolean holdsIrrevocableToken;
+    //the number of closed nested transactions that currently are running, 0 if none.
+    public int nestingLevel;
+    //the ref and the predicate a retry is waiting for, only set for the duration of a retry(BaseGammaTxnRef, Object).
+    public BaseGammaTxnRef retryPredicateOwner;
+    public Object retryPredicate;
+    public boolean retryHandoff;
+    //the ref and the predicate of the last handoff retry. As long as it is set, this transaction could have been
+    //handed the wake-up of a change, and it needs to be passed on if this transaction doesn't use it.
+    public BaseGammaTxnRef handoffOwner;
+    public Object handoffPredicate;
 
     public GammaTxn(GammaTxnConfig config, int transactionType) {
         config.init();
         init(config);
         this.transactionType = transactionType;
+        this.retryLatch = config.stm.parkingRetryLatchEnabled ? new ParkingRetryLatch() : new DefaultRetryLatch();
+        this.retryListener = retryLatch;
     }
 
     protected void notifyListeners(TxnEvent event) {
@@ -109,7 +152,10 @@ public abstract class GammaTxn implements GammaConstants, Txn {
     }
 
     public final ReadWriteConflict abortOnReadWriteConflict(GammaObject object) {
-        abortIfAlive();
+        //a closed nested transaction is rolled back by its executor, and that decides if the outer also needs to abort.
+        if (nestingLevel == 0) {
+            abortIfAlive();
+        }
 
         if (attempt == config.maxRetries || !config.controlFlowErrorsReused) {
             return new ReadWriteConflict(
@@ -120,6 +166,28 @@ public abstract class GammaTxn implements GammaConstants, Txn {
         }
     }
 
+    public final IrrevocableLockTimeoutException abortOnIrrevocableLockTimeout(GammaObject object) {
+        abortIfAlive();
+
+        return new IrrevocableLockTimeoutException(
+                format("[%s] Failed transaction, reason: the irrevocable transaction failed to acquire the lock on "
+                        + "object [%s] within %s ms, the transaction holding the lock doesn't release it "
+                        + "(see GammaStmConfig.irrevocableLockTimeoutNs)",
+                        config.familyName, toDebugString(object), config.stm.irrevocableLockTimeoutNs / 1000000));
+    }
+
+    public final ReadWriteConflict abortOnAbortRequested() {
+        abortIfAlive();
+
+        if (attempt == config.maxRetries || !config.controlFlowErrorsReused) {
+            return new ReadWriteConflict(
+                    format("[%s] Failed transaction, reason: the ContentionManager of a conflicting transaction "
+                            + "has requested an abort", config.familyName));
+        } else {
+            return ReadWriteConflict.INSTANCE;
+        }
+    }
+
     public DeadTxnException failAbortOnAlreadyCommitted() {
         return new DeadTxnException(
                 format("[%s] Failed to execute transaction.abort, reason: the transaction is already committed",
@@ -142,18 +210,16 @@ public abstract class GammaTxn implements GammaConstants, Txn {
                         config.familyName, toDebugString(ref)));
     }
 
-    public SpeculativeConfigurationError abortOpenForReadOnNonRefTypeDetected(BaseGammaTxnRef ref) {
-        config.updateSpeculativeConfigurationToUseNonRefType();
+    public SpeculativeConfigurationError abortOnNestingDetected() {
+        config.updateSpeculativeConfigurationToUseNesting();
         abortIfAlive();
 
         if (config.controlFlowErrorsReused) {
             return SpeculativeConfigurationError.INSTANCE;
         }
         return new SpeculativeConfigurationError(
-                format("[%s] Failed to execute TxnRef.openForRead/openForWrite '%s', reason: the transaction is lean," +
-                        " but explicit locking is required",
-                        config.familyName, toDebugString(ref)));
-
+                format("[%s] Failed to start a nested transaction, reason: the transaction doesn't support " +
+                        "closed nesting", config.familyName));
     }
 
     public final StmMismatchException abortOpenForReadOnBadStm(GammaObject o) {
@@ -399,6 +465,70 @@ public abstract class GammaTxn implements GammaConstants, Txn {
 
     }
 
+    // ====================== fork ==========================================
+
+    /**
+     * Forks a child. Only the {@link org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn} is able
+     * to merge the changes of a child, so the other transactions fail with a SpeculativeConfigurationError and are
+     * replaced by one on the next attempt.
+     */
+    @Override
+    public <E> TxnFork<E> fork(final TxnCallable<E> callable) {
+        return fork(callable, config.stm.getForkExecutor());
+    }
+
+    @Override
+    public <E> TxnFork<E> fork(final TxnCallable<E> callable, final Executor executor) {
+        if (status != TX_ACTIVE) {
+            throw abortForkOnBadStatus();
+        }
+
+        if (callable == null || executor == null) {
+            throw abortForkOnNullArgument();
+        }
+
+        throw abortOnForkDetected();
+    }
+
+    public final SpeculativeConfigurationError abortOnForkDetected() {
+        config.updateSpeculativeConfigurationToUseNesting();
+        abortIfAlive();
+
+        if (config.controlFlowErrorsReused) {
+            return SpeculativeConfigurationError.INSTANCE;
+        }
+        return new SpeculativeConfigurationError(
+                format("[%s] Failed to execute Txn.fork, reason: the transaction doesn't support forking",
+                        config.familyName));
+    }
+
+    public final NullPointerException abortForkOnNullArgument() {
+        abortIfAlive();
+        return new NullPointerException(
+                format("[%s] Failed to execute Txn.fork, reason: the callable or executor is null",
+                        config.familyName));
+    }
+
+    public final IllegalTxnStateException abortForkOnBadStatus() {
+        switch (status) {
+            case TX_PREPARED:
+                abort();
+                return new PreparedTxnException(
+                        format("[%s] Failed to execute Txn.fork, reason: the transaction is prepared",
+                                config.familyName));
+            case TX_ABORTED:
+                return new DeadTxnException(
+                        format("[%s] Failed to execute Txn.fork, reason: the transaction is aborted",
+                                config.familyName));
+            case TX_COMMITTED:
+                return new DeadTxnException(
+                        format("[%s] Failed to execute Txn.fork, reason: the transaction is committed",
+                                config.familyName));
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
     // ====================== register ==========================================
 
     private NullPointerException abortRegisterOnNullListener() {
@@ -688,31 +818,154 @@ public abstract class GammaTxn implements GammaConstants, Txn {
      */
     public abstract Tranlocal getRefTranlocal(BaseGammaTxnRef ref);
 
+    /**
+     * Does a retry that only needs to be woken up when the value of the owner matches the predicate. The predicate is
+     * registered with the listener on the owner, so a committing transaction that writes a value that doesn't match
+     * it, doesn't wake up this transaction. The listeners on the other refs read are registered without predicate.
+     *
+     * <p>The predicate is evaluated by the thread that wrote the owner, after the write has been published and the
+     * exclusive lock on the owner has been released. So it can see a value written later than the one that triggered
+     * the evaluation, and it can be evaluated more than once for the same write (e.g. when the owner has been
+     * changed again in the meantime). It therefore should be cheap and free of side effects. The type of the
+     * predicate needs to match the type of the owner; e.g. a {@link org.multiverse.api.predicates.LongPredicate} for
+     * a GammaTxnLong.
+     *
+     * @param owner     the ref the predicate applies to, or null if no filtering should be done.
+     * @param predicate the predicate the value of the owner should match before this transaction is woken up.
+     */
+    public final void retry(final BaseGammaTxnRef owner, final Object predicate) {
+        retry(owner, predicate, false);
+    }
+
+    /**
+     * Does a retry just like {@link #retry(BaseGammaTxnRef, Object)}, but if handoff is true, a change of the owner
+     * that matches the predicate only wakes up one of the transactions waiting for a handoff on the owner instead
+     * of all of them. This prevents that all consumers of e.g. a queue are woken up for a single item.
+     *
+     * <p>The transaction that is woken up is expected to use the change; e.g. by taking the item. If it doesn't,
+     * because it aborts, does another retry or times out, the wake-up is passed on to the next waiting transaction
+     * if the predicate still matches. So no wake-up is lost.
+     *
+     * @param owner     the ref the predicate applies to, or null if no filtering should be done.
+     * @param predicate the predicate the value of the owner should match before this transaction is woken up.
+     * @param handoff   if this transaction should wait for a handoff.
+     */
+    public final void retry(final BaseGammaTxnRef owner, final Object predicate, final boolean handoff) {
+        retryPredicateOwner = owner;
+        retryPredicate = predicate;
+        retryHandoff = handoff && owner != null;
+        try {
+            retry();
+        } catch (RetryError e) {
+            if (retryHandoff) {
+                handoffOwner = owner;
+                handoffPredicate = predicate;
+            }
+            throw e;
+        } finally {
+            retryPredicateOwner = null;
+            retryPredicate = null;
+            retryHandoff = false;
+        }
+    }
+
+    /**
+     * Checks if the listener registered on the owner during a retry should wait for a handoff.
+     *
+     * @param owner the ref the listener is registered on.
+     * @return true if the listener should wait for a handoff.
+     */
+    public final boolean isRetryHandoff(final BaseGammaTxnRef owner) {
+        return retryHandoff && owner == retryPredicateOwner;
+    }
+
+    /**
+     * Checks if this transaction writes the ref it waited for with a handoff. If it does, the commit of the write
+     * hands the wake-up to the next waiting transaction if the predicate still matches, so it doesn't need to be
+     * passed on. Should be called before the commit releases the tranlocals.
+     *
+     * @return true if the handoff owner is written.
+     */
+    protected final boolean isHandoffOwnerWritten() {
+        final BaseGammaTxnRef owner = handoffOwner;
+        if (owner == null) {
+            return false;
+        }
+
+        final Tranlocal tranlocal = getRefTranlocal(owner);
+        return tranlocal != null && tranlocal.isWrite();
+    }
+
+    /**
+     * Passes on the wake-up this transaction could have been handed by its last handoff retry, to the next
+     * transaction waiting for a handoff on the same ref. It is only passed on if the predicate still matches.
+     */
+    public final void passOnHandoff() {
+        final BaseGammaTxnRef owner = handoffOwner;
+        if (owner == null) {
+            return;
+        }
+
+        final Object predicate = handoffPredicate;
+        handoffOwner = null;
+        handoffPredicate = null;
+
+        final Listeners listeners = owner.___removeListenersAfterHandoff(predicate);
+        if (listeners != null) {
+            listeners.openAll(pool);
+        }
+    }
+
+    /**
+     * Gets the predicate the listener registered on the owner during a retry should be filtered with.
+     *
+     * @param owner the ref the listener is registered on.
+     * @return the predicate, or null if every change of the owner should wake up this transaction.
+     */
+    public final Object getRetryPredicate(final BaseGammaTxnRef owner) {
+        return owner == retryPredicateOwner ? retryPredicate : null;
+    }
+
     public final boolean isAlive() {
         return status == TX_ACTIVE || status == TX_PREPARED;
     }
 
     public final void awaitUpdate() {
-        final long lockEra = retryListener.getEra();
-
-        if (config.timeoutNs == Long.MAX_VALUE) {
-            if (config.isInterruptible()) {
-                retryListener.await(lockEra, config.familyName);
+        final long lockEra = retryLatch.getEra();
+
+        boolean woken = false;
+        try {
+            if (config.timeoutNs == Long.MAX_VALUE) {
+                if (config.isInterruptible()) {
+                    retryLatch.await(lockEra, config.familyName);
+                } else {
+                    retryLatch.awaitUninterruptible(lockEra);
+                }
             } else {
-                retryListener.awaitUninterruptible(lockEra);
+                if (config.isInterruptible()) {
+                    remainingTimeoutNs = retryLatch.awaitNanos(lockEra, remainingTimeoutNs, config.familyName);
+                } else {
+                    remainingTimeoutNs = retryLatch.awaitNanosUninterruptible(lockEra, remainingTimeoutNs);
+                }
+
+                if (remainingTimeoutNs < 0) {
+                    throw new RetryTimeoutException(
+                            format("[%s] Txn has timed out with a total timeout of %s ns",
+                                    config.getFamilyName(), config.getTimeoutNs()));
+                }
             }
-        } else {
-            if (config.isInterruptible()) {
-                remainingTimeoutNs = retryListener.awaitNanos(lockEra, remainingTimeoutNs, config.familyName);
-            } else {
-                remainingTimeoutNs = retryListener.awaitNanosUninterruptible(lockEra, remainingTimeoutNs);
+            woken = true;
+        } finally {
+            if (!woken && handoffOwner != null) {
+                //the listeners are made stale first, so that they can't be handed a wake-up anymore.
+                retryLatch.reset();
+                passOnHandoff();
             }
+        }
 
-            if (remainingTimeoutNs < 0) {
-                throw new RetryTimeoutException(
-                        format("[%s] Txn has timed out with a total timeout of %s ns",
-                                config.getFamilyName(), config.getTimeoutNs()));
-            }
+        if (handoffOwner != null && attempt >= config.getMaxRetries()) {
+            //there is no attempt left to use the wake-up this transaction could have been handed.
+            passOnHandoff();
         }
     }
 
@@ -727,6 +980,10 @@ public abstract class GammaTxn implements GammaConstants, Txn {
         }
 
         this.config = config;
+        handoffOwner = null;
+        handoffPredicate = null;
+        //a lock owner recorded under the previous config should not be taken for this one.
+        contentionEpoch += 1L << 32;
         hardReset();
     }
 
@@ -753,10 +1010,161 @@ public abstract class GammaTxn implements GammaConstants, Txn {
     }
 
     /**
-     * Initializes the local conflict counter if the transaction has a need for it.
-     * It should only be initialized if there are no reads.
+     * Registers that committing this transaction will cause a conflict on the given ref, so the conflict domain
+     * of the ref needs to be signalled on the {@link org.multiverse.stms.gamma.GlobalConflictCounter} before
+     * the writes are made visible.
+     *
+     * @param ref the ref that has readers that will conflict with the commit.
+     */
+    public final void registerCommitConflict(final BaseGammaTxnRef ref) {
+        commitConflict = true;
+        commitConflictDomains |= ref.getConflictDomainMask();
+    }
+
+    /**
+     * Signals the conflicts registered by this transaction. Should be called before the writes are made visible.
+     */
+    protected final void signalCommitConflict() {
+        config.globalConflictCounter.signalConflict(commitConflictDomains);
+    }
+
+    /**
+     * Returns the version all refs updated by this transaction get. Should only be called once all refs that are
+     * going to be updated, are exclusively locked.
+     *
+     * @return the write version, or 0 if every ref should increment its own version.
+     */
+    protected final long nextWriteVersion() {
+        final GlobalCommitClock globalCommitClock = config.globalCommitClock;
+        return globalCommitClock == null ? 0 : globalCommitClock.tick();
+    }
+
+    /**
+     * Determines the read version when the {@link GlobalCommitClock} is used. A readonly transaction registers its
+     * read version as a snapshot, so that refs with a history keep the values it could read.
+     *
+     * @param globalCommitClock the GlobalCommitClock.
+     * @return the read version.
+     */
+    protected final long initReadVersion(final GlobalCommitClock globalCommitClock) {
+        if (!config.readonly) {
+            return globalCommitClock.time();
+        }
+
+        if (snapshotClock == null) {
+            final int slot = globalCommitClock.claimSnapshot((int) Thread.currentThread().getId());
+            if (slot == -1) {
+                return globalCommitClock.time();
+            }
+
+            snapshotClock = globalCommitClock;
+            snapshotSlot = slot;
+        }
+
+        return snapshotClock.publishSnapshot(snapshotSlot);
+    }
+
+    /**
+     * Releases the snapshot of this transaction (if it has one).
+     */
+    protected final void releaseSnapshot() {
+        if (snapshotClock != null) {
+            snapshotClock.releaseSnapshot(snapshotSlot);
+            snapshotClock = null;
+        }
+    }
+
+    /**
+     * Acquires the {@link org.multiverse.stms.gamma.IrrevocableToken} if this transaction is irrevocable and doesn't
+     * hold it already. Should be called at the start of every attempt, so the token is held before the first
+     * transactional object is opened (no matter if that is a read or a write) and while no locks are held; else two
+     * irrevocable transactions could deadlock.
+     */
+    protected final void acquireIrrevocableToken() {
+        if (config.irrevocable && !holdsIrrevocableToken) {
+            config.stm.irrevocableToken.acquire(this);
+            holdsIrrevocableToken = true;
+        }
+    }
+
+    /**
+     * Releases the {@link org.multiverse.stms.gamma.IrrevocableToken} (if it is held). Should be called after all
+     * locks have been released.
+     */
+    protected final void releaseIrrevocableToken() {
+        if (holdsIrrevocableToken) {
+            config.stm.irrevocableToken.release(this);
+            holdsIrrevocableToken = false;
+        }
+    }
+
+    /**
+     * Returns the karma of this transaction: the number of transactional objects it has opened, including the ones
+     * opened in previous failed attempts. Used by some {@link org.multiverse.stms.gamma.contention.ContentionManager}
+     * implementations as priority. It is read by other transactions, so the value is an approximation.
+     *
+     * @return the karma.
+     */
+    public int getKarma() {
+        return karma;
+    }
+
+    /**
+     * Resets the contention management state for a new transaction. Should be called on a hard reset.
+     */
+    protected final void resetContentionState() {
+        karma = 0;
+        if (config.contentionManager != null) {
+            startTimeNs = System.nanoTime();
+            contentionEpoch += 1L << 32;
+        } else if (config.irrevocable) {
+            contentionEpoch += 1L << 32;
+        }
+    }
+
+    /**
+     * Keeps the contention management state for the next attempt, so that a transaction that keeps failing increases
+     * its priority. Should be called on a soft reset.
+     *
+     * @param size the number of transactional objects opened in the failed attempt.
+     */
+    protected final void retainContentionState(final int size) {
+        karma += size;
+
+        if (config.contentionManager != null || config.irrevocable) {
+            contentionEpoch += 1L << 32;
+        }
+    }
+
+    /**
+     * Checks if another transaction requested this transaction to abort in its current attempt.
+     *
+     * @return true if an abort is requested.
+     */
+    public final boolean isAbortRequested() {
+        return abortRequestedEpoch == contentionEpoch;
+    }
+
+    /**
+     * Requests this transaction to abort. The request is ignored if the epoch isn't the current epoch of this
+     * transaction, so a request based on a lock owner that has moved on already (or that is a different transaction
+     * than the epoch belongs to) has no effect.
+     *
+     * @param epoch the epoch of the transaction as seen when it was recorded as lock owner.
+     */
+    public final void requestAbort(final long epoch) {
+        if (abortRequestedEpoch != epoch) {
+            abortRequestedEpoch = epoch;
+        }
+    }
+
+    /**
+     * Initializes the local conflict counter if the transaction has a need for it, and starts tracking the conflict
+     * domain of the given ref. The local conflict counter should only be initialized if there are no reads.
+     *
+     * @param ref the ref that is going to be read.
      */
-    public abstract void initLocalConflictCounter();
+    public abstract void initLocalConflictCounter(BaseGammaTxnRef ref);
 
 
 }
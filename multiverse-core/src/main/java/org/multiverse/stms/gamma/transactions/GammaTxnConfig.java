@@ -11,7 +11,9 @@ import org.multiverse.api.lifecycle.TxnListener;
 import org.multiverse.stms.gamma.GammaConstants;
 import org.multiverse.stms.gamma.GammaStm;
 import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.GlobalCommitClock;
 import org.multiverse.stms.gamma.GlobalConflictCounter;
+import org.multiverse.stms.gamma.contention.ContentionManager;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -39,6 +41,7 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
 
     public final GammaStm stm;
     public final GlobalConflictCounter globalConflictCounter;
+    public final GlobalCommitClock globalCommitClock;
     public PropagationLevel propagationLevel;
     public IsolationLevel isolationLevel;
     public boolean writeSkewAllowed;
@@ -60,6 +63,7 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
     public boolean speculative;
     public int maxFixedLengthTransactionSize;
     public BackoffPolicy backoffPolicy;
+    public ContentionManager contentionManager;
     public long timeoutNs;
     public TraceLevel traceLevel;
     public boolean controlFlowErrorsReused;
@@ -67,6 +71,12 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
     public int maximumPoorMansConflictScanLength;
     public ArrayList<TxnListener> permanentListeners;
     public boolean unrepeatableReadAllowed;
+    public boolean irrevocable;
+    public int irrevocableAfterAttempts = Integer.MAX_VALUE;
+    public boolean closedNesting;
+    public boolean threadLocalContextEnabled = true;
+    public int speculativeRelearnInterval;
+    public volatile SpeculativeGammaLearner speculativeLearner;
 
     public GammaTxnConfig(GammaStm stm) {
         this(stm, new GammaStmConfig());
@@ -75,6 +85,7 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
     public GammaTxnConfig(GammaStm stm, GammaStmConfig config) {
         this.stm = stm;
         this.globalConflictCounter = stm.getGlobalConflictCounter();
+        this.globalCommitClock = stm.getGlobalCommitClock();
         this.interruptible = config.interruptible;
         this.readonly = config.readonly;
         this.spinCount = config.spinCount;
@@ -90,6 +101,7 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
         this.speculative = config.speculativeConfigEnabled;
         this.maxFixedLengthTransactionSize = config.maxFixedLengthTransactionSize;
         this.backoffPolicy = config.backoffPolicy;
+        this.contentionManager = config.contentionManager;
         this.timeoutNs = config.timeoutNs;
         this.traceLevel = config.traceLevel;
         this.isolationLevel = config.isolationLevel;
@@ -102,6 +114,7 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
         this.isAnonymous = true;
         this.maximumPoorMansConflictScanLength = config.maximumPoorMansConflictScanLength;
         this.isFat = config.isFat;
+        this.speculativeRelearnInterval = config.speculativeRelearnInterval;
         if (config.permanentListeners.isEmpty()) {
             this.permanentListeners = null;
         } else {
@@ -117,6 +130,7 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
     private GammaTxnConfig(GammaTxnConfig config) {
         this.stm = config.stm;
         this.globalConflictCounter = config.globalConflictCounter;
+        this.globalCommitClock = config.globalCommitClock;
         this.propagationLevel = config.propagationLevel;
         this.isolationLevel = config.isolationLevel;
         this.writeSkewAllowed = config.writeSkewAllowed;
@@ -138,12 +152,18 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
         this.speculative = config.speculative;
         this.maxFixedLengthTransactionSize = config.maxFixedLengthTransactionSize;
         this.backoffPolicy = config.backoffPolicy;
+        this.contentionManager = config.contentionManager;
         this.timeoutNs = config.timeoutNs;
         this.traceLevel = config.traceLevel;
         this.controlFlowErrorsReused = config.controlFlowErrorsReused;
         this.isFat = config.isFat;
         this.maximumPoorMansConflictScanLength = config.maximumPoorMansConflictScanLength;
         this.permanentListeners = config.permanentListeners;
+        this.irrevocable = config.irrevocable;
+        this.irrevocableAfterAttempts = config.irrevocableAfterAttempts;
+        this.closedNesting = config.closedNesting;
+        this.threadLocalContextEnabled = config.threadLocalContextEnabled;
+        this.speculativeRelearnInterval = config.speculativeRelearnInterval;
     }
 
     public GammaTxnConfig(GammaStm stm, int maxFixedLengthTransactionSize) {
@@ -175,6 +195,16 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
         return speculativeConfiguration.get();
     }
 
+    /**
+     * Returns the SpeculativeGammaLearner that periodically tries the initial speculative configuration again.
+     *
+     * @return the SpeculativeGammaLearner, or null if the configuration isn't speculative, not initialized yet or
+     *         re-learning is disabled.
+     */
+    public SpeculativeGammaLearner getSpeculativeLearner() {
+        return speculativeLearner;
+    }
+
     @Override
     public long getTimeoutNs() {
         return timeoutNs;
@@ -195,6 +225,10 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
         return backoffPolicy;
     }
 
+    public ContentionManager getContentionManager() {
+        return contentionManager;
+    }
+
     @Override
     public boolean isSpeculative() {
         return speculative;
@@ -205,6 +239,11 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
         return familyName;
     }
 
+    @Override
+    public boolean isAnonymous() {
+        return isAnonymous;
+    }
+
     @Override
     public boolean isReadonly() {
         return readonly;
@@ -229,6 +268,10 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
         return globalConflictCounter;
     }
 
+    public GlobalCommitClock getGlobalCommitClock() {
+        return globalCommitClock;
+    }
+
     @Override
     public boolean isReadTrackingEnabled() {
         return trackReads;
@@ -244,6 +287,35 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
         return maxRetries;
     }
 
+    @Override
+    public boolean isIrrevocable() {
+        return irrevocable;
+    }
+
+    @Override
+    public int getIrrevocableAfterAttempts() {
+        return irrevocableAfterAttempts;
+    }
+
+    /**
+     * Checks if a nested execute on an existing transaction runs as a closed nested transaction.
+     *
+     * @return true if closed nesting is used.
+     */
+    public boolean isClosedNesting() {
+        return closedNesting;
+    }
+
+    /**
+     * Checks if the TxnExecutor stores the transaction and the pools in threadlocals.
+     *
+     * @return true if the threadlocal context is used.
+     * @see GammaTxnFactoryBuilder#setThreadLocalContextEnabled(boolean)
+     */
+    public boolean isThreadLocalContextEnabled() {
+        return threadLocalContextEnabled;
+    }
+
     @Override
     public PropagationLevel getPropagationLevel() {
         return propagationLevel;
@@ -257,30 +329,30 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
         return unmodifiableList(permanentListeners);
     }
 
-    public void updateSpeculativeConfigurationToUseNonRefType() {
+    public void updateSpeculativeConfigurationToUseListeners() {
         while (true) {
             SpeculativeGammaConfiguration current = speculativeConfiguration.get();
-            SpeculativeGammaConfiguration update = current.newWithNonRefType();
+            SpeculativeGammaConfiguration update = current.newWithListeners();
             if (speculativeConfiguration.compareAndSet(current, update)) {
                 return;
             }
         }
     }
 
-    public void updateSpeculativeConfigurationToUseListeners() {
+    public void updateSpeculativeConfigureToUseAbortOnly() {
         while (true) {
             SpeculativeGammaConfiguration current = speculativeConfiguration.get();
-            SpeculativeGammaConfiguration update = current.newWithListeners();
+            SpeculativeGammaConfiguration update = current.newWithAbortOnly();
             if (speculativeConfiguration.compareAndSet(current, update)) {
                 return;
             }
         }
     }
 
-    public void updateSpeculativeConfigureToUseAbortOnly() {
+    public void updateSpeculativeConfigurationToUseNesting() {
         while (true) {
             SpeculativeGammaConfiguration current = speculativeConfiguration.get();
-            SpeculativeGammaConfiguration update = current.newWithAbortOnly();
+            SpeculativeGammaConfiguration update = current.newWithOrElse();
             if (speculativeConfiguration.compareAndSet(current, update)) {
                 return;
             }
@@ -375,22 +447,32 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
             throw new IllegalTxnFactoryException(msg);
         }
 
+        if (irrevocable && readLockMode != LockMode.Exclusive) {
+            String msg = format("[%s] If the transaction is irrevocable, the read LockMode should be [%s] but was [%s]",
+                    familyName, LockMode.Exclusive, readLockMode);
+            throw new IllegalTxnFactoryException(msg);
+        }
+
         if (speculativeConfiguration.get() == null) {
             SpeculativeGammaConfiguration newSpeculativeConfiguration;
-            if (speculative) {
+            //an irrevocable transaction should not fail on a speculative configuration error.
+            if (speculative && !irrevocable) {
 
                 newSpeculativeConfiguration = new SpeculativeGammaConfiguration(
-                        isFat(), false, false, false, false, false, false, false, false, false, 1);
+                        isFat(), false, false, false, false, false, false, false, false, 1);
             } else {
                 newSpeculativeConfiguration = new SpeculativeGammaConfiguration(
-                        true, true, true, true, true, true, true, true, true, true, Integer.MAX_VALUE);
+                        true, true, true, true, true, true, true, true, true, Integer.MAX_VALUE);
             }
 
             if (maximumPoorMansConflictScanLength == 0) {
                 newSpeculativeConfiguration = newSpeculativeConfiguration.newWithRichMansConflictScan();
             }
 
-            speculativeConfiguration.compareAndSet(null, newSpeculativeConfiguration);
+            if (speculativeConfiguration.compareAndSet(null, newSpeculativeConfiguration)
+                    && speculative && !irrevocable && speculativeRelearnInterval > 0) {
+                speculativeLearner = new SpeculativeGammaLearner(this, newSpeculativeConfiguration);
+            }
         }
 
         return this;
@@ -421,6 +503,10 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
             return true;
         }
 
+        if (contentionManager != null) {
+            return true;
+        }
+
         if (readonly) {
             return true;
         }
@@ -469,6 +555,59 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
         return config;
     }
 
+    /**
+     * Sets if the transaction is irrevocable. An irrevocable transaction exclusively locks everything it reads or
+     * writes, so making a transaction irrevocable also sets the read and write LockMode to
+     * {@link LockMode#Exclusive} and enables read tracking. Making it revocable again only clears the flag.
+     *
+     * @param irrevocable true if the transaction should be irrevocable.
+     * @return the updated GammaTxnConfig.
+     */
+    public GammaTxnConfig setIrrevocable(boolean irrevocable) {
+        GammaTxnConfig config = new GammaTxnConfig(this);
+        config.irrevocable = irrevocable;
+        if (irrevocable) {
+            config.readLockMode = LockMode.Exclusive;
+            config.readLockModeAsInt = LOCKMODE_EXCLUSIVE;
+            config.writeLockMode = LockMode.Exclusive;
+            config.writeLockModeAsInt = LOCKMODE_EXCLUSIVE;
+            config.trackReads = true;
+        }
+        return config;
+    }
+
+    public GammaTxnConfig setIrrevocableAfterAttempts(int irrevocableAfterAttempts) {
+        if (irrevocableAfterAttempts < 1) {
+            throw new IllegalArgumentException("irrevocableAfterAttempts can't be smaller than 1");
+        }
+
+        GammaTxnConfig config = new GammaTxnConfig(this);
+        config.irrevocableAfterAttempts = irrevocableAfterAttempts;
+        return config;
+    }
+
+    public GammaTxnConfig setSpeculativeRelearnInterval(int speculativeRelearnInterval) {
+        if (speculativeRelearnInterval < 0) {
+            throw new IllegalArgumentException("speculativeRelearnInterval can't be smaller than 0");
+        }
+
+        GammaTxnConfig config = new GammaTxnConfig(this);
+        config.speculativeRelearnInterval = speculativeRelearnInterval;
+        return config;
+    }
+
+    public GammaTxnConfig setClosedNesting(boolean closedNesting) {
+        GammaTxnConfig config = new GammaTxnConfig(this);
+        config.closedNesting = closedNesting;
+        return config;
+    }
+
+    public GammaTxnConfig setThreadLocalContextEnabled(boolean threadLocalContextEnabled) {
+        GammaTxnConfig config = new GammaTxnConfig(this);
+        config.threadLocalContextEnabled = threadLocalContextEnabled;
+        return config;
+    }
+
     public GammaTxnConfig setReadTrackingEnabled(boolean trackReads) {
         GammaTxnConfig config = new GammaTxnConfig(this);
         config.trackReads = trackReads;
@@ -531,6 +670,12 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
         return config;
     }
 
+    public GammaTxnConfig setContentionManager(ContentionManager contentionManager) {
+        GammaTxnConfig config = new GammaTxnConfig(this);
+        config.contentionManager = contentionManager;
+        return config;
+    }
+
     public GammaTxnConfig setTraceLevel(TraceLevel traceLevel) {
         if (traceLevel == null) {
             throw new NullPointerException("traceLevel can't be null");
@@ -620,6 +765,7 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
         return "GammaTxnConfig{" +
                 "speculativeConfiguration=" + speculativeConfiguration +
                 ", globalConflictCounter=" + globalConflictCounter +
+                ", globalCommitClock=" + globalCommitClock +
                 ", propagationLevel=" + propagationLevel +
                 ", isolationLevel=" + isolationLevel +
                 ", writeSkewAllowed=" + writeSkewAllowed +
@@ -641,12 +787,18 @@ public final class GammaTxnConfig implements TxnConfig, GammaConstants {
                 ", speculativeConfigEnabled=" + speculative +
                 ", maxFixedLengthTransactionSize=" + maxFixedLengthTransactionSize +
                 ", backoffPolicy=" + backoffPolicy +
+                ", contentionManager=" + contentionManager +
                 ", timeoutNs=" + timeoutNs +
                 ", traceLevel=" + traceLevel +
                 ", controlFlowErrorsReused=" + controlFlowErrorsReused +
                 ", isFat=" + isFat +
                 ", maximumPoorMansConflictScanLength=" + maximumPoorMansConflictScanLength +
                 ", permanentListeners=" + permanentListeners +
+                ", irrevocable=" + irrevocable +
+                ", irrevocableAfterAttempts=" + irrevocableAfterAttempts +
+                ", closedNesting=" + closedNesting +
+                ", threadLocalContextEnabled=" + threadLocalContextEnabled +
+                ", speculativeRelearnInterval=" + speculativeRelearnInterval +
                 '}';
     }
 
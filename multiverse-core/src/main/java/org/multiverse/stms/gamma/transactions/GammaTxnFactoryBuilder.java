@@ -4,6 +4,7 @@ import org.multiverse.api.*;
 import org.multiverse.api.TxnFactoryBuilder;
 import org.multiverse.api.lifecycle.TxnListener;
 import org.multiverse.stms.gamma.GammaTxnExecutor;
+import org.multiverse.stms.gamma.contention.ContentionManager;
 
 /**
  * A {@link org.multiverse.api.TxnFactoryBuilder} tailored for the {@link org.multiverse.stms.gamma.GammaStm}.
@@ -47,6 +48,17 @@ public interface GammaTxnFactoryBuilder extends TxnFactoryBuilder {
     @Override
     GammaTxnFactoryBuilder setBackoffPolicy(BackoffPolicy backoffPolicy);
 
+    /**
+     * Sets the {@link ContentionManager} that decides what to do when a lock can't be acquired because another
+     * transaction holds it. If null, no ContentionManager is used and the transaction only spins for the lock.
+     * <p/>
+     * Using a ContentionManager forces fat transactions.
+     *
+     * @param contentionManager the ContentionManager to use, or null.
+     * @return the updated GammaTxnFactoryBuilder.
+     */
+    GammaTxnFactoryBuilder setContentionManager(ContentionManager contentionManager);
+
     @Override
     GammaTxnFactoryBuilder setDirtyCheckEnabled(boolean dirtyCheckEnabled);
 
@@ -65,6 +77,55 @@ public interface GammaTxnFactoryBuilder extends TxnFactoryBuilder {
     @Override
     GammaTxnFactoryBuilder setMaxRetries(int maxRetries);
 
+    @Override
+    GammaTxnFactoryBuilder setIrrevocable(boolean irrevocable);
+
+    @Override
+    GammaTxnFactoryBuilder setIrrevocableAfterAttempts(int attempts);
+
+    /**
+     * Sets if an execute that finds an existing transaction (with the {@link org.multiverse.api.PropagationLevel#Requires}
+     * propagation level) runs as a closed nested transaction instead of being flattened into the outer transaction.
+     * <p/>
+     * A closed nested transaction only rolls back its own changes when it fails; if it fails on a read/write conflict
+     * while the reads of the outer transaction still are valid, only the nested transaction is retried instead of the
+     * complete outer transaction. The outer transaction needs to be a variable length transaction for this, a
+     * speculative outer transaction is upgraded when needed.
+     *
+     * @param closedNesting true if closed nesting should be used.
+     * @return the updated GammaTxnFactoryBuilder.
+     */
+    GammaTxnFactoryBuilder setClosedNesting(boolean closedNesting);
+
+    /**
+     * Sets the number of transactions after which a speculative family that has been upgraded tries its initial
+     * speculative configuration again. The configuration with the best measured throughput is kept. See
+     * {@link org.multiverse.stms.gamma.transactions.SpeculativeGammaLearner} for more information.
+     *
+     * @param interval the number of transactions in a measuring window, 0 disables re-learning.
+     * @return the updated GammaTxnFactoryBuilder.
+     * @throws IllegalArgumentException if interval smaller than 0.
+     */
+    GammaTxnFactoryBuilder setSpeculativeRelearnInterval(int interval);
+
+    /**
+     * Sets if the TxnExecutor stores its transaction context in threadlocals (the default). If enabled, the
+     * transaction is published on the {@link org.multiverse.api.TxnThreadLocal} and each thread gets its own pool of
+     * transactions and tranlocals.
+     * <p/>
+     * If disabled, the TxnExecutor doesn't use threadlocals: the pools are shared using stripes, so with a lot of
+     * (virtual) threads that each only execute a few transactions, there is no per thread cost. The transaction isn't
+     * published, so it needs to be passed explicitly: a nested execute only joins the transaction (or applies the
+     * {@link org.multiverse.api.PropagationLevel}) if it is passed to
+     * {@link org.multiverse.stms.gamma.GammaTxnExecutor#execute(org.multiverse.api.Txn,
+     * org.multiverse.api.callables.TxnCallable)}. The methods of a ref without a txn parameter don't see the
+     * transaction either.
+     *
+     * @param enabled true if the threadlocal context should be used.
+     * @return the updated GammaTxnFactoryBuilder.
+     */
+    GammaTxnFactoryBuilder setThreadLocalContextEnabled(boolean enabled);
+
     @Override
     GammaTxnFactoryBuilder setIsolationLevel(IsolationLevel isolationLevel);
 
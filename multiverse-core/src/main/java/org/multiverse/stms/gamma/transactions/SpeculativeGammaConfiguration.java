@@ -15,7 +15,6 @@ public final class SpeculativeGammaConfiguration {
     public final boolean listenersDetected;
     public final boolean commuteDetected;
     public final boolean orelseDetected;
-    public final boolean nonRefTypeDetected;
     public final boolean fat;
     public final boolean locksDetected;
     public final boolean constructedObjectsDetected;
@@ -28,14 +27,13 @@ public final class SpeculativeGammaConfiguration {
      * Creates a full speculative SpeculativeGammaConfiguration.
      */
     public SpeculativeGammaConfiguration() {
-        this(false, false, false, false, false, false, false, false, false, false, 1);
+        this(false, false, false, false, false, false, false, false, false, 1);
     }
 
     public SpeculativeGammaConfiguration(
             final boolean isFat,
             final boolean listenersDetected,
             final boolean isCommuteDetected,
-            final boolean isNonRefTypeDetected,
             final boolean isOrelseDetected,
             final boolean locksDetected,
             final boolean constructedObjectsDetected,
@@ -54,7 +52,6 @@ public final class SpeculativeGammaConfiguration {
         this.locksDetected = locksDetected;
         this.commuteDetected = isCommuteDetected;
         this.richMansConflictScanRequired = isRichMansConflictScanRequired;
-        this.nonRefTypeDetected = isNonRefTypeDetected;
         this.orelseDetected = isOrelseDetected;
         this.minimalLength = minimalLength;
         this.abortOnlyDetected = isAbortOnlyDetected;
@@ -71,7 +68,7 @@ public final class SpeculativeGammaConfiguration {
         }
 
         return new SpeculativeGammaConfiguration(
-                fat, listenersDetected, commuteDetected, nonRefTypeDetected, orelseDetected,
+                fat, listenersDetected, commuteDetected, orelseDetected,
                 locksDetected, constructedObjectsDetected, richMansConflictScanRequired,
                 abortOnlyDetected, ensureDetected, newMinimalLength);
     }
@@ -82,7 +79,7 @@ public final class SpeculativeGammaConfiguration {
         }
 
         return new SpeculativeGammaConfiguration(
-                true, listenersDetected, commuteDetected, nonRefTypeDetected, orelseDetected, true,
+                true, listenersDetected, commuteDetected, orelseDetected, true,
                 constructedObjectsDetected, richMansConflictScanRequired, abortOnlyDetected, ensureDetected, minimalLength);
     }
 
@@ -92,7 +89,7 @@ public final class SpeculativeGammaConfiguration {
         }
 
         return new SpeculativeGammaConfiguration(
-                true, listenersDetected, commuteDetected, nonRefTypeDetected, orelseDetected, locksDetected,
+                true, listenersDetected, commuteDetected, orelseDetected, locksDetected,
                 constructedObjectsDetected, richMansConflictScanRequired, true, ensureDetected, minimalLength);
     }
 
@@ -102,7 +99,7 @@ public final class SpeculativeGammaConfiguration {
         }
 
         return new SpeculativeGammaConfiguration(
-                true, listenersDetected, commuteDetected, nonRefTypeDetected, orelseDetected, locksDetected,
+                true, listenersDetected, commuteDetected, orelseDetected, locksDetected,
                 true, richMansConflictScanRequired, abortOnlyDetected, ensureDetected, minimalLength);
     }
 
@@ -112,7 +109,7 @@ public final class SpeculativeGammaConfiguration {
         }
 
         return new SpeculativeGammaConfiguration(
-                true, true, commuteDetected, nonRefTypeDetected, orelseDetected, locksDetected,
+                true, true, commuteDetected, orelseDetected, locksDetected,
                 constructedObjectsDetected, richMansConflictScanRequired, abortOnlyDetected, ensureDetected, minimalLength);
     }
 
@@ -122,17 +119,7 @@ public final class SpeculativeGammaConfiguration {
         }
 
         return new SpeculativeGammaConfiguration(
-                true, listenersDetected, commuteDetected, nonRefTypeDetected, true, locksDetected,
-                constructedObjectsDetected, richMansConflictScanRequired, abortOnlyDetected, ensureDetected, minimalLength);
-    }
-
-    public SpeculativeGammaConfiguration newWithNonRefType() {
-        if (nonRefTypeDetected) {
-            return this;
-        }
-
-        return new SpeculativeGammaConfiguration(
-                true, listenersDetected, commuteDetected, true, orelseDetected, locksDetected,
+                true, listenersDetected, commuteDetected, true, locksDetected,
                 constructedObjectsDetected, richMansConflictScanRequired, abortOnlyDetected, ensureDetected, minimalLength);
     }
 
@@ -142,7 +129,7 @@ public final class SpeculativeGammaConfiguration {
         }
 
         return new SpeculativeGammaConfiguration(
-                true, listenersDetected, true, nonRefTypeDetected, orelseDetected, locksDetected,
+                true, listenersDetected, true, orelseDetected, locksDetected,
                 constructedObjectsDetected, richMansConflictScanRequired, abortOnlyDetected, ensureDetected, minimalLength);
     }
 
@@ -152,7 +139,7 @@ public final class SpeculativeGammaConfiguration {
         }
 
         return new SpeculativeGammaConfiguration(
-                true, listenersDetected, commuteDetected, nonRefTypeDetected, orelseDetected, locksDetected,
+                true, listenersDetected, commuteDetected, orelseDetected, locksDetected,
                 constructedObjectsDetected, true, abortOnlyDetected, ensureDetected, minimalLength);
     }
 
@@ -163,7 +150,7 @@ public final class SpeculativeGammaConfiguration {
         }
 
         return new SpeculativeGammaConfiguration(
-                true, listenersDetected, commuteDetected, nonRefTypeDetected, orelseDetected, locksDetected,
+                true, listenersDetected, commuteDetected, orelseDetected, locksDetected,
                 constructedObjectsDetected, true, abortOnlyDetected, true, minimalLength);
     }
 
@@ -173,7 +160,6 @@ public final class SpeculativeGammaConfiguration {
                 " isFat=" + fat +
                 ", listenersDetected=" + listenersDetected +
                 ", commuteDetected=" + commuteDetected +
-                ", nonRefTypeDetected=" + nonRefTypeDetected +
                 ", locksDetected=" + locksDetected +
                 ", orelseDetected=" + orelseDetected +
                 ", minimalLength=" + minimalLength +
@@ -0,0 +1,290 @@
+package org.multiverse.stms.gamma.transactions;
+
+import org.multiverse.utils.Stripes;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link SpeculativeGammaConfiguration} of a {@link GammaTxnConfig} only grows: once a speculation fails, the
+ * transactions of the family are upgraded for good. So a single orelse, lock or long transaction during warm up
+ * would pin the family to an expensive transaction forever.
+ * <p/>
+ * The SpeculativeGammaLearner undoes that. The transactions of the family are counted in windows of
+ * {@link GammaTxnConfig#speculativeRelearnInterval} transactions and the throughput of every window is measured. If
+ * the family has been upgraded, the initial speculative configuration is tried again for one window (the probe). If
+ * the probe has a lower throughput than the upgraded configuration, the upgraded configuration is restored. If the
+ * probe was slower or the family needed an upgrade again during the probe, the number of windows till the next probe
+ * is doubled (up to {@link #MAX_PROBE_DELAY}), so a family that really needs the upgrade rarely pays for a probe.
+ * <p/>
+ * The throughput is the number of commits per second spent in the transactions, from the start of the first attempt
+ * till the commit (so including the attempts that failed on a conflict or a speculative configuration error). The
+ * number of transactions started per second isn't used, since that only shows how busy the application is. To keep
+ * the overhead low, only one transaction per batch of every stripe is timed.
+ * <p/>
+ * The transactions are counted in striped counters (see {@link Stripes}) and only added to the window once per batch,
+ * so the threads don't contend on the counters. A counter is taken out of its stripe while it is updated, so the
+ * number of counters depends on the number of processors and not on the number of threads that run the family.
+ * Since the window is completed by the first thread that sees it is full, the counts of the other stripes can spill
+ * over to the next window. So just like the speculative configuration itself, the learned
+ * state should only be used as a hint.
+ *
+ * @author Peter Veentjer.
+ */
+public final class SpeculativeGammaLearner {
+
+    public static final int MAX_PROBE_DELAY = 64;
+
+    public static final int PHASE_MEASURING = 0;
+    public static final int PHASE_PROBING = 1;
+
+    //the maximum number of transactions a stripe counts before they are added to the window.
+    public static final int MAX_BATCH_SIZE = 64;
+
+    private final GammaTxnConfig config;
+    private final SpeculativeGammaConfiguration initial;
+    private final int interval;
+    private final int batchSize;
+    private final AtomicBoolean windowLock = new AtomicBoolean();
+    private final AtomicInteger windowTxCount = new AtomicInteger();
+    private final AtomicInteger windowSampledCommits = new AtomicInteger();
+    private final AtomicLong windowSampledNs = new AtomicLong();
+    private final Stripes<StripeCounter> counters = new Stripes<StripeCounter>();
+
+    private volatile int phase = PHASE_MEASURING;
+    private volatile SpeculativeGammaConfiguration learned;
+    private volatile double learnedThroughput;
+    private volatile double lastThroughput;
+    private volatile int probeDelay = 1;
+    private int windowsTillProbe = 1;
+    private volatile long probeCount;
+    private volatile long downgradeCount;
+
+    public SpeculativeGammaLearner(GammaTxnConfig config, SpeculativeGammaConfiguration initial) {
+        if (config.speculativeRelearnInterval <= 0) {
+            throw new IllegalArgumentException("speculativeRelearnInterval should be larger than 0");
+        }
+
+        this.config = config;
+        this.initial = initial;
+        this.interval = config.speculativeRelearnInterval;
+        //the counters shared by the threads are updated about 16 times per window.
+        this.batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, interval / 16));
+    }
+
+    /**
+     * Registers the start of a transaction of the family. A transaction that is replaced after a speculative
+     * configuration error is the same transaction, so it shouldn't be registered again.
+     *
+     * @return the System.nanoTime() if the transaction is timed, or 0 if it isn't. Should be passed to
+     *         {@link #registerCommit(long)} when the transaction commits.
+     */
+    public long startTxn() {
+        final StripeCounter counter = takeCounter();
+        final int count = counter.txCount + 1;
+        if (count < batchSize) {
+            counter.txCount = count;
+            putCounter(counter);
+            return 0;
+        }
+
+        counter.txCount = 0;
+        final int sampledCommits = counter.sampledCommits;
+        final long sampledNs = counter.sampledNs;
+        counter.sampledCommits = 0;
+        counter.sampledNs = 0;
+        putCounter(counter);
+
+        addToWindow(count, sampledCommits, sampledNs);
+
+        //the last transaction of the batch is timed.
+        return System.nanoTime();
+    }
+
+    /**
+     * Registers the commit of a transaction started with {@link #startTxn()}.
+     *
+     * @param startNs the value returned by startTxn.
+     */
+    public void registerCommit(long startNs) {
+        if (startNs == 0) {
+            return;
+        }
+
+        final StripeCounter counter = takeCounter();
+        counter.sampledCommits++;
+        counter.sampledNs += Math.max(1, System.nanoTime() - startNs);
+        putCounter(counter);
+    }
+
+    private StripeCounter takeCounter() {
+        final StripeCounter counter = counters.take();
+        //the stripe is empty the first time it is used, or when another thread is updating its counter.
+        return counter == null ? new StripeCounter() : counter;
+    }
+
+    private void putCounter(final StripeCounter counter) {
+        if (counters.put(counter)) {
+            return;
+        }
+
+        //the stripe has been filled in the meantime, so the counts of the dropped counter are added to the window.
+        if (counter.txCount > 0 || counter.sampledCommits > 0) {
+            addToWindow(counter.txCount, counter.sampledCommits, counter.sampledNs);
+        }
+    }
+
+    private void addToWindow(final int txCount, final int sampledCommits, final long sampledNs) {
+        if (sampledCommits > 0) {
+            windowSampledCommits.addAndGet(sampledCommits);
+            windowSampledNs.addAndGet(sampledNs);
+        }
+
+        if (windowTxCount.addAndGet(txCount) >= interval && windowLock.compareAndSet(false, true)) {
+            try {
+                completeWindow();
+            } finally {
+                windowLock.set(false);
+            }
+        }
+    }
+
+    private void completeWindow() {
+        windowTxCount.set(0);
+        final int sampledCommits = windowSampledCommits.getAndSet(0);
+        final long sampledNs = windowSampledNs.getAndSet(0);
+        if (sampledCommits == 0) {
+            //nothing has been timed yet, so there is nothing to compare.
+            return;
+        }
+
+        final double throughput = (sampledCommits * 1000000000d) / sampledNs;
+        lastThroughput = throughput;
+
+        final SpeculativeGammaConfiguration current = config.speculativeConfiguration.get();
+        if (phase == PHASE_PROBING) {
+            if (throughput < learnedThroughput) {
+                //the probe lost, so the learned configuration is restored.
+                config.speculativeConfiguration.compareAndSet(current, learned);
+            }
+
+            if (throughput < learnedThroughput || current != initial) {
+                //the family still needs an upgrade, so the next probe is delayed.
+                probeDelay = Math.min(probeDelay * 2, MAX_PROBE_DELAY);
+            } else {
+                downgradeCount++;
+                probeDelay = 1;
+            }
+            windowsTillProbe = probeDelay;
+            phase = PHASE_MEASURING;
+        } else if (current != initial) {
+            windowsTillProbe--;
+            if (windowsTillProbe <= 0 && config.speculativeConfiguration.compareAndSet(current, initial)) {
+                learned = current;
+                learnedThroughput = throughput;
+                probeCount++;
+                phase = PHASE_PROBING;
+            }
+        }
+    }
+
+    /**
+     * Returns the SpeculativeGammaConfiguration the family started with and that is probed again.
+     *
+     * @return the initial SpeculativeGammaConfiguration.
+     */
+    public SpeculativeGammaConfiguration getInitialConfiguration() {
+        return initial;
+    }
+
+    /**
+     * Returns the SpeculativeGammaConfiguration currently in use by the family.
+     *
+     * @return the current SpeculativeGammaConfiguration.
+     */
+    public SpeculativeGammaConfiguration getCurrentConfiguration() {
+        return config.speculativeConfiguration.get();
+    }
+
+    /**
+     * Returns the upgraded SpeculativeGammaConfiguration that was replaced by the last probe.
+     *
+     * @return the learned SpeculativeGammaConfiguration, or null if no probe has been done.
+     */
+    public SpeculativeGammaConfiguration getLearnedConfiguration() {
+        return learned;
+    }
+
+    /**
+     * Returns the phase of the learner: {@link #PHASE_MEASURING} or {@link #PHASE_PROBING}.
+     *
+     * @return the phase.
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Returns the throughput in commits per second spent in transactions of the learned configuration, measured just
+     * before the last probe started.
+     *
+     * @return the learned throughput.
+     */
+    public double getLearnedThroughput() {
+        return learnedThroughput;
+    }
+
+    /**
+     * Returns the throughput in commits per second spent in transactions of the last completed window.
+     *
+     * @return the throughput of the last window.
+     */
+    public double getLastThroughput() {
+        return lastThroughput;
+    }
+
+    public long getProbeCount() {
+        return probeCount;
+    }
+
+    /**
+     * Returns the number of probes that were kept because they were faster than the learned configuration.
+     *
+     * @return the number of downgrades.
+     */
+    public long getDowngradeCount() {
+        return downgradeCount;
+    }
+
+    public int getProbeDelay() {
+        return probeDelay;
+    }
+
+    @Override
+    public String toString() {
+        return "SpeculativeGammaLearner{" +
+                "familyName='" + config.familyName + '\'' +
+                ", phase=" + (phase == PHASE_PROBING ? "probing" : "measuring") +
+                ", interval=" + interval +
+                ", current=" + config.speculativeConfiguration.get() +
+                ", learned=" + learned +
+                ", learnedThroughput=" + learnedThroughput +
+                ", lastThroughput=" + lastThroughput +
+                ", probeCount=" + probeCount +
+                ", downgradeCount=" + downgradeCount +
+                ", probeDelay=" + probeDelay +
+                '}';
+    }
+
+    //the transactions a stripe counted, but not yet added to the window.
+    private static final class StripeCounter {
+        int txCount;
+        int sampledCommits;
+        long sampledNs;
+    }
+}
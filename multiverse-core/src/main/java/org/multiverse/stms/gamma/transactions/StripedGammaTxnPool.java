@@ -0,0 +1,47 @@
+package org.multiverse.stms.gamma.transactions;
+
+import org.multiverse.utils.Stripes;
+
+/**
+ * A shared pool of {@link GammaTxnPool} instances that can be used instead of the {@link ThreadLocalGammaTxnPool}.
+ * It is made for a lot of (virtual) threads that each only execute a few transactions; with a threadlocal each of
+ * these threads would get its own GammaTxnPool (including the pooled transactions), while with the striped pool the
+ * number of GammaTxnPools is bounded by the number of stripes.
+ *
+ * <p>A GammaTxnPool isn't threadsafe, so it is taken out of its stripe for the duration of a transaction and put back
+ * afterwards. If the stripe is empty because another thread is using the GammaTxnPool, a new one is created. Since
+ * only a few threads (for virtual threads: the carrier threads) run at the same time, this rarely happens.
+ *
+ * @author Peter Veentjer.
+ */
+public final class StripedGammaTxnPool {
+
+    private final static Stripes<GammaTxnPool> stripes = new Stripes<GammaTxnPool>();
+
+    /**
+     * Takes the GammaTxnPool from the stripe of the current thread. If the stripe is empty, a new GammaTxnPool is
+     * created. The returned GammaTxnPool can be used exclusively by the current thread until it is put back
+     * using {@link #putStripedGammaTxnPool(GammaTxnPool)}.
+     *
+     * @return the GammaTxnPool.
+     */
+    public static GammaTxnPool takeStripedGammaTxnPool() {
+        final GammaTxnPool pool = stripes.take();
+        return pool == null ? new GammaTxnPool() : pool;
+    }
+
+    /**
+     * Puts the GammaTxnPool back in the stripe of the current thread. If the stripe already contains a GammaTxnPool,
+     * the GammaTxnPool is dropped.
+     *
+     * @param pool the GammaTxnPool to put back.
+     */
+    public static void putStripedGammaTxnPool(final GammaTxnPool pool) {
+        stripes.put(pool);
+    }
+
+    //we don't want any instances.
+
+    private StripedGammaTxnPool() {
+    }
+}
@@ -2,9 +2,11 @@ package org.multiverse.stms.gamma.transactions.fat;
 
 import org.multiverse.api.lifecycle.TxnEvent;
 import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GlobalCommitClock;
 import org.multiverse.stms.gamma.Listeners;
 import org.multiverse.stms.gamma.transactionalobjects.BaseGammaTxnRef;
 import org.multiverse.stms.gamma.transactionalobjects.GammaObject;
+import org.multiverse.stms.gamma.transactionalobjects.LinkedTranlocal;
 import org.multiverse.stms.gamma.transactionalobjects.Tranlocal;
 import org.multiverse.stms.gamma.transactions.GammaTxn;
 import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
@@ -18,10 +20,18 @@ import static org.multiverse.utils.Bugshaker.shakeBugs;
  */
 public final class FatFixedLengthGammaTxn extends GammaTxn {
 
-    public Tranlocal head;
+    //the tranlocals in the order they are opened. The ones that are not used (owner is null) are at the end, so
+    //lookups and commits scan the array from the start until they hit an unused tranlocal.
+    public final Tranlocal[] array;
+    //the head of the chain the lookups walk if the tranlocals are linked (see GammaStmConfig.linkedTranlocalsEnabled),
+    //null otherwise. Only the lookups use the chain; the other scans still use the array.
+    public LinkedTranlocal head;
     public int size = 0;
     public boolean hasReads = false;
     public long localConflictCount;
+    public long readDomains;
+    public long readVersion;
+    public long[] localDomainConflictCounts;
     public final Listeners[] listenersArray;
 
     public FatFixedLengthGammaTxn(final GammaStm stm) {
@@ -34,17 +44,15 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
 
         listenersArray = new Listeners[config.maxFixedLengthTransactionSize];
 
-        Tranlocal h = null;
-        for (int k = 0; k < config.maxFixedLengthTransactionSize; k++) {
-            Tranlocal newNode = new Tranlocal();
-            if (h != null) {
-                h.previous = newNode;
-                newNode.next = h;
-            }
+        final boolean linked = config.stm.linkedTranlocalsEnabled;
+        array = new Tranlocal[config.maxFixedLengthTransactionSize];
+        for (int k = 0; k < array.length; k++) {
+            array[k] = linked ? new LinkedTranlocal() : new Tranlocal();
+        }
 
-            h = newNode;
+        if (linked) {
+            linkInArrayOrder();
         }
-        head = h;
     }
 
     @Override
@@ -57,6 +65,11 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
             throw abortCommitOnBadStatus();
         }
 
+        if (handoffOwner != null && !isHandoffOwnerWritten()) {
+            //the wake-up this transaction could have been handed isn't used, so it is passed on.
+            passOnHandoff();
+        }
+
         if (abortOnly) {
             throw abortCommitOnAbortOnly();
         }
@@ -72,10 +85,14 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
                     if (o != null) {
                         throw abortOnReadWriteConflict(o);
                     }
+
+                    if (isAbortRequested()) {
+                        throw abortOnAbortRequested();
+                    }
                 }
 
                 if (commitConflict) {
-                    config.globalConflictCounter.signalConflict();
+                    signalCommitConflict();
                 }
 
                 final Listeners[] listenersArray = commitChain();
@@ -87,29 +104,32 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
             }
         }
 
+        releaseSnapshot();
+        releaseIrrevocableToken();
         status = TX_COMMITTED;
         notifyListeners(TxnEvent.PostCommit);
     }
 
     private Listeners[] commitChain() {
+        final long writeVersion = nextWriteVersion();
         int listenersIndex = 0;
-        Tranlocal node = head;
-        do {
+        final Tranlocal[] array = this.array;
+        for (int k = 0; k < array.length; k++) {
             if (SHAKE_BUGS) shakeBugs();
 
+            final Tranlocal node = array[k];
             final BaseGammaTxnRef owner = node.owner;
             //if we are at the end, we can return the listenersArray.
             if (owner == null) {
                 return listenersArray;
             }
 
-            final Listeners listeners = owner.commit(node, pool);
+            final Listeners listeners = owner.commit(node, pool, writeVersion);
             if (listeners != null) {
                 listenersArray[listenersIndex] = listeners;
                 listenersIndex++;
             }
-            node = node.next;
-        } while (node != null);
+        }
 
         return listenersArray;
     }
@@ -135,6 +155,10 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
             throw abortOnReadWriteConflict(o);
         }
 
+        if (isAbortRequested()) {
+            throw abortOnAbortRequested();
+        }
+
         status = TX_PREPARED;
     }
 
@@ -144,9 +168,9 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
             return null;
         }
 
-        Tranlocal node = head;
-
-        do {
+        final Tranlocal[] array = this.array;
+        for (int k = 0; k < array.length; k++) {
+            final Tranlocal node = array[k];
             final BaseGammaTxnRef owner = node.owner;
 
             if (owner == null) {
@@ -157,9 +181,7 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
             if (!owner.prepare(this, node)) {
                 return owner;
             }
-
-            node = node.next;
-        } while (node != null);
+        }
 
         return null;
     }
@@ -174,14 +196,21 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
             throw failAbortOnAlreadyCommitted();
         }
 
+        if (handoffOwner != null) {
+            passOnHandoff();
+        }
+
         releaseChain(false);
+        releaseSnapshot();
+        releaseIrrevocableToken();
         status = TX_ABORTED;
         notifyListeners(TxnEvent.PostAbort);
     }
 
     private void releaseChain(final boolean success) {
-        Tranlocal node = head;
-        while (node != null) {
+        final Tranlocal[] array = this.array;
+        for (int k = 0; k < array.length; k++) {
+            final Tranlocal node = array[k];
             final BaseGammaTxnRef owner = node.owner;
 
             if (owner == null) {
@@ -194,15 +223,14 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
             } else {
                 owner.releaseAfterFailure(node, pool);
             }
-
-            node = node.next;
         }
     }
 
     @Override
     public final Tranlocal getRefTranlocal(final BaseGammaTxnRef ref) {
-        Tranlocal node = head;
-        while (node != null) {
+        final Tranlocal[] array = this.array;
+        for (int k = 0; k < array.length; k++) {
+            final Tranlocal node = array[k];
             //noinspection ObjectEquality
             if (node.owner == ref) {
                 return node;
@@ -211,12 +239,82 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
             if (node.owner == null) {
                 return null;
             }
+        }
+        return null;
+    }
 
-            node = node.next;
+    /**
+     * Looks up the tranlocal of the ref. If the ref isn't opened yet, the first unused tranlocal is returned (so its
+     * owner is null), or null if all tranlocals are in use.
+     * <p/>
+     * If the tranlocals are linked, the chain is walked and the tranlocal that is returned is moved in front. An
+     * unused tranlocal that is returned is taken into use right away (or the transaction aborts), and the unused ones
+     * keep their array order in the chain, so the used tranlocals still are at the start of the array.
+     *
+     * @param ref the ref to look up.
+     * @return the found tranlocal, the first unused tranlocal or null.
+     */
+    public final Tranlocal lookup(final BaseGammaTxnRef ref) {
+        if (head != null) {
+            return lookupInChain(ref);
+        }
+
+        final Tranlocal[] array = this.array;
+        for (int k = 0; k < array.length; k++) {
+            final Tranlocal node = array[k];
+            //noinspection ObjectEquality
+            if (node.owner == ref || node.owner == null) {
+                return node;
+            }
         }
         return null;
     }
 
+    private Tranlocal lookupInChain(final BaseGammaTxnRef ref) {
+        LinkedTranlocal node = head;
+        do {
+            //noinspection ObjectEquality
+            if (node.owner == ref || node.owner == null) {
+                shiftInFront(node);
+                return node;
+            }
+            node = node.next;
+        } while (node != null);
+        return null;
+    }
+
+    private void shiftInFront(final LinkedTranlocal newHead) {
+        //noinspection ObjectEquality
+        if (newHead == head) {
+            return;
+        }
+
+        newHead.previous.next = newHead.next;
+        if (newHead.next != null) {
+            newHead.next.previous = newHead.previous;
+        }
+        newHead.previous = null;
+        newHead.next = head;
+        head.previous = newHead;
+        head = newHead;
+    }
+
+    private void linkInArrayOrder() {
+        final Tranlocal[] array = this.array;
+        LinkedTranlocal previous = null;
+        for (int k = 0; k < array.length; k++) {
+            final LinkedTranlocal node = (LinkedTranlocal) array[k];
+            node.previous = previous;
+            node.next = null;
+            if (previous == null) {
+                head = node;
+            } else {
+                previous.next = node;
+            }
+            previous = node;
+        }
+    }
+
     @Override
     public final void retry() {
         if (status != TX_ACTIVE) {
@@ -231,18 +329,28 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
             throw abortRetryOnNoRetryPossible();
         }
 
+        if (handoffOwner != null) {
+            passOnHandoff();
+        }
+
         retryListener.reset();
         final long listenerEra = retryListener.getEra();
 
         boolean furtherRegistrationNeeded = true;
         boolean atLeastOneRegistration = false;
 
-        Tranlocal tranlocal = head;
-        do {
+        final Tranlocal[] array = this.array;
+        for (int k = 0; k < array.length; k++) {
+            final Tranlocal tranlocal = array[k];
             final BaseGammaTxnRef owner = tranlocal.owner;
 
+            if (owner == null) {
+                break;
+            }
+
             if (furtherRegistrationNeeded) {
-                switch (owner.registerChangeListener(retryListener, tranlocal, pool, listenerEra)) {
+                switch (owner.registerChangeListener(retryListener, tranlocal, pool, listenerEra,
+                        getRetryPredicate(owner), isRetryHandoff(owner))) {
                     case REGISTRATION_DONE:
                         atLeastOneRegistration = true;
                         break;
@@ -258,9 +366,10 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
             }
 
             owner.releaseAfterFailure(tranlocal, pool);
-            tranlocal = tranlocal.next;
-        } while (tranlocal != null && tranlocal.owner != null);
+        }
 
+        releaseSnapshot();
+        releaseIrrevocableToken();
         status = TX_ABORTED;
 
         if (!atLeastOneRegistration) {
@@ -286,22 +395,37 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
 
     @Override
     public final void hardReset() {
+        releaseIrrevocableToken();
+
         if (listeners != null) {
             listeners.clear();
             pool.putArrayList(listeners);
             listeners = null;
         }
 
+        releaseSnapshot();
         status = TX_ACTIVE;
         hasWrites = false;
         size = 0;
+        if (head != null) {
+            linkInArrayOrder();
+        }
         remainingTimeoutNs = config.timeoutNs;
-        richmansMansConflictScan = config.speculativeConfiguration.get().richMansConflictScanRequired;
+        resetContentionState();
+        richmansMansConflictScan = config.globalCommitClock == null
+                && config.speculativeConfiguration.get().richMansConflictScanRequired;
+        final int domainCount = config.globalConflictCounter.getDomainCount();
+        if (localDomainConflictCounts == null || localDomainConflictCounts.length < domainCount) {
+            localDomainConflictCounts = new long[domainCount];
+        }
         attempt = 1;
         hasReads = false;
+        readDomains = 0;
         abortOnly = false;
         commitConflict = false;
+        commitConflictDomains = 0;
         evaluatingCommute = false;
+        acquireIrrevocableToken();
     }
 
     @Override
@@ -310,6 +434,8 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
             return false;
         }
 
+        releaseIrrevocableToken();
+
         if (listeners != null) {
             listeners.clear();
             pool.putArrayList(listeners);
@@ -317,35 +443,35 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
         }
 
         commitConflict = false;
+        commitConflictDomains = 0;
+        releaseSnapshot();
         status = TX_ACTIVE;
         hasWrites = false;
+        retainContentionState(size);
         size = 0;
+        if (head != null) {
+            linkInArrayOrder();
+        }
         hasReads = false;
+        readDomains = 0;
         abortOnly = false;
         attempt++;
         evaluatingCommute = false;
+        acquireIrrevocableToken();
         return true;
     }
 
-    public final void shiftInFront(Tranlocal newHead) {
-        //noinspection ObjectEquality
-        if (newHead == head) {
-            return;
-        }
-
-
-        head.previous = newHead;
-        if (newHead.next != null) {
-            newHead.next.previous = newHead.previous;
-        }
-        newHead.previous.next = newHead.next;
-        newHead.next = head;
-        newHead.previous = null;
-        head = newHead;
+    @Override
+    public final int getKarma() {
+        return karma + size;
     }
 
     @Override
     public final boolean isReadConsistent(Tranlocal justAdded) {
+        if (isAbortRequested()) {
+            return false;
+        }
+
         if (!hasReads) {
             return true;
         }
@@ -358,6 +484,41 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
             return true;
         }
 
+        final GlobalCommitClock globalCommitClock = config.globalCommitClock;
+        if (globalCommitClock != null) {
+            if (justAdded.version <= readVersion) {
+                return true;
+            }
+
+            //a readonly transaction with a snapshot can read the value as of its read version from the history.
+            if (snapshotClock != null
+                    && justAdded.lockMode == LOCKMODE_NONE
+                    && justAdded.owner.___loadHistory(justAdded, readVersion)) {
+                return true;
+            }
+
+            //the justAdded is newer than the read version, so the read version needs to be extended. This is only
+            //allowed if nothing that has been read before has changed. The time needs to be read before the scan.
+            final long newReadVersion = globalCommitClock.time();
+            final Tranlocal[] array = this.array;
+            for (int k = 0; k < array.length; k++) {
+                final Tranlocal node = array[k];
+                if (node.owner == null) {
+                    break;
+                }
+
+                if (SHAKE_BUGS) shakeBugs();
+
+                //noinspection ObjectEquality
+                if (node != justAdded && node.owner.hasReadConflict(node)) {
+                    return false;
+                }
+            }
+
+            readVersion = newReadVersion;
+            return true;
+        }
+
         if (richmansMansConflictScan) {
             if (SHAKE_BUGS) shakeBugs();
 
@@ -368,16 +529,23 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
             }
 
             localConflictCount = currentConflictCount;
+
+            //only the domains this transaction has read from are interesting.
+            if (!config.globalConflictCounter.hasConflictSince(readDomains, localDomainConflictCounts)) {
+                return true;
+            }
             //we are going to fall through to do a full conflict scan
         } else if (size > config.maximumPoorMansConflictScanLength) {
             throw abortOnRichmanConflictScanDetected();
         }
 
         //doing a full conflict scan
-        Tranlocal node = head;
-        while (node != null) {
+        fullConflictScanCount++;
+        final Tranlocal[] array = this.array;
+        for (int k = 0; k < array.length; k++) {
             if (SHAKE_BUGS) shakeBugs();
 
+            final Tranlocal node = array[k];
             //if we are at the end, we are done.
             if (node.owner == null) {
                 break;
@@ -387,17 +555,30 @@ public final class FatFixedLengthGammaTxn extends GammaTxn {
             if (!skip && node.owner.hasReadConflict(node)) {
                 return false;
             }
-
-            node = node.next;
         }
 
         return true;
     }
 
     @Override
-    public void initLocalConflictCounter() {
-        if (richmansMansConflictScan && !hasReads) {
+    public void initLocalConflictCounter(final BaseGammaTxnRef ref) {
+        if (!hasReads) {
             localConflictCount = config.globalConflictCounter.count();
+            if (config.globalCommitClock != null) {
+                readVersion = initReadVersion(config.globalCommitClock);
+            }
+        }
+
+        if (!richmansMansConflictScan) {
+            return;
+        }
+
+        final int domain = ref.getConflictDomain();
+        final long domainMask = 1L << domain;
+        if ((readDomains & domainMask) == 0) {
+            //the count needs to be read before the ref is loaded.
+            localDomainConflictCounts[domain] = config.globalConflictCounter.count(domain);
+            readDomains |= domainMask;
         }
     }
 }
@@ -44,6 +44,11 @@ public final class FatMonoGammaTxn extends GammaTxn {
             throw abortCommitOnBadStatus();
         }
 
+        if (handoffOwner != null && !isHandoffOwnerWritten()) {
+            //the wake-up this transaction could have been handed isn't used, so it is passed on.
+            passOnHandoff();
+        }
+
         if (abortOnly) {
             throw abortCommitOnAbortOnly();
         }
@@ -62,10 +67,14 @@ public final class FatMonoGammaTxn extends GammaTxn {
                             throw abortOnReadWriteConflict(owner);
                         }
                     }
+
+                    if (isAbortRequested()) {
+                        throw abortOnAbortRequested();
+                    }
                 }
 
                 if (commitConflict) {
-                    config.globalConflictCounter.signalConflict();
+                    signalCommitConflict();
                 }
 
                 Listeners listeners = owner.commit(tranlocal, pool);
@@ -78,6 +87,7 @@ public final class FatMonoGammaTxn extends GammaTxn {
         }
 
         tranlocal.owner = null;
+        releaseIrrevocableToken();
         status = TX_COMMITTED;
         notifyListeners(TxnEvent.PostCommit);
     }
@@ -92,11 +102,16 @@ public final class FatMonoGammaTxn extends GammaTxn {
             throw failAbortOnAlreadyCommitted();
         }
 
+        if (handoffOwner != null) {
+            passOnHandoff();
+        }
+
         status = TX_ABORTED;
         BaseGammaTxnRef owner = tranlocal.owner;
         if (owner != null) {
             owner.releaseAfterFailure(tranlocal, pool);
         }
+        releaseIrrevocableToken();
 
         notifyListeners(TxnEvent.PostAbort);
     }
@@ -122,6 +137,10 @@ public final class FatMonoGammaTxn extends GammaTxn {
             if (!owner.prepare(this, tranlocal)) {
                 throw abortOnReadWriteConflict(owner);
             }
+
+            if (isAbortRequested()) {
+                throw abortOnAbortRequested();
+            }
         }
 
         status = TX_PREPARED;
@@ -152,11 +171,16 @@ public final class FatMonoGammaTxn extends GammaTxn {
             throw abortRetryOnNoRetryPossible();
         }
 
+        if (handoffOwner != null) {
+            passOnHandoff();
+        }
+
         retryListener.reset();
         final long listenerEra = retryListener.getEra();
 
         boolean atLeastOneRegistration = false;
-        switch (tranlocal.owner.registerChangeListener(retryListener, tranlocal, pool, listenerEra)) {
+        switch (owner.registerChangeListener(retryListener, tranlocal, pool, listenerEra,
+                getRetryPredicate(owner), isRetryHandoff(owner))) {
             case REGISTRATION_DONE:
                 atLeastOneRegistration = true;
                 break;
@@ -171,6 +195,7 @@ public final class FatMonoGammaTxn extends GammaTxn {
 
         owner.releaseAfterFailure(tranlocal, pool);
 
+        releaseIrrevocableToken();
         status = TX_ABORTED;
 
         if (!atLeastOneRegistration) {
@@ -186,6 +211,8 @@ public final class FatMonoGammaTxn extends GammaTxn {
             return false;
         }
 
+        releaseIrrevocableToken();
+
         if (listeners != null) {
             listeners.clear();
             pool.putArrayList(listeners);
@@ -194,15 +221,20 @@ public final class FatMonoGammaTxn extends GammaTxn {
 
         status = TX_ACTIVE;
         hasWrites = false;
+        retainContentionState(1);
         attempt++;
         abortOnly = false;
         commitConflict = false;
+        commitConflictDomains = 0;
         evaluatingCommute = false;
+        acquireIrrevocableToken();
         return true;
     }
 
     @Override
     public final void hardReset() {
+        releaseIrrevocableToken();
+
         if (listeners != null) {
             listeners.clear();
             pool.putArrayList(listeners);
@@ -212,10 +244,13 @@ public final class FatMonoGammaTxn extends GammaTxn {
         status = TX_ACTIVE;
         hasWrites = false;
         remainingTimeoutNs = config.timeoutNs;
+        resetContentionState();
         attempt = 1;
         abortOnly = false;
         commitConflict = false;
+        commitConflictDomains = 0;
         evaluatingCommute = false;
+        acquireIrrevocableToken();
     }
 
     @Override
@@ -224,7 +259,7 @@ public final class FatMonoGammaTxn extends GammaTxn {
     }
 
     @Override
-    public void initLocalConflictCounter() {
+    public void initLocalConflictCounter(BaseGammaTxnRef ref) {
         //ignore
     }
 }
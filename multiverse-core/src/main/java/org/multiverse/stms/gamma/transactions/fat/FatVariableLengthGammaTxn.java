@@ -1,7 +1,13 @@
 package org.multiverse.stms.gamma.transactions.fat;
 
+import org.multiverse.api.TxnFork;
+import org.multiverse.api.callables.TxnCallable;
+import org.multiverse.api.exceptions.DeadTxnException;
+import org.multiverse.api.exceptions.InvisibleCheckedException;
+import org.multiverse.api.exceptions.RetryError;
 import org.multiverse.api.lifecycle.TxnEvent;
 import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GlobalCommitClock;
 import org.multiverse.stms.gamma.Listeners;
 import org.multiverse.stms.gamma.transactionalobjects.BaseGammaTxnRef;
 import org.multiverse.stms.gamma.transactionalobjects.GammaObject;
@@ -10,15 +16,50 @@ import org.multiverse.stms.gamma.transactions.GammaTxn;
 import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
 import org.multiverse.stms.gamma.transactions.SpeculativeGammaConfiguration;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static java.lang.String.format;
 import static org.multiverse.utils.Bugshaker.shakeBugs;
 
 @SuppressWarnings({"OverlyComplexClass"})
 public final class FatVariableLengthGammaTxn extends GammaTxn {
 
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+    private static final int BLOOM_HASH = 0x85EBCA6B;
+    //the number of bits of the bloom filter per slot of the array.
+    private static final int BLOOM_BITS_PER_SLOT = 8;
+
+    //the hash table used to find the tranlocal of a ref. The length is a power of 2 and it uses linear probing.
     public Tranlocal[] array;
+    //a bloom filter of the refs in the array; most lookups of a ref that isn't in the array don't need to probe.
+    //It is sized with the array, so it stays sparse no matter how many refs are attached. Only the first
+    //(bloomMask + 1) / 64 words are used.
+    private long[] bloomFilter;
+    private int bloomMask;
+    //the attached tranlocals in the order they are attached and the index of each of them in the array. Only the
+    //first size entries are used, so commit, abort, prepare etc. cost O(size) no matter how big the array has become.
+    public Tranlocal[] attached;
+    private int[] attachedIndices;
     public int size = 0;
     public boolean hasReads = false;
     public long localConflictCount;
+    public long readDomains;
+    public long readVersion;
+    public long[] localDomainConflictCounts;
+    //the undo log of the closed nested transactions, the head is the most recent entry.
+    private TranlocalBackup backupHead;
+    private TranlocalBackup freeBackups;
+    //per nesting level the head of the undo log and the hasWrites/hasReads of the parent when the level was started.
+    private TranlocalBackup[] nestedMarkers;
+    private boolean[] nestedHasWrites;
+    private boolean[] nestedHasReads;
+    //the transaction that forked this transaction, null if this transaction isn't a child.
+    private FatVariableLengthGammaTxn forkParent;
+    //the children that have been forked, but not joined yet.
+    private ArrayList<GammaTxnFork<?>> forks;
 
     public FatVariableLengthGammaTxn(GammaStm stm) {
         this(new GammaTxnConfig(stm));
@@ -26,7 +67,10 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
 
     public FatVariableLengthGammaTxn(GammaTxnConfig config) {
         super(config, TRANSACTIONTYPE_FAT_VARIABLE_LENGTH);
-        this.array = new Tranlocal[config.minimalArrayTreeSize];
+        this.array = new Tranlocal[arrayLength(config.minimalArrayTreeSize)];
+        this.attached = new Tranlocal[config.minimalArrayTreeSize];
+        this.attachedIndices = new int[config.minimalArrayTreeSize];
+        resetBloomFilter(array.length);
     }
 
     @Override
@@ -39,6 +83,15 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
             throw abortCommitOnBadStatus();
         }
 
+        if (handoffOwner != null && !isHandoffOwnerWritten()) {
+            //the wake-up this transaction could have been handed isn't used, so it is passed on.
+            passOnHandoff();
+        }
+
+        if (forks != null) {
+            joinForks();
+        }
+
         if (abortOnly) {
             throw abortCommitOnAbortOnly();
         }
@@ -54,10 +107,14 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
                     if (conflictingObject != null) {
                         throw abortOnReadWriteConflict(conflictingObject);
                     }
+
+                    if (isAbortRequested()) {
+                        throw abortOnAbortRequested();
+                    }
                 }
 
                 if (commitConflict) {
-                    config.globalConflictCounter.signalConflict();
+                    signalCommitConflict();
                 }
 
                 Listeners[] listenersArray = commitArray();
@@ -71,27 +128,33 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
             }
         }
 
+        releaseSnapshot();
+        releaseIrrevocableToken();
+        resetNesting();
         status = TX_COMMITTED;
         notifyListeners(TxnEvent.PostCommit);
     }
 
     private Listeners[] commitArray() {
+        final long writeVersion = nextWriteVersion();
         Listeners[] listenersArray = null;
 
         int listenersIndex = 0;
         int itemCount = 0;
         //first write everything without releasing
-        for (int k = 0; k < array.length; k++) {
+        for (int k = 0; k < size; k++) {
             if (SHAKE_BUGS) shakeBugs();
 
-            final Tranlocal tranlocal = array[k];
+            final Tranlocal tranlocal = attached[k];
 
             if (tranlocal == null) {
                 continue;
             }
 
+            attached[k] = null;
+            array[attachedIndices[k]] = null;
             final BaseGammaTxnRef owner = tranlocal.owner;
-            final Listeners listeners = owner.commit(tranlocal, pool);
+            final Listeners listeners = owner.commit(tranlocal, pool, writeVersion);
 
             if (listeners != null) {
                 if (listenersArray == null) {
@@ -104,26 +167,32 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
             pool.put(tranlocal);
             itemCount++;
         }
+        clearBloomFilter();
         return listenersArray;
     }
 
     private void releaseArray(boolean success) {
-        for (int k = 0; k < array.length; k++) {
+        for (int k = 0; k < size; k++) {
 
-            final Tranlocal tranlocal = array[k];
+            final Tranlocal tranlocal = attached[k];
 
             if (tranlocal != null) {
                 if (SHAKE_BUGS) shakeBugs();
 
-                array[k] = null;
-                if (success) {
+                attached[k] = null;
+                array[attachedIndices[k]] = null;
+                if (tranlocal.copiedFromParent) {
+                    releaseCopy(tranlocal);
+                } else if (success) {
                     tranlocal.owner.releaseAfterReading(tranlocal, pool);
+                    pool.put(tranlocal);
                 } else {
                     tranlocal.owner.releaseAfterFailure(tranlocal, pool);
+                    pool.put(tranlocal);
                 }
-                pool.put(tranlocal);
             }
         }
+        clearBloomFilter();
     }
 
     @Override
@@ -136,6 +205,10 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
             throw abortPrepareOnBadStatus();
         }
 
+        if (forks != null) {
+            joinForks();
+        }
+
         if (abortOnly) {
             throw abortPrepareOnAbortOnly();
         }
@@ -147,6 +220,10 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
             if (conflictingObject != null) {
                 throw abortOnReadWriteConflict(conflictingObject);
             }
+
+            if (isAbortRequested()) {
+                throw abortOnAbortRequested();
+            }
         }
 
         status = TX_PREPARED;
@@ -158,10 +235,10 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
             return null;
         }
 
-        for (int k = 0; k < array.length; k++) {
+        for (int k = 0; k < size; k++) {
             if (SHAKE_BUGS) shakeBugs();
 
-            final Tranlocal tranlocal = array[k];
+            final Tranlocal tranlocal = attached[k];
 
             if (tranlocal == null) {
                 continue;
@@ -187,10 +264,21 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
             throw failAbortOnAlreadyCommitted();
         }
 
+        if (handoffOwner != null) {
+            passOnHandoff();
+        }
+
+        if (forks != null) {
+            discardForks();
+        }
+
         if (size > 0) {
             releaseArray(false);
         }
 
+        releaseSnapshot();
+        releaseIrrevocableToken();
+        resetNesting();
         status = TX_ABORTED;
 
         notifyListeners(TxnEvent.PostAbort);
@@ -229,24 +317,40 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
             throw abortRetryOnNoRetryPossible();
         }
 
+        if (nestingLevel > 0 || forkParent != null) {
+            //the nested transaction is rolled back by its executor, the listeners are registered when the
+            //outermost nested transaction has been rolled back. A child is executed again on its parent.
+            throw newRetryError();
+        }
+
+        if (forks != null) {
+            discardForks();
+        }
+
+        if (handoffOwner != null) {
+            passOnHandoff();
+        }
+
         retryListener.reset();
         final long listenerEra = retryListener.getEra();
 
         boolean furtherRegistrationNeeded = true;
         boolean atLeastOneRegistration = false;
 
-        for (int k = 0; k < array.length; k++) {
-            final Tranlocal tranlocal = array[k];
+        for (int k = 0; k < size; k++) {
+            final Tranlocal tranlocal = attached[k];
             if (tranlocal == null) {
                 continue;
             }
 
-            array[k] = null;
+            attached[k] = null;
+            array[attachedIndices[k]] = null;
 
             final BaseGammaTxnRef owner = tranlocal.owner;
 
             if (furtherRegistrationNeeded) {
-                switch (owner.registerChangeListener(retryListener, tranlocal, pool, listenerEra)) {
+                switch (owner.registerChangeListener(retryListener, tranlocal, pool, listenerEra,
+                        getRetryPredicate(owner), isRetryHandoff(owner))) {
                     case REGISTRATION_DONE:
                         atLeastOneRegistration = true;
                         break;
@@ -264,7 +368,11 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
             owner.releaseAfterFailure(tranlocal, pool);
             pool.put(tranlocal);
         }
+        clearBloomFilter();
 
+        releaseSnapshot();
+        releaseIrrevocableToken();
+        resetNesting();
         status = TX_ABORTED;
 
         if (!atLeastOneRegistration) {
@@ -276,17 +384,28 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
 
     @Override
     public final boolean softReset() {
-        if (attempt >= config.getMaxRetries()) {
+        //an irrevocable transaction only fails on a retry, so it isn't limited by the maximum number of retries.
+        if (attempt >= config.getMaxRetries() && !config.irrevocable) {
             return false;
         }
 
+        if (forks != null) {
+            discardForks();
+        }
+
+        releaseSnapshot();
+        releaseIrrevocableToken();
+        resetNesting();
         status = TX_ACTIVE;
         hasReads = false;
+        readDomains = 0;
         hasWrites = false;
+        retainContentionState(size);
         size = 0;
         abortOnly = false;
         attempt++;
         commitConflict = false;
+        commitConflictDomains = 0;
         evaluatingCommute = false;
         if (listeners != null) {
             listeners.clear();
@@ -294,27 +413,56 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
             listeners = null;
         }
 
+        acquireIrrevocableToken();
         return true;
     }
 
     @Override
     public final void hardReset() {
+        if (forks != null) {
+            discardForks();
+        }
+
+        forkParent = null;
+        releaseSnapshot();
+        releaseIrrevocableToken();
+        resetNesting();
         status = TX_ACTIVE;
         hasReads = false;
+        readDomains = 0;
         hasWrites = false;
+        for (int k = 0; k < size; k++) {
+            if (attached[k] != null) {
+                array[attachedIndices[k]] = null;
+                attached[k] = null;
+            }
+        }
         size = 0;
         abortOnly = false;
 
         attempt = 1;
         remainingTimeoutNs = config.timeoutNs;
-        //todo: only change when the array size is different.
-        if (array != null) {
-            pool.putTranlocalArray(array);
+        resetContentionState();
+        //the array is empty at this point, so it only needs to be replaced if it has been expanded.
+        final int arrayLength = arrayLength(config.minimalArrayTreeSize);
+        if (array == null || array.length != arrayLength) {
+            if (array != null) {
+                pool.putTranlocalArray(array);
+            }
+            array = pool.takeTranlocalArray(arrayLength);
+            resetBloomFilter(arrayLength);
+        } else {
+            clearBloomFilter();
         }
-        array = pool.takeTranlocalArray(config.minimalArrayTreeSize);
         final SpeculativeGammaConfiguration speculativeConfig = config.speculativeConfiguration.get();
-        richmansMansConflictScan = speculativeConfig.richMansConflictScanRequired;
+        richmansMansConflictScan = config.globalCommitClock == null
+                && speculativeConfig.richMansConflictScanRequired;
+        final int domainCount = config.globalConflictCounter.getDomainCount();
+        if (localDomainConflictCounts == null || localDomainConflictCounts.length < domainCount) {
+            localDomainConflictCounts = new long[domainCount];
+        }
         commitConflict = false;
+        commitConflictDomains = 0;
         evaluatingCommute = false;
         if (listeners != null) {
             listeners.clear();
@@ -322,17 +470,37 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
             listeners = null;
         }
 
+        acquireIrrevocableToken();
     }
 
     @Override
-    public void initLocalConflictCounter() {
-        if (richmansMansConflictScan && !hasReads) {
+    public void initLocalConflictCounter(final BaseGammaTxnRef ref) {
+        if (!hasReads) {
             localConflictCount = config.globalConflictCounter.count();
+            if (config.globalCommitClock != null) {
+                readVersion = initReadVersion(config.globalCommitClock);
+            }
+        }
+
+        if (!richmansMansConflictScan) {
+            return;
+        }
+
+        final int domain = ref.getConflictDomain();
+        final long domainMask = 1L << domain;
+        if ((readDomains & domainMask) == 0) {
+            //the count needs to be read before the ref is loaded.
+            localDomainConflictCounts[domain] = config.globalConflictCounter.count(domain);
+            readDomains |= domainMask;
         }
     }
 
     @Override
     public final boolean isReadConsistent(Tranlocal justAdded) {
+        if (isAbortRequested()) {
+            return false;
+        }
+
         if (!hasReads) {
             return true;
         }
@@ -345,6 +513,37 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
             return true;
         }
 
+        final GlobalCommitClock globalCommitClock = config.globalCommitClock;
+        if (globalCommitClock != null) {
+            if (justAdded.version <= readVersion) {
+                return true;
+            }
+
+            //a readonly transaction with a snapshot can read the value as of its read version from the history.
+            if (snapshotClock != null
+                    && justAdded.lockMode == LOCKMODE_NONE
+                    && justAdded.owner.___loadHistory(justAdded, readVersion)) {
+                return true;
+            }
+
+            //the justAdded is newer than the read version, so the read version needs to be extended. This is only
+            //allowed if nothing that has been read before has changed. The time needs to be read before the scan.
+            final long newReadVersion = globalCommitClock.time();
+            for (int k = 0; k < size; k++) {
+                if (SHAKE_BUGS) shakeBugs();
+
+                final Tranlocal tranlocal = attached[k];
+
+                //noinspection ObjectEquality
+                if (tranlocal != null && tranlocal != justAdded && tranlocal.owner.hasReadConflict(tranlocal)) {
+                    return false;
+                }
+            }
+
+            readVersion = newReadVersion;
+            return true;
+        }
+
         if (richmansMansConflictScan) {
             if (SHAKE_BUGS) shakeBugs();
 
@@ -355,16 +554,22 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
             }
 
             localConflictCount = conflictCount;
+
+            //only the domains this transaction has read from are interesting.
+            if (!config.globalConflictCounter.hasConflictSince(readDomains, localDomainConflictCounts)) {
+                return true;
+            }
             //we are going to fall through to do a full conflict scan
         } else if (size > config.maximumPoorMansConflictScanLength) {
             throw abortOnRichmanConflictScanDetected();
         }
 
         //doing a full conflict scan
-        for (int k = 0; k < array.length; k++) {
+        fullConflictScanCount++;
+        for (int k = 0; k < size; k++) {
             if (SHAKE_BUGS) shakeBugs();
 
-            final Tranlocal tranlocal = array[k];
+            final Tranlocal tranlocal = attached[k];
 
             //noinspection ObjectEquality
             final boolean skip = tranlocal == null || (!richmansMansConflictScan && justAdded == tranlocal);
@@ -377,6 +582,11 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
         return true;
     }
 
+    @Override
+    public final int getKarma() {
+        return karma + size;
+    }
+
     public final float getUsage() {
         return (size * 1.0f) / array.length;
     }
@@ -386,18 +596,18 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
     }
 
     public final int indexOf(final BaseGammaTxnRef ref, final int hash) {
-        int jump = 0;
-        boolean goLeft = true;
-
-        do {
-            final int offset = goLeft ? -jump : jump;
-            int index = (hash + offset) % array.length;
-            if(index<0){
-                index = index+array.length;
-            }
+        final int bloomBit = bloomBit(hash) & bloomMask;
+        if ((bloomFilter[bloomBit >>> 6] & (1L << bloomBit)) == 0) {
+            return -1;
+        }
 
+        final int spread = spread(hash);
+        final Tranlocal[] array = this.array;
+        final int mask = array.length - 1;
+        int index = spread & mask;
+        while (true) {
             final Tranlocal current = array[index];
-            if (current == null || current.owner == null) {
+            if (current == null) {
                 return -1;
             }
 
@@ -406,56 +616,784 @@ public final class FatVariableLengthGammaTxn extends GammaTxn {
                 return index;
             }
 
-            final int currentHash = current.owner.identityHashCode();
-            goLeft = currentHash > hash;
-            jump = jump == 0 ? 1 : jump * 2;
-        } while (jump < array.length);
-
-        return -1;
+            index = (index + 1) & mask;
+        }
     }
 
     public final void attach(final Tranlocal tranlocal, final int hash) {
-        int jump = 0;
-        boolean goLeft = true;
+        tranlocal.nestingLevel = (short) nestingLevel;
+        tranlocal.copiedFromParent = false;
+        if (nestingLevel > 0) {
+            final TranlocalBackup backup = newBackup(tranlocal);
+            backup.attached = true;
+        }
+
+        add(tranlocal, hash);
+    }
+
+    private void add(final Tranlocal tranlocal, final int hash) {
+        //the array is kept at most half full, so a probe always ends on an empty slot.
+        if ((size + 1) * 2 > array.length) {
+            rehash(array.length * 2);
+        }
+
+        append(tranlocal, insert(tranlocal, hash));
+    }
+
+    private void append(final Tranlocal tranlocal, final int index) {
+        if (size == attached.length) {
+            final int newLength = size == 0 ? 4 : size * 2;
+            final Tranlocal[] newAttached = new Tranlocal[newLength];
+            System.arraycopy(attached, 0, newAttached, 0, size);
+            attached = newAttached;
+            final int[] newAttachedIndices = new int[newLength];
+            System.arraycopy(attachedIndices, 0, newAttachedIndices, 0, size);
+            attachedIndices = newAttachedIndices;
+        }
+
+        attached[size] = tranlocal;
+        attachedIndices[size] = index;
+        size++;
+    }
+
+    private int insert(final Tranlocal tranlocal, final int hash) {
+        final int bloomBit = bloomBit(hash) & bloomMask;
+        bloomFilter[bloomBit >>> 6] |= 1L << bloomBit;
 
-        do {
-            final int offset = goLeft ? -jump : jump;
-            int index = (hash + offset) % array.length;
-            if(index<0){
-                index = index+array.length;
+        final int spread = spread(hash);
+
+        final Tranlocal[] array = this.array;
+        final int mask = array.length - 1;
+        int index = spread & mask;
+        while (array[index] != null) {
+            index = (index + 1) & mask;
+        }
+
+        array[index] = tranlocal;
+        return index;
+    }
+
+    private void rehash(final int newLength) {
+        final Tranlocal[] oldArray = array;
+        array = pool.takeTranlocalArray(newLength);
+        resetBloomFilter(newLength);
+
+        for (int k = 0; k < size; k++) {
+            final Tranlocal tranlocal = attached[k];
+            attachedIndices[k] = insert(tranlocal, tranlocal.owner.identityHashCode());
+        }
+
+        pool.putTranlocalArray(oldArray);
+    }
+
+    /**
+     * Spreads the identity hash using the golden ratio, so that refs that are created after each other (and often
+     * have similar identity hashes) don't end up in the same part of the array.
+     */
+    private static int spread(final int hash) {
+        final int h = hash * GOLDEN_RATIO;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the bit of the ref in the bloom filter (before it is masked). A different hash than the {@link #spread}
+     * is used, since the bloom filter needs to reject refs that share the start of their probe sequence with an
+     * attached ref.
+     */
+    private static int bloomBit(final int hash) {
+        final int h = hash * BLOOM_HASH;
+        return h ^ (h >>> 15);
+    }
+
+    private void resetBloomFilter(final int arrayLength) {
+        final int bits = Math.max(64, arrayLength * BLOOM_BITS_PER_SLOT);
+        final int words = bits >>> 6;
+        if (bloomFilter == null || bloomFilter.length < words) {
+            bloomFilter = new long[words];
+        } else {
+            Arrays.fill(bloomFilter, 0, words, 0);
+        }
+        bloomMask = bits - 1;
+    }
+
+    private void clearBloomFilter() {
+        //the array grows with the size, so this costs about as much as clearing the attached tranlocals.
+        Arrays.fill(bloomFilter, 0, (bloomMask + 1) >>> 6, 0);
+    }
+
+    private static int arrayLength(final int minimalLength) {
+        int length = 1;
+        while (length < minimalLength) {
+            length <<= 1;
+        }
+        return length;
+    }
+
+    // ============================ closed nesting ====================================
+
+    /**
+     * Starts a closed nested transaction. Everything the nested transaction changes can be rolled back without
+     * rolling back the changes of the enclosing (nested) transaction.
+     */
+    public final void beginNested() {
+        final int index = nestingLevel;
+        if (index == Tranlocal.MAX_NESTING_LEVEL) {
+            throw new IllegalStateException(
+                    format("[%s] Can't begin a nested transaction, the maximum nesting level %s is reached",
+                            config.familyName, Tranlocal.MAX_NESTING_LEVEL));
+        }
+
+        if (nestedMarkers == null) {
+            nestedMarkers = new TranlocalBackup[4];
+            nestedHasWrites = new boolean[4];
+            nestedHasReads = new boolean[4];
+        } else if (index == nestedMarkers.length) {
+            final TranlocalBackup[] newMarkers = new TranlocalBackup[index * 2];
+            System.arraycopy(nestedMarkers, 0, newMarkers, 0, index);
+            nestedMarkers = newMarkers;
+            final boolean[] newHasWrites = new boolean[index * 2];
+            System.arraycopy(nestedHasWrites, 0, newHasWrites, 0, index);
+            nestedHasWrites = newHasWrites;
+            final boolean[] newHasReads = new boolean[index * 2];
+            System.arraycopy(nestedHasReads, 0, newHasReads, 0, index);
+            nestedHasReads = newHasReads;
+        }
+
+        nestedMarkers[index] = backupHead;
+        nestedHasWrites[index] = hasWrites;
+        nestedHasReads[index] = hasReads;
+        nestingLevel = index + 1;
+    }
+
+    /**
+     * Makes a backup of a tranlocal that is about to be changed by the current nested transaction. If the nested
+     * transaction already has a backup, or attached the tranlocal itself, the call is ignored.
+     *
+     * @param tranlocal the Tranlocal that is going to be changed.
+     */
+    public final void backupForNested(final Tranlocal tranlocal) {
+        if (tranlocal.nestingLevel >= nestingLevel) {
+            return;
+        }
+
+        final TranlocalBackup backup = newBackup(tranlocal);
+        backup.attached = false;
+        backup.level = tranlocal.nestingLevel;
+        backup.mode = tranlocal.mode;
+        backup.lockMode = tranlocal.lockMode;
+        backup.hasDepartObligation = tranlocal.hasDepartObligation;
+        backup.isDirty = tranlocal.isDirty;
+        backup.writeSkewCheck = tranlocal.writeSkewCheck;
+        backup.long_value = tranlocal.long_value;
+        backup.ref_value = tranlocal.ref_value;
+        backup.headCallable = tranlocal.headCallable;
+        tranlocal.nestingLevel = (short) nestingLevel;
+    }
+
+    /**
+     * Commits the current nested transaction; its changes become part of the enclosing (nested) transaction.
+     */
+    public final void commitNested() {
+        final int parentLevel = nestingLevel - 1;
+        final TranlocalBackup marker = nestedMarkers[parentLevel];
+        nestedMarkers[parentLevel] = null;
+        nestingLevel = parentLevel;
+
+        TranlocalBackup kept = null;
+        TranlocalBackup backup = backupHead;
+        while (backup != marker) {
+            final TranlocalBackup next = backup.next;
+            backup.tranlocal.nestingLevel = (short) parentLevel;
+
+            //the parent only needs the entry if it didn't have the tranlocal itself
+            if (parentLevel > 0 && (backup.attached || backup.level < parentLevel)) {
+                backup.next = kept;
+                kept = backup;
+            } else {
+                freeBackup(backup);
             }
+            backup = next;
+        }
 
-            Tranlocal current = array[index];
-            if (current == null) {
-                array[index] = tranlocal;
-                return;
+        backupHead = marker;
+        pushBackups(kept);
+    }
+
+    /**
+     * Rolls back the current nested transaction after it failed with something else than a read/write-conflict or
+     * a retry. The enclosing transaction remains usable.
+     */
+    public final void rollbackNested() {
+        if (status != TX_ACTIVE || nestingLevel == 0) {
+            return;
+        }
+
+        if (!rollbackNested(false)) {
+            abort();
+        }
+    }
+
+    /**
+     * Rolls back the current nested transaction after a read/write-conflict and checks if the reads of the enclosing
+     * transaction still are valid. If they are, only the nested transaction needs to be retried, else the complete
+     * transaction is aborted.
+     *
+     * @return true if only the nested transaction needs to be retried, false if the transaction has been aborted.
+     */
+    public final boolean rollbackNestedOnConflict() {
+        if (status != TX_ACTIVE || nestingLevel == 0) {
+            return false;
+        }
+
+        if (!rollbackNested(false) || !isReadSetValid()) {
+            abort();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Rolls back the current nested transaction after it did a retry. The reads of the nested transaction are kept,
+     * so that a change on one of them can wake up the transaction when it blocks later on.
+     */
+    public final void rollbackNestedKeepingReads() {
+        if (status != TX_ACTIVE || nestingLevel == 0) {
+            return;
+        }
+
+        if (!rollbackNested(true)) {
+            abort();
+            throw abortOnReadWriteConflict(null);
+        }
+    }
+
+    /**
+     * Rolls back the current nested transaction after it did a retry, keeping its reads. If the outermost nested
+     * transaction has been rolled back, the transaction itself retries.
+     *
+     * @param retryError the RetryError of the nested transaction.
+     * @return the RetryError to throw.
+     */
+    public final RetryError rollbackNestedOnRetry(final RetryError retryError) {
+        if (status != TX_ACTIVE || nestingLevel == 0) {
+            return retryError;
+        }
+
+        rollbackNestedKeepingReads();
+
+        if (nestingLevel == 0) {
+            retry();
+        }
+
+        return retryError;
+    }
+
+    private boolean rollbackNested(final boolean keepReads) {
+        final int parentLevel = nestingLevel - 1;
+        final TranlocalBackup marker = nestedMarkers[parentLevel];
+        nestedMarkers[parentLevel] = null;
+        nestingLevel = parentLevel;
+
+        boolean restored = true;
+        boolean keptReads = false;
+        boolean detached = false;
+        TranlocalBackup kept = null;
+        TranlocalBackup backup = backupHead;
+        while (backup != marker) {
+            final TranlocalBackup next = backup.next;
+            final Tranlocal tranlocal = backup.tranlocal;
+
+            if (!backup.attached) {
+                //the callables of a commuting tranlocal that was flattened by the nested transaction are gone.
+                if (backup.mode == TRANLOCAL_COMMUTING && tranlocal.mode != TRANLOCAL_COMMUTING) {
+                    restored = false;
+                }
+
+                tranlocal.mode = backup.mode;
+                tranlocal.isDirty = backup.isDirty;
+                tranlocal.writeSkewCheck = backup.writeSkewCheck;
+                tranlocal.long_value = backup.long_value;
+                tranlocal.ref_value = backup.ref_value;
+                tranlocal.headCallable = backup.headCallable;
+                tranlocal.nestingLevel = backup.level;
+                //a lock acquired by the nested transaction is released again.
+                if ((tranlocal.lockMode != backup.lockMode || tranlocal.hasDepartObligation != backup.hasDepartObligation)
+                        && !tranlocal.owner.restoreLockAfterNestedRollback(
+                        this, tranlocal, backup.lockMode, backup.hasDepartObligation)) {
+                    restored = false;
+                }
+                freeBackup(backup);
+            } else if (keepReads && tranlocal.version != -1
+                    && (tranlocal.mode == TRANLOCAL_READ || tranlocal.mode == TRANLOCAL_WRITE)) {
+                tranlocal.mode = TRANLOCAL_READ;
+                tranlocal.isDirty = false;
+                tranlocal.writeSkewCheck = false;
+                tranlocal.long_value = tranlocal.long_oldValue;
+                tranlocal.ref_value = tranlocal.ref_oldValue;
+                tranlocal.nestingLevel = (short) parentLevel;
+                keptReads = true;
+                if (parentLevel > 0) {
+                    backup.next = kept;
+                    kept = backup;
+                } else {
+                    freeBackup(backup);
+                }
+            } else {
+                //marks the tranlocal for removal.
+                tranlocal.nestingLevel = -1;
+                detached = true;
+                freeBackup(backup);
+            }
+
+            backup = next;
+        }
+
+        backupHead = marker;
+        pushBackups(kept);
+        hasWrites = nestedHasWrites[parentLevel];
+        hasReads = nestedHasReads[parentLevel] || keptReads;
+
+        if (detached) {
+            detachRemoved();
+        }
+
+        return restored;
+    }
+
+    private void detachRemoved() {
+        int newSize = 0;
+        for (int k = 0; k < size; k++) {
+            final Tranlocal tranlocal = attached[k];
+            attached[k] = null;
+
+            if (tranlocal.nestingLevel != -1) {
+                attached[newSize] = tranlocal;
+                newSize++;
+                continue;
+            }
+
+            tranlocal.owner.releaseAfterFailure(tranlocal, pool);
+            pool.put(tranlocal);
+        }
+        size = newSize;
+
+        //removing entries breaks the probe sequences, so the array needs to be rebuilt.
+        rehash(array.length);
+    }
+
+    private boolean isReadSetValid() {
+        if (isAbortRequested()) {
+            return false;
+        }
+
+        if (!hasReads || config.readLockModeAsInt > LOCKMODE_NONE || config.inconsistentReadAllowed) {
+            return true;
+        }
+
+        //reads from the history can't be validated against the current values.
+        if (snapshotClock != null) {
+            return false;
+        }
+
+        //the counters need to be read before the scan.
+        final GlobalCommitClock globalCommitClock = config.globalCommitClock;
+        final long newReadVersion = globalCommitClock == null ? 0 : globalCommitClock.time();
+        final long newConflictCount = config.globalConflictCounter.count();
+        if (richmansMansConflictScan) {
+            for (int domain = 0; domain < localDomainConflictCounts.length; domain++) {
+                if ((readDomains & (1L << domain)) != 0) {
+                    localDomainConflictCounts[domain] = config.globalConflictCounter.count(domain);
+                }
+            }
+        }
+
+        for (int k = 0; k < size; k++) {
+            final Tranlocal tranlocal = attached[k];
+
+            if (tranlocal == null
+                    || tranlocal.mode == TRANLOCAL_COMMUTING
+                    || tranlocal.mode == TRANLOCAL_CONSTRUCTING) {
+                continue;
+            }
+
+            if (tranlocal.owner.hasReadConflict(tranlocal)) {
+                return false;
+            }
+        }
+
+        readVersion = newReadVersion;
+        localConflictCount = newConflictCount;
+        return true;
+    }
+
+    private TranlocalBackup newBackup(final Tranlocal tranlocal) {
+        TranlocalBackup backup = freeBackups;
+        if (backup == null) {
+            backup = new TranlocalBackup();
+        } else {
+            freeBackups = backup.next;
+        }
+
+        backup.tranlocal = tranlocal;
+        backup.next = backupHead;
+        backupHead = backup;
+        return backup;
+    }
+
+    private void freeBackup(final TranlocalBackup backup) {
+        backup.clear();
+        backup.next = freeBackups;
+        freeBackups = backup;
+    }
+
+    private void pushBackups(TranlocalBackup backups) {
+        while (backups != null) {
+            final TranlocalBackup next = backups.next;
+            backups.next = backupHead;
+            backupHead = backups;
+            backups = next;
+        }
+    }
+
+    private void resetNesting() {
+        if (nestingLevel == 0 && backupHead == null) {
+            return;
+        }
+
+        while (backupHead != null) {
+            final TranlocalBackup next = backupHead.next;
+            freeBackup(backupHead);
+            backupHead = next;
+        }
+
+        for (int k = 0; k < nestingLevel; k++) {
+            nestedMarkers[k] = null;
+        }
+        nestingLevel = 0;
+    }
+
+    // ============================ fork/join ====================================
+
+    @Override
+    public final <E> TxnFork<E> fork(final TxnCallable<E> callable, final Executor executor) {
+        if (status != TX_ACTIVE) {
+            throw abortForkOnBadStatus();
+        }
+
+        if (callable == null || executor == null) {
+            throw abortForkOnNullArgument();
+        }
+
+        //the reads of an irrevocable transaction need to be locked and the reads from the history of a readonly
+        //transaction can't be validated, so in these cases the callable is executed on this transaction when joined.
+        //No child is created then; an irrevocable child would wait for the IrrevocableToken held by this transaction.
+        final boolean runOnParent = config.irrevocable || (config.readonly && config.globalCommitClock != null);
+        final GammaTxnFork<E> fork = new GammaTxnFork<E>(this, callable, runOnParent);
+        if (forks == null) {
+            forks = new ArrayList<GammaTxnFork<?>>();
+        }
+        forks.add(fork);
+
+        if (runOnParent) {
+            fork.claim();
+            return fork;
+        }
+
+        try {
+            executor.execute(fork);
+        } catch (RejectedExecutionException e) {
+            fork.claim();
+        }
+        return fork;
+    }
+
+    /**
+     * Prepares this transaction to be executed as a child of the parent. The writes of the parent are copied, so that
+     * the child sees them without accessing the parent while it is running.
+     *
+     * @param parent the transaction that forks this transaction.
+     */
+    final void initForFork(final FatVariableLengthGammaTxn parent) {
+        forkParent = parent;
+        attempt = parent.attempt;
+
+        if (!parent.hasWrites) {
+            return;
+        }
+
+        final Tranlocal[] parentAttached = parent.attached;
+        for (int k = 0; k < parent.size; k++) {
+            final Tranlocal source = parentAttached[k];
+
+            if (source == null || source.mode != TRANLOCAL_WRITE) {
+                continue;
+            }
+
+            final Tranlocal copy = pool.take(source.owner);
+            copy.mode = TRANLOCAL_READ;
+            copy.version = source.version;
+            copy.lockMode = source.lockMode;
+            copy.hasDepartObligation = false;
+            copy.readerSlot = -1;
+            copy.isDirty = false;
+            copy.writeSkewCheck = false;
+            copy.long_value = source.long_value;
+            copy.long_oldValue = source.long_value;
+            copy.ref_value = source.ref_value;
+            copy.ref_oldValue = source.ref_value;
+            copy.nestingLevel = 0;
+            copy.copiedFromParent = true;
+            add(copy, source.owner.identityHashCode());
+        }
+    }
+
+    /**
+     * Joins all children that have not been joined yet.
+     */
+    final void joinForks() {
+        if (forks == null) {
+            return;
+        }
+
+        while (!forks.isEmpty()) {
+            forks.get(0).join();
+        }
+    }
+
+    final <E> E join(final GammaTxnFork<E> fork) {
+        if (fork.discarded) {
+            throw new DeadTxnException(
+                    format("[%s] Failed to execute TxnFork.join, reason: the child has been discarded because the " +
+                            "parent transaction aborted", config.familyName));
+        }
+
+        if (fork.joined) {
+            return fork.result;
+        }
+
+        if (status != TX_ACTIVE) {
+            throw abortForkOnBadStatus();
+        }
+
+        forks.remove(fork);
+        fork.joined = true;
+
+        if (!fork.claim()) {
+            fork.awaitCompletion();
+        }
+
+        final FatVariableLengthGammaTxn child = fork.child;
+        if (fork.failure != null) {
+            child.discard();
+            fork.releaseChild();
+            final Throwable failure = fork.failure;
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else {
+                throw new InvisibleCheckedException((Exception) failure);
+            }
+        }
+
+        if (fork.rerun || child.status != TX_ACTIVE || !isMergeable(child)) {
+            if (child != null) {
+                child.discard();
+                fork.releaseChild();
+            }
+            try {
+                fork.result = fork.callable.call(this);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new InvisibleCheckedException(e);
+            }
+            return fork.result;
+        }
+
+        final boolean hadReads = hasReads;
+        final long oldReadDomains = readDomains;
+        merge(child);
+        final boolean readSetValid = isReadSetValidAfterJoin(child, hadReads, oldReadDomains);
+        fork.releaseChild();
+
+        if (!readSetValid) {
+            throw abortOnReadWriteConflict(null);
+        }
+
+        return fork.result;
+    }
+
+    /**
+     * Checks if the child has seen the same state as this transaction has now. If a sibling that has been joined
+     * earlier, or this transaction itself, has changed or read something after the fork that the child has seen
+     * differently, the child can't be merged.
+     */
+    private boolean isMergeable(final FatVariableLengthGammaTxn child) {
+        final Tranlocal[] childAttached = child.attached;
+        for (int k = 0; k < child.size; k++) {
+            final Tranlocal tranlocal = childAttached[k];
+
+            if (tranlocal == null) {
+                continue;
             }
 
-            final int currentHash = current.owner.identityHashCode();
-            goLeft = currentHash > hash;
-            jump = jump == 0 ? 1 : jump * 2;
-        } while (jump < array.length);
+            final Tranlocal current = getRefTranlocal(tranlocal.owner);
+            if (tranlocal.copiedFromParent) {
+                if (current == null
+                        || current.mode != TRANLOCAL_WRITE
+                        || current.version != tranlocal.version
+                        || current.long_value != tranlocal.long_oldValue
+                        || current.ref_value != tranlocal.ref_oldValue) {
+                    return false;
+                }
+            } else if (current != null) {
+                if (current.mode != TRANLOCAL_READ
+                        || tranlocal.mode == TRANLOCAL_COMMUTING
+                        || tranlocal.mode == TRANLOCAL_CONSTRUCTING
+                        || current.version != tranlocal.version) {
+                    return false;
+                }
+            }
+        }
 
-        expand();
-        attach(tranlocal, hash);
+        return true;
     }
 
-    private void expand() {
-        Tranlocal[] oldArray = array;
-        int newSize = oldArray.length * 2;
-        array = pool.takeTranlocalArray(newSize);
+    private void merge(final FatVariableLengthGammaTxn child) {
+        //grows the array once, instead of repeatedly while the tranlocals of the child are attached.
+        final int minimalLength = (size + child.size) * 2;
+        if (array.length < minimalLength) {
+            int newLength = array.length;
+            while (newLength < minimalLength) {
+                newLength *= 2;
+            }
+            rehash(newLength);
+        }
 
-        for (int k = 0; k < oldArray.length; k++) {
-            final Tranlocal tranlocal = oldArray[k];
+        final Tranlocal[] childAttached = child.attached;
+        final Tranlocal[] childArray = child.array;
+        for (int k = 0; k < child.size; k++) {
+            final Tranlocal tranlocal = childAttached[k];
 
             if (tranlocal == null) {
                 continue;
             }
 
-            oldArray[k] = null;
-            attach(tranlocal, tranlocal.owner.identityHashCode());
+            childAttached[k] = null;
+            childArray[child.attachedIndices[k]] = null;
+            final BaseGammaTxnRef owner = tranlocal.owner;
+            final Tranlocal current = getRefTranlocal(owner);
+
+            if (current == null) {
+                attach(tranlocal, owner.identityHashCode());
+                if (tranlocal.mode != TRANLOCAL_READ) {
+                    hasWrites = true;
+                }
+                continue;
+            }
+
+            if (tranlocal.mode == TRANLOCAL_WRITE) {
+                if (nestingLevel > 0) {
+                    backupForNested(current);
+                }
+
+                current.mode = TRANLOCAL_WRITE;
+                current.long_value = tranlocal.long_value;
+                current.ref_value = tranlocal.ref_value;
+                current.isDirty = current.isDirty || tranlocal.isDirty;
+                current.writeSkewCheck = current.writeSkewCheck || tranlocal.writeSkewCheck;
+                hasWrites = true;
+            }
+
+            if (tranlocal.copiedFromParent) {
+                releaseCopy(tranlocal);
+            } else {
+                owner.releaseAfterReading(tranlocal, pool);
+                pool.put(tranlocal);
+            }
+        }
+
+        child.size = 0;
+        child.clearBloomFilter();
+        if (child.hasReads) {
+            hasReads = true;
+            readDomains |= child.readDomains;
         }
+        child.discard();
+    }
 
-        pool.putTranlocalArray(oldArray);
+    private boolean isReadSetValidAfterJoin(
+            final FatVariableLengthGammaTxn child, final boolean hadReads, final long oldReadDomains) {
+
+        if (!hasReads) {
+            return true;
+        }
+
+        //if no conflict has happened since the parent and the child started reading, nothing needs to be scanned.
+        if (richmansMansConflictScan && config.globalCommitClock == null && !isAbortRequested()) {
+            final long conflictCount = config.globalConflictCounter.count();
+            if ((!hadReads || conflictCount == localConflictCount)
+                    && (!child.hasReads || conflictCount == child.localConflictCount)) {
+                localConflictCount = conflictCount;
+                final long newDomains = child.readDomains & ~oldReadDomains;
+                for (int domain = 0; domain < localDomainConflictCounts.length; domain++) {
+                    if ((newDomains & (1L << domain)) != 0) {
+                        localDomainConflictCounts[domain] = child.localDomainConflictCounts[domain];
+                    }
+                }
+                return true;
+            }
+        }
+
+        return isReadSetValid();
+    }
+
+    private void releaseCopy(final Tranlocal tranlocal) {
+        //the locks of a copy are owned by the parent.
+        tranlocal.copiedFromParent = false;
+        tranlocal.lockMode = LOCKMODE_NONE;
+        tranlocal.ref_value = null;
+        tranlocal.ref_oldValue = null;
+        tranlocal.owner = null;
+        pool.put(tranlocal);
+    }
+
+    /**
+     * Releases everything of a child without notifying the listeners, since a child never is committed or aborted
+     * on its own.
+     */
+    private void discard() {
+        if (status == TX_ACTIVE || status == TX_PREPARED) {
+            if (forks != null) {
+                discardForks();
+            }
+
+            if (size > 0) {
+                releaseArray(false);
+                size = 0;
+            }
+
+            releaseSnapshot();
+            resetNesting();
+            status = TX_ABORTED;
+        }
+        forkParent = null;
+    }
+
+    private void discardForks() {
+        for (int k = 0; k < forks.size(); k++) {
+            final GammaTxnFork<?> fork = forks.get(k);
+            if (!fork.claim()) {
+                fork.awaitCompletion();
+            }
+            fork.discarded = true;
+            if (fork.child != null) {
+                fork.child.discard();
+                fork.releaseChild();
+            }
+        }
+        forks.clear();
     }
 }
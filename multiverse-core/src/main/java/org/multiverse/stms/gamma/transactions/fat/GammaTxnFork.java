@@ -0,0 +1,142 @@
+package org.multiverse.stms.gamma.transactions.fat;
+
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnFork;
+import org.multiverse.api.TxnThreadLocal;
+import org.multiverse.api.callables.TxnCallable;
+import org.multiverse.api.exceptions.ControlFlowError;
+import org.multiverse.stms.gamma.transactions.GammaTxnPool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A child forked by a {@link FatVariableLengthGammaTxn}. The child is a FatVariableLengthGammaTxn of its own that
+ * starts with a copy of the writes of the parent, so it sees the same state as the parent at the moment of the fork.
+ * Everything else is read from main memory. The changes of the child are private until the parent joins it.
+ *
+ * <p>When the child is joined, every tranlocal of the child is compared with the tranlocal the parent has for the same
+ * ref at that moment. Because joined siblings and the parent itself change those tranlocals, a difference means that
+ * the child has seen a state that is no longer valid; in that case the child is discarded and the callable is executed
+ * again directly on the parent.
+ *
+ * <p>A fork that hasn't been picked up by the Executor when it is joined is executed by the joining thread. So a child
+ * that forks and joins children itself can't deadlock a bounded pool.
+ *
+ * @param <E> the type of the result.
+ * @author Peter Veentjer.
+ */
+final class GammaTxnFork<E> implements TxnFork<E>, Runnable {
+
+    final FatVariableLengthGammaTxn parent;
+    //null if the callable is executed on the parent when joined, or if the child has been released.
+    FatVariableLengthGammaTxn child;
+    final TxnCallable<E> callable;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final CountDownLatch completed = new CountDownLatch(1);
+    E result;
+    Throwable failure;
+    //if the child needs to be executed again on the parent.
+    boolean rerun;
+    boolean joined;
+    boolean discarded;
+
+    GammaTxnFork(final FatVariableLengthGammaTxn parent, final TxnCallable<E> callable, final boolean runOnParent) {
+        this.parent = parent;
+        this.callable = callable;
+        if (!runOnParent) {
+            final GammaTxnPool pool = currentTxnPool();
+            FatVariableLengthGammaTxn tx = pool == null ? null : pool.takeMap();
+            if (tx == null) {
+                tx = new FatVariableLengthGammaTxn(parent.config);
+            } else {
+                tx.init(parent.config);
+            }
+            tx.initForFork(parent);
+            this.child = tx;
+        }
+    }
+
+    /**
+     * Puts the discarded child in the GammaTxnPool of the calling thread, so the next fork can reuse it. Should only
+     * be called once the child has completed and has been discarded or merged.
+     */
+    void releaseChild() {
+        final FatVariableLengthGammaTxn tx = child;
+        if (tx == null) {
+            return;
+        }
+
+        child = null;
+        final GammaTxnPool pool = currentTxnPool();
+        if (pool != null) {
+            pool.put(tx);
+        }
+    }
+
+    //the GammaTxnPool of the calling thread; a fork can be joined or discarded by another thread than the one that
+    //created it, and a GammaTxnPool isn't threadsafe.
+    private static GammaTxnPool currentTxnPool() {
+        final Object txPool = TxnThreadLocal.getThreadLocalTxnContainer().txPool;
+        return txPool instanceof GammaTxnPool ? (GammaTxnPool) txPool : null;
+    }
+
+    /**
+     * Claims the fork for the calling thread so that it isn't executed by the Executor anymore.
+     *
+     * @return true if the fork was claimed, false if the Executor already started it.
+     */
+    boolean claim() {
+        if (!started.compareAndSet(false, true)) {
+            return false;
+        }
+
+        rerun = true;
+        completed.countDown();
+        return true;
+    }
+
+    void awaitCompletion() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                completed.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+
+        final TxnThreadLocal.Container container = TxnThreadLocal.getThreadLocalTxnContainer();
+        final Txn previous = container.txn;
+        container.txn = child;
+        try {
+            result = callable.call(child);
+            //children forked by the child need to be merged before the child itself can be merged.
+            child.joinForks();
+        } catch (ControlFlowError e) {
+            rerun = true;
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            container.txn = previous;
+            completed.countDown();
+        }
+    }
+
+    @Override
+    public E join() {
+        return parent.join(this);
+    }
+}
@@ -0,0 +1,37 @@
+package org.multiverse.stms.gamma.transactions.fat;
+
+import org.multiverse.stms.gamma.transactionalobjects.CallableNode;
+import org.multiverse.stms.gamma.transactionalobjects.Tranlocal;
+
+/**
+ * An entry in the undo log of the closed nested transactions of a {@link FatVariableLengthGammaTxn}. It either
+ * contains the state a tranlocal had before a nested transaction touched it for the first time, or it records that the
+ * tranlocal was attached by the nested transaction (so it needs to be removed when the nested transaction is rolled
+ * back).
+ *
+ * @author Peter Veentjer.
+ */
+final class TranlocalBackup {
+
+    Tranlocal tranlocal;
+    //true if the tranlocal was attached by the nested transaction, false if it existed already.
+    boolean attached;
+    //the nesting level of the tranlocal before the nested transaction touched it.
+    short level;
+    byte mode;
+    byte lockMode;
+    boolean hasDepartObligation;
+    boolean isDirty;
+    boolean writeSkewCheck;
+    long long_value;
+    Object ref_value;
+    CallableNode headCallable;
+    TranlocalBackup next;
+
+    void clear() {
+        tranlocal = null;
+        ref_value = null;
+        headCallable = null;
+        next = null;
+    }
+}
@@ -4,6 +4,7 @@ import org.multiverse.stms.gamma.GammaStm;
 import org.multiverse.stms.gamma.Listeners;
 import org.multiverse.stms.gamma.transactionalobjects.BaseGammaTxnRef;
 import org.multiverse.stms.gamma.transactionalobjects.GammaObject;
+import org.multiverse.stms.gamma.transactionalobjects.LinkedTranlocal;
 import org.multiverse.stms.gamma.transactionalobjects.Tranlocal;
 import org.multiverse.stms.gamma.transactions.GammaTxn;
 import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
@@ -16,7 +17,11 @@ import static org.multiverse.utils.Bugshaker.shakeBugs;
  */
 public final class LeanFixedLengthGammaTxn extends GammaTxn {
 
-    public Tranlocal head;
+    //the tranlocals in the order they are opened. The ones that are not used (owner is null) are at the end.
+    public final Tranlocal[] array;
+    //the head of the chain the lookups walk if the tranlocals are linked (see GammaStmConfig.linkedTranlocalsEnabled),
+    //null otherwise. Only the lookups use the chain; the other scans still use the array.
+    public LinkedTranlocal head;
     public int size = 0;
     public boolean hasReads = false;
     public final Listeners[] listenersArray;
@@ -31,17 +36,15 @@ public final class LeanFixedLengthGammaTxn extends GammaTxn {
 
         listenersArray = new Listeners[config.maxFixedLengthTransactionSize];
 
-        Tranlocal h = null;
-        for (int k = 0; k < config.maxFixedLengthTransactionSize; k++) {
-            Tranlocal newNode = new Tranlocal();
-            if (h != null) {
-                h.previous = newNode;
-                newNode.next = h;
-            }
+        final boolean linked = config.stm.linkedTranlocalsEnabled;
+        array = new Tranlocal[config.maxFixedLengthTransactionSize];
+        for (int k = 0; k < array.length; k++) {
+            array[k] = linked ? new LinkedTranlocal() : new Tranlocal();
+        }
 
-            h = newNode;
+        if (linked) {
+            linkInArrayOrder();
         }
-        head = h;
     }
 
     @Override
@@ -61,6 +64,11 @@ public final class LeanFixedLengthGammaTxn extends GammaTxn {
             throw abortCommitOnBadStatus();
         }
 
+        if (handoffOwner != null && !isHandoffOwnerWritten()) {
+            //the wake-up this transaction could have been handed isn't used, so it is passed on.
+            passOnHandoff();
+        }
+
         if (hasWrites) {
             if (s == TX_ACTIVE) {
                 GammaObject conflictingObject = prepareChainForCommit();
@@ -70,12 +78,14 @@ public final class LeanFixedLengthGammaTxn extends GammaTxn {
             }
 
             if (commitConflict) {
-                config.globalConflictCounter.signalConflict();
+                signalCommitConflict();
             }
 
+            final long writeVersion = nextWriteVersion();
             int listenersIndex = 0;
-            Tranlocal node = head;
-            do {
+            final Tranlocal[] array = this.array;
+            for (int k = 0; k < array.length; k++) {
+                final Tranlocal node = array[k];
                 final BaseGammaTxnRef owner = node.owner;
 
                 if (owner == null) {
@@ -83,13 +93,12 @@ public final class LeanFixedLengthGammaTxn extends GammaTxn {
                 }
                 if (SHAKE_BUGS) shakeBugs();
 
-                final Listeners listeners = owner.leanCommit(node);
+                final Listeners listeners = owner.leanCommit(node, writeVersion);
                 if (listeners != null) {
                     listenersArray[listenersIndex] = listeners;
                     listenersIndex++;
                 }
-                node = node.next;
-            } while (node != null);
+            }
 
             if (listenersArray != null) {
                 Listeners.openAll(listenersArray, pool);
@@ -98,6 +107,7 @@ public final class LeanFixedLengthGammaTxn extends GammaTxn {
             releaseReadonlyChain();
         }
 
+        releaseIrrevocableToken();
         status = TX_COMMITTED;
     }
 
@@ -121,8 +131,9 @@ public final class LeanFixedLengthGammaTxn extends GammaTxn {
 
     @SuppressWarnings({"BooleanMethodIsAlwaysInverted"})
     private GammaObject prepareChainForCommit() {
-        Tranlocal node = head;
-        do {
+        final Tranlocal[] array = this.array;
+        for (int k = 0; k < array.length; k++) {
+            final Tranlocal node = array[k];
             final BaseGammaTxnRef owner = node.owner;
 
             if (owner == null) {
@@ -147,18 +158,16 @@ public final class LeanFixedLengthGammaTxn extends GammaTxn {
             }
 
             if ((arriveStatus & MASK_CONFLICT) != 0) {
-                commitConflict = true;
+                registerCommitConflict(owner);
             }
 
             node.hasDepartObligation = (arriveStatus & MASK_UNREGISTERED) == 0;
             node.lockMode = LOCKMODE_EXCLUSIVE;
 
-            if (owner.version != version) {
+            if (owner.getVersion() != version) {
                 return owner;
             }
-
-            node = node.next;
-        } while (node != null);
+        }
 
         return null;
     }
@@ -173,13 +182,19 @@ public final class LeanFixedLengthGammaTxn extends GammaTxn {
             throw failAbortOnAlreadyCommitted();
         }
 
+        if (handoffOwner != null) {
+            passOnHandoff();
+        }
+
         releaseChainForAbort();
+        releaseIrrevocableToken();
         status = TX_ABORTED;
     }
 
     private void releaseChainForAbort() {
-        Tranlocal node = head;
-        do {
+        final Tranlocal[] array = this.array;
+        for (int k = 0; k < array.length; k++) {
+            final Tranlocal node = array[k];
             final BaseGammaTxnRef owner = node.owner;
 
             if (owner == null) {
@@ -203,13 +218,13 @@ public final class LeanFixedLengthGammaTxn extends GammaTxn {
             node.owner = null;
             node.ref_oldValue = null;
             node.ref_value = null;
-            node = node.next;
-        } while (node != null);
+        }
     }
 
     private void releaseReadonlyChain() {
-        Tranlocal node = head;
-        do {
+        final Tranlocal[] array = this.array;
+        for (int k = 0; k < array.length; k++) {
+            final Tranlocal node = array[k];
             final BaseGammaTxnRef owner = node.owner;
 
             if (owner == null) {
@@ -221,14 +236,14 @@ public final class LeanFixedLengthGammaTxn extends GammaTxn {
             node.owner = null;
             node.ref_oldValue = null;
             node.ref_value = null;
-            node = node.next;
-        } while (node != null);
+        }
     }
 
     @Override
     public final Tranlocal getRefTranlocal(final BaseGammaTxnRef ref) {
-        Tranlocal node = head;
-        do {
+        final Tranlocal[] array = this.array;
+        for (int k = 0; k < array.length; k++) {
+            final Tranlocal node = array[k];
             //noinspection ObjectEquality
             if (node.owner == ref) {
                 return node;
@@ -237,12 +252,82 @@ public final class LeanFixedLengthGammaTxn extends GammaTxn {
             if (node.owner == null) {
                 return null;
             }
+        }
+        return null;
+    }
+
+    /**
+     * Looks up the tranlocal of the ref. If the ref isn't opened yet, the first unused tranlocal is returned (so its
+     * owner is null), or null if all tranlocals are in use.
+     * <p/>
+     * If the tranlocals are linked, the chain is walked and the tranlocal that is returned is moved in front. An
+     * unused tranlocal that is returned is taken into use right away (or the transaction aborts), and the unused ones
+     * keep their array order in the chain, so the used tranlocals still are at the start of the array.
+     *
+     * @param ref the ref to look up.
+     * @return the found tranlocal, the first unused tranlocal or null.
+     */
+    public final Tranlocal lookup(final BaseGammaTxnRef ref) {
+        if (head != null) {
+            return lookupInChain(ref);
+        }
 
+        final Tranlocal[] array = this.array;
+        for (int k = 0; k < array.length; k++) {
+            final Tranlocal node = array[k];
+            //noinspection ObjectEquality
+            if (node.owner == ref || node.owner == null) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private Tranlocal lookupInChain(final BaseGammaTxnRef ref) {
+        LinkedTranlocal node = head;
+        do {
+            //noinspection ObjectEquality
+            if (node.owner == ref || node.owner == null) {
+                shiftInFront(node);
+                return node;
+            }
             node = node.next;
         } while (node != null);
         return null;
     }
 
+    private void shiftInFront(final LinkedTranlocal newHead) {
+        //noinspection ObjectEquality
+        if (newHead == head) {
+            return;
+        }
+
+        newHead.previous.next = newHead.next;
+        if (newHead.next != null) {
+            newHead.next.previous = newHead.previous;
+        }
+        newHead.previous = null;
+        newHead.next = head;
+        head.previous = newHead;
+        head = newHead;
+    }
+
+    private void linkInArrayOrder() {
+        final Tranlocal[] array = this.array;
+        LinkedTranlocal previous = null;
+        for (int k = 0; k < array.length; k++) {
+            final LinkedTranlocal node = (LinkedTranlocal) array[k];
+            node.previous = previous;
+            node.next = null;
+            if (previous == null) {
+                head = node;
+            } else {
+                previous.next = node;
+            }
+            previous = node;
+        }
+    }
+
     @Override
     public final void retry() {
         if (status != TX_ACTIVE) {
@@ -257,18 +342,28 @@ public final class LeanFixedLengthGammaTxn extends GammaTxn {
             throw abortRetryOnNoRetryPossible();
         }
 
+        if (handoffOwner != null) {
+            passOnHandoff();
+        }
+
         retryListener.reset();
         final long listenerEra = retryListener.getEra();
 
         boolean furtherRegistrationNeeded = true;
         boolean atLeastOneRegistration = false;
 
-        Tranlocal tranlocal = head;
-        do {
+        final Tranlocal[] array = this.array;
+        for (int k = 0; k < array.length; k++) {
+            final Tranlocal tranlocal = array[k];
             final BaseGammaTxnRef owner = tranlocal.owner;
 
+            if (owner == null) {
+                break;
+            }
+
             if (furtherRegistrationNeeded) {
-                switch (owner.registerChangeListener(retryListener, tranlocal, pool, listenerEra)) {
+                switch (owner.registerChangeListener(retryListener, tranlocal, pool, listenerEra,
+                        getRetryPredicate(owner), isRetryHandoff(owner))) {
                     case REGISTRATION_DONE:
                         atLeastOneRegistration = true;
                         break;
@@ -284,9 +379,9 @@ public final class LeanFixedLengthGammaTxn extends GammaTxn {
             }
 
             owner.releaseAfterFailure(tranlocal, pool);
-            tranlocal = tranlocal.next;
-        } while (tranlocal != null && tranlocal.owner != null);
+        }
 
+        releaseIrrevocableToken();
         status = TX_ABORTED;
 
         if (!atLeastOneRegistration) {
@@ -312,13 +407,20 @@ public final class LeanFixedLengthGammaTxn extends GammaTxn {
 
     @Override
     public final void hardReset() {
+        releaseIrrevocableToken();
+
         status = TX_ACTIVE;
         hasWrites = false;
         size = 0;
+        if (head != null) {
+            linkInArrayOrder();
+        }
         remainingTimeoutNs = config.timeoutNs;
         attempt = 1;
         commitConflict = false;
+        commitConflictDomains = 0;
         hasReads = false;
+        acquireIrrevocableToken();
     }
 
     @Override
@@ -327,33 +429,24 @@ public final class LeanFixedLengthGammaTxn extends GammaTxn {
             return false;
         }
 
+        releaseIrrevocableToken();
+
         commitConflict = false;
+        commitConflictDomains = 0;
         status = TX_ACTIVE;
         hasWrites = false;
         size = 0;
+        if (head != null) {
+            linkInArrayOrder();
+        }
         hasReads = false;
         attempt++;
+        acquireIrrevocableToken();
         return true;
     }
 
-    public final void shiftInFront(Tranlocal newHead) {
-        //noinspection ObjectEquality
-        if (newHead == head) {
-            return;
-        }
-
-        head.previous = newHead;
-        if (newHead.next != null) {
-            newHead.next.previous = newHead.previous;
-        }
-        newHead.previous.next = newHead.next;
-        newHead.next = head;
-        newHead.previous = null;
-        head = newHead;
-    }
-
     @Override
-    public void initLocalConflictCounter() {
+    public void initLocalConflictCounter(BaseGammaTxnRef ref) {
         //ignore
     }
 }
@@ -3,10 +3,13 @@ package org.multiverse.stms.gamma.transactions.lean;
 import org.multiverse.stms.gamma.GammaStm;
 import org.multiverse.stms.gamma.Listeners;
 import org.multiverse.stms.gamma.transactionalobjects.BaseGammaTxnRef;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnRef;
+import org.multiverse.stms.gamma.transactionalobjects.LongBackedGammaTxnRef;
 import org.multiverse.stms.gamma.transactionalobjects.Tranlocal;
 import org.multiverse.stms.gamma.transactions.GammaTxn;
 import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
 
+import static org.multiverse.stms.gamma.transactionalobjects.GammaFieldAccess.*;
 import static org.multiverse.utils.Bugshaker.shakeBugs;
 
 
@@ -49,9 +52,15 @@ public final class LeanMonoGammaTxn extends GammaTxn {
             throw abortCommitOnBadStatus();
         }
 
+        if (handoffOwner != null && !isHandoffOwnerWritten()) {
+            //the wake-up this transaction could have been handed isn't used, so it is passed on.
+            passOnHandoff();
+        }
+
         final BaseGammaTxnRef owner = tranlocal.owner;
 
         if (owner == null) {
+            releaseIrrevocableToken();
             status = TX_COMMITTED;
             return;
         }
@@ -59,6 +68,7 @@ public final class LeanMonoGammaTxn extends GammaTxn {
         if (!hasWrites) {
             tranlocal.owner = null;
             tranlocal.ref_value = null;
+            releaseIrrevocableToken();
             status = TX_COMMITTED;
             return;
         }
@@ -77,7 +87,7 @@ public final class LeanMonoGammaTxn extends GammaTxn {
                 throw abortOnReadWriteConflict(owner);
             }
 
-            if (owner.version != version) {
+            if (owner.getVersion() != version) {
                 if ((arriveStatus & MASK_UNREGISTERED) == 0) {
                     owner.departAfterFailureAndUnlock();
                 } else {
@@ -87,17 +97,22 @@ public final class LeanMonoGammaTxn extends GammaTxn {
             }
 
             if((arriveStatus & MASK_CONFLICT)!=0){
-                commitConflict = true;
+                registerCommitConflict(owner);
             }
         }
 
         if (commitConflict) {
-            config.globalConflictCounter.signalConflict();
+            signalCommitConflict();
         }
 
         if(SHAKE_BUGS) shakeBugs();
-        owner.ref_value = tranlocal.ref_value;
-        owner.version = version + 1;
+        owner.___pushHistory();
+        if (owner.type == TYPE_REF) {
+            setRefValueRelease((GammaTxnRef<?>) owner, tranlocal.ref_value);
+        } else {
+            setLongValueRelease((LongBackedGammaTxnRef) owner, tranlocal.long_value);
+        }
+        owner.version = owner.___nextVersion(version);
 
         Listeners listeners = owner.listeners;
 
@@ -116,6 +131,7 @@ public final class LeanMonoGammaTxn extends GammaTxn {
             listeners.openAll(pool);
         }
 
+        releaseIrrevocableToken();
         status = TX_COMMITTED;
     }
 
@@ -129,11 +145,16 @@ public final class LeanMonoGammaTxn extends GammaTxn {
             throw failAbortOnAlreadyCommitted();
         }
 
+        if (handoffOwner != null) {
+            passOnHandoff();
+        }
+
         status = TX_ABORTED;
         BaseGammaTxnRef owner = tranlocal.owner;
         if (owner != null) {
             owner.releaseAfterFailure(tranlocal, pool);
         }
+        releaseIrrevocableToken();
     }
 
     @Override
@@ -181,11 +202,16 @@ public final class LeanMonoGammaTxn extends GammaTxn {
             throw abortRetryOnNoRetryPossible();
         }
 
+        if (handoffOwner != null) {
+            passOnHandoff();
+        }
+
         retryListener.reset();
         final long listenerEra = retryListener.getEra();
 
         boolean atLeastOneRegistration = false;
-        switch (tranlocal.owner.registerChangeListener(retryListener, tranlocal, pool, listenerEra)) {
+        switch (owner.registerChangeListener(retryListener, tranlocal, pool, listenerEra,
+                getRetryPredicate(owner), isRetryHandoff(owner))) {
             case REGISTRATION_DONE:
                 atLeastOneRegistration = true;
                 break;
@@ -200,6 +226,7 @@ public final class LeanMonoGammaTxn extends GammaTxn {
 
         owner.releaseAfterFailure(tranlocal, pool);
 
+        releaseIrrevocableToken();
         status = TX_ABORTED;
 
         if (!atLeastOneRegistration) {
@@ -215,20 +242,28 @@ public final class LeanMonoGammaTxn extends GammaTxn {
             return false;
         }
 
+        releaseIrrevocableToken();
+
         commitConflict = false;
+        commitConflictDomains = 0;
         status = TX_ACTIVE;
         hasWrites = false;
         attempt++;
+        acquireIrrevocableToken();
         return true;
     }
 
     @Override
     public final void hardReset() {
+        releaseIrrevocableToken();
+
         commitConflict = false;
+        commitConflictDomains = 0;
         status = TX_ACTIVE;
         hasWrites = false;
         remainingTimeoutNs = config.timeoutNs;
         attempt = 1;
+        acquireIrrevocableToken();
     }
 
     @Override
@@ -237,7 +272,7 @@ public final class LeanMonoGammaTxn extends GammaTxn {
     }
 
     @Override
-    public void initLocalConflictCounter() {
+    public void initLocalConflictCounter(BaseGammaTxnRef ref) {
         //ignore
     }
 }
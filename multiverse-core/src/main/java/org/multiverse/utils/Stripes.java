@@ -0,0 +1,62 @@
+package org.multiverse.utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed number of slots that each can hold a single item; a thread always uses the same slot (its stripe), which
+ * is selected using the thread id. It is the storage of the striped pools (see the
+ * {@link org.multiverse.stms.gamma.transactions.StripedGammaTxnPool} and the
+ * {@link org.multiverse.stms.gamma.StripedGammaObjectPool}): an item is taken out of its stripe for the duration of
+ * its use, so it never is used by two threads at the same time.
+ *
+ * @param <E> the type of the items.
+ * @author Peter Veentjer.
+ */
+public final class Stripes<E> {
+
+    private final AtomicReferenceArray<E> stripes;
+
+    /**
+     * Creates Stripes with 4 stripes per processor (rounded up to a power of 2).
+     */
+    public Stripes() {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        this.stripes = new AtomicReferenceArray<E>(Integer.highestOneBit(Math.min(processors, 1024) * 4 - 1) << 1);
+    }
+
+    private int stripeIndex() {
+        final long id = Thread.currentThread().getId();
+        //the thread ids are handed out sequentially, so they are mixed to spread them over the stripes.
+        final int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (stripes.length() - 1);
+    }
+
+    /**
+     * Takes the item out of the stripe of the current thread.
+     *
+     * @return the taken item, or null if the stripe is empty.
+     */
+    public E take() {
+        return stripes.getAndSet(stripeIndex(), null);
+    }
+
+    /**
+     * Puts the item in the stripe of the current thread. If the stripe already contains an item, the item is
+     * dropped.
+     *
+     * @param item the item to put.
+     * @return true if the item was put, false if it was dropped.
+     */
+    public boolean put(final E item) {
+        return stripes.compareAndSet(stripeIndex(), null, item);
+    }
+
+    /**
+     * Returns the number of stripes.
+     *
+     * @return the number of stripes.
+     */
+    public int length() {
+        return stripes.length();
+    }
+}
@@ -0,0 +1,75 @@
+package org.multiverse.stms.gamma.transactionalobjects;
+
+import org.multiverse.stms.gamma.Listeners;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Contains the atomic operations on the fields of the {@link AbstractGammaObject}, the {@link GammaObjectExtension},
+ * the {@link LongBackedGammaTxnRef} and the {@link GammaTxnRef}.
+ *
+ * <p>This is the implementation for Java 9 and higher and relies on VarHandles, so it also works when access to
+ * the Unsafe is restricted. It ends up in META-INF/versions/9 of the multi-release jar and needs to offer exactly
+ * the same static methods as the Java 6/8 version in src/main/java.
+ *
+ * <h3>Ordering</h3>
+ *
+ * <p>The compare and set of the orec and the listeners has volatile semantics, but is a weakCompareAndSet since
+ * all callers retry. The value of a ref is written using setRelease since it is always written while the ref is
+ * exclusively locked and is followed by the volatile write of the version.
+ *
+ * @author Peter Veentjer.
+ */
+public final class GammaFieldAccess {
+
+    private static final VarHandle OREC;
+    private static final VarHandle LISTENERS;
+    private static final VarHandle EXTENSION;
+    private static final VarHandle READER_SLOTS;
+    private static final VarHandle LONG_VALUE;
+    private static final VarHandle REF_VALUE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            OREC = lookup.findVarHandle(AbstractGammaObject.class, "orec", long.class);
+            LISTENERS = lookup.findVarHandle(AbstractGammaObject.class, "listeners", Listeners.class);
+            EXTENSION = lookup.findVarHandle(AbstractGammaObject.class, "extension", GammaObjectExtension.class);
+            READER_SLOTS = lookup.findVarHandle(GammaObjectExtension.class, "readerSlots", ReaderSlots.class);
+            LONG_VALUE = lookup.findVarHandle(LongBackedGammaTxnRef.class, "long_value", long.class);
+            REF_VALUE = lookup.findVarHandle(GammaTxnRef.class, "ref_value", Object.class);
+        } catch (Exception ex) {
+            throw new Error(ex);
+        }
+    }
+
+    public static boolean casOrec(AbstractGammaObject object, long expected, long update) {
+        return OREC.weakCompareAndSet(object, expected, update);
+    }
+
+    public static boolean casListeners(AbstractGammaObject object, Listeners expected, Listeners update) {
+        return LISTENERS.weakCompareAndSet(object, expected, update);
+    }
+
+    public static boolean casExtension(AbstractGammaObject object, GammaObjectExtension expected,
+                                       GammaObjectExtension update) {
+        return EXTENSION.compareAndSet(object, expected, update);
+    }
+
+    public static boolean casReaderSlots(GammaObjectExtension extension, ReaderSlots expected, ReaderSlots update) {
+        return READER_SLOTS.compareAndSet(extension, expected, update);
+    }
+
+    public static void setLongValueRelease(LongBackedGammaTxnRef ref, long value) {
+        LONG_VALUE.setRelease(ref, value);
+    }
+
+    public static void setRefValueRelease(GammaTxnRef<?> ref, Object value) {
+        REF_VALUE.setRelease(ref, value);
+    }
+
+    //we don't want instances.
+    private GammaFieldAccess() {
+    }
+}
@@ -0,0 +1,174 @@
+package org.multiverse.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.stms.gamma.GammaStm;
+
+import static org.junit.Assert.*;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+
+public class AdaptiveBackoffPolicyTest {
+
+    private AdaptiveBackoffPolicy policy;
+
+    @Before
+    public void setUp() {
+        clearThreadLocalTxn();
+        policy = new AdaptiveBackoffPolicy();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenMaxDelayTooSmall_thenIllegalArgumentException() {
+        new AdaptiveBackoffPolicy(0);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void getFamily_whenNullFamilyName_thenNullPointerException() {
+        policy.getFamily((String) null);
+    }
+
+    @Test
+    public void getFamily_whenSameName_thenSameFamily() {
+        AdaptiveBackoffPolicy.Family family1 = policy.getFamily("foo");
+        AdaptiveBackoffPolicy.Family family2 = policy.getFamily("foo");
+        AdaptiveBackoffPolicy.Family family3 = policy.getFamily("bar");
+
+        assertSame(family1, family2);
+        assertNotSame(family1, family3);
+        assertEquals("foo", family1.getFamilyName());
+    }
+
+    @Test
+    public void getFamily_whenAnonymousConfig_thenFamilyNotShared() {
+        GammaStm stm = new GammaStm();
+        TxnConfig config = stm.newTxnFactoryBuilder().newTransactionFactory().getConfig();
+
+        AdaptiveBackoffPolicy.Family family1 = policy.getFamily(config);
+        AdaptiveBackoffPolicy.Family family2 = policy.getFamily(config);
+
+        assertNotSame(family1, family2);
+    }
+
+    @Test
+    public void getFamily_whenNamedConfig_thenFamilyShared() {
+        GammaStm stm = new GammaStm();
+        TxnConfig config = stm.newTxnFactoryBuilder()
+                .setFamilyName("foo")
+                .newTransactionFactory()
+                .getConfig();
+
+        assertSame(policy.getFamily("foo"), policy.getFamily(config));
+    }
+
+    @Test
+    public void getFamily_whenNamedLikeAnonymousConfig_thenFamilyShared() {
+        GammaStm stm = new GammaStm();
+        TxnConfig config = stm.newTxnFactoryBuilder()
+                .setFamilyName("anonymoustransaction-foo")
+                .newTransactionFactory()
+                .getConfig();
+
+        assertFalse(config.isAnonymous());
+        assertSame(policy.getFamily("anonymoustransaction-foo"), policy.getFamily(config));
+    }
+
+    @Test
+    public void whenNoAborts_thenNoDelay() {
+        AdaptiveBackoffPolicy.Family family = policy.getFamily("foo");
+
+        assertEquals(0, family.getAbortRate(), 0);
+        assertEquals(0, family.calcDelayNs(1));
+        assertEquals(0, family.calcDelayNs(100));
+    }
+
+    @Test
+    public void whenAborts_thenAbortRateIncreases() {
+        AdaptiveBackoffPolicy.Family family = policy.getFamily("foo");
+
+        double lastAbortRate = 0;
+        for (int k = 0; k < 10; k++) {
+            family.registerAbort();
+            assertTrue(family.getAbortRate() > lastAbortRate);
+            assertTrue(family.getAbortRate() <= 1);
+            lastAbortRate = family.getAbortRate();
+        }
+    }
+
+    @Test
+    public void whenCommits_thenAbortRateDecreases() {
+        AdaptiveBackoffPolicy.Family family = policy.getFamily("foo");
+        for (int k = 0; k < 10; k++) {
+            family.registerAbort();
+        }
+
+        double lastAbortRate = family.getAbortRate();
+        for (int k = 0; k < 10; k++) {
+            family.registerCommit(System.nanoTime());
+            assertTrue(family.getAbortRate() < lastAbortRate);
+            assertTrue(family.getAbortRate() >= 0);
+            lastAbortRate = family.getAbortRate();
+        }
+    }
+
+    @Test
+    public void whenSlowCommits_thenCommitLatencyIncreases() {
+        AdaptiveBackoffPolicy.Family family = policy.getFamily("foo");
+        double initialLatencyNs = family.getCommitLatencyNs();
+
+        for (int k = 0; k < 10; k++) {
+            family.registerCommit(System.nanoTime() - 1000 * 1000);
+        }
+
+        assertTrue(family.getCommitLatencyNs() > initialLatencyNs);
+    }
+
+    @Test
+    public void calcDelayNs_whenAttemptIncreases_thenDelayIncreases() {
+        AdaptiveBackoffPolicy.Family family = policy.getFamily("foo");
+        family.registerCommit(System.nanoTime() - 1000);
+        for (int k = 0; k < 10; k++) {
+            family.registerAbort();
+        }
+
+        long lastDelayNs = 0;
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            long delayNs = family.calcDelayNs(attempt);
+            assertTrue(delayNs >= lastDelayNs);
+            lastDelayNs = delayNs;
+        }
+        assertTrue(lastDelayNs > family.calcDelayNs(1));
+    }
+
+    @Test
+    public void calcDelayNs_whenManyAttempts_thenLimitedByMaxDelay() {
+        AdaptiveBackoffPolicy.Family family = new AdaptiveBackoffPolicy(1000).getFamily("foo");
+        for (int k = 0; k < 10; k++) {
+            family.registerAbort();
+        }
+
+        assertEquals(1000, family.calcDelayNs(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void delayUninterruptible_thenAbortRegistered() {
+        AdaptiveBackoffPolicy.Family family = policy.getFamily("foo");
+
+        family.delayUninterruptible(1);
+
+        assertTrue(family.getAbortRate() > 0);
+    }
+
+    @Test
+    public void delay_whenInterrupted_thenInterruptedException() {
+        AdaptiveBackoffPolicy.Family family = policy.getFamily("foo");
+
+        Thread.currentThread().interrupt();
+        try {
+            family.delay(1);
+            fail();
+        } catch (InterruptedException expected) {
+        }
+
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+}
@@ -0,0 +1,196 @@
+package org.multiverse.api.blocking;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.TestThread;
+import org.multiverse.api.exceptions.RetryInterruptedException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.multiverse.TestUtils.*;
+
+public class ParkingRetryLatch_awaitTest {
+    @Before
+       public void setUp(){
+           clearCurrentThreadInterruptedStatus();
+       }
+
+    @Test
+    public void whenAlreadyOpenAndSameEra(){
+        ParkingRetryLatch latch = new ParkingRetryLatch();
+        long era = latch.getEra();
+        latch.open(era);
+
+        latch.await(era,"sometransaction");
+
+        assertOpen(latch);
+        assertEquals(era, latch.getEra());
+    }
+
+    @Test
+    public void whenAlreadyOpenAndDifferentEra(){
+        ParkingRetryLatch latch = new ParkingRetryLatch();
+        long oldEra = latch.getEra();
+        latch.reset();
+        long era = latch.getEra();
+        latch.open(era);
+
+        latch.await(oldEra,"sometransaction");
+
+        assertOpen(latch);
+        assertEquals(era, latch.getEra());
+    }
+
+    @Test
+    public void whenClosedButDifferentEra(){
+        ParkingRetryLatch latch = new ParkingRetryLatch();
+        long era = latch.getEra();
+        latch.reset();
+
+        long expectedEra = latch.getEra();
+        latch.await(era,"sometransaction");
+
+        assertEquals(expectedEra, latch.getEra());
+        assertClosed(latch);
+    }
+
+    @Test
+    public void whenSomeWaitingIsNeeded() {
+        ParkingRetryLatch latch = new ParkingRetryLatch();
+        long era = latch.getEra();
+
+        AwaitThread t = new AwaitThread(latch, era);
+        t.start();
+
+        sleepMs(500);
+
+        assertAlive(t);
+        latch.open(era);
+
+        joinAll(t);
+        assertOpen(latch);
+    }
+
+    @Test
+    public void whenStartingInterrupted() {
+        ParkingRetryLatch latch = new ParkingRetryLatch();
+        long era = latch.getEra();
+
+        Thread.currentThread().interrupt();
+        try {
+            latch.await(era,"sometransaction");
+            fail();
+        } catch (RetryInterruptedException expected) {
+        }
+
+        assertEra(latch, era);
+        assertClosed(latch);
+    }
+
+    @Test
+    public void whenInterruptedWhileWaiting() throws InterruptedException {
+        ParkingRetryLatch latch = new ParkingRetryLatch();
+        long era = latch.getEra();
+
+        AwaitThread t = new AwaitThread(latch, era);
+        t.setPrintStackTrace(false);
+        t.start();
+
+        sleepMs(500);
+
+        assertAlive(t);
+        t.interrupt();
+
+        t.join();
+        assertClosed(latch);
+        assertEra(latch, era);
+        t.assertEndedWithInterruptStatus(true);
+        t.assertFailedWithException(RetryInterruptedException.class);
+    }
+
+    @Test
+    public void whenResetWhileWaiting_thenSleepingThreadsNotified() {
+        ParkingRetryLatch latch = new ParkingRetryLatch();
+        long era = latch.getEra();
+        AwaitThread t = new AwaitThread(latch, era);
+        t.start();
+
+        sleepMs(500);
+        assertAlive(t);
+
+        latch.reset();
+        joinAll(t);
+
+        assertClosed(latch);
+        assertEra(latch, era + 1);
+    }
+
+    class AwaitThread extends TestThread {
+        private final RetryLatch latch;
+        private final long expectedEra;
+
+
+        AwaitThread(RetryLatch latch, long expectedEra) {
+            this.latch = latch;
+            this.expectedEra = expectedEra;
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            latch.await(expectedEra,"sometransaction");
+        }
+    }
+
+    @Test
+    public void whenInterruptedWhileWaiting_thenWaiterRemoved() throws InterruptedException {
+        final ParkingRetryLatch latch = new ParkingRetryLatch();
+        long era = latch.getEra();
+
+        AwaitThread t = new AwaitThread(latch, era);
+        t.setPrintStackTrace(false);
+        t.start();
+        assertWaiterCountEventually(latch, 1);
+
+        t.interrupt();
+        t.join();
+
+        t.assertFailedWithException(RetryInterruptedException.class);
+        assertEquals(0, latch.getWaiterCount());
+    }
+
+    @Test
+    public void whenOtherWaiterRemoved_thenRemainingWaiterStillNotified() throws InterruptedException {
+        final ParkingRetryLatch latch = new ParkingRetryLatch();
+        long era = latch.getEra();
+
+        AwaitThread interrupted = new AwaitThread(latch, era);
+        interrupted.setPrintStackTrace(false);
+        interrupted.start();
+        assertWaiterCountEventually(latch, 1);
+
+        AwaitThread waiting = new AwaitThread(latch, era);
+        waiting.start();
+        assertWaiterCountEventually(latch, 2);
+
+        interrupted.interrupt();
+        interrupted.join();
+        assertEquals(1, latch.getWaiterCount());
+        assertAlive(waiting);
+
+        latch.open(era);
+        joinAll(waiting);
+
+        assertOpen(latch);
+        assertEquals(0, latch.getWaiterCount());
+    }
+
+    static void assertWaiterCountEventually(ParkingRetryLatch latch, int count) {
+        long endMs = System.currentTimeMillis() + 60 * 1000;
+        while (latch.getWaiterCount() != count) {
+            if (System.currentTimeMillis() > endMs) {
+                fail("waiter count didn't become " + count + " but is " + latch.getWaiterCount());
+            }
+            sleepMs(10);
+        }
+    }
+}
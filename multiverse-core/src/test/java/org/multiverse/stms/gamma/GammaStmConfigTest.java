@@ -19,6 +19,41 @@ public class GammaStmConfigTest {
         config.validate();
     }
 
+    @Test(expected = IllegalStateException.class)
+    public void readBiasedWriteThreshold_whenNegative() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.readBiasedWriteThreshold = -1;
+        config.validate();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void readBiasedWriteThreshold_whenTooBig() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.readBiasedWriteThreshold = 1024;
+        config.validate();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void conflictDomainCount_whenZero() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.conflictDomainCount = 0;
+        config.validate();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void conflictDomainCount_whenNotPowerOfTwo() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.conflictDomainCount = 3;
+        config.validate();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void conflictDomainCount_whenTooBig() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.conflictDomainCount = 128;
+        config.validate();
+    }
+
     @Test(expected = IllegalStateException.class)
     public void propagationLevel_whenNull() {
         GammaStmConfig config = new GammaStmConfig();
@@ -118,4 +153,11 @@ public class GammaStmConfigTest {
         config.timeoutNs = -1;
         config.validate();
     }
+
+    @Test(expected = IllegalStateException.class)
+    public void speculativeRelearnInterval_whenSmallerThanZero() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.speculativeRelearnInterval = -1;
+        config.validate();
+    }
 }
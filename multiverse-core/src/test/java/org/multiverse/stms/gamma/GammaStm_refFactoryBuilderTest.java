@@ -0,0 +1,80 @@
+package org.multiverse.stms.gamma;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.stms.gamma.transactionalobjects.*;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+
+import static org.junit.Assert.*;
+import static org.multiverse.stms.gamma.GammaTestUtils.assertVersionAndValue;
+
+public class GammaStm_refFactoryBuilderTest {
+
+    private GammaStm stm;
+
+    @Before
+    public void setUp() {
+        stm = new GammaStm();
+    }
+
+    @Test
+    public void whenNotPadded_thenNormalRefsCreated() {
+        GammaTxnRefFactory factory = stm.getTxRefFactoryBuilder().build();
+
+        assertEquals(GammaTxnRef.class, factory.newTxnRef(null).getClass());
+        assertEquals(GammaTxnLong.class, factory.newTxnLong(0).getClass());
+        assertEquals(GammaTxnInteger.class, factory.newTxnInteger(0).getClass());
+        assertEquals(GammaTxnBoolean.class, factory.newTxnBoolean(false).getClass());
+        assertEquals(GammaTxnDouble.class, factory.newTxnDouble(0).getClass());
+    }
+
+    @Test
+    public void whenPadded_thenPaddedRefsCreated() {
+        GammaTxnRefFactory factory = stm.getTxRefFactoryBuilder()
+                .setPadded(true)
+                .build();
+
+        assertEquals(PaddedGammaTxnRef.class, factory.newTxnRef(null).getClass());
+        assertEquals(PaddedGammaTxnLong.class, factory.newTxnLong(0).getClass());
+        assertEquals(PaddedGammaTxnInteger.class, factory.newTxnInteger(0).getClass());
+        assertEquals(PaddedGammaTxnBoolean.class, factory.newTxnBoolean(false).getClass());
+        assertEquals(PaddedGammaTxnDouble.class, factory.newTxnDouble(0).getClass());
+    }
+
+    @Test
+    public void setPadded_whenNoChange_thenSameBuilder() {
+        GammaTxnRefFactoryBuilder builder = stm.getTxRefFactoryBuilder();
+
+        assertSame(builder, builder.setPadded(false));
+        GammaTxnRefFactoryBuilder padded = builder.setPadded(true);
+        assertNotSame(builder, padded);
+        assertSame(padded, padded.setPadded(true));
+    }
+
+    @Test
+    public void whenPaddedAndConflictDomain_thenBothApplied() {
+        GammaTxnLong ref = stm.getTxRefFactoryBuilder()
+                .setConflictDomain(1)
+                .setPadded(true)
+                .build()
+                .newTxnLong(10);
+
+        assertTrue(ref instanceof PaddedGammaTxnLong);
+        assertEquals(1, ref.getConflictDomain());
+    }
+
+    @Test
+    public void whenPaddedRefUpdated() {
+        GammaTxnRefFactory factory = stm.getTxRefFactoryBuilder()
+                .setPadded(true)
+                .build();
+        GammaTxnLong ref = factory.newTxnLong(10);
+        long initialVersion = ref.getVersion();
+
+        GammaTxn tx = stm.newDefaultTxn();
+        ref.incrementAndGet(tx, 5);
+        tx.commit();
+
+        assertVersionAndValue(ref, initialVersion + 1, 15);
+    }
+}
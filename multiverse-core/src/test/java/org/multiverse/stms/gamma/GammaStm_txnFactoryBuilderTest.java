@@ -44,6 +44,7 @@ public class GammaStm_txnFactoryBuilderTest implements GammaConstants{
         assertTrue(config.isSpeculative());
         assertTrue(config.isAnonymous);
         assertSame(DefaultBackoffPolicy.MAX_100_MS, config.getBackoffPolicy());
+        assertNull(config.getContentionManager());
         assertEquals(Long.MAX_VALUE, config.getTimeoutNs());
         assertSame(TraceLevel.None, config.getTraceLevel());
         assertTrue(config.writeSkewAllowed);
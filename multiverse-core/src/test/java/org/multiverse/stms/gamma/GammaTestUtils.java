@@ -3,7 +3,7 @@ package org.multiverse.stms.gamma;
 import org.junit.Assert;
 import org.multiverse.TestUtils;
 import org.multiverse.api.LockMode;
-import org.multiverse.api.blocking.RetryLatch;
+import org.multiverse.api.blocking.RetryListener;
 import org.multiverse.api.functions.Function;
 import org.multiverse.stms.gamma.transactionalobjects.*;
 import org.multiverse.stms.gamma.transactions.GammaTxn;
@@ -48,14 +48,10 @@ public class GammaTestUtils implements GammaConstants {
         Assert.assertEquals(asList(expected), functions);
     }
 
-    public static void assertSpeculativeConfigurationNonRefTypeRequired(GammaTxn tx) {
-        assertTrue(tx.config.speculativeConfiguration.get().nonRefTypeDetected);
-    }
-
-    public static void assertHasListeners(AbstractGammaObject ref, RetryLatch... listeners) {
-        Set<RetryLatch> expected = new HashSet<RetryLatch>(Arrays.asList(listeners));
+    public static void assertHasListeners(AbstractGammaObject ref, RetryListener... listeners) {
+        Set<RetryListener> expected = new HashSet<RetryListener>(Arrays.asList(listeners));
 
-        Set<RetryLatch> found = new HashSet<RetryLatch>();
+        Set<RetryListener> found = new HashSet<RetryListener>();
         Listeners l = (Listeners) getField(ref, "listeners");
         while (l != null) {
             found.add(l.listener);
@@ -0,0 +1,119 @@
+package org.multiverse.stms.gamma;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.api.AdaptiveBackoffPolicy;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.api.exceptions.ReadWriteConflict;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+
+import static org.junit.Assert.*;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+
+public class GammaTxnExecutor_adaptiveBackoffTest implements GammaConstants {
+
+    private GammaStm stm;
+    private AdaptiveBackoffPolicy backoffPolicy;
+
+    @Before
+    public void setUp() {
+        stm = new GammaStm();
+        backoffPolicy = new AdaptiveBackoffPolicy();
+        clearThreadLocalTxn();
+    }
+
+    @Test
+    public void whenLeanAndCommit_thenCommitRegistered() {
+        whenCommit_thenCommitRegistered(true);
+    }
+
+    @Test
+    public void whenFatAndCommit_thenCommitRegistered() {
+        whenCommit_thenCommitRegistered(false);
+    }
+
+    private void whenCommit_thenCommitRegistered(boolean speculative) {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        TxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setFamilyName("foo")
+                .setSpeculative(speculative)
+                .setBackoffPolicy(backoffPolicy)
+                .newTxnExecutor();
+
+        final AdaptiveBackoffPolicy.Family family = backoffPolicy.getFamily("foo");
+        family.registerAbort();
+        double abortRate = family.getAbortRate();
+
+        executor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                ref.incrementAndGet(tx, 1);
+            }
+        });
+
+        assertEquals(1, ref.atomicGet());
+        assertTrue(family.getAbortRate() < abortRate);
+    }
+
+    @Test
+    public void whenLeanAndConflicts_thenAbortsRegistered() {
+        whenConflicts_thenAbortsRegistered(true);
+    }
+
+    @Test
+    public void whenFatAndConflicts_thenAbortsRegistered() {
+        whenConflicts_thenAbortsRegistered(false);
+    }
+
+    private void whenConflicts_thenAbortsRegistered(boolean speculative) {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        TxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setFamilyName("foo")
+                .setSpeculative(speculative)
+                .setBackoffPolicy(backoffPolicy)
+                .newTxnExecutor();
+
+        final AdaptiveBackoffPolicy.Family family = backoffPolicy.getFamily("foo");
+
+        executor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                ref.incrementAndGet(tx, 1);
+                if (tx.getAttempt() < 5) {
+                    //a real conflict also aborts the transaction before it is thrown.
+                    tx.abort();
+                    throw new ReadWriteConflict("");
+                }
+            }
+        });
+
+        assertEquals(1, ref.atomicGet());
+        assertTrue(family.getAbortRate() > 0);
+    }
+
+    @Test
+    public void whenOtherFamily_thenNotAffected() {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        TxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setFamilyName("foo")
+                .setBackoffPolicy(backoffPolicy)
+                .newTxnExecutor();
+
+        executor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                ref.incrementAndGet(tx, 1);
+                if (tx.getAttempt() < 5) {
+                    //a real conflict also aborts the transaction before it is thrown.
+                    tx.abort();
+                    throw new ReadWriteConflict("");
+                }
+            }
+        });
+
+        AdaptiveBackoffPolicy.Family otherFamily = backoffPolicy.getFamily("bar");
+        assertEquals(0, otherFamily.getAbortRate(), 0);
+    }
+}
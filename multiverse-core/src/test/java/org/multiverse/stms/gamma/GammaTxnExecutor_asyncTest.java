@@ -0,0 +1,453 @@
+package org.multiverse.stms.gamma;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.TxnFuture;
+import org.multiverse.api.blocking.RetryLatch;
+import org.multiverse.api.callables.TxnCallable;
+import org.multiverse.api.exceptions.RetryTimeoutException;
+import org.multiverse.api.exceptions.TooManyRetriesException;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.multiverse.TestUtils.assertEventuallyTrue;
+import static org.multiverse.TestUtils.getField;
+import static org.multiverse.TestUtils.sleepMs;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+
+public class GammaTxnExecutor_asyncTest {
+
+    private GammaStm stm;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        stm = new GammaStm();
+        executor = Executors.newFixedThreadPool(2);
+        clearThreadLocalTxn();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private TxnExecutor newTxnExecutor(boolean speculative) {
+        return stm.newTxnFactoryBuilder()
+                .setSpeculative(speculative)
+                .newTxnExecutor();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void whenNullCallable_thenNullPointerException() {
+        newTxnExecutor(true).executeAsync(null, executor);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void whenNullExecutor_thenNullPointerException() {
+        newTxnExecutor(true).executeAsync(new TxnCallable<Object>() {
+            @Override
+            public Object call(Txn tx) throws Exception {
+                return null;
+            }
+        }, null);
+    }
+
+    @Test
+    public void whenLeanAndCommit_thenFutureCompleted() throws Exception {
+        whenCommit_thenFutureCompleted(true);
+    }
+
+    @Test
+    public void whenFatAndCommit_thenFutureCompleted() throws Exception {
+        whenCommit_thenFutureCompleted(false);
+    }
+
+    private void whenCommit_thenFutureCompleted(boolean speculative) throws Exception {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+
+        TxnFuture<Long> future = newTxnExecutor(speculative).executeAsync(new TxnCallable<Long>() {
+            @Override
+            public Long call(Txn tx) throws Exception {
+                return ref.incrementAndGet(tx, 1);
+            }
+        }, executor);
+
+        assertEquals(new Long(1), future.get(10, TimeUnit.SECONDS));
+        assertTrue(future.isDone());
+        assertEquals(1, ref.atomicGet());
+    }
+
+    @Test
+    public void whenCallableThrowsCheckedException_thenFutureFailedAndAborted() throws Exception {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        final IOException exception = new IOException();
+
+        TxnFuture<Object> future = newTxnExecutor(false).executeAsync(new TxnCallable<Object>() {
+            @Override
+            public Object call(Txn tx) throws Exception {
+                ref.set(tx, 10);
+                throw exception;
+            }
+        }, executor);
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException expected) {
+            assertSame(exception, expected.getCause());
+        }
+
+        assertEquals(0, ref.atomicGet());
+    }
+
+    @Test
+    public void whenLeanAndRetry_thenExecutedAgainAfterChange() throws Exception {
+        whenRetry_thenExecutedAgainAfterChange(true);
+    }
+
+    @Test
+    public void whenFatAndRetry_thenExecutedAgainAfterChange() throws Exception {
+        whenRetry_thenExecutedAgainAfterChange(false);
+    }
+
+    private void whenRetry_thenExecutedAgainAfterChange(boolean speculative) throws Exception {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        TxnFuture<Long> future = newTxnExecutor(speculative).executeAsync(new TxnCallable<Long>() {
+            @Override
+            public Long call(Txn tx) throws Exception {
+                attempts.incrementAndGet();
+                long value = ref.get(tx);
+                if (value == 0) {
+                    tx.retry();
+                }
+                return value;
+            }
+        }, executor);
+
+        sleepMs(500);
+        assertFalse(future.isDone());
+        int attemptsBeforeChange = attempts.get();
+
+        ref.atomicSet(5);
+
+        assertEquals(new Long(5), future.get(10, TimeUnit.SECONDS));
+        assertTrue(attempts.get() > attemptsBeforeChange);
+    }
+
+    @Test
+    public void whenWaiting_thenRegisteredAsRetryListener() throws Exception {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        final AtomicReference<GammaTxn> lastTx = new AtomicReference<GammaTxn>();
+
+        TxnFuture<Long> future = newTxnExecutor(false).executeAsync(new TxnCallable<Long>() {
+            @Override
+            public Long call(Txn tx) throws Exception {
+                lastTx.set((GammaTxn) tx);
+                long value = ref.get(tx);
+                if (value == 0) {
+                    tx.retry();
+                }
+                return value;
+            }
+        }, executor);
+
+        sleepMs(500);
+        assertFalse(future.isDone());
+        Listeners listeners = (Listeners) getField(ref, "listeners");
+        assertNotNull(listeners);
+        assertNull(listeners.next);
+        assertTrue(listeners.listener instanceof GammaTxnAsyncExecution);
+        assertFalse(listeners.listener instanceof RetryLatch);
+
+        ref.atomicSet(5);
+
+        assertEquals(new Long(5), future.get(10, TimeUnit.SECONDS));
+        //the transaction is put back in the pool with its own latch as listener.
+        GammaTxn tx = lastTx.get();
+        assertSame(tx.retryLatch, tx.retryListener);
+    }
+
+    @Test
+    public void whenRetryAndCallerRunsExecutor_thenExecutedByCommittingThread() throws Exception {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        final Executor callerRunsExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+
+        TxnFuture<Long> future = newTxnExecutor(false).executeAsync(new TxnCallable<Long>() {
+            @Override
+            public Long call(Txn tx) throws Exception {
+                long value = ref.get(tx);
+                if (value == 0) {
+                    tx.retry();
+                }
+                return value;
+            }
+        }, callerRunsExecutor);
+
+        assertFalse(future.isDone());
+
+        stm.getDefaultTxnExecutor().execute(new TxnCallable<Object>() {
+            @Override
+            public Object call(Txn tx) throws Exception {
+                ref.set(tx, 10);
+                return null;
+            }
+        });
+
+        assertTrue(future.isDone());
+        assertEquals(new Long(10), future.get());
+    }
+
+    @Test
+    public void whenCancelledWhileWaiting_thenNotExecutedAgain() throws Exception {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        TxnFuture<Object> future = newTxnExecutor(false).executeAsync(new TxnCallable<Object>() {
+            @Override
+            public Object call(Txn tx) throws Exception {
+                attempts.incrementAndGet();
+                if (ref.get(tx) == 0) {
+                    tx.retry();
+                }
+                return null;
+            }
+        }, executor);
+
+        sleepMs(500);
+        assertTrue(future.cancel(false));
+        int attemptsBeforeChange = attempts.get();
+
+        ref.atomicSet(1);
+        sleepMs(500);
+
+        assertTrue(future.isCancelled());
+        assertEquals(attemptsBeforeChange, attempts.get());
+    }
+
+    @Test
+    public void whenCancelledWhileWaiting_thenRegistrationStale() throws Exception {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+
+        TxnFuture<Object> future = newTxnExecutor(false).executeAsync(new TxnCallable<Object>() {
+            @Override
+            public Object call(Txn tx) throws Exception {
+                if (ref.get(tx) == 0) {
+                    tx.retry();
+                }
+                return null;
+            }
+        }, executor);
+
+        sleepMs(500);
+        Listeners listeners = (Listeners) getField(ref, "listeners");
+        assertNotNull(listeners);
+        assertEquals(listeners.listenerEra, listeners.listener.getEra());
+
+        assertTrue(future.cancel(false));
+
+        assertTrue(listeners.listenerEra != listeners.listener.getEra());
+    }
+
+    @Test
+    public void whenTimeoutWhileWaiting_thenFutureFailedWithRetryTimeoutException() throws Exception {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        final AtomicInteger attempts = new AtomicInteger();
+        TxnExecutor txnExecutor = stm.newTxnFactoryBuilder()
+                .setSpeculative(false)
+                .setTimeoutNs(TimeUnit.MILLISECONDS.toNanos(200))
+                .newTxnExecutor();
+
+        TxnFuture<Object> future = txnExecutor.executeAsync(new TxnCallable<Object>() {
+            @Override
+            public Object call(Txn tx) throws Exception {
+                attempts.incrementAndGet();
+                if (ref.get(tx) == 0) {
+                    tx.retry();
+                }
+                return null;
+            }
+        }, executor);
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof RetryTimeoutException);
+        }
+
+        ref.atomicSet(1);
+        sleepMs(200);
+        assertEquals(1, attempts.get());
+        Listeners listeners = (Listeners) getField(ref, "listeners");
+        assertNull(listeners);
+    }
+
+    @Test
+    public void whenOpenedBeforeTimeout_thenTimeoutRemovedFromScheduler() throws Exception {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        TxnExecutor txnExecutor = stm.newTxnFactoryBuilder()
+                .setSpeculative(false)
+                .setTimeoutNs(TimeUnit.SECONDS.toNanos(60))
+                .newTxnExecutor();
+
+        TxnFuture<Long> future = txnExecutor.executeAsync(new TxnCallable<Long>() {
+            @Override
+            public Long call(Txn tx) throws Exception {
+                long value = ref.get(tx);
+                if (value == 0) {
+                    tx.retry();
+                }
+                return value;
+            }
+        }, executor);
+
+        sleepMs(500);
+        final ScheduledThreadPoolExecutor scheduler = (ScheduledThreadPoolExecutor) stm.getTimeoutScheduler();
+        //the timeout of the wait and the periodic purge.
+        assertEquals(2, scheduler.getQueue().size());
+
+        ref.atomicSet(5);
+        assertEquals(new Long(5), future.get(10, TimeUnit.SECONDS));
+
+        //only the periodic purge remains once the cancelled timeout has been purged.
+        assertEventuallyTrue(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return scheduler.getQueue().size() == 1;
+            }
+        }, 3 * GammaStm.TIMEOUT_PURGE_INTERVAL_MS);
+    }
+
+    @Test
+    public void whenTooManyRetries_thenFutureFailed() throws Exception {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        TxnExecutor txnExecutor = stm.newTxnFactoryBuilder()
+                .setSpeculative(false)
+                .setMaxRetries(3)
+                .newTxnExecutor();
+
+        TxnFuture<Object> future = txnExecutor.executeAsync(new TxnCallable<Object>() {
+            @Override
+            public Object call(Txn tx) throws Exception {
+                ref.get(tx);
+                tx.retry();
+                return null;
+            }
+        }, executor);
+
+        for (int k = 0; k < 3; k++) {
+            sleepMs(100);
+            ref.atomicIncrementAndGet(1);
+        }
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof TooManyRetriesException);
+        }
+    }
+
+    @Test
+    public void whenCompleted_thenCallbackExecuted() throws Exception {
+        final CountDownLatch callbackLatch = new CountDownLatch(2);
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+
+        TxnFuture<Long> future = newTxnExecutor(false).executeAsync(new TxnCallable<Long>() {
+            @Override
+            public Long call(Txn tx) throws Exception {
+                long value = ref.get(tx);
+                if (value == 0) {
+                    tx.retry();
+                }
+                return value;
+            }
+        }, executor);
+
+        Runnable callback = new Runnable() {
+            @Override
+            public void run() {
+                callbackLatch.countDown();
+            }
+        };
+        future.onComplete(callback);
+        ref.atomicSet(1);
+        future.get(10, TimeUnit.SECONDS);
+        //registered after completion, so executed immediately.
+        future.onComplete(callback);
+
+        assertTrue(callbackLatch.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void whenThousandsOfPendingRetries_thenAllCompletedWithoutBlockingThreads() throws Exception {
+        final int executionCount = 10000;
+        final GammaTxnLong[] refs = new GammaTxnLong[executionCount];
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = new GammaTxnLong(stm);
+        }
+
+        TxnExecutor txnExecutor = newTxnExecutor(true);
+        final CountDownLatch completed = new CountDownLatch(executionCount);
+        final Runnable callback = new Runnable() {
+            @Override
+            public void run() {
+                completed.countDown();
+            }
+        };
+
+        @SuppressWarnings("unchecked")
+        final TxnFuture<Long>[] futures = new TxnFuture[executionCount];
+        for (int k = 0; k < executionCount; k++) {
+            final GammaTxnLong ref = refs[k];
+            futures[k] = txnExecutor.executeAsync(new TxnCallable<Long>() {
+                @Override
+                public Long call(Txn tx) throws Exception {
+                    long value = ref.get(tx);
+                    if (value == 0) {
+                        tx.retry();
+                    }
+                    return value;
+                }
+            }, executor);
+            futures[k].onComplete(callback);
+        }
+
+        sleepMs(1000);
+        assertEquals(executionCount, completed.getCount());
+
+        for (int k = 0; k < executionCount; k++) {
+            refs[k].atomicSet(k + 1);
+        }
+
+        assertTrue(completed.await(60, TimeUnit.SECONDS));
+        for (int k = 0; k < executionCount; k++) {
+            assertEquals(new Long(k + 1), futures[k].get());
+        }
+    }
+}
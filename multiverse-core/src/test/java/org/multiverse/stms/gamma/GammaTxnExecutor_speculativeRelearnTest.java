@@ -0,0 +1,193 @@
+package org.multiverse.stms.gamma;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.api.Txn;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.SpeculativeGammaConfiguration;
+import org.multiverse.stms.gamma.transactions.SpeculativeGammaLearner;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+
+public class GammaTxnExecutor_speculativeRelearnTest {
+
+    private GammaStm stm;
+    private GammaTxnLong[] refs;
+
+    @Before
+    public void setUp() {
+        clearThreadLocalTxn();
+        stm = new GammaStm();
+        refs = new GammaTxnLong[100];
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = new GammaTxnLong(stm);
+        }
+    }
+
+    @Test
+    public void whenRelearningDisabled_thenNoLearner() {
+        GammaTxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(true)
+                .setSpeculativeRelearnInterval(0)
+                .setFamilyName("disabled")
+                .newTxnExecutor();
+
+        assertNull(executor.getTxnFactory().getConfig().getSpeculativeLearner());
+        assertNull(stm.getSpeculativeLearner("disabled"));
+    }
+
+    @Test
+    public void whenNotSpeculative_thenNoLearner() {
+        GammaTxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(false)
+                .setFamilyName("notspeculative")
+                .newTxnExecutor();
+
+        assertNull(executor.getTxnFactory().getConfig().getSpeculativeLearner());
+        assertNull(stm.getSpeculativeLearner("notspeculative"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenNegativeInterval_thenIllegalArgumentException() {
+        stm.newTxnFactoryBuilder().setSpeculativeRelearnInterval(-1);
+    }
+
+    @Test
+    public void whenNamedFamily_thenLearnerRegistered() {
+        GammaTxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(true)
+                .setSpeculativeRelearnInterval(10)
+                .setFamilyName("named")
+                .newTxnExecutor();
+
+        SpeculativeGammaLearner learner = stm.getSpeculativeLearner("named");
+        assertNotNull(learner);
+        assertSame(executor.getTxnFactory().getConfig().getSpeculativeLearner(), learner);
+        assertTrue(stm.getSpeculativeLearners().containsKey("named"));
+        assertSame(learner.getInitialConfiguration(), learner.getCurrentConfiguration());
+        assertEquals(SpeculativeGammaLearner.PHASE_MEASURING, learner.getPhase());
+        assertEquals(0, learner.getProbeCount());
+    }
+
+    @Test
+    public void whenUpgradedOnlyDuringWarmUp_thenDowngradedAgain() {
+        GammaTxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(true)
+                .setDirtyCheckEnabled(false)
+                .setSpeculativeRelearnInterval(100)
+                .newTxnExecutor();
+        GammaTxnConfig config = executor.getTxnFactory().getConfig();
+        SpeculativeGammaLearner learner = config.getSpeculativeLearner();
+
+        //a single big transaction during warm up upgrades the family to a variable length transaction.
+        executor.execute(new UpdateCallable(refs.length));
+        assertTrue(config.getSpeculativeConfiguration().minimalLength > config.maxFixedLengthTransactionSize);
+
+        UpdateCallable callable = new UpdateCallable(1);
+        for (int k = 0; k < 1000000 && learner.getDowngradeCount() == 0; k++) {
+            executor.execute(callable);
+        }
+
+        assertTrue(learner.getProbeCount() > 0);
+        assertTrue(learner.getDowngradeCount() > 0);
+        SpeculativeGammaConfiguration current = config.getSpeculativeConfiguration();
+        assertFalse(current.fat);
+        assertEquals(1, current.minimalLength);
+    }
+
+    @Test
+    public void whenUpgradeStillNeeded_thenUpgradedConfigurationUsed() {
+        GammaTxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(true)
+                .setDirtyCheckEnabled(false)
+                .setSpeculativeRelearnInterval(100)
+                .newTxnExecutor();
+        GammaTxnConfig config = executor.getTxnFactory().getConfig();
+        SpeculativeGammaLearner learner = config.getSpeculativeLearner();
+
+        UpdateCallable callable = new UpdateCallable(refs.length);
+        for (int k = 0; k < 1000; k++) {
+            executor.execute(callable);
+        }
+
+        assertTrue(learner.getProbeCount() > 0);
+        assertEquals(0, learner.getDowngradeCount());
+        assertTrue(learner.getProbeDelay() > 1);
+        assertTrue(config.getSpeculativeConfiguration().minimalLength > config.maxFixedLengthTransactionSize);
+        for (GammaTxnLong ref : refs) {
+            assertEquals(1000, ref.atomicGet());
+        }
+    }
+
+    @Test
+    public void whenStarted_thenOnlyLastTransactionOfBatchTimed() {
+        GammaTxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(true)
+                .setSpeculativeRelearnInterval(160)
+                .newTxnExecutor();
+        SpeculativeGammaLearner learner = executor.getTxnFactory().getConfig().getSpeculativeLearner();
+
+        //the batch size is the interval / 16.
+        for (int k = 0; k < 9; k++) {
+            assertEquals(0, learner.startTxn());
+        }
+        assertTrue(learner.startTxn() != 0);
+        assertEquals(0, learner.startTxn());
+    }
+
+    @Test
+    public void whenNoCommitTimed_thenWindowIgnored() {
+        GammaTxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(true)
+                .setSpeculativeRelearnInterval(16)
+                .newTxnExecutor();
+        SpeculativeGammaLearner learner = executor.getTxnFactory().getConfig().getSpeculativeLearner();
+
+        for (int k = 0; k < 64; k++) {
+            learner.startTxn();
+        }
+
+        assertEquals(0, learner.getLastThroughput(), 0);
+        assertEquals(SpeculativeGammaLearner.PHASE_MEASURING, learner.getPhase());
+    }
+
+    @Test
+    public void whenCommitsTimed_thenThroughputBasedOnTimeInTransactions() {
+        GammaTxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(true)
+                .setSpeculativeRelearnInterval(16)
+                .newTxnExecutor();
+        SpeculativeGammaLearner learner = executor.getTxnFactory().getConfig().getSpeculativeLearner();
+
+        for (int k = 0; k < 32; k++) {
+            long startNs = learner.startTxn();
+            if (startNs != 0) {
+                //a committed transaction that took about a millisecond.
+                learner.registerCommit(startNs - TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+
+        assertTrue(learner.getLastThroughput() > 0);
+        assertTrue(learner.getLastThroughput() <= 1000);
+    }
+
+    class UpdateCallable implements TxnVoidCallable {
+        private final int refCount;
+
+        UpdateCallable(int refCount) {
+            this.refCount = refCount;
+        }
+
+        @Override
+        public void call(Txn tx) throws Exception {
+            for (int k = 0; k < refCount; k++) {
+                refs[k].incrementAndGet(tx, 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package org.multiverse.stms.gamma;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.TestThread;
+import org.multiverse.api.PropagationLevel;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.api.exceptions.TxnMandatoryException;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.multiverse.TestUtils.*;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+import static org.multiverse.api.TxnThreadLocal.getThreadLocalTxn;
+
+public class GammaTxnExecutor_threadLocalContextTest {
+
+    @Before
+    public void setUp() {
+        clearThreadLocalTxn();
+        stm = new GammaStm();
+    }
+
+    private GammaStm stm;
+
+    private GammaTxnExecutor newExecutor(boolean threadLocalContextEnabled, boolean speculative) {
+        return stm.newTxnFactoryBuilder()
+                .setThreadLocalContextEnabled(threadLocalContextEnabled)
+                .setSpeculative(speculative)
+                .newTxnExecutor();
+    }
+
+    @Test
+    public void whenLeanAndEnabled_thenTxnPublished() {
+        whenEnabled_thenTxnPublished(true);
+    }
+
+    @Test
+    public void whenFatAndEnabled_thenTxnPublished() {
+        whenEnabled_thenTxnPublished(false);
+    }
+
+    private void whenEnabled_thenTxnPublished(boolean speculative) {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        TxnExecutor executor = newExecutor(true, speculative);
+
+        final AtomicReference<Txn> found = new AtomicReference<Txn>();
+        executor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                found.set(getThreadLocalTxn());
+                ref.incrementAndGet(tx, 1);
+            }
+        });
+
+        assertNotNull(found.get());
+        assertNull(getThreadLocalTxn());
+        assertEquals(1, ref.atomicGet());
+    }
+
+    @Test
+    public void whenLeanAndDisabled_thenTxnNotPublished() {
+        whenDisabled_thenTxnNotPublished(true);
+    }
+
+    @Test
+    public void whenFatAndDisabled_thenTxnNotPublished() {
+        whenDisabled_thenTxnNotPublished(false);
+    }
+
+    private void whenDisabled_thenTxnNotPublished(boolean speculative) {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        TxnExecutor executor = newExecutor(false, speculative);
+
+        final AtomicReference<Txn> found = new AtomicReference<Txn>();
+        for (int k = 0; k < 100; k++) {
+            executor.execute(new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    found.set(getThreadLocalTxn());
+                    ref.incrementAndGet(tx, 1);
+                }
+            });
+        }
+
+        assertNull(found.get());
+        assertEquals(100, ref.atomicGet());
+    }
+
+    @Test
+    public void whenLeanAndDisabledAndNestedExecutor_thenNewTxnStarted() {
+        whenDisabledAndNestedExecutor_thenNewTxnStarted(true);
+    }
+
+    @Test
+    public void whenFatAndDisabledAndNestedExecutor_thenNewTxnStarted() {
+        whenDisabledAndNestedExecutor_thenNewTxnStarted(false);
+    }
+
+    private void whenDisabledAndNestedExecutor_thenNewTxnStarted(boolean speculative) {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        final TxnExecutor executor = newExecutor(false, speculative);
+
+        final AtomicReference<Txn> inner = new AtomicReference<Txn>();
+        executor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                ref.incrementAndGet(tx, 1);
+                executor.execute(new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        inner.set(tx);
+                    }
+                });
+                assertNotSame(tx, inner.get());
+            }
+        });
+
+        assertNotNull(inner.get());
+        assertEquals(1, ref.atomicGet());
+    }
+
+    @Test
+    public void whenDisabledAndBlocking_thenWokenUpByAtomicWrite() {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        final TxnExecutor executor = newExecutor(false, false);
+
+        TestThread thread = new TestThread() {
+            @Override
+            public void doRun() throws Exception {
+                executor.execute(new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        if (ref.get(tx) == 0) {
+                            tx.retry();
+                        }
+                    }
+                });
+            }
+        };
+        thread.start();
+
+        sleepMs(500);
+        assertAlive(thread);
+
+        ref.atomicSet(1);
+
+        joinAll(thread);
+        assertNothingThrown(thread);
+    }
+
+    @Test
+    public void whenLeanAndDisabledAndOuterPassed_thenJoined() {
+        whenDisabledAndOuterPassed_thenJoined(true);
+    }
+
+    @Test
+    public void whenFatAndDisabledAndOuterPassed_thenJoined() {
+        whenDisabledAndOuterPassed_thenJoined(false);
+    }
+
+    private void whenDisabledAndOuterPassed_thenJoined(boolean speculative) {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        final GammaTxnExecutor executor = newExecutor(false, speculative);
+
+        final AtomicReference<Txn> inner = new AtomicReference<Txn>();
+        executor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                ref.incrementAndGet(tx, 1);
+                executor.execute(tx, new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        inner.set(tx);
+                        ref.incrementAndGet(tx, 1);
+                    }
+                });
+                assertSame(tx, inner.get());
+                assertNull(getThreadLocalTxn());
+            }
+        });
+
+        assertEquals(2, ref.atomicGet());
+    }
+
+    @Test
+    public void whenDisabledAndNoOuterPassed_thenNewTxn() {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        GammaTxnExecutor executor = newExecutor(false, false);
+
+        executor.execute(null, new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                assertNotNull(tx);
+                ref.incrementAndGet(tx, 1);
+            }
+        });
+
+        assertEquals(1, ref.atomicGet());
+    }
+
+    @Test
+    public void whenDisabledAndMandatoryAndOuterPassed_thenJoined() {
+        final GammaTxnExecutor outerExecutor = newExecutor(false, false);
+        final GammaTxnExecutor mandatoryExecutor = stm.newTxnFactoryBuilder()
+                .setThreadLocalContextEnabled(false)
+                .setPropagationLevel(PropagationLevel.Mandatory)
+                .newTxnExecutor();
+
+        final AtomicReference<Txn> inner = new AtomicReference<Txn>();
+        outerExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                mandatoryExecutor.execute(tx, new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        inner.set(tx);
+                    }
+                });
+                assertSame(tx, inner.get());
+            }
+        });
+    }
+
+    @Test
+    public void whenDisabledAndMandatoryAndNoOuterPassed_thenTxnMandatoryException() {
+        final GammaTxnExecutor outerExecutor = newExecutor(false, false);
+        final GammaTxnExecutor mandatoryExecutor = stm.newTxnFactoryBuilder()
+                .setThreadLocalContextEnabled(false)
+                .setPropagationLevel(PropagationLevel.Mandatory)
+                .newTxnExecutor();
+
+        outerExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                try {
+                    mandatoryExecutor.execute(new TxnVoidCallable() {
+                        @Override
+                        public void call(Txn tx) throws Exception {
+                            fail();
+                        }
+                    });
+                    fail();
+                } catch (TxnMandatoryException expected) {
+                }
+            }
+        });
+    }
+
+    @Test
+    public void whenDisabledAndRequiresNewAndOuterPassed_thenOuterSuspended() {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        final GammaTxnExecutor outerExecutor = newExecutor(false, false);
+        final GammaTxnExecutor requiresNewExecutor = stm.newTxnFactoryBuilder()
+                .setThreadLocalContextEnabled(false)
+                .setPropagationLevel(PropagationLevel.RequiresNew)
+                .newTxnExecutor();
+
+        outerExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(final Txn outer) throws Exception {
+                requiresNewExecutor.execute(outer, new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        assertNotSame(outer, tx);
+                        ref.incrementAndGet(tx, 1);
+                    }
+                });
+                assertTrue(outer.getStatus().isAlive());
+            }
+        });
+
+        assertEquals(1, ref.atomicGet());
+    }
+
+    @Test
+    public void whenEnabledAndOuterPassed_thenJoinedAndThreadLocalUntouched() {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        final GammaTxnExecutor threadLocalExecutor = newExecutor(true, false);
+        final GammaTxnExecutor explicitExecutor = newExecutor(false, false);
+
+        explicitExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(final Txn outer) throws Exception {
+                threadLocalExecutor.execute(outer, new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        assertSame(outer, tx);
+                        assertNull(getThreadLocalTxn());
+                        ref.incrementAndGet(tx, 1);
+                    }
+                });
+            }
+        });
+
+        assertEquals(1, ref.atomicGet());
+    }
+
+    @Test
+    public void whenDisabledForOneExecutor_thenOtherExecutorsStillPublish() {
+        GammaTxnExecutor explicitExecutor = newExecutor(false, false);
+        GammaTxnExecutor threadLocalExecutor = newExecutor(true, false);
+
+        final AtomicReference<Txn> found = new AtomicReference<Txn>();
+        explicitExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                found.set(getThreadLocalTxn());
+            }
+        });
+        assertNull(found.get());
+
+        threadLocalExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                found.set(getThreadLocalTxn());
+            }
+        });
+        assertNotNull(found.get());
+        assertTrue(stm.getDefaultTxnExecutor().getTxnFactory().getConfig().isThreadLocalContextEnabled());
+    }
+}
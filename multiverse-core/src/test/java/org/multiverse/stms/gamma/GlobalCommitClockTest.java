@@ -0,0 +1,38 @@
+package org.multiverse.stms.gamma;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class GlobalCommitClockTest {
+
+    @Test
+    public void tick() {
+        GlobalCommitClock clock = new GlobalCommitClock();
+        long time = clock.time();
+
+        long result = clock.tick();
+
+        assertEquals(time + 1, result);
+        assertEquals(time + 1, clock.time());
+    }
+
+    @Test
+    public void whenNotEnabled_thenStmHasNoClock() {
+        GammaStm stm = new GammaStm();
+
+        assertNull(stm.getGlobalCommitClock());
+        assertNull(stm.defaultConfig.globalCommitClock);
+    }
+
+    @Test
+    public void whenEnabled_thenClockPropagatedToConfig() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.globalCommitClockEnabled = true;
+        GammaStm stm = new GammaStm(config);
+
+        assertSame(stm.getGlobalCommitClock(), stm.defaultConfig.globalCommitClock);
+    }
+}
@@ -0,0 +1,101 @@
+package org.multiverse.stms.gamma;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GlobalConflictCounterTest {
+
+    @Test
+    public void whenDefaultConstructor() {
+        GlobalConflictCounter counter = new GlobalConflictCounter();
+
+        assertEquals(1, counter.getDomainCount());
+        assertEquals(0, counter.count());
+        assertEquals(0, counter.toDomain(12345));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenZeroDomains_thenIllegalArgumentException() {
+        new GlobalConflictCounter(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenDomainCountNotPowerOfTwo_thenIllegalArgumentException() {
+        new GlobalConflictCounter(3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenTooManyDomains_thenIllegalArgumentException() {
+        new GlobalConflictCounter(GlobalConflictCounter.MAX_DOMAIN_COUNT * 2);
+    }
+
+    @Test
+    public void toDomain_staysWithinRange() {
+        GlobalConflictCounter counter = new GlobalConflictCounter(8);
+
+        for (int k = -1000; k < 1000; k++) {
+            int domain = counter.toDomain(k * 31);
+            assertTrue(domain >= 0 && domain < 8);
+        }
+    }
+
+    @Test
+    public void signalConflict_whenNoArgument_thenAllDomainsSignalled() {
+        GlobalConflictCounter counter = new GlobalConflictCounter(4);
+
+        counter.signalConflict();
+
+        assertEquals(1, counter.count());
+        for (int domain = 0; domain < 4; domain++) {
+            assertEquals(1, counter.count(domain));
+        }
+    }
+
+    @Test
+    public void signalConflict_whenDomainMask_thenOnlyThoseDomainsSignalled() {
+        GlobalConflictCounter counter = new GlobalConflictCounter(4);
+
+        counter.signalConflict((1L << 1) | (1L << 3));
+
+        assertEquals(1, counter.count());
+        assertEquals(0, counter.count(0));
+        assertEquals(1, counter.count(1));
+        assertEquals(0, counter.count(2));
+        assertEquals(1, counter.count(3));
+    }
+
+    @Test
+    public void signalConflict_whenMaximumDomains() {
+        GlobalConflictCounter counter = new GlobalConflictCounter(GlobalConflictCounter.MAX_DOMAIN_COUNT);
+
+        counter.signalConflict(1L << 63);
+
+        assertEquals(1, counter.count());
+        assertEquals(1, counter.count(63));
+        assertEquals(0, counter.count(0));
+    }
+
+    @Test
+    public void hasConflictSince_whenNoConflict() {
+        GlobalConflictCounter counter = new GlobalConflictCounter(4);
+        long[] snapshot = new long[4];
+
+        counter.signalConflict(1L << 2);
+
+        assertFalse(counter.hasConflictSince(1L << 1, snapshot));
+        assertEquals(0, snapshot[2]);
+    }
+
+    @Test
+    public void hasConflictSince_whenConflict_thenSnapshotUpdated() {
+        GlobalConflictCounter counter = new GlobalConflictCounter(4);
+        long[] snapshot = new long[4];
+
+        counter.signalConflict(1L << 2);
+
+        assertTrue(counter.hasConflictSince((1L << 1) | (1L << 2), snapshot));
+        assertEquals(1, snapshot[2]);
+        assertFalse(counter.hasConflictSince((1L << 1) | (1L << 2), snapshot));
+    }
+}
@@ -3,6 +3,7 @@ package org.multiverse.stms.gamma;
 import org.junit.Before;
 import org.junit.Test;
 import org.multiverse.api.blocking.RetryLatch;
+import org.multiverse.api.blocking.RetryListener;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -33,4 +34,17 @@ public class Listeners_openAllTest {
         verify(latch1).open(1);
         verify(latch2).open(2);
     }
+
+    @Test
+    public void whenRetryListener_thenOpened() {
+        RetryListener listener = mock(RetryListener.class);
+
+        Listeners listeners = new Listeners();
+        listeners.listener = listener;
+        listeners.listenerEra = 3;
+
+        listeners.openAll(pool);
+
+        verify(listener).open(3);
+    }
 }
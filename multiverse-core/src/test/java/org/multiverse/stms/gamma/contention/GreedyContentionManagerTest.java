@@ -0,0 +1,89 @@
+package org.multiverse.stms.gamma.contention;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.multiverse.stms.gamma.contention.ContentionManager.*;
+
+public class GreedyContentionManagerTest {
+
+    private GammaStm stm;
+    private GammaTxn older;
+    private GammaTxn younger;
+
+    @Before
+    public void setUp() {
+        GammaStmConfig stmConfig = new GammaStmConfig();
+        stmConfig.contentionManager = new GreedyContentionManager();
+        stm = new GammaStm(stmConfig);
+        older = new FatVariableLengthGammaTxn(new GammaTxnConfig(stm, stmConfig));
+        younger = new FatVariableLengthGammaTxn(new GammaTxnConfig(stm, stmConfig));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenMaxAttemptsTooSmall_thenIllegalArgumentException() {
+        new GreedyContentionManager(0);
+    }
+
+    @Test
+    public void startTime_whenRetried_thenKept() {
+        long startTimeNs = younger.startTimeNs;
+        younger.abort();
+        younger.softReset();
+
+        assertEquals(startTimeNs, younger.startTimeNs);
+    }
+
+    @Test
+    public void startTime_whenHardReset_thenRenewed() {
+        older.abort();
+        older.hardReset();
+
+        assertTrue(older.startTimeNs - younger.startTimeNs > 0);
+    }
+
+    @Test
+    public void whenOlder_thenAbortOther() {
+        ContentionManager contentionManager = new GreedyContentionManager();
+
+        assertEquals(ABORT_OTHER, contentionManager.resolve(older, younger, 1));
+    }
+
+    @Test
+    public void whenYounger_thenWait() {
+        ContentionManager contentionManager = new GreedyContentionManager();
+
+        assertEquals(WAIT, contentionManager.resolve(younger, older, 1));
+    }
+
+    @Test
+    public void whenYoungerAndOtherIsWaiting_thenAbortOther() {
+        older.waiting = true;
+
+        ContentionManager contentionManager = new GreedyContentionManager();
+
+        assertEquals(ABORT_OTHER, contentionManager.resolve(younger, older, 1));
+    }
+
+    @Test
+    public void whenOtherUnknown_thenWait() {
+        ContentionManager contentionManager = new GreedyContentionManager();
+
+        assertEquals(WAIT, contentionManager.resolve(older, null, 1));
+    }
+
+    @Test
+    public void whenMaxAttemptsExceeded_thenAbortSelf() {
+        ContentionManager contentionManager = new GreedyContentionManager(10);
+
+        assertEquals(WAIT, contentionManager.resolve(younger, older, 10));
+        assertEquals(ABORT_SELF, contentionManager.resolve(younger, older, 11));
+    }
+}
@@ -0,0 +1,111 @@
+package org.multiverse.stms.gamma.contention;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
+
+import static org.junit.Assert.assertEquals;
+import static org.multiverse.stms.gamma.contention.ContentionManager.*;
+
+public class KarmaContentionManagerTest implements GammaConstants {
+
+    private GammaStm stm;
+    private GammaTxn self;
+    private GammaTxn other;
+
+    @Before
+    public void setUp() {
+        stm = new GammaStm();
+        self = new FatVariableLengthGammaTxn(stm);
+        other = new FatVariableLengthGammaTxn(stm);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenMaxAttemptsTooSmall_thenIllegalArgumentException() {
+        new KarmaContentionManager(0);
+    }
+
+    @Test
+    public void karma_whenObjectsOpened() {
+        openRefs(self, 3);
+
+        assertEquals(3, self.getKarma());
+    }
+
+    @Test
+    public void karma_whenRetried_thenKarmaKept() {
+        openRefs(self, 3);
+        self.abort();
+        self.softReset();
+
+        openRefs(self, 2);
+
+        assertEquals(5, self.getKarma());
+    }
+
+    @Test
+    public void karma_whenHardReset_thenKarmaCleared() {
+        openRefs(self, 3);
+        self.abort();
+        self.hardReset();
+
+        assertEquals(0, self.getKarma());
+    }
+
+    @Test
+    public void whenMoreKarma_thenAbortOther() {
+        openRefs(self, 3);
+        openRefs(other, 1);
+
+        ContentionManager contentionManager = new KarmaContentionManager();
+
+        assertEquals(ABORT_OTHER, contentionManager.resolve(self, other, 1));
+    }
+
+    @Test
+    public void whenLessKarma_thenWait() {
+        openRefs(self, 1);
+        openRefs(other, 3);
+
+        ContentionManager contentionManager = new KarmaContentionManager();
+
+        assertEquals(WAIT, contentionManager.resolve(self, other, 1));
+    }
+
+    @Test
+    public void whenLessKarmaButEnoughAttempts_thenAbortOther() {
+        openRefs(self, 1);
+        openRefs(other, 3);
+
+        ContentionManager contentionManager = new KarmaContentionManager();
+
+        assertEquals(ABORT_OTHER, contentionManager.resolve(self, other, 3));
+    }
+
+    @Test
+    public void whenOtherUnknown_thenWait() {
+        ContentionManager contentionManager = new KarmaContentionManager();
+
+        assertEquals(WAIT, contentionManager.resolve(self, null, 1));
+    }
+
+    @Test
+    public void whenMaxAttemptsExceeded_thenAbortSelf() {
+        openRefs(self, 3);
+
+        ContentionManager contentionManager = new KarmaContentionManager(10);
+
+        assertEquals(ABORT_OTHER, contentionManager.resolve(self, other, 10));
+        assertEquals(ABORT_SELF, contentionManager.resolve(self, other, 11));
+    }
+
+    private void openRefs(GammaTxn tx, int count) {
+        for (int k = 0; k < count; k++) {
+            new GammaTxnLong(stm).openForRead(tx, LOCKMODE_NONE);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.multiverse.stms.gamma.contention;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.api.BackoffPolicy;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+import static org.multiverse.stms.gamma.contention.ContentionManager.*;
+
+public class PolkaContentionManagerTest implements GammaConstants {
+
+    private GammaStm stm;
+    private GammaTxn self;
+    private GammaTxn other;
+    private BackoffPolicy backoffPolicy;
+
+    @Before
+    public void setUp() {
+        stm = new GammaStm();
+        self = new FatVariableLengthGammaTxn(stm);
+        other = new FatVariableLengthGammaTxn(stm);
+        backoffPolicy = mock(BackoffPolicy.class);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void whenNullBackoffPolicy_thenNullPointerException() {
+        new PolkaContentionManager(null, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenMaxAttemptsTooSmall_thenIllegalArgumentException() {
+        new PolkaContentionManager(backoffPolicy, 0);
+    }
+
+    @Test
+    public void whenMoreKarma_thenAbortOther() {
+        openRefs(self, 3);
+        openRefs(other, 1);
+
+        ContentionManager contentionManager = new PolkaContentionManager(backoffPolicy, 100);
+
+        assertEquals(ABORT_OTHER, contentionManager.resolve(self, other, 1));
+        verifyZeroInteractions(backoffPolicy);
+    }
+
+    @Test
+    public void whenLessKarma_thenBackoffOncePerKarmaDifference() {
+        openRefs(self, 1);
+        openRefs(other, 4);
+
+        ContentionManager contentionManager = new PolkaContentionManager(backoffPolicy, 100);
+
+        assertEquals(WAIT, contentionManager.resolve(self, other, 1));
+        assertEquals(WAIT, contentionManager.resolve(self, other, 2));
+        assertEquals(WAIT, contentionManager.resolve(self, other, 3));
+        assertEquals(ABORT_OTHER, contentionManager.resolve(self, other, 4));
+
+        verify(backoffPolicy).delayUninterruptible(1);
+        verify(backoffPolicy).delayUninterruptible(2);
+        verify(backoffPolicy).delayUninterruptible(3);
+        verifyNoMoreInteractions(backoffPolicy);
+    }
+
+    @Test
+    public void whenOtherUnknown_thenWait() {
+        ContentionManager contentionManager = new PolkaContentionManager(backoffPolicy, 100);
+
+        assertEquals(WAIT, contentionManager.resolve(self, null, 1));
+        verify(backoffPolicy).delayUninterruptible(1);
+    }
+
+    @Test
+    public void whenMaxAttemptsExceeded_thenAbortSelf() {
+        ContentionManager contentionManager = new PolkaContentionManager(backoffPolicy, 10);
+
+        assertEquals(ABORT_SELF, contentionManager.resolve(self, null, 11));
+        verifyZeroInteractions(backoffPolicy);
+    }
+
+    private void openRefs(GammaTxn tx, int count) {
+        for (int k = 0; k < count; k++) {
+            new GammaTxnLong(stm).openForRead(tx, LOCKMODE_NONE);
+        }
+    }
+}
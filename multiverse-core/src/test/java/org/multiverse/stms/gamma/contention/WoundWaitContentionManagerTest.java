@@ -0,0 +1,71 @@
+package org.multiverse.stms.gamma.contention;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
+
+import static org.junit.Assert.assertEquals;
+import static org.multiverse.stms.gamma.contention.ContentionManager.*;
+
+public class WoundWaitContentionManagerTest {
+
+    private GammaStm stm;
+    private GammaTxn older;
+    private GammaTxn younger;
+
+    @Before
+    public void setUp() {
+        GammaStmConfig stmConfig = new GammaStmConfig();
+        stmConfig.contentionManager = new WoundWaitContentionManager();
+        stm = new GammaStm(stmConfig);
+        older = new FatVariableLengthGammaTxn(new GammaTxnConfig(stm, stmConfig));
+        younger = new FatVariableLengthGammaTxn(new GammaTxnConfig(stm, stmConfig));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenMaxAttemptsTooSmall_thenIllegalArgumentException() {
+        new WoundWaitContentionManager(0);
+    }
+
+    @Test
+    public void whenOlder_thenAbortOther() {
+        ContentionManager contentionManager = new WoundWaitContentionManager();
+
+        assertEquals(ABORT_OTHER, contentionManager.resolve(older, younger, 1));
+    }
+
+    @Test
+    public void whenYounger_thenWait() {
+        ContentionManager contentionManager = new WoundWaitContentionManager();
+
+        assertEquals(WAIT, contentionManager.resolve(younger, older, 1));
+    }
+
+    @Test
+    public void whenYoungerAndOtherIsWaiting_thenStillWait() {
+        older.waiting = true;
+
+        ContentionManager contentionManager = new WoundWaitContentionManager();
+
+        assertEquals(WAIT, contentionManager.resolve(younger, older, 1));
+    }
+
+    @Test
+    public void whenOtherUnknown_thenWait() {
+        ContentionManager contentionManager = new WoundWaitContentionManager();
+
+        assertEquals(WAIT, contentionManager.resolve(older, null, 1));
+    }
+
+    @Test
+    public void whenMaxAttemptsExceeded_thenAbortSelf() {
+        ContentionManager contentionManager = new WoundWaitContentionManager(10);
+
+        assertEquals(ABORT_OTHER, contentionManager.resolve(older, younger, 10));
+        assertEquals(ABORT_SELF, contentionManager.resolve(older, younger, 11));
+    }
+}
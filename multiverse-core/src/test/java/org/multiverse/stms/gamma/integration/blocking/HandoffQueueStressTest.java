@@ -0,0 +1,148 @@
+package org.multiverse.stms.gamma.integration.blocking;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.TestThread;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.collections.NaiveTxnLinkedList;
+import org.multiverse.stms.gamma.GammaStm;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.multiverse.TestUtils.*;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+
+/**
+ * Checks that a queue of which the blocking puts and takes wait for a handoff, doesn't lose a wake-up; also not when
+ * the consumer that is woken up doesn't use it because it aborts.
+ */
+public class HandoffQueueStressTest {
+
+    private GammaStm stm;
+    private NaiveTxnLinkedList<Long> queue;
+    private int producerCount = 4;
+    private int consumerCount = 8;
+    private int itemsPerProducer = 2000;
+    private final AtomicLong consumedSum = new AtomicLong();
+    private final AtomicLong consumedCount = new AtomicLong();
+
+    @Before
+    public void setUp() {
+        stm = new GammaStm();
+        clearThreadLocalTxn();
+    }
+
+    @Test
+    public void whenLean() {
+        test(true, 10, false);
+    }
+
+    @Test
+    public void whenFat() {
+        test(false, 10, false);
+    }
+
+    @Test
+    public void whenConsumersAbortRandomly() {
+        test(false, 10, true);
+    }
+
+    @Test
+    public void whenNoCapacityLimit() {
+        test(false, Integer.MAX_VALUE, true);
+    }
+
+    private void test(boolean speculative, int capacity, boolean randomAborts) {
+        queue = new NaiveTxnLinkedList<Long>(stm, capacity, true);
+        TxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(speculative)
+                .setMaxRetries(100000)
+                .newTxnExecutor();
+
+        ProducerThread[] producers = new ProducerThread[producerCount];
+        for (int k = 0; k < producers.length; k++) {
+            producers[k] = new ProducerThread(k, executor);
+        }
+
+        long itemCount = (long) producerCount * itemsPerProducer;
+        ConsumerThread[] consumers = new ConsumerThread[consumerCount];
+        for (int k = 0; k < consumers.length; k++) {
+            consumers[k] = new ConsumerThread(k, executor, itemCount / consumerCount, randomAborts);
+        }
+
+        startAll(consumers);
+        startAll(producers);
+        joinAll(producers);
+        joinAll(consumers);
+
+        assertEquals(itemCount, consumedCount.get());
+        assertEquals(itemCount * (itemCount - 1) / 2, consumedSum.get());
+    }
+
+    class ProducerThread extends TestThread {
+        private final TxnExecutor executor;
+        private final int id;
+
+        ProducerThread(int id, TxnExecutor executor) {
+            super("ProducerThread-" + id);
+            this.id = id;
+            this.executor = executor;
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            for (int k = 0; k < itemsPerProducer; k++) {
+                final long item = (long) id * itemsPerProducer + k;
+                executor.execute(new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        queue.put(tx, item);
+                    }
+                });
+            }
+        }
+    }
+
+    class ConsumerThread extends TestThread {
+        private final TxnExecutor executor;
+        private final long count;
+        private final boolean randomAborts;
+
+        ConsumerThread(int id, TxnExecutor executor, long count, boolean randomAborts) {
+            super("ConsumerThread-" + id);
+            this.executor = executor;
+            this.count = count;
+            this.randomAborts = randomAborts;
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            for (long k = 0; k < count; k++) {
+                final long[] taken = new long[1];
+                while (true) {
+                    try {
+                        executor.execute(new TxnVoidCallable() {
+                            @Override
+                            public void call(Txn tx) throws Exception {
+                                taken[0] = queue.take(tx);
+                                if (randomAborts && randomOneOf(5)) {
+                                    throw new AbortException();
+                                }
+                            }
+                        });
+                        break;
+                    } catch (AbortException ignore) {
+                    }
+                }
+                consumedSum.addAndGet(taken[0]);
+                consumedCount.incrementAndGet();
+            }
+        }
+    }
+
+    static class AbortException extends RuntimeException {
+    }
+}
@@ -59,7 +59,6 @@ public class OrElseTest {
     }
 
     @Test
-    @Ignore
     public void whenOrElseBranchIsSuccess() {
         final TxnLong ref1 = newTxnLong(0);
         final TxnLong ref2 = newTxnLong(2);
@@ -74,6 +73,31 @@ public class OrElseTest {
         assertEquals(2, value);
     }
 
+    @Test
+    public void whenEitherBranchRetries_thenItsChangesAreDiscarded() {
+        final TxnLong ref1 = newTxnLong(0);
+        final TxnLong ref2 = newTxnLong(2);
+
+        long value = StmUtils.atomic(new TxnLongCallable() {
+            @Override
+            public long call(Txn tx) throws Exception {
+                return StmUtils.atomic(new TxnLongCallable() {
+                    @Override
+                    public long call(Txn tx) throws Exception {
+                        ref2.set(100);
+                        if (ref1.get() == 0) {
+                            retry();
+                        }
+                        return ref1.get();
+                    }
+                }, new GetCallable(ref2));
+            }
+        });
+
+        assertEquals(2, value);
+        assertEquals(2, ref2.atomicGet());
+    }
+
     @Test
     @Ignore
     public void whenBothBranchedBlock() {
@@ -8,6 +8,7 @@ import org.multiverse.api.Txn;
 import org.multiverse.api.callables.TxnBooleanCallable;
 import org.multiverse.api.callables.TxnVoidCallable;
 import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
 import org.multiverse.stms.gamma.LeanGammaTxnExecutor;
 import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
 import org.multiverse.stms.gamma.transactions.GammaTxnFactory;
@@ -67,6 +68,25 @@ public class PingPongStressTest {
         test(new FatVariableLengthGammaTxnFactory(stm), 10);
     }
 
+    @Test
+    public void withParkingRetryLatchAnd2Threads() throws InterruptedException {
+        useParkingRetryLatch();
+        test(new FatMonoGammaTxnFactory(stm), 2);
+    }
+
+    @Test
+    public void withParkingRetryLatchAnd10Threads() throws InterruptedException {
+        useParkingRetryLatch();
+        test(new FatVariableLengthGammaTxnFactory(stm), 10);
+    }
+
+    private void useParkingRetryLatch() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.parkingRetryLatchEnabled = true;
+        stm = new GammaStm(config);
+        ref = new GammaTxnLong(stm);
+    }
+
     public void test(GammaTxnFactory transactionFactory, int threadCount) throws InterruptedException {
         TxnExecutor executor = new LeanGammaTxnExecutor(transactionFactory);
         PingPongThread[] threads = createThreads(executor, threadCount);
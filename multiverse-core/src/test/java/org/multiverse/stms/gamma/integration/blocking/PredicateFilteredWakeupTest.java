@@ -0,0 +1,151 @@
+package org.multiverse.stms.gamma.integration.blocking;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.TestThread;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.multiverse.TestUtils.*;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+import static org.multiverse.api.predicates.LongPredicate.newLargerThanOrEqualsPredicate;
+
+/**
+ * Checks that a transaction that waits for a value using an await with a predicate, is only woken up by a write of
+ * a value that matches the predicate.
+ */
+public class PredicateFilteredWakeupTest {
+
+    private GammaStm stm;
+
+    @Before
+    public void setUp() {
+        stm = new GammaStm();
+        clearThreadLocalTxn();
+    }
+
+    @Test
+    public void whenLeanAndValueIncreased_thenOnlySatisfiedWaitersWokenUp() {
+        whenValueIncreased_thenOnlySatisfiedWaitersWokenUp(true);
+    }
+
+    @Test
+    public void whenFatAndValueIncreased_thenOnlySatisfiedWaitersWokenUp() {
+        whenValueIncreased_thenOnlySatisfiedWaitersWokenUp(false);
+    }
+
+    private void whenValueIncreased_thenOnlySatisfiedWaitersWokenUp(boolean speculative) {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        TxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(speculative)
+                .newTxnExecutor();
+
+        AwaitThread[] threads = new AwaitThread[10];
+        for (int k = 0; k < threads.length; k++) {
+            threads[k] = new AwaitThread(k, executor, ref, k + 1, false);
+        }
+        startAll(threads);
+        sleepMs(500);
+
+        for (int k = 0; k < threads.length; k++) {
+            ref.atomicIncrementAndGet(1);
+            sleepMs(100);
+        }
+
+        joinAll(threads);
+
+        //one attempt that blocks and one attempt after the wake-up that matches.
+        for (AwaitThread thread : threads) {
+            assertEquals(2, thread.attempts.get());
+        }
+    }
+
+    @Test
+    public void whenRefReadBeforeAwait_thenWokenUpByEveryChange() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        TxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(false)
+                .newTxnExecutor();
+
+        AwaitThread thread = new AwaitThread(0, executor, ref, 3, true);
+        thread.start();
+        sleepMs(500);
+
+        for (int k = 0; k < 3; k++) {
+            ref.atomicIncrementAndGet(1);
+            sleepMs(200);
+        }
+
+        joinAll(thread);
+        assertEquals(4, thread.attempts.get());
+    }
+
+    @Test
+    public void whenManyIncrements_thenNoWakeupLost() {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        TxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(false)
+                .setMaxRetries(10000)
+                .newTxnExecutor();
+
+        final int incrementCount = 2000;
+        AwaitThread[] threads = new AwaitThread[20];
+        for (int k = 0; k < threads.length; k++) {
+            threads[k] = new AwaitThread(k, executor, ref, (k + 1) * (incrementCount / threads.length), false);
+        }
+        startAll(threads);
+
+        TestThread incrementThread = new TestThread("IncrementThread") {
+            @Override
+            public void doRun() throws Exception {
+                for (int k = 0; k < incrementCount; k++) {
+                    ref.atomicIncrementAndGet(1);
+                    if (k % 100 == 0) {
+                        sleepMs(1);
+                    }
+                }
+            }
+        };
+        incrementThread.start();
+
+        joinAll(incrementThread);
+        joinAll(threads);
+        assertEquals(incrementCount, ref.atomicGet());
+    }
+
+    class AwaitThread extends TestThread {
+        private final TxnExecutor executor;
+        private final GammaTxnLong ref;
+        private final long minimum;
+        private final boolean readBeforeAwait;
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        AwaitThread(int id, TxnExecutor executor, GammaTxnLong ref, long minimum, boolean readBeforeAwait) {
+            super("AwaitThread-" + id);
+            this.executor = executor;
+            this.ref = ref;
+            this.minimum = minimum;
+            this.readBeforeAwait = readBeforeAwait;
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            executor.execute(new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    attempts.incrementAndGet();
+                    if (readBeforeAwait) {
+                        ref.get(tx);
+                    }
+                    ref.await(tx, newLargerThanOrEqualsPredicate(minimum));
+                }
+            });
+        }
+    }
+}
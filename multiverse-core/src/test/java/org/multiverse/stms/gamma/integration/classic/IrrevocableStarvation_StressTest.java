@@ -0,0 +1,158 @@
+package org.multiverse.stms.gamma.integration.classic;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.TestThread;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnLongCallable;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.multiverse.TestUtils.*;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+
+/**
+ * A starvation test: a batch transaction that touches all accounts competes with a lot of short transfers between
+ * two accounts. Without help the batch transaction keeps losing and eventually fails with a
+ * TooManyRetriesException; by becoming irrevocable after a few failed attempts it always completes.
+ * <p/>
+ * The invariant is that the total amount of money in all accounts doesn't change.
+ */
+public class IrrevocableStarvation_StressTest {
+
+    private static final long INITIAL_BALANCE = 1000;
+
+    private int accountCount = 1000;
+    private int transferThreadCount = 4;
+    private int batchThreadCount = 2;
+    private volatile boolean stop;
+    private GammaStm stm;
+    private GammaTxnLong[] accounts;
+
+    @Before
+    public void setUp() {
+        clearThreadLocalTxn();
+        stm = new GammaStm();
+        stop = false;
+    }
+
+    @Test
+    public void whenIrrevocableAfterAttempts() {
+        TxnExecutor batchExecutor = stm.newTxnFactoryBuilder()
+                .setMaxRetries(10)
+                .setIrrevocableAfterAttempts(3)
+                .newTxnExecutor();
+        run(batchExecutor);
+    }
+
+    @Test
+    public void whenAlwaysIrrevocable() {
+        TxnExecutor batchExecutor = stm.newTxnFactoryBuilder()
+                .setMaxRetries(10)
+                .setIrrevocable(true)
+                .newTxnExecutor();
+        run(batchExecutor);
+    }
+
+    public void run(TxnExecutor batchExecutor) {
+        accounts = new GammaTxnLong[accountCount];
+        for (int k = 0; k < accounts.length; k++) {
+            accounts[k] = new GammaTxnLong(stm, INITIAL_BALANCE);
+        }
+
+        TransferThread[] transferThreads = new TransferThread[transferThreadCount];
+        for (int k = 0; k < transferThreads.length; k++) {
+            transferThreads[k] = new TransferThread(k);
+        }
+
+        BatchThread[] batchThreads = new BatchThread[batchThreadCount];
+        for (int k = 0; k < batchThreads.length; k++) {
+            batchThreads[k] = new BatchThread(k, batchExecutor);
+        }
+
+        startAll(transferThreads);
+        startAll(batchThreads);
+
+        sleepMs(getStressTestDurationMs(30 * 1000));
+        stop = true;
+
+        joinAll(transferThreads);
+        joinAll(batchThreads);
+
+        assertEquals(accountCount * INITIAL_BALANCE, sum());
+        for (BatchThread batchThread : batchThreads) {
+            System.out.printf("%s completed %s batches\n", batchThread.getName(), batchThread.batchCount);
+            assertTrue(batchThread.batchCount > 0);
+        }
+        assertEquals(null, stm.getIrrevocableToken().getOwner());
+    }
+
+    private long sum() {
+        return stm.getDefaultTxnExecutor().execute(new TxnLongCallable() {
+            @Override
+            public long call(Txn tx) throws Exception {
+                long sum = 0;
+                for (GammaTxnLong account : accounts) {
+                    sum += account.get(tx);
+                }
+                return sum;
+            }
+        });
+    }
+
+    class TransferThread extends TestThread {
+        private final TxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setMaxRetries(100000)
+                .newTxnExecutor();
+
+        TransferThread(int id) {
+            super("TransferThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            while (!stop) {
+                final GammaTxnLong from = accounts[randomInt(accounts.length)];
+                final GammaTxnLong to = accounts[randomInt(accounts.length)];
+                executor.execute(new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        from.decrement(tx);
+                        to.increment(tx);
+                    }
+                });
+            }
+        }
+    }
+
+    class BatchThread extends TestThread {
+        private final TxnExecutor executor;
+        private long batchCount;
+
+        BatchThread(int id, TxnExecutor executor) {
+            super("BatchThread-" + id);
+            this.executor = executor;
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            while (!stop) {
+                //moves a unit from every account to the next one; it doesn't change the total.
+                executor.execute(new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        for (int k = 0; k < accounts.length; k++) {
+                            accounts[k].decrement(tx);
+                            accounts[(k + 1) % accounts.length].increment(tx);
+                        }
+                    }
+                });
+                batchCount++;
+            }
+        }
+    }
+}
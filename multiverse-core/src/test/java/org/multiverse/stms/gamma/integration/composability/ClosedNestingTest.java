@@ -0,0 +1,353 @@
+package org.multiverse.stms.gamma.integration.composability;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.SomeUncheckedException;
+import org.multiverse.api.LockMode;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.multiverse.TestUtils.assertInstanceof;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+import static org.multiverse.stms.gamma.GammaConstants.LOCKMODE_NONE;
+import static org.multiverse.stms.gamma.GammaTestUtils.assertRefHasNoLocks;
+import static org.multiverse.stms.gamma.GammaTestUtils.assertRefHasReadLock;
+
+public class ClosedNestingTest {
+
+    private GammaStm stm;
+    private TxnExecutor outerExecutor;
+    private TxnExecutor nestedExecutor;
+
+    @Before
+    public void setUp() {
+        clearThreadLocalTxn();
+        stm = new GammaStm();
+        outerExecutor = stm.newTxnFactoryBuilder()
+                .setSpeculative(false)
+                .newTxnExecutor();
+        nestedExecutor = stm.newTxnFactoryBuilder()
+                .setClosedNesting(true)
+                .newTxnExecutor();
+    }
+
+    @Test
+    public void whenNestedCommits_thenChangesVisibleInOuter() {
+        final GammaTxnLong ref = new GammaTxnLong(stm, 10);
+
+        outerExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                nestedExecutor.execute(new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        ref.increment(tx);
+                    }
+                });
+
+                assertEquals(11, ref.get(tx));
+                assertEquals(0, ((GammaTxn) tx).nestingLevel);
+            }
+        });
+
+        assertEquals(11, ref.atomicGet());
+    }
+
+    @Test
+    public void whenNestedFails_thenOnlyNestedChangesRolledBack() {
+        final GammaTxnLong ref1 = new GammaTxnLong(stm, 10);
+        final GammaTxnLong ref2 = new GammaTxnLong(stm, 20);
+
+        outerExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                ref1.set(tx, 11);
+
+                try {
+                    nestedExecutor.execute(new TxnVoidCallable() {
+                        @Override
+                        public void call(Txn tx) throws Exception {
+                            ref1.set(tx, 100);
+                            ref2.set(tx, 200);
+                            throw new SomeUncheckedException();
+                        }
+                    });
+                    fail();
+                } catch (SomeUncheckedException expected) {
+                }
+
+                assertEquals(11, ref1.get(tx));
+                assertEquals(20, ref2.get(tx));
+            }
+        });
+
+        assertEquals(11, ref1.atomicGet());
+        assertEquals(20, ref2.atomicGet());
+        assertRefHasNoLocks(ref2);
+    }
+
+    @Test
+    public void whenMultipleLevels_thenOnlyFailingLevelRolledBack() {
+        final GammaTxnLong ref = new GammaTxnLong(stm, 0);
+
+        outerExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                ref.set(tx, 1);
+                nestedExecutor.execute(new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        ref.set(tx, 2);
+                        try {
+                            nestedExecutor.execute(new TxnVoidCallable() {
+                                @Override
+                                public void call(Txn tx) throws Exception {
+                                    ref.set(tx, 3);
+                                    throw new SomeUncheckedException();
+                                }
+                            });
+                            fail();
+                        } catch (SomeUncheckedException expected) {
+                        }
+                        assertEquals(2, ref.get(tx));
+                    }
+                });
+                assertEquals(2, ref.get(tx));
+            }
+        });
+
+        assertEquals(2, ref.atomicGet());
+    }
+
+    @Test
+    public void whenConflictInNested_thenOnlyNestedRetried() {
+        final GammaTxnLong[] outerRefs = new GammaTxnLong[100];
+        for (int k = 0; k < outerRefs.length; k++) {
+            outerRefs[k] = new GammaTxnLong(stm, 1);
+        }
+        final GammaTxnLong ref1 = new GammaTxnLong(stm, 0);
+        final GammaTxnLong ref2 = new GammaTxnLong(stm, 0);
+        final AtomicInteger outerAttempts = new AtomicInteger();
+        final AtomicInteger nestedAttempts = new AtomicInteger();
+
+        outerExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                outerAttempts.incrementAndGet();
+                for (GammaTxnLong ref : outerRefs) {
+                    ref.get(tx);
+                }
+
+                nestedExecutor.execute(new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        long value = ref1.get(tx);
+                        if (nestedAttempts.incrementAndGet() == 1) {
+                            //causes a read conflict on ref1 that is detected when ref2 is read.
+                            ref1.atomicIncrementAndGet(1);
+                        }
+                        ref2.set(tx, value + ref2.get(tx) + 10);
+                    }
+                });
+            }
+        });
+
+        assertEquals(1, outerAttempts.get());
+        assertEquals(2, nestedAttempts.get());
+        assertEquals(1, ref1.atomicGet());
+        assertEquals(11, ref2.atomicGet());
+    }
+
+    @Test
+    public void whenConflictInNestedAndOuterReadInvalid_thenOuterRestarted() {
+        final GammaTxnLong outerRef = new GammaTxnLong(stm, 0);
+        final GammaTxnLong ref1 = new GammaTxnLong(stm, 0);
+        final GammaTxnLong ref2 = new GammaTxnLong(stm, 0);
+        final AtomicInteger outerAttempts = new AtomicInteger();
+        final AtomicInteger nestedAttempts = new AtomicInteger();
+
+        outerExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                outerAttempts.incrementAndGet();
+                final long outerValue = outerRef.get(tx);
+
+                nestedExecutor.execute(new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        ref1.get(tx);
+                        if (nestedAttempts.incrementAndGet() == 1) {
+                            outerRef.atomicIncrementAndGet(1);
+                            ref1.atomicIncrementAndGet(1);
+                        }
+                        ref2.set(tx, outerValue + ref2.get(tx));
+                    }
+                });
+            }
+        });
+
+        assertEquals(2, outerAttempts.get());
+        assertEquals(2, nestedAttempts.get());
+        assertEquals(1, ref2.atomicGet());
+    }
+
+    @Test
+    public void whenOuterIsSpeculative_thenUpgradedToVariableLength() {
+        final GammaTxnLong ref = new GammaTxnLong(stm, 0);
+        final AtomicInteger outerAttempts = new AtomicInteger();
+
+        TxnExecutor speculativeExecutor = stm.newTxnFactoryBuilder()
+                .setSpeculative(true)
+                .newTxnExecutor();
+
+        speculativeExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                outerAttempts.incrementAndGet();
+                nestedExecutor.execute(new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        assertInstanceof(FatVariableLengthGammaTxn.class, tx);
+                        ref.increment(tx);
+                    }
+                });
+            }
+        });
+
+        assertEquals(2, outerAttempts.get());
+        assertEquals(1, ref.atomicGet());
+    }
+
+    @Test
+    public void whenNestedLocksReadOfOuterAndFails_thenLockReleased() {
+        final GammaTxnLong ref = new GammaTxnLong(stm, 10);
+
+        outerExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                ref.get(tx);
+
+                try {
+                    nestedExecutor.execute(new TxnVoidCallable() {
+                        @Override
+                        public void call(Txn tx) throws Exception {
+                            ref.getAndLock(tx, LockMode.Exclusive);
+                            throw new SomeUncheckedException();
+                        }
+                    });
+                    fail();
+                } catch (SomeUncheckedException expected) {
+                }
+
+                assertRefHasNoLocks(ref, (GammaTxn) tx);
+                assertEquals(LOCKMODE_NONE, ((GammaTxn) tx).getRefTranlocal(ref).lockMode);
+            }
+        });
+
+        assertEquals(10, ref.atomicGet());
+        assertRefHasNoLocks(ref);
+    }
+
+    @Test
+    public void whenNestedUpgradesLockOfOuterAndFails_thenLockDowngraded() {
+        final GammaTxnLong ref = new GammaTxnLong(stm, 10);
+
+        outerExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                ref.getAndLock(tx, LockMode.Read);
+
+                try {
+                    nestedExecutor.execute(new TxnVoidCallable() {
+                        @Override
+                        public void call(Txn tx) throws Exception {
+                            ref.getAndSetAndLock(tx, 20, LockMode.Exclusive);
+                            throw new SomeUncheckedException();
+                        }
+                    });
+                    fail();
+                } catch (SomeUncheckedException expected) {
+                }
+
+                assertRefHasReadLock(ref, (GammaTxn) tx);
+                assertEquals(10, ref.get(tx));
+            }
+        });
+
+        assertEquals(10, ref.atomicGet());
+        assertRefHasNoLocks(ref);
+    }
+
+    @Test
+    public void whenOrElseOnSpeculativeAndEitherSucceeds_thenNotUpgraded() {
+        final GammaTxnLong ref = new GammaTxnLong(stm, 0);
+        final AtomicInteger outerAttempts = new AtomicInteger();
+
+        TxnExecutor speculativeExecutor = stm.newTxnFactoryBuilder()
+                .setSpeculative(true)
+                .newTxnExecutor();
+
+        speculativeExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                outerAttempts.incrementAndGet();
+                stm.newOrElseBlock().execute(new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        assertFalse(tx instanceof FatVariableLengthGammaTxn);
+                        ref.increment(tx);
+                    }
+                }, new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        fail();
+                    }
+                });
+            }
+        });
+
+        assertEquals(1, outerAttempts.get());
+        assertEquals(1, ref.atomicGet());
+    }
+
+    @Test
+    public void whenOrElseOnSpeculativeAndEitherRetries_thenUpgradedToVariableLength() {
+        final GammaTxnLong ref = new GammaTxnLong(stm, 0);
+        final AtomicInteger outerAttempts = new AtomicInteger();
+
+        TxnExecutor speculativeExecutor = stm.newTxnFactoryBuilder()
+                .setSpeculative(true)
+                .newTxnExecutor();
+
+        speculativeExecutor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                outerAttempts.incrementAndGet();
+                stm.newOrElseBlock().execute(new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        ref.set(tx, 100);
+                        tx.retry();
+                    }
+                }, new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        assertInstanceof(FatVariableLengthGammaTxn.class, tx);
+                        ref.increment(tx);
+                    }
+                });
+            }
+        });
+
+        assertEquals(2, outerAttempts.get());
+        assertEquals(1, ref.atomicGet());
+    }
+}
@@ -0,0 +1,310 @@
+package org.multiverse.stms.gamma.integration.composability;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.SomeUncheckedException;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.TxnFork;
+import org.multiverse.api.callables.TxnCallable;
+import org.multiverse.api.callables.TxnLongCallable;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.api.exceptions.ReadWriteConflict;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+import static org.multiverse.stms.gamma.GammaTestUtils.assertRefHasNoLocks;
+
+public class ForkJoinTest {
+
+    private GammaStm stm;
+    private TxnExecutor executor;
+    private final Executor callerRunsExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    @Before
+    public void setUp() {
+        clearThreadLocalTxn();
+        stm = new GammaStm();
+        executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(false)
+                .newTxnExecutor();
+    }
+
+    @Test
+    public void whenChildJoined_thenChangesVisibleInParent() {
+        final GammaTxnLong ref1 = new GammaTxnLong(stm, 10);
+        final GammaTxnLong ref2 = new GammaTxnLong(stm, 20);
+
+        long result = executor.execute(new TxnLongCallable() {
+            @Override
+            public long call(Txn tx) throws Exception {
+                ref1.set(tx, 11);
+
+                TxnFork<Long> fork = tx.fork(new TxnCallable<Long>() {
+                    @Override
+                    public Long call(Txn tx) throws Exception {
+                        ref2.set(tx, 21);
+                        return ref1.get(tx);
+                    }
+                });
+
+                long value = fork.join();
+                assertEquals(21, ref2.get(tx));
+                return value;
+            }
+        });
+
+        assertEquals(11, result);
+        assertEquals(11, ref1.atomicGet());
+        assertEquals(21, ref2.atomicGet());
+    }
+
+    @Test
+    public void whenSiblingsWriteSameRef_thenSecondExecutedAgainOnParent() {
+        final GammaTxnLong ref = new GammaTxnLong(stm, 0);
+        final AtomicInteger calls = new AtomicInteger();
+
+        executor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                TxnCallable<Object> increment = new TxnCallable<Object>() {
+                    @Override
+                    public Object call(Txn tx) throws Exception {
+                        calls.incrementAndGet();
+                        ref.increment(tx);
+                        return null;
+                    }
+                };
+
+                //both children are executed when forked, so the second one can't see the change of the first one.
+                TxnFork<Object> fork1 = tx.fork(increment, callerRunsExecutor);
+                TxnFork<Object> fork2 = tx.fork(increment, callerRunsExecutor);
+                fork1.join();
+                fork2.join();
+            }
+        });
+
+        assertEquals(2, ref.atomicGet());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void whenChildNotJoined_thenJoinedOnCommit() {
+        final GammaTxnLong ref = new GammaTxnLong(stm, 0);
+
+        executor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                tx.fork(new TxnCallable<Object>() {
+                    @Override
+                    public Object call(Txn tx) throws Exception {
+                        ref.increment(tx);
+                        return null;
+                    }
+                });
+            }
+        });
+
+        assertEquals(1, ref.atomicGet());
+    }
+
+    @Test
+    public void whenChildFails_thenExceptionRethrownOnJoin() {
+        final GammaTxnLong ref = new GammaTxnLong(stm, 0);
+
+        try {
+            executor.execute(new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    tx.fork(new TxnCallable<Object>() {
+                        @Override
+                        public Object call(Txn tx) throws Exception {
+                            ref.set(tx, 10);
+                            throw new SomeUncheckedException();
+                        }
+                    }).join();
+                }
+            });
+            fail();
+        } catch (SomeUncheckedException expected) {
+        }
+
+        assertEquals(0, ref.atomicGet());
+        assertRefHasNoLocks(ref);
+    }
+
+    @Test
+    public void whenReadOfParentInvalidatedDuringFork_thenParentRestarted() {
+        final GammaTxnLong ref1 = new GammaTxnLong(stm, 0);
+        final GammaTxnLong ref2 = new GammaTxnLong(stm, 0);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        executor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                final long value = ref1.get(tx);
+                if (attempts.incrementAndGet() == 1) {
+                    ref1.atomicIncrementAndGet(1);
+                }
+
+                tx.fork(new TxnCallable<Object>() {
+                    @Override
+                    public Object call(Txn tx) throws Exception {
+                        ref2.set(tx, value + 10);
+                        return null;
+                    }
+                }).join();
+            }
+        });
+
+        assertEquals(2, attempts.get());
+        assertEquals(11, ref2.atomicGet());
+    }
+
+    @Test
+    public void whenManyChildren_thenAllChangesMerged() {
+        final GammaTxnLong[] refs = new GammaTxnLong[1000];
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = new GammaTxnLong(stm, k);
+        }
+        final int forkCount = 4;
+
+        long sum = executor.execute(new TxnLongCallable() {
+            @Override
+            @SuppressWarnings({"unchecked"})
+            public long call(Txn tx) throws Exception {
+                TxnFork<Long>[] forks = new TxnFork[forkCount];
+                final int partSize = refs.length / forkCount;
+                for (int k = 0; k < forkCount; k++) {
+                    final int from = k * partSize;
+                    forks[k] = tx.fork(new TxnCallable<Long>() {
+                        @Override
+                        public Long call(Txn tx) throws Exception {
+                            long sum = 0;
+                            for (int l = from; l < from + partSize; l++) {
+                                sum += refs[l].getAndIncrement(tx, 1);
+                            }
+                            return sum;
+                        }
+                    });
+                }
+
+                long sum = 0;
+                for (TxnFork<Long> fork : forks) {
+                    sum += fork.join();
+                }
+                return sum;
+            }
+        });
+
+        assertEquals(499500, sum);
+        for (int k = 0; k < refs.length; k++) {
+            assertEquals(k + 1, refs[k].atomicGet());
+            assertRefHasNoLocks(refs[k]);
+        }
+    }
+
+    @Test
+    public void whenParentIsSpeculative_thenUpgradedToVariableLength() {
+        final GammaTxnLong ref = new GammaTxnLong(stm, 0);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        stm.newTxnFactoryBuilder()
+                .setSpeculative(true)
+                .newTxnExecutor()
+                .execute(new TxnVoidCallable() {
+                    @Override
+                    public void call(Txn tx) throws Exception {
+                        attempts.incrementAndGet();
+                        tx.fork(new TxnCallable<Object>() {
+                            @Override
+                            public Object call(Txn tx) throws Exception {
+                                ref.increment(tx);
+                                return null;
+                            }
+                        }).join();
+                    }
+                });
+
+        assertEquals(2, attempts.get());
+        assertEquals(1, ref.atomicGet());
+    }
+
+    @Test
+    public void whenForkedAgainAfterJoin_thenChildReused() {
+        final GammaTxnLong ref = new GammaTxnLong(stm, 0);
+        final List<Txn> children = new ArrayList<Txn>();
+
+        executor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                children.clear();
+                for (int k = 0; k < 2; k++) {
+                    children.add(tx.fork(new TxnCallable<Txn>() {
+                        @Override
+                        public Txn call(Txn tx) throws Exception {
+                            ref.increment(tx);
+                            return tx;
+                        }
+                    }).join());
+                }
+            }
+        });
+
+        assertEquals(2, children.size());
+        assertSame(children.get(0), children.get(1));
+        assertEquals(2, ref.atomicGet());
+        assertRefHasNoLocks(ref);
+    }
+
+    @Test
+    public void whenChildWithCopiesOfParentRerun_thenChildCanBeForkedAgain() {
+        final GammaTxnLong ref1 = new GammaTxnLong(stm, 0);
+        final GammaTxnLong ref2 = new GammaTxnLong(stm, 0);
+        final AtomicInteger calls = new AtomicInteger();
+
+        for (int round = 1; round <= 2; round++) {
+            final long value = round;
+            long sum = executor.execute(new TxnLongCallable() {
+                @Override
+                public long call(Txn tx) throws Exception {
+                    ref1.set(tx, value);
+                    ref2.set(tx, value * 10);
+
+                    return tx.fork(new TxnCallable<Long>() {
+                        @Override
+                        public Long call(Txn tx) throws Exception {
+                            long sum = ref1.get(tx) + ref2.get(tx);
+                            if (calls.incrementAndGet() == 1) {
+                                throw ReadWriteConflict.INSTANCE;
+                            }
+                            return sum;
+                        }
+                    }, callerRunsExecutor).join();
+                }
+            });
+
+            assertEquals(value * 11, sum);
+            assertEquals(value, ref1.atomicGet());
+            assertEquals(value * 10, ref2.atomicGet());
+            assertRefHasNoLocks(ref1);
+            assertRefHasNoLocks(ref2);
+        }
+
+        assertEquals(3, calls.get());
+    }
+}
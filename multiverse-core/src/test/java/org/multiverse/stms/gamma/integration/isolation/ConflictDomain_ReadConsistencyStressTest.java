@@ -0,0 +1,190 @@
+package org.multiverse.stms.gamma.integration.isolation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.TestThread;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.GammaTxnRefFactory;
+import org.multiverse.stms.gamma.LeanGammaTxnExecutor;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxnFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertFalse;
+import static org.multiverse.TestUtils.*;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+
+/**
+ * Checks that read consistency is preserved when the global conflict counter is partitioned in conflict domains.
+ * <p/>
+ * The refs are spread over all domains, and a single writer hammers a set of hot refs that all live in one domain,
+ * so most conflicts only signal that domain. The readers read the hot refs and the refs in the other domains and
+ * check that the hot refs all have the same value.
+ */
+public class ConflictDomain_ReadConsistencyStressTest {
+
+    private GammaTxnLong[] hotRefs;
+    private GammaTxnLong[] coldRefs;
+
+    private int readerCount = 10;
+    private int writerCount = 2;
+    private int domainCount = 8;
+    private long durationMs = 1 * 60 * 1000;
+    private volatile boolean stop;
+    private GammaStm stm;
+    private final AtomicBoolean inconsistencyDetected = new AtomicBoolean();
+
+    @Before
+    public void setUp() {
+        clearThreadLocalTxn();
+        stop = false;
+        GammaStmConfig config = new GammaStmConfig();
+        config.conflictDomainCount = domainCount;
+        stm = new GammaStm(config);
+        inconsistencyDetected.set(false);
+    }
+
+    @After
+    public void tearDown() {
+        System.out.println("Stm.GlobalConflictCount: " + stm.getGlobalConflictCounter().count());
+        for (int domain = 0; domain < domainCount; domain++) {
+            System.out.printf("Domain %s conflict count: %s\n", domain, stm.getGlobalConflictCounter().count(domain));
+        }
+    }
+
+    @Test
+    public void testWith8Refs() {
+        run(8);
+    }
+
+    @Test
+    public void testWith64Refs() {
+        run(64);
+    }
+
+    @Test
+    public void testWith512Refs() {
+        run(512);
+    }
+
+    public void run(int refCount) {
+        GammaTxnRefFactory hotRefFactory = stm.getTxRefFactoryBuilder()
+                .setConflictDomain(0)
+                .build();
+
+        hotRefs = new GammaTxnLong[refCount];
+        for (int k = 0; k < hotRefs.length; k++) {
+            hotRefs[k] = hotRefFactory.newTxnLong(0);
+        }
+
+        coldRefs = new GammaTxnLong[refCount];
+        for (int k = 0; k < coldRefs.length; k++) {
+            coldRefs[k] = new GammaTxnLong(stm);
+        }
+
+        ReadThread[] readerThreads = new ReadThread[readerCount];
+        for (int k = 0; k < readerThreads.length; k++) {
+            readerThreads[k] = new ReadThread(k);
+        }
+
+        WriterThread[] writerThreads = new WriterThread[writerCount];
+        for (int k = 0; k < writerThreads.length; k++) {
+            writerThreads[k] = new WriterThread(k);
+        }
+
+        startAll(readerThreads);
+        startAll(writerThreads);
+        System.out.printf("Running for %s milliseconds\n", durationMs);
+        sleepMs(getStressTestDurationMs(durationMs));
+        stop = true;
+        joinAll(readerThreads);
+        joinAll(writerThreads);
+        assertFalse(inconsistencyDetected.get());
+    }
+
+    private TxnExecutor newExecutor() {
+        GammaTxnConfig config = new GammaTxnConfig(stm)
+                .setMaxRetries(10000)
+                .setMaximumPoorMansConflictScanLength(0);
+        return new LeanGammaTxnExecutor(new FatVariableLengthGammaTxnFactory(config));
+    }
+
+    public class WriterThread extends TestThread {
+
+        private int id;
+
+        public WriterThread(int id) {
+            super("WriterThread-" + id);
+            this.id = id;
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            TxnExecutor executor = newExecutor();
+            TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    GammaTxn btx = (GammaTxn) tx;
+                    for (int k = 0; k < hotRefs.length; k++) {
+                        hotRefs[k].set(btx, id);
+                    }
+                }
+            };
+
+            int k = 0;
+            while (!stop) {
+                executor.execute(callable);
+                sleepRandomUs(100);
+                k++;
+            }
+            System.out.printf("%s completed %s transactions\n", getName(), k);
+        }
+    }
+
+    public class ReadThread extends TestThread {
+
+        public ReadThread(int id) {
+            super("ReadThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            TxnExecutor executor = newExecutor();
+
+            TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    GammaTxn btx = (GammaTxn) tx;
+
+                    long initial = hotRefs[0].get(btx);
+                    for (int k = 1; k < hotRefs.length; k++) {
+                        //interleave reads on the other domains so that those domains end up in the read set
+                        coldRefs[k].get(btx);
+
+                        long s = hotRefs[k].get(btx);
+                        if (initial != s) {
+                            inconsistencyDetected.set(true);
+                            stop = true;
+                            System.out.printf("Inconsistency detected at index %s!!\n", k);
+                        }
+                    }
+                }
+            };
+
+            int k = 0;
+            while (!stop) {
+                executor.execute(callable);
+                k++;
+            }
+            System.out.printf("%s completed %s transactions\n", getName(), k);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.multiverse.stms.gamma.integration.isolation;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.LeanGammaTxnExecutor;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.fat.FatFixedLengthGammaTxnFactory;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxnFactory;
+
+/**
+ * Checks the read consistency of the fat transactions when the {@link org.multiverse.stms.gamma.GlobalCommitClock}
+ * is used instead of the GlobalConflictCounter.
+ */
+public class LongRefReadConsistency_GlobalCommitClock_StressTest extends LongRefReadConsistency_AbstractTest {
+
+    private boolean fixedLength;
+
+    @Before
+    public void setUpClock() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.globalCommitClockEnabled = true;
+        stm = new GammaStm(config);
+    }
+
+    @Test
+    public void fixedLength_testWith2Refs() {
+        fixedLength = true;
+        run(2);
+    }
+
+    @Test
+    public void fixedLength_testWith16Refs() {
+        fixedLength = true;
+        run(16);
+    }
+
+    @Test
+    public void variableLength_testWith2Refs() {
+        run(2);
+    }
+
+    @Test
+    public void variableLength_testWith32Refs() {
+        run(32);
+    }
+
+    @Test
+    public void variableLength_testWith512Refs() {
+        run(512);
+    }
+
+    @Test
+    public void variableLength_testWith2048Refs() {
+        run(2048);
+    }
+
+    @Override
+    protected TxnExecutor createReadBlock() {
+        return createBlock();
+    }
+
+    @Override
+    protected TxnExecutor createWriteBlock() {
+        return createBlock();
+    }
+
+    private TxnExecutor createBlock() {
+        GammaTxnConfig config = new GammaTxnConfig(stm)
+                .setMaxRetries(10000);
+        if (fixedLength) {
+            return new LeanGammaTxnExecutor(new FatFixedLengthGammaTxnFactory(config));
+        }
+        return new LeanGammaTxnExecutor(new FatVariableLengthGammaTxnFactory(config));
+    }
+}
@@ -352,11 +352,7 @@ public class Orec_Ref_ReadConsistencyStressTest implements GammaConstants {
         private void fullRead() {
             for (int k = 0; k < refs.length; k++) {
                 GammaTxnRef ref = refs[k];
-                Tranlocal tranlocal = tx.head;
-
-                while (tranlocal.owner != null) {
-                    tranlocal = tranlocal.next;
-                }
+                Tranlocal tranlocal = tx.array[tx.size];
                 tx.size++;
 
                 if (!tx.hasReads) {
@@ -0,0 +1,152 @@
+package org.multiverse.stms.gamma.integration.isolation;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.TestThread;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.GammaTxnRefFactory;
+import org.multiverse.stms.gamma.LeanGammaTxnExecutor;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxnFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertFalse;
+import static org.multiverse.TestUtils.*;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+
+/**
+ * Checks that readonly transactions read a consistent snapshot when the refs keep a history of committed values.
+ * <p/>
+ * The writers move amounts between random refs, so the sum of all refs never changes. The readers sum all refs in a
+ * single readonly transaction.
+ */
+public class ReadonlySnapshotStressTest {
+
+    private int refCount = 1000;
+    private int readerCount = 4;
+    private int writerCount = 4;
+    private int historyDepth = 8;
+    private long durationMs = 1 * 60 * 1000;
+    private volatile boolean stop;
+    private GammaStm stm;
+    private GammaTxnLong[] refs;
+    private final AtomicBoolean inconsistencyDetected = new AtomicBoolean();
+    private final AtomicLong readAttempts = new AtomicLong();
+    private final AtomicLong readCommits = new AtomicLong();
+
+    @Before
+    public void setUp() {
+        clearThreadLocalTxn();
+        GammaStmConfig config = new GammaStmConfig();
+        config.globalCommitClockEnabled = true;
+        stm = new GammaStm(config);
+        stop = false;
+    }
+
+    @Test
+    public void test() {
+        GammaTxnRefFactory refFactory = stm.getTxRefFactoryBuilder()
+                .setHistoryDepth(historyDepth)
+                .build();
+        refs = new GammaTxnLong[refCount];
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = refFactory.newTxnLong(100);
+        }
+
+        ReadThread[] readThreads = new ReadThread[readerCount];
+        for (int k = 0; k < readThreads.length; k++) {
+            readThreads[k] = new ReadThread(k);
+        }
+
+        WriteThread[] writeThreads = new WriteThread[writerCount];
+        for (int k = 0; k < writeThreads.length; k++) {
+            writeThreads[k] = new WriteThread(k);
+        }
+
+        startAll(readThreads);
+        startAll(writeThreads);
+        sleepMs(getStressTestDurationMs(durationMs));
+        stop = true;
+        joinAll(readThreads);
+        joinAll(writeThreads);
+
+        System.out.printf("Readonly attempts %s, commits %s\n", readAttempts.get(), readCommits.get());
+        assertFalse(inconsistencyDetected.get());
+    }
+
+    public class WriteThread extends TestThread {
+
+        public WriteThread(int id) {
+            super("WriteThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            GammaTxnConfig config = new GammaTxnConfig(stm)
+                    .setMaxRetries(10000);
+            TxnExecutor executor = new LeanGammaTxnExecutor(new FatVariableLengthGammaTxnFactory(config));
+
+            TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    GammaTxn btx = (GammaTxn) tx;
+                    GammaTxnLong from = refs[randomInt(refs.length)];
+                    GammaTxnLong to = refs[randomInt(refs.length)];
+                    from.decrement(btx, 1);
+                    to.increment(btx, 1);
+                }
+            };
+
+            while (!stop) {
+                executor.execute(callable);
+                sleepRandomUs(20);
+            }
+        }
+    }
+
+    public class ReadThread extends TestThread {
+
+        public ReadThread(int id) {
+            super("ReadThread-" + id);
+        }
+
+        @Override
+        public void doRun() throws Exception {
+            GammaTxnConfig config = new GammaTxnConfig(stm)
+                    .setReadonly(true)
+                    .setMaxRetries(10000);
+            TxnExecutor executor = new LeanGammaTxnExecutor(new FatVariableLengthGammaTxnFactory(config));
+
+            TxnVoidCallable callable = new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    readAttempts.incrementAndGet();
+                    GammaTxn btx = (GammaTxn) tx;
+                    long sum = 0;
+                    for (GammaTxnLong ref : refs) {
+                        sum += ref.get(btx);
+                    }
+
+                    if (sum != 100L * refCount) {
+                        System.out.printf("Inconsistency detected, sum was %s\n", sum);
+                        inconsistencyDetected.set(true);
+                        stop = true;
+                    }
+                }
+            };
+
+            while (!stop) {
+                executor.execute(callable);
+                readCommits.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.multiverse.stms.gamma.integration.liveness;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.TestThread;
+import org.multiverse.api.exceptions.ReadWriteConflict;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.contention.ContentionManager;
+import org.multiverse.stms.gamma.contention.WoundWaitContentionManager;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+import org.multiverse.stms.gamma.transactions.GammaTxnFactory;
+
+import static org.junit.Assert.*;
+import static org.multiverse.TestUtils.*;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+import static org.multiverse.stms.gamma.GammaTestUtils.assertRefHasNoLocks;
+
+public class ContentionManagerTest implements GammaConstants {
+    private GammaStm stm;
+
+    @Before
+    public void setUp() {
+        clearThreadLocalTxn();
+        stm = new GammaStm();
+    }
+
+    @Test
+    public void whenNoContentionManager_thenDefaultBehavior() {
+        GammaTxnFactory txFactory = stm.newTxnFactoryBuilder()
+                .setSpeculative(false)
+                .newTransactionFactory();
+
+        assertNull(txFactory.getConfig().contentionManager);
+    }
+
+    @Test
+    public void whenContentionManager_thenFatTransaction() {
+        GammaTxnFactory txFactory = stm.newTxnFactoryBuilder()
+                .setContentionManager(new WoundWaitContentionManager())
+                .newTransactionFactory();
+
+        GammaTxn tx = txFactory.newTxn();
+        assertFalse(tx.isLean());
+    }
+
+    @Test
+    public void whenOlderNeedsLockOfYounger_thenYoungerAborted() {
+        GammaTxnFactory txFactory = newTxnFactory(new WoundWaitContentionManager(10));
+        GammaTxn older = txFactory.newTxn();
+        GammaTxn younger = txFactory.newTxn();
+        younger.startTimeNs = older.startTimeNs + 1;
+
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        ref.openForWrite(younger, LOCKMODE_EXCLUSIVE).long_value++;
+
+        //the younger doesn't do anything, so eventually the older gives up.
+        try {
+            ref.openForWrite(older, LOCKMODE_EXCLUSIVE);
+            fail();
+        } catch (ReadWriteConflict expected) {
+        }
+
+        assertIsAborted(older);
+        assertTrue(younger.isAbortRequested());
+
+        try {
+            younger.commit();
+            fail();
+        } catch (ReadWriteConflict expected) {
+        }
+
+        assertIsAborted(younger);
+        assertRefHasNoLocks(ref);
+        assertNull(ref.___getLockOwner());
+        assertEquals(0, ref.atomicGet());
+    }
+
+    @Test
+    public void whenYoungerNeedsLockOfOlder_thenOlderNotAborted() {
+        GammaTxnFactory txFactory = newTxnFactory(new WoundWaitContentionManager(10));
+        GammaTxn older = txFactory.newTxn();
+        GammaTxn younger = txFactory.newTxn();
+        younger.startTimeNs = older.startTimeNs + 1;
+
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        ref.openForWrite(older, LOCKMODE_EXCLUSIVE).long_value++;
+
+        try {
+            ref.openForWrite(younger, LOCKMODE_EXCLUSIVE);
+            fail();
+        } catch (ReadWriteConflict expected) {
+        }
+
+        assertIsAborted(younger);
+        assertFalse(older.isAbortRequested());
+
+        older.commit();
+
+        assertIsCommitted(older);
+        assertEquals(1, ref.atomicGet());
+    }
+
+    @Test
+    public void whenWoundedWhileWaiting_thenDeadlockResolved() {
+        GammaTxnFactory txFactory = newTxnFactory(new WoundWaitContentionManager(Integer.MAX_VALUE));
+        final GammaTxn older = txFactory.newTxn();
+        final GammaTxn younger = txFactory.newTxn();
+        younger.startTimeNs = older.startTimeNs + 1;
+
+        final GammaTxnLong ref1 = new GammaTxnLong(stm);
+        final GammaTxnLong ref2 = new GammaTxnLong(stm);
+
+        ref1.openForWrite(older, LOCKMODE_EXCLUSIVE).long_value++;
+        ref2.openForWrite(younger, LOCKMODE_EXCLUSIVE).long_value++;
+
+        TestThread thread = new TestThread() {
+            @Override
+            public void doRun() throws Exception {
+                try {
+                    ref1.openForWrite(younger, LOCKMODE_EXCLUSIVE);
+                    fail();
+                } catch (ReadWriteConflict expected) {
+                }
+            }
+        };
+        thread.start();
+
+        ref2.openForWrite(older, LOCKMODE_EXCLUSIVE).long_value++;
+        older.commit();
+
+        joinAll(thread);
+        assertIsAborted(younger);
+        assertEquals(1, ref1.atomicGet());
+        assertEquals(1, ref2.atomicGet());
+    }
+
+    @Test
+    public void whenLockReleasedWhileWaiting_thenLockAcquired() {
+        GammaTxnFactory txFactory = newTxnFactory(new WoundWaitContentionManager(Integer.MAX_VALUE));
+        final GammaTxn older = txFactory.newTxn();
+        final GammaTxn younger = txFactory.newTxn();
+        younger.startTimeNs = older.startTimeNs + 1;
+
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+        ref.openForWrite(older, LOCKMODE_EXCLUSIVE).long_value++;
+
+        TestThread thread = new TestThread() {
+            @Override
+            public void doRun() throws Exception {
+                ref.openForWrite(younger, LOCKMODE_EXCLUSIVE).long_value++;
+                younger.commit();
+            }
+        };
+        thread.start();
+
+        sleepMs(200);
+        assertAlive(thread);
+        older.commit();
+
+        joinAll(thread);
+        assertIsCommitted(younger);
+        assertEquals(2, ref.atomicGet());
+    }
+
+    @Test
+    public void whenLockReleased_thenLockOwnerUnknown() {
+        GammaTxnFactory txFactory = newTxnFactory(new WoundWaitContentionManager(10));
+        GammaTxn tx = txFactory.newTxn();
+
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        ref.openForWrite(tx, LOCKMODE_EXCLUSIVE).long_value++;
+        assertSame(tx, ref.___getLockOwner());
+
+        tx.commit();
+
+        assertNull(ref.___getLockOwner());
+    }
+
+    @Test
+    public void whenAbortRequestedForPreviousAttempt_thenIgnored() {
+        GammaTxn tx = newTxnFactory(new WoundWaitContentionManager(10)).newTxn();
+        long epoch = tx.contentionEpoch;
+
+        tx.abort();
+        tx.softReset();
+        tx.requestAbort(epoch);
+
+        assertFalse(tx.isAbortRequested());
+
+        tx.requestAbort(tx.contentionEpoch);
+        assertTrue(tx.isAbortRequested());
+    }
+
+    @Test
+    public void whenRecordedLockOwnerStartedNewAttempt_thenNotAborted() {
+        GammaTxnFactory txFactory = newTxnFactory(new WoundWaitContentionManager(10));
+        GammaTxn older = txFactory.newTxn();
+        GammaTxn previousOwner = txFactory.newTxn();
+        previousOwner.startTimeNs = older.startTimeNs + 1;
+
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        ref.openForWrite(previousOwner, LOCKMODE_EXCLUSIVE).long_value++;
+        previousOwner.commit();
+        previousOwner.hardReset();
+        previousOwner.startTimeNs = older.startTimeNs + 1;
+
+        //a transaction without a ContentionManager doesn't record itself as lock owner.
+        GammaTxn withoutContentionManager = stm.newTxnFactoryBuilder()
+                .setSpeculative(false)
+                .newTransactionFactory()
+                .newTxn();
+        ref.openForWrite(withoutContentionManager, LOCKMODE_EXCLUSIVE);
+
+        try {
+            ref.openForWrite(older, LOCKMODE_EXCLUSIVE);
+            fail();
+        } catch (ReadWriteConflict expected) {
+        }
+
+        assertFalse(previousOwner.isAbortRequested());
+        withoutContentionManager.abort();
+    }
+
+    private GammaTxnFactory newTxnFactory(ContentionManager contentionManager) {
+        return stm.newTxnFactoryBuilder()
+                .setContentionManager(contentionManager)
+                .setSpeculative(false)
+                .newTransactionFactory();
+    }
+}
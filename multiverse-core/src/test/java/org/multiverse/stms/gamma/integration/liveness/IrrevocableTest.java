@@ -0,0 +1,259 @@
+package org.multiverse.stms.gamma.integration.liveness;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.TestThread;
+import org.multiverse.api.LockMode;
+import org.multiverse.api.Txn;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.api.exceptions.IrrevocableLockTimeoutException;
+import org.multiverse.api.exceptions.ReadWriteConflict;
+import org.multiverse.api.exceptions.TooManyRetriesException;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.GammaTxnExecutor;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.GammaTxnFactory;
+import org.multiverse.stms.gamma.transactions.fat.FatFixedLengthGammaTxn;
+import org.multiverse.stms.gamma.transactions.fat.FatMonoGammaTxn;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.multiverse.TestUtils.*;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+import static org.multiverse.stms.gamma.GammaTestUtils.assertRefHasExclusiveLock;
+import static org.multiverse.stms.gamma.GammaTestUtils.assertRefHasNoLocks;
+
+public class IrrevocableTest implements GammaConstants {
+    private GammaStm stm;
+
+    @Before
+    public void setUp() {
+        clearThreadLocalTxn();
+        stm = new GammaStm();
+    }
+
+    @Test
+    public void whenIrrevocable_thenFatVariableLengthTransactionWithExclusiveLocks() {
+        GammaTxnFactory txFactory = stm.newTxnFactoryBuilder()
+                .setIrrevocable(true)
+                .newTransactionFactory();
+
+        assertTrue(txFactory.getConfig().isIrrevocable());
+        assertEquals(LockMode.Exclusive, txFactory.getConfig().getReadLockMode());
+        assertEquals(LockMode.Exclusive, txFactory.getConfig().getWriteLockMode());
+        assertInstanceof(FatVariableLengthGammaTxn.class, txFactory.newTxn());
+    }
+
+    @Test
+    public void whenIrrevocableReads_thenLockedAndTokenAcquired() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        GammaTxn tx = newIrrevocableTxn();
+
+        assertSame(tx, stm.getIrrevocableToken().getOwner());
+        assertEquals(10, ref.get(tx));
+
+        assertRefHasExclusiveLock(ref, tx);
+        assertSame(tx, stm.getIrrevocableToken().getOwner());
+
+        tx.commit();
+
+        assertIsCommitted(tx);
+        assertRefHasNoLocks(ref);
+        assertNull(stm.getIrrevocableToken().getOwner());
+    }
+
+    @Test
+    public void whenIrrevocableStartsWithWrite_thenTokenAlreadyAcquired() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        GammaTxn tx = newIrrevocableTxn();
+
+        assertSame(tx, stm.getIrrevocableToken().getOwner());
+        ref.set(tx, 20);
+        tx.commit();
+
+        assertEquals(20, ref.atomicGet());
+        assertNull(stm.getIrrevocableToken().getOwner());
+    }
+
+    @Test
+    public void whenFatMonoIrrevocable_thenTokenAcquiredAtStart() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        GammaTxn tx = new FatMonoGammaTxn(new GammaTxnConfig(stm).setIrrevocable(true));
+
+        assertSame(tx, stm.getIrrevocableToken().getOwner());
+        ref.set(tx, 20);
+        tx.commit();
+
+        assertEquals(20, ref.atomicGet());
+        assertNull(stm.getIrrevocableToken().getOwner());
+    }
+
+    @Test
+    public void whenFatFixedLengthIrrevocable_thenTokenAcquiredAtStart() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        GammaTxn tx = new FatFixedLengthGammaTxn(new GammaTxnConfig(stm).setIrrevocable(true));
+
+        assertSame(tx, stm.getIrrevocableToken().getOwner());
+        ref.set(tx, 20);
+        tx.abort();
+
+        assertEquals(10, ref.atomicGet());
+        assertNull(stm.getIrrevocableToken().getOwner());
+    }
+
+    @Test
+    public void whenLockNotReleasedInTime_thenIrrevocableLockTimeoutException() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.irrevocableLockTimeoutNs = TimeUnit.MILLISECONDS.toNanos(100);
+        stm = new GammaStm(config);
+
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        GammaTxn otherTx = stm.newDefaultTxn();
+        ref.openForWrite(otherTx, LOCKMODE_EXCLUSIVE).long_value = 20;
+
+        GammaTxn tx = newIrrevocableTxn();
+        try {
+            ref.get(tx);
+            fail();
+        } catch (IrrevocableLockTimeoutException expected) {
+        }
+
+        assertIsAborted(tx);
+        assertNull(stm.getIrrevocableToken().getOwner());
+        assertRefHasExclusiveLock(ref, otherTx);
+
+        otherTx.commit();
+        assertEquals(20, ref.atomicGet());
+    }
+
+    @Test
+    public void whenIrrevocableAborted_thenTokenReleased() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        GammaTxn tx = newIrrevocableTxn();
+        ref.set(tx, 20);
+
+        tx.abort();
+
+        assertIsAborted(tx);
+        assertRefHasNoLocks(ref);
+        assertNull(stm.getIrrevocableToken().getOwner());
+        assertEquals(10, ref.atomicGet());
+    }
+
+    @Test
+    public void whenOtherTransactionConflictsWithIrrevocable_thenOtherAborted() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        GammaTxn irrevocableTx = newIrrevocableTxn();
+        ref.get(irrevocableTx);
+
+        GammaTxn otherTx = stm.newDefaultTxn();
+        try {
+            ref.set(otherTx, 20);
+            otherTx.commit();
+            fail();
+        } catch (ReadWriteConflict expected) {
+        }
+
+        assertIsAborted(otherTx);
+        ref.set(irrevocableTx, 30);
+        irrevocableTx.commit();
+
+        assertEquals(30, ref.atomicGet());
+    }
+
+    @Test
+    public void whenLockHeldByOther_thenIrrevocableWaitsInsteadOfAborting() {
+        final GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        GammaTxn otherTx = stm.newDefaultTxn();
+        ref.openForWrite(otherTx, LOCKMODE_EXCLUSIVE).long_value = 20;
+
+        TestThread thread = new TestThread() {
+            @Override
+            public void doRun() throws Exception {
+                GammaTxn tx = newIrrevocableTxn();
+                ref.incrementAndGet(tx, 1);
+                tx.commit();
+            }
+        };
+        thread.start();
+
+        sleepMs(500);
+        assertAlive(thread);
+
+        otherTx.commit();
+
+        joinAll(thread);
+        assertEquals(21, ref.atomicGet());
+        assertNull(stm.getIrrevocableToken().getOwner());
+    }
+
+    @Test
+    public void whenIrrevocableAfterAttempts_thenPromotedInsteadOfTooManyRetries() {
+        final GammaTxnLong ref = new GammaTxnLong(stm, 0);
+        final AtomicInteger attempts = new AtomicInteger();
+        final AtomicInteger irrevocableAttempts = new AtomicInteger();
+
+        GammaTxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(false)
+                .setMaxRetries(2)
+                .setIrrevocableAfterAttempts(2)
+                .newTxnExecutor();
+
+        executor.execute(new TxnVoidCallable() {
+            @Override
+            public void call(Txn tx) throws Exception {
+                attempts.incrementAndGet();
+                ref.get(tx);
+                if (tx.getConfig().isIrrevocable()) {
+                    irrevocableAttempts.incrementAndGet();
+                } else {
+                    //cause a conflict
+                    ref.atomicIncrementAndGet(1);
+                }
+                ref.incrementAndGet(tx, 10);
+            }
+        });
+
+        assertEquals(3, attempts.get());
+        assertEquals(1, irrevocableAttempts.get());
+        assertEquals(12, ref.atomicGet());
+        assertNull(stm.getIrrevocableToken().getOwner());
+    }
+
+    @Test
+    public void whenNotIrrevocableAfterAttempts_thenTooManyRetries() {
+        final GammaTxnLong ref = new GammaTxnLong(stm, 0);
+
+        GammaTxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(false)
+                .setMaxRetries(2)
+                .newTxnExecutor();
+
+        try {
+            executor.execute(new TxnVoidCallable() {
+                @Override
+                public void call(Txn tx) throws Exception {
+                    ref.get(tx);
+                    ref.atomicIncrementAndGet(1);
+                    ref.incrementAndGet(tx, 10);
+                }
+            });
+            fail();
+        } catch (TooManyRetriesException expected) {
+        }
+    }
+
+    private GammaTxn newIrrevocableTxn() {
+        return stm.newTxnFactoryBuilder()
+                .setIrrevocable(true)
+                .newTransactionFactory()
+                .newTxn();
+    }
+}
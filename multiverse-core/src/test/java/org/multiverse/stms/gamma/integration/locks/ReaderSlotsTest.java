@@ -0,0 +1,231 @@
+package org.multiverse.stms.gamma.integration.locks;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.TestThread;
+import org.multiverse.api.LockMode;
+import org.multiverse.api.Txn;
+import org.multiverse.api.TxnExecutor;
+import org.multiverse.api.callables.TxnVoidCallable;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactionalobjects.ReaderSlots;
+import org.multiverse.stms.gamma.transactionalobjects.Tranlocal;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+import static org.multiverse.TestUtils.*;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+import static org.multiverse.stms.gamma.GammaTestUtils.*;
+
+public class ReaderSlotsTest implements GammaConstants {
+
+    private GammaStm stm;
+
+    @Before
+    public void setUp() {
+        clearThreadLocalTxn();
+        GammaStmConfig config = new GammaStmConfig();
+        config.readerSlotCount = 4;
+        //readers only arrive on the orec with the rich mans conflict scan.
+        config.maximumPoorMansConflictScanLength = 0;
+        stm = new GammaStm(config);
+    }
+
+    private GammaTxn newTxn() {
+        GammaTxn tx = stm.newDefaultTxn();
+        tx.richmansMansConflictScan = true;
+        return tx;
+    }
+
+    @Test
+    public void whenRead_thenArriveOnSlotAndDepartOnCommit() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        ReaderSlots slots = ref.___inflateReaderSlots();
+
+        GammaTxn tx = newTxn();
+        Tranlocal tranlocal = ref.openForRead(tx, LOCKMODE_NONE);
+
+        assertTrue(tranlocal.readerSlot >= 0);
+        assertEquals(1, slots.count(false));
+        assertSurplus(ref, 1);
+
+        tx.commit();
+
+        assertEquals(0, slots.count(false));
+        assertSurplus(ref, 0);
+        assertRefHasNoLocks(ref);
+    }
+
+    @Test
+    public void whenReadAndAborted_thenSlotLeft() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        ReaderSlots slots = ref.___inflateReaderSlots();
+
+        GammaTxn tx = newTxn();
+        ref.get(tx);
+        tx.abort();
+
+        assertEquals(0, slots.count(false));
+        assertSurplus(ref, 0);
+        assertReadonlyCount(ref, 0);
+    }
+
+    @Test
+    public void whenReadAndUpdated_thenSlotLeftBeforeLocking() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        ReaderSlots slots = ref.___inflateReaderSlots();
+        long initialVersion = ref.getVersion();
+
+        GammaTxn tx = newTxn();
+        ref.get(tx);
+        ref.set(tx, 20);
+        tx.commit();
+
+        assertVersionAndValue(ref, initialVersion + 1, 20);
+        assertEquals(0, slots.count(false));
+        assertSurplus(ref, 0);
+        assertRefHasNoLocks(ref);
+    }
+
+    @Test
+    public void whenReadLockAcquired_thenOnSlot() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        ReaderSlots slots = ref.___inflateReaderSlots();
+
+        GammaTxn tx1 = newTxn();
+        GammaTxn tx2 = newTxn();
+        ref.getLock().acquire(tx1, LockMode.Read);
+        ref.getLock().acquire(tx2, LockMode.Read);
+
+        assertEquals(2, slots.count(true));
+        assertReadLockCount(ref, 2);
+        assertRefHasReadLock(ref, tx1);
+        assertRefHasReadLock(ref, tx2);
+
+        tx1.commit();
+        assertReadLockCount(ref, 1);
+        tx2.commit();
+
+        assertEquals(0, slots.count(true));
+        assertRefHasNoLocks(ref);
+        assertSurplus(ref, 0);
+    }
+
+    @Test
+    public void whenReadLockUpgradedToExclusiveLock_thenReadLockMovedToOrec() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        ReaderSlots slots = ref.___inflateReaderSlots();
+        long initialVersion = ref.getVersion();
+
+        GammaTxn tx = newTxn();
+        ref.getLock().acquire(tx, LockMode.Read);
+        ref.getLock().acquire(tx, LockMode.Exclusive);
+
+        assertEquals(0, slots.count(true));
+        assertRefHasExclusiveLock(ref, tx);
+
+        ref.set(tx, 20);
+        tx.commit();
+
+        assertVersionAndValue(ref, initialVersion + 1, 20);
+        assertRefHasNoLocks(ref);
+        assertSurplus(ref, 0);
+    }
+
+    @Test
+    public void whenReadLockOnSlotByOther_thenExclusiveLockNotPossible() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        ref.___inflateReaderSlots();
+
+        GammaTxn otherTx = newTxn();
+        ref.getLock().acquire(otherTx, LockMode.Read);
+
+        GammaTxn tx = newTxn();
+        Tranlocal tranlocal = ref.openForRead(tx, LOCKMODE_NONE);
+
+        assertFalse(ref.tryLockAndCheckConflict(tx, tranlocal, 1, LOCKMODE_EXCLUSIVE));
+        assertRefHasReadLock(ref, otherTx);
+        assertReadLockCount(ref, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenSlotCountTooLarge_thenIllegalArgumentException() {
+        new ReaderSlots(ReaderSlots.MAX_SLOT_COUNT * 2);
+    }
+
+    @Test
+    public void stressTest() {
+        final int refCount = 4;
+        final GammaTxnLong[] refs = new GammaTxnLong[refCount];
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = new GammaTxnLong(stm, 100);
+            refs[k].___inflateReaderSlots();
+        }
+
+        final AtomicBoolean stop = new AtomicBoolean();
+        final TxnExecutor executor = stm.newTxnFactoryBuilder()
+                .setSpeculative(false)
+                .setMaxRetries(100000)
+                .newTxnExecutor();
+
+        TestThread[] readers = new TestThread[4];
+        for (int k = 0; k < readers.length; k++) {
+            readers[k] = new TestThread("ReaderThread-" + k) {
+                @Override
+                public void doRun() throws Exception {
+                    final TxnVoidCallable callable = new TxnVoidCallable() {
+                        @Override
+                        public void call(Txn tx) throws Exception {
+                            long sum = 0;
+                            for (GammaTxnLong ref : refs) {
+                                sum += ref.get(tx);
+                            }
+                            assertEquals(100 * refCount, sum);
+                        }
+                    };
+
+                    while (!stop.get()) {
+                        executor.execute(callable);
+                    }
+                }
+            };
+        }
+
+        TestThread writer = new TestThread("WriterThread") {
+            @Override
+            public void doRun() throws Exception {
+                for (int k = 0; k < 10000; k++) {
+                    final int from = k % refCount;
+                    final int to = (k + 1) % refCount;
+                    executor.execute(new TxnVoidCallable() {
+                        @Override
+                        public void call(Txn tx) throws Exception {
+                            refs[from].decrement(tx);
+                            refs[to].increment(tx);
+                        }
+                    });
+                }
+                stop.set(true);
+            }
+        };
+
+        startAll(readers);
+        startAll(writer);
+        joinAll(writer);
+        joinAll(readers);
+
+        long sum = 0;
+        for (GammaTxnLong ref : refs) {
+            sum += ref.atomicGet();
+            assertRefHasNoLocks(ref);
+            assertEquals(0, ref.___getReaderSlots().count(false));
+            assertEquals(0, ref.___getReaderSlots().count(true));
+        }
+        assertEquals(100 * refCount, sum);
+    }
+}
@@ -0,0 +1,89 @@
+package org.multiverse.stms.gamma.transactionalobjects;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.Listeners;
+
+import static org.junit.Assert.*;
+import static org.multiverse.stms.gamma.transactionalobjects.GammaFieldAccess.*;
+
+public class GammaFieldAccessTest {
+
+    private GammaStm stm;
+
+    @Before
+    public void setUp() {
+        stm = new GammaStm();
+    }
+
+    @Test
+    public void whenCasOrec() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        long orec = ref.orec;
+
+        assertFalse(casOrec(ref, orec + 1, 100));
+        assertEquals(orec, ref.orec);
+
+        //a weak compare and set is allowed to fail spuriously.
+        while (!casOrec(ref, orec, 100)) {
+        }
+        assertEquals(100, ref.orec);
+    }
+
+    @Test
+    public void whenCasListeners() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        Listeners listeners = new Listeners();
+
+        assertFalse(casListeners(ref, new Listeners(), listeners));
+        assertNull(ref.listeners);
+
+        while (!casListeners(ref, null, listeners)) {
+        }
+        assertSame(listeners, ref.listeners);
+    }
+
+    @Test
+    public void whenCasExtension() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        GammaObjectExtension extension = new GammaObjectExtension();
+
+        assertTrue(casExtension(ref, null, extension));
+        assertSame(extension, ref.extension);
+
+        assertFalse(casExtension(ref, null, new GammaObjectExtension()));
+        assertSame(extension, ref.extension);
+    }
+
+    @Test
+    public void whenCasReaderSlots() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        GammaObjectExtension extension = ref.___inflateExtension();
+        ReaderSlots slots = new ReaderSlots(4);
+
+        assertTrue(casReaderSlots(extension, null, slots));
+        assertSame(slots, ref.___getReaderSlots());
+
+        assertFalse(casReaderSlots(extension, null, new ReaderSlots(4)));
+        assertSame(slots, ref.___getReaderSlots());
+    }
+
+    @Test
+    public void whenSetLongValueRelease() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+
+        setLongValueRelease(ref, 20);
+
+        assertEquals(20, ref.long_value);
+    }
+
+    @Test
+    public void whenSetRefValueRelease() {
+        GammaTxnRef<String> ref = new GammaTxnRef<String>(stm, "foo");
+
+        setRefValueRelease(ref, "bar");
+
+        assertEquals("bar", ref.ref_value);
+    }
+}
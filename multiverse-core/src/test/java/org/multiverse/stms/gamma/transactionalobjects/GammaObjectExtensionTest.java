@@ -0,0 +1,75 @@
+package org.multiverse.stms.gamma.transactionalobjects;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+
+import static org.junit.Assert.*;
+
+public class GammaObjectExtensionTest {
+
+    private GammaStm stm;
+
+    @Before
+    public void setUp() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.globalCommitClockEnabled = true;
+        stm = new GammaStm(config);
+    }
+
+    @Test
+    public void whenPlainRef_thenNoExtension() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+
+        ref.atomicSet(20);
+        ref.atomicGet();
+
+        assertNull(ref.extension);
+        assertNull(ref.___getLockOwner());
+        assertNull(ref.___getReaderSlots());
+        assertNull(ref.___getHistory());
+        assertEquals(stm.globalConflictCounter.toDomain(ref.identityHashCode()), ref.getConflictDomain());
+    }
+
+    @Test
+    public void whenCreatedByDefaultRefFactory_thenNoExtension() {
+        GammaTxnLong ref = stm.getTxRefFactoryBuilder().build().newTxnLong(10);
+
+        assertNull(ref.extension);
+    }
+
+    @Test
+    public void whenConflictDomainSet_thenStoredInExtension() {
+        GammaTxnLong ref = stm.getTxRefFactoryBuilder()
+                .setConflictDomain(3)
+                .build()
+                .newTxnLong(10);
+
+        assertNotNull(ref.extension);
+        assertEquals(4, ref.extension.conflictDomain);
+        assertEquals(3, ref.getConflictDomain());
+    }
+
+    @Test
+    public void whenHistoryDepthSet_thenStoredInExtension() {
+        GammaTxnLong ref = stm.getTxRefFactoryBuilder()
+                .setHistoryDepth(2)
+                .build()
+                .newTxnLong(10);
+
+        assertNotNull(ref.extension);
+        assertEquals(2, ref.extension.historyDepth);
+    }
+
+    @Test
+    public void whenInflatedTwice_thenSameExtension() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+
+        GammaObjectExtension extension = ref.___inflateExtension();
+
+        assertNotNull(extension);
+        assertSame(extension, ref.___inflateExtension());
+        assertSame(extension, ref.extension);
+    }
+}
@@ -152,8 +152,8 @@ public class Orec_departAfterUpdateAndUnlockTest {
 
         assertLockMode(orec, LOCKMODE_NONE);
         assertSurplus(orec, 0);
-        assertWriteBiased(orec);
-        assertReadonlyCount(orec, 0);
+        assertReadBiased(orec);
+        assertReadonlyCount(orec, AbstractGammaObject.READBIASED_WRITE_WEIGHT);
     }
 
     @Test
@@ -165,8 +165,8 @@ public class Orec_departAfterUpdateAndUnlockTest {
 
         assertLockMode(orec, LOCKMODE_NONE);
         assertSurplus(orec, 0);
-        assertWriteBiased(orec);
-        assertReadonlyCount(orec, 0);
+        assertReadBiased(orec);
+        assertReadonlyCount(orec, AbstractGammaObject.READBIASED_WRITE_WEIGHT);
     }
 
     @Test
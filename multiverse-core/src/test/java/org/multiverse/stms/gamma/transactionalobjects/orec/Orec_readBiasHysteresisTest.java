@@ -0,0 +1,200 @@
+package org.multiverse.stms.gamma.transactionalobjects.orec;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.ReadBiasStatistics;
+import org.multiverse.stms.gamma.transactionalobjects.AbstractGammaObject;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.multiverse.TestUtils.assertHasMasks;
+import static org.multiverse.stms.gamma.GammaTestUtils.*;
+import static org.multiverse.stms.gamma.transactionalobjects.AbstractGammaObject.READBIASED_WRITE_WEIGHT;
+
+public class Orec_readBiasHysteresisTest implements GammaConstants {
+
+    private GammaStm stm;
+    private ReadBiasStatistics statistics;
+
+    @Before
+    public void setUp() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.readBiasedThreshold = 32;
+        config.readBiasedWriteThreshold = 8;
+        stm = new GammaStm(config);
+        statistics = stm.getReadBiasStatistics();
+    }
+
+    private static void read(AbstractGammaObject orec) {
+        int arriveStatus = orec.arrive(1);
+        if ((arriveStatus & MASK_UNREGISTERED) == 0) {
+            orec.departAfterReading();
+        }
+    }
+
+    private static void update(AbstractGammaObject orec) {
+        orec.arriveAndLock(1, LOCKMODE_EXCLUSIVE);
+        orec.departAfterUpdateAndUnlock();
+    }
+
+    @Test
+    public void updateBiased_whenUpdated_thenReadonlyCountHalved() {
+        GammaTxnLong orec = new GammaTxnLong(stm);
+        for (int k = 0; k < 20; k++) {
+            read(orec);
+        }
+
+        update(orec);
+
+        assertWriteBiased(orec);
+        assertReadonlyCount(orec, 10);
+        assertSurplus(orec, 0);
+        assertLockMode(orec, LOCKMODE_NONE);
+    }
+
+    @Test
+    public void updateBiased_whenUpdatedWithOtherReaders_thenReadonlyCountHalved() {
+        GammaTxnLong orec = new GammaTxnLong(stm);
+        for (int k = 0; k < 20; k++) {
+            read(orec);
+        }
+        orec.arrive(1);
+
+        update(orec);
+
+        assertWriteBiased(orec);
+        assertReadonlyCount(orec, 10);
+        assertSurplus(orec, 1);
+        assertLockMode(orec, LOCKMODE_NONE);
+    }
+
+    @Test
+    public void updateBiased_whenUpdatedAndWriteThresholdZero_thenReadonlyCountCleared() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.readBiasedWriteThreshold = 0;
+        GammaTxnLong orec = new GammaTxnLong(new GammaStm(config));
+        for (int k = 0; k < 20; k++) {
+            read(orec);
+        }
+
+        update(orec);
+
+        assertWriteBiased(orec);
+        assertReadonlyCount(orec, 0);
+    }
+
+    @Test
+    public void whenReadBiasedThresholdReached_thenTransitionCounted() {
+        GammaTxnLong orec = new GammaTxnLong(stm);
+
+        makeReadBiased(orec);
+
+        assertEquals(1, statistics.getReadBiasedCount());
+        assertEquals(0, statistics.getUpdateBiasedCount());
+    }
+
+    @Test
+    public void readBiased_whenUpdatedBelowWriteThreshold_thenStaysReadBiased() {
+        GammaTxnLong orec = makeReadBiased(new GammaTxnLong(stm));
+
+        update(orec);
+
+        assertReadBiased(orec);
+        assertReadonlyCount(orec, READBIASED_WRITE_WEIGHT);
+        assertSurplus(orec, 0);
+        assertLockMode(orec, LOCKMODE_NONE);
+        assertEquals(1, statistics.getAbsorbedUpdateCount());
+        assertEquals(0, statistics.getUpdateBiasedCount());
+    }
+
+    @Test
+    public void readBiased_whenReadAfterUpdate_thenWriteScoreDecreased() {
+        GammaTxnLong orec = makeReadBiased(new GammaTxnLong(stm));
+        update(orec);
+        update(orec);
+
+        int arriveStatus = orec.arrive(1);
+
+        assertHasMasks(arriveStatus, MASK_SUCCESS, MASK_UNREGISTERED);
+        assertReadBiased(orec);
+        assertSurplus(orec, 1);
+        assertReadonlyCount(orec, 2 * READBIASED_WRITE_WEIGHT - 1);
+
+        for (int k = 0; k < 10; k++) {
+            read(orec);
+        }
+
+        assertReadonlyCount(orec, 0);
+        assertSurplus(orec, 1);
+    }
+
+    @Test
+    public void readBiased_whenWriteThresholdReached_thenUpdateBiasedHalfWayReadBiasedThreshold() {
+        GammaTxnLong orec = makeReadBiased(new GammaTxnLong(stm));
+        int updates = stm.readBiasedWriteThreshold / READBIASED_WRITE_WEIGHT;
+
+        for (int k = 0; k < updates; k++) {
+            update(orec);
+        }
+
+        assertWriteBiased(orec);
+        assertReadonlyCount(orec, stm.readBiasedThreshold / 2);
+        assertSurplus(orec, 0);
+        assertLockMode(orec, LOCKMODE_NONE);
+        assertEquals(updates - 1, statistics.getAbsorbedUpdateCount());
+        assertEquals(1, statistics.getUpdateBiasedCount());
+    }
+
+    @Test
+    public void readBiased_whenWriteThresholdZero_thenFirstUpdateMakesUpdateBiased() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.readBiasedWriteThreshold = 0;
+        GammaStm stm = new GammaStm(config);
+        GammaTxnLong orec = makeReadBiased(new GammaTxnLong(stm));
+
+        update(orec);
+
+        assertWriteBiased(orec);
+        assertReadonlyCount(orec, 0);
+        assertSurplus(orec, 0);
+        assertEquals(1, stm.getReadBiasStatistics().getUpdateBiasedCount());
+    }
+
+    @Test
+    public void whenReadHeavyWithOccasionalUpdates_thenStaysReadBiased() {
+        GammaTxnLong orec = makeReadBiased(new GammaTxnLong(stm));
+
+        for (int k = 0; k < 1000; k++) {
+            read(orec);
+            if (k % 10 == 0) {
+                update(orec);
+            }
+        }
+
+        assertReadBiased(orec);
+        assertEquals(1, statistics.getReadBiasedCount());
+        assertEquals(0, statistics.getUpdateBiasedCount());
+    }
+
+    @Test
+    public void whenWriteHeavyPhase_thenUpdateBiasedAndReadBiasedAgainInReadHeavyPhase() {
+        GammaTxnLong orec = makeReadBiased(new GammaTxnLong(stm));
+
+        for (int k = 0; k < stm.readBiasedWriteThreshold / READBIASED_WRITE_WEIGHT; k++) {
+            update(orec);
+        }
+
+        assertWriteBiased(orec);
+        assertEquals(1, statistics.getUpdateBiasedCount());
+
+        for (int k = 0; k < stm.readBiasedThreshold / 2; k++) {
+            read(orec);
+        }
+
+        assertReadBiased(orec);
+        assertEquals(2, statistics.getReadBiasedCount());
+    }
+}
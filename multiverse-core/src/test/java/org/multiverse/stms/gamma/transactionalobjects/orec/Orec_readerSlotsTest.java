@@ -0,0 +1,193 @@
+package org.multiverse.stms.gamma.transactionalobjects.orec;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.api.exceptions.PanicError;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactionalobjects.ReaderSlots;
+
+import static org.junit.Assert.*;
+import static org.multiverse.TestUtils.*;
+import static org.multiverse.stms.gamma.GammaTestUtils.*;
+import static org.multiverse.stms.gamma.transactionalobjects.AbstractGammaObject.getReadLockCount;
+
+public class Orec_readerSlotsTest implements GammaConstants {
+
+    private GammaStm stm;
+
+    @Before
+    public void setUp() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.readerSlotCount = 4;
+        stm = new GammaStm(config);
+    }
+
+    @Test
+    public void whenNotInflated_thenArriveOnOrec() {
+        GammaTxnLong orec = new GammaTxnLong(stm);
+
+        int result = orec.arriveForReading(0, 1, false);
+
+        assertHasMasks(result, MASK_SUCCESS);
+        assertNotHasMasks(result, MASK_READER_SLOT, MASK_UNREGISTERED);
+        assertNull(orec.___getReaderSlots());
+        assertSurplus(orec, 1);
+    }
+
+    @Test
+    public void whenReaderSlotsDisabled_thenNotInflated() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.readerSlotCount = 0;
+        GammaTxnLong orec = new GammaTxnLong(new GammaStm(config));
+
+        assertNull(orec.___inflateReaderSlots());
+    }
+
+    @Test
+    public void whenFirstReaderOfSlot_thenArriveOnOrec() {
+        GammaTxnLong orec = new GammaTxnLong(stm);
+        ReaderSlots slots = orec.___inflateReaderSlots();
+
+        int result = orec.arriveForReading(1, 1, false);
+
+        assertHasMasks(result, MASK_SUCCESS, MASK_READER_SLOT);
+        assertNotHasMasks(result, MASK_UNREGISTERED);
+        assertEquals(1, slots.get(1, false));
+        assertSurplus(orec, 1);
+    }
+
+    @Test
+    public void whenMoreReadersOfSameSlot_thenOrecNotChanged() {
+        GammaTxnLong orec = new GammaTxnLong(stm);
+        ReaderSlots slots = orec.___inflateReaderSlots();
+        orec.arriveForReading(1, 1, false);
+        long orecValue = orec.orec;
+
+        int result = orec.arriveForReading(1, 1, false);
+
+        assertHasMasks(result, MASK_SUCCESS, MASK_READER_SLOT);
+        assertEquals(2, slots.get(1, false));
+        assertOrecValue(orec, orecValue);
+    }
+
+    @Test
+    public void whenReadersOfDifferentSlots_thenEverySlotCounted() {
+        GammaTxnLong orec = new GammaTxnLong(stm);
+        ReaderSlots slots = orec.___inflateReaderSlots();
+
+        orec.arriveForReading(0, 1, false);
+        orec.arriveForReading(1, 1, false);
+        orec.arriveForReading(1, 1, false);
+
+        assertSurplus(orec, 2);
+        assertEquals(3, slots.count(false));
+    }
+
+    @Test
+    public void whenLastReaderOfSlotDeparts_thenDepartFromOrec() {
+        GammaTxnLong orec = new GammaTxnLong(stm);
+        ReaderSlots slots = orec.___inflateReaderSlots();
+        orec.arriveForReading(1, 1, false);
+        orec.arriveForReading(1, 1, false);
+
+        orec.departFromReaderSlot(1, false, false);
+        assertSurplus(orec, 1);
+        assertReadonlyCount(orec, 0);
+
+        orec.departFromReaderSlot(1, false, false);
+        assertSurplus(orec, 0);
+        assertReadonlyCount(orec, 1);
+        assertEquals(0, slots.count(false));
+    }
+
+    @Test
+    public void whenDepartFromEmptySlot_thenPanicError() {
+        GammaTxnLong orec = new GammaTxnLong(stm);
+        orec.___inflateReaderSlots();
+        long orecValue = orec.orec;
+
+        try {
+            orec.departFromReaderSlot(1, false, false);
+            fail();
+        } catch (PanicError expected) {
+        }
+
+        assertOrecValue(orec, orecValue);
+    }
+
+    @Test
+    public void whenReadersInSlot_thenWriterSeesConflict() {
+        GammaTxnLong orec = new GammaTxnLong(stm);
+        orec.___inflateReaderSlots();
+        orec.arriveForReading(1, 1, false);
+        orec.arriveForReading(1, 1, false);
+
+        int result = orec.arriveAndExclusiveLock(1);
+
+        assertHasMasks(result, MASK_SUCCESS, MASK_CONFLICT);
+        assertSurplus(orec, 2);
+    }
+
+    @Test
+    public void whenExclusiveLockedAndSlotNotEmpty_thenFailureAndSlotRestored() {
+        GammaTxnLong orec = new GammaTxnLong(stm);
+        ReaderSlots slots = orec.___inflateReaderSlots();
+        orec.arriveForReading(1, 1, false);
+        orec.arriveAndExclusiveLock(1);
+        long orecValue = orec.orec;
+
+        int result = orec.arriveForReading(1, 1, false);
+
+        assertFailure(result);
+        assertEquals(1, slots.get(1, false));
+        assertOrecValue(orec, orecValue);
+    }
+
+    @Test
+    public void whenReadLockInSlot_thenWriterCantLock() {
+        GammaTxnLong orec = new GammaTxnLong(stm);
+        ReaderSlots slots = orec.___inflateReaderSlots();
+
+        assertHasMasks(orec.arriveForReading(1, 1, true), MASK_SUCCESS, MASK_READER_SLOT);
+        assertHasMasks(orec.arriveForReading(1, 1, true), MASK_SUCCESS, MASK_READER_SLOT);
+
+        assertReadLockCount(orec, 2);
+        assertEquals(1, getReadLockCount(orec.orec));
+        assertSurplus(orec, 1);
+        assertEquals(2, slots.get(1, true));
+        assertFailure(orec.arriveAndExclusiveLock(1));
+        assertFailure(orec.arriveAndLock(1, LOCKMODE_WRITE));
+    }
+
+    @Test
+    public void whenLastReadLockOfSlotReleased_thenOrecUnlocked() {
+        GammaTxnLong orec = new GammaTxnLong(stm);
+        orec.___inflateReaderSlots();
+        orec.arriveForReading(1, 1, true);
+        orec.arriveForReading(1, 1, true);
+
+        orec.departFromReaderSlot(1, true, false);
+        assertReadLockCount(orec, 1);
+
+        orec.departFromReaderSlot(1, true, false);
+        assertReadLockCount(orec, 0);
+        assertSurplus(orec, 0);
+        assertRefHasNoLocks(orec);
+    }
+
+    @Test
+    public void whenReadBiased_thenSlotNotUsed() {
+        GammaTxnLong orec = makeReadBiased(new GammaTxnLong(stm));
+        ReaderSlots slots = orec.___inflateReaderSlots();
+
+        int result = orec.arriveForReading(1, 1, false);
+
+        assertHasMasks(result, MASK_SUCCESS, MASK_UNREGISTERED);
+        assertNotHasMasks(result, MASK_READER_SLOT);
+        assertEquals(0, slots.count(false));
+        assertReadBiased(orec);
+    }
+}
@@ -2,10 +2,13 @@ package org.multiverse.stms.gamma.transactionalobjects.refs;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.multiverse.SomeError;
+import org.multiverse.SomeUncheckedException;
 import org.multiverse.api.LockMode;
 import org.multiverse.api.blocking.DefaultRetryLatch;
 import org.multiverse.api.blocking.RetryLatch;
 import org.multiverse.api.functions.LongFunction;
+import org.multiverse.api.predicates.LongPredicate;
 import org.multiverse.stms.gamma.GammaConstants;
 import org.multiverse.stms.gamma.GammaObjectPool;
 import org.multiverse.stms.gamma.GammaStm;
@@ -14,11 +17,18 @@ import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
 import org.multiverse.stms.gamma.transactionalobjects.Tranlocal;
 import org.multiverse.stms.gamma.transactions.GammaTxn;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Arrays.asList;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.multiverse.TestUtils.getField;
 import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+import static org.multiverse.api.predicates.LongPredicate.newEqualsPredicate;
+import static org.multiverse.api.predicates.LongPredicate.newLargerThanOrEqualsPredicate;
 import static org.multiverse.stms.gamma.GammaTestUtils.*;
 
 public class RegisterChangeListenerTest implements GammaConstants {
@@ -234,4 +244,258 @@ public class RegisterChangeListenerTest implements GammaConstants {
         assertEquals(listenerEra1, listeners.next.listenerEra);
         assertFalse(latch1.isOpen());
     }
+
+    @Test
+    public void whenPredicateNotMatchedByWrite_thenListenerStaysRegistered() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+
+        GammaTxn tx = stm.newDefaultTxn();
+        Tranlocal read = ref.openForRead(tx, LOCKMODE_NONE);
+
+        RetryLatch latch = new DefaultRetryLatch();
+        long listenerEra = latch.getEra();
+        int result = ref.registerChangeListener(latch, read, pool, listenerEra, newLargerThanOrEqualsPredicate(2));
+
+        assertEquals(REGISTRATION_DONE, result);
+
+        ref.atomicIncrementAndGet(1);
+
+        assertFalse(latch.isOpen());
+        assertHasListeners(ref, latch);
+
+        ref.atomicIncrementAndGet(1);
+
+        assertTrue(latch.isOpen());
+        assertHasNoListeners(ref);
+    }
+
+    @Test
+    public void whenPredicateNotMatchedByTransactionalWrite_thenListenerStaysRegistered() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+
+        GammaTxn tx = stm.newDefaultTxn();
+        Tranlocal read = ref.openForRead(tx, LOCKMODE_NONE);
+
+        RetryLatch latch = new DefaultRetryLatch();
+        long listenerEra = latch.getEra();
+        ref.registerChangeListener(latch, read, pool, listenerEra, newLargerThanOrEqualsPredicate(10));
+
+        GammaTxn otherTx = stm.newDefaultTxn();
+        ref.set(otherTx, 5);
+        otherTx.commit();
+
+        assertFalse(latch.isOpen());
+        assertHasListeners(ref, latch);
+
+        otherTx = stm.newDefaultTxn();
+        ref.set(otherTx, 10);
+        otherTx.commit();
+
+        assertTrue(latch.isOpen());
+        assertHasNoListeners(ref);
+    }
+
+    @Test
+    public void whenListenersWithAndWithoutPredicate_thenOnlyMatchingOnesOpened() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+
+        GammaTxn tx = stm.newDefaultTxn();
+        Tranlocal read = ref.openForRead(tx, LOCKMODE_NONE);
+
+        RetryLatch latchWithoutPredicate = new DefaultRetryLatch();
+        ref.registerChangeListener(latchWithoutPredicate, read, pool, latchWithoutPredicate.getEra());
+        RetryLatch matchingLatch = new DefaultRetryLatch();
+        ref.registerChangeListener(matchingLatch, read, pool, matchingLatch.getEra(), newEqualsPredicate(1));
+        RetryLatch nonMatchingLatch = new DefaultRetryLatch();
+        ref.registerChangeListener(nonMatchingLatch, read, pool, nonMatchingLatch.getEra(), newEqualsPredicate(2));
+
+        ref.atomicSet(1);
+
+        assertTrue(latchWithoutPredicate.isOpen());
+        assertTrue(matchingLatch.isOpen());
+        assertFalse(nonMatchingLatch.isOpen());
+        assertHasListeners(ref, nonMatchingLatch);
+    }
+
+    @Test
+    public void whenPredicateThrowsException_thenLatchOpened() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+
+        GammaTxn tx = stm.newDefaultTxn();
+        Tranlocal read = ref.openForRead(tx, LOCKMODE_NONE);
+
+        LongPredicate predicate = new LongPredicate() {
+            @Override
+            public boolean evaluate(long current) {
+                throw new SomeUncheckedException();
+            }
+        };
+
+        RetryLatch latch = new DefaultRetryLatch();
+        ref.registerChangeListener(latch, read, pool, latch.getEra(), predicate);
+
+        ref.atomicSet(1);
+
+        assertTrue(latch.isOpen());
+        assertHasNoListeners(ref);
+    }
+
+    @Test
+    public void whenPredicateThrowsError_thenLatchOpenedAndOtherListenersOpened() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+
+        GammaTxn tx = stm.newDefaultTxn();
+        Tranlocal read = ref.openForRead(tx, LOCKMODE_NONE);
+
+        LongPredicate predicate = new LongPredicate() {
+            @Override
+            public boolean evaluate(long current) {
+                throw new SomeError();
+            }
+        };
+
+        RetryLatch latch = new DefaultRetryLatch();
+        ref.registerChangeListener(latch, read, pool, latch.getEra(), predicate);
+        RetryLatch matchingLatch = new DefaultRetryLatch();
+        ref.registerChangeListener(matchingLatch, read, pool, matchingLatch.getEra(), newEqualsPredicate(1));
+
+        ref.atomicSet(1);
+
+        assertEquals(1, ref.atomicGet());
+        assertTrue(latch.isOpen());
+        assertTrue(matchingLatch.isOpen());
+        assertHasNoListeners(ref);
+    }
+
+    @Test
+    public void whenPredicateEvaluated_thenLockAlreadyReleased() {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+
+        GammaTxn tx = stm.newDefaultTxn();
+        Tranlocal read = ref.openForRead(tx, LOCKMODE_NONE);
+
+        final List<LockMode> lockModes = new ArrayList<LockMode>();
+        LongPredicate predicate = new LongPredicate() {
+            @Override
+            public boolean evaluate(long current) {
+                lockModes.add(ref.atomicGetLockMode());
+                return current == 1;
+            }
+        };
+
+        RetryLatch latch = new DefaultRetryLatch();
+        ref.registerChangeListener(latch, read, pool, latch.getEra(), predicate);
+
+        GammaTxn otherTx = stm.newDefaultTxn();
+        ref.set(otherTx, 1);
+        otherTx.commit();
+
+        assertTrue(latch.isOpen());
+        assertEquals(asList(LockMode.None), lockModes);
+    }
+
+    @Test
+    public void whenRemovedByWrite_thenFilteredWhenOpened() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+
+        GammaTxn tx = stm.newDefaultTxn();
+        Tranlocal read = ref.openForRead(tx, LOCKMODE_NONE);
+
+        RetryLatch matchingLatch = new DefaultRetryLatch();
+        ref.registerChangeListener(matchingLatch, read, pool, matchingLatch.getEra(), newEqualsPredicate(0));
+        RetryLatch nonMatchingLatch = new DefaultRetryLatch();
+        ref.registerChangeListener(nonMatchingLatch, read, pool, nonMatchingLatch.getEra(), newEqualsPredicate(1));
+
+        Listeners listeners = ref.___removeListenersAfterWrite();
+
+        assertSame(ref, listeners.filterOwner);
+        assertHasNoListeners(ref);
+
+        listeners.openAll(pool);
+
+        assertTrue(matchingLatch.isOpen());
+        assertFalse(nonMatchingLatch.isOpen());
+        assertHasListeners(ref, nonMatchingLatch);
+    }
+
+    @Test
+    public void whenWriteWhileFiltering_thenFilteredAgain() {
+        final GammaTxnLong ref = new GammaTxnLong(stm);
+
+        GammaTxn tx = stm.newDefaultTxn();
+        Tranlocal read = ref.openForRead(tx, LOCKMODE_NONE);
+
+        final AtomicBoolean written = new AtomicBoolean();
+        LongPredicate predicate = new LongPredicate() {
+            @Override
+            public boolean evaluate(long current) {
+                //the listener isn't registered while it is filtered, so this write can't open it.
+                if (written.compareAndSet(false, true)) {
+                    ref.atomicSet(2);
+                }
+                return current == 2;
+            }
+        };
+
+        RetryLatch latch = new DefaultRetryLatch();
+        ref.registerChangeListener(latch, read, pool, latch.getEra(), predicate);
+
+        ref.atomicSet(1);
+
+        assertEquals(2, ref.atomicGet());
+        assertTrue(latch.isOpen());
+        assertHasNoListeners(ref);
+    }
+
+    @Test
+    public void whenEraOfListenerWithPredicateChanged_thenRemovedByWrite() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+
+        GammaTxn tx = stm.newDefaultTxn();
+        Tranlocal read = ref.openForRead(tx, LOCKMODE_NONE);
+
+        RetryLatch latch = new DefaultRetryLatch();
+        ref.registerChangeListener(latch, read, pool, latch.getEra(), newEqualsPredicate(10));
+        //the latch is reused for another retry, so the listener isn't waiting anymore.
+        latch.reset();
+
+        ref.atomicSet(1);
+
+        assertFalse(latch.isOpen());
+        assertHasNoListeners(ref);
+    }
+
+    @Test
+    public void whenHandoffListeners_thenOnlyOldestMatchingOneOpened() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+
+        GammaTxn tx = stm.newDefaultTxn();
+        Tranlocal read = ref.openForRead(tx, LOCKMODE_NONE);
+
+        LongPredicate predicate = newLargerThanOrEqualsPredicate(1);
+        RetryLatch nonMatchingLatch = new DefaultRetryLatch();
+        ref.registerChangeListener(nonMatchingLatch, read, pool, nonMatchingLatch.getEra(),
+                newLargerThanOrEqualsPredicate(5), true);
+        RetryLatch oldestLatch = new DefaultRetryLatch();
+        ref.registerChangeListener(oldestLatch, read, pool, oldestLatch.getEra(), predicate, true);
+        RetryLatch newestLatch = new DefaultRetryLatch();
+        ref.registerChangeListener(newestLatch, read, pool, newestLatch.getEra(), predicate, true);
+        RetryLatch latchWithoutHandoff = new DefaultRetryLatch();
+        ref.registerChangeListener(latchWithoutHandoff, read, pool, latchWithoutHandoff.getEra(), predicate);
+
+        ref.atomicSet(1);
+
+        assertFalse(nonMatchingLatch.isOpen());
+        assertTrue(oldestLatch.isOpen());
+        assertFalse(newestLatch.isOpen());
+        assertTrue(latchWithoutHandoff.isOpen());
+        assertHasListeners(ref, nonMatchingLatch, newestLatch);
+
+        Listeners listeners = ref.___removeListenersAfterHandoff(predicate);
+        listeners.openAll(pool);
+
+        assertFalse(nonMatchingLatch.isOpen());
+        assertTrue(newestLatch.isOpen());
+        assertHasListeners(ref, nonMatchingLatch);
+    }
 }
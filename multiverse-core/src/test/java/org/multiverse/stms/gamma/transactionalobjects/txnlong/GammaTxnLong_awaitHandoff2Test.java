@@ -0,0 +1,239 @@
+package org.multiverse.stms.gamma.transactionalobjects.txnlong;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.api.exceptions.RetryError;
+import org.multiverse.api.predicates.LongPredicate;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+
+import static org.junit.Assert.*;
+import static org.multiverse.TestUtils.*;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+import static org.multiverse.api.predicates.LongPredicate.newEqualsPredicate;
+import static org.multiverse.api.predicates.LongPredicate.newLargerThanPredicate;
+import static org.multiverse.stms.gamma.GammaTestUtils.assertHasListeners;
+import static org.multiverse.stms.gamma.GammaTestUtils.assertVersionAndValue;
+
+public class GammaTxnLong_awaitHandoff2Test {
+
+    private GammaStm stm;
+    private LongPredicate notZeroPredicate;
+
+    @Before
+    public void setUp() {
+        stm = new GammaStm();
+        notZeroPredicate = newLargerThanPredicate(0);
+        clearThreadLocalTxn();
+    }
+
+    private GammaTxn newTxn(boolean lean) {
+        return stm.newTxnFactoryBuilder()
+                .setSpeculative(lean)
+                .newTransactionFactory()
+                .newTxn();
+    }
+
+    private GammaTxn newWaitingTxn(GammaTxnLong ref, boolean lean) {
+        GammaTxn tx = newTxn(lean);
+        try {
+            ref.awaitHandoff(tx, notZeroPredicate);
+            fail();
+        } catch (RetryError expected) {
+        }
+        return tx;
+    }
+
+    @Test
+    public void whenPredicateEvaluatesToFalse() {
+        long initialValue = 10;
+        GammaTxnLong ref = new GammaTxnLong(stm, initialValue);
+        long initialVersion = ref.getVersion();
+
+        GammaTxn tx = stm.newDefaultTxn();
+
+        try {
+            ref.awaitHandoff(tx, newEqualsPredicate(initialValue + 1));
+            fail();
+        } catch (RetryError expected) {
+        }
+
+        assertIsAborted(tx);
+        assertHasListeners(ref, tx.retryListener);
+        assertVersionAndValue(ref, initialVersion, initialValue);
+    }
+
+    @Test
+    public void whenPredicateReturnsTrue() {
+        long initialValue = 10;
+        GammaTxnLong ref = new GammaTxnLong(stm, initialValue);
+        long initialVersion = ref.getVersion();
+
+        GammaTxn tx = stm.newDefaultTxn();
+
+        ref.awaitHandoff(tx, newEqualsPredicate(initialValue));
+
+        assertIsActive(tx);
+        assertVersionAndValue(ref, initialVersion, initialValue);
+    }
+
+    @Test
+    public void whenLeanAndManyWaiting_thenOnlyOldestWokenUp() {
+        whenManyWaiting_thenOnlyOldestWokenUp(true);
+    }
+
+    @Test
+    public void whenFatAndManyWaiting_thenOnlyOldestWokenUp() {
+        whenManyWaiting_thenOnlyOldestWokenUp(false);
+    }
+
+    private void whenManyWaiting_thenOnlyOldestWokenUp(boolean lean) {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        GammaTxn tx1 = newWaitingTxn(ref, lean);
+        GammaTxn tx2 = newWaitingTxn(ref, lean);
+        GammaTxn tx3 = newWaitingTxn(ref, lean);
+
+        ref.atomicSet(1);
+
+        assertTrue(tx1.retryListener.isOpen());
+        assertFalse(tx2.retryListener.isOpen());
+        assertFalse(tx3.retryListener.isOpen());
+        assertHasListeners(ref, tx2.retryListener, tx3.retryListener);
+
+        ref.atomicSet(2);
+
+        assertTrue(tx2.retryListener.isOpen());
+        assertFalse(tx3.retryListener.isOpen());
+    }
+
+    @Test
+    public void whenLeanAndWokenUpTxnAborts_thenHandoffPassedOn() {
+        whenWokenUpTxnAborts_thenHandoffPassedOn(true);
+    }
+
+    @Test
+    public void whenFatAndWokenUpTxnAborts_thenHandoffPassedOn() {
+        whenWokenUpTxnAborts_thenHandoffPassedOn(false);
+    }
+
+    private void whenWokenUpTxnAborts_thenHandoffPassedOn(boolean lean) {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        GammaTxn tx1 = newWaitingTxn(ref, lean);
+        GammaTxn tx2 = newWaitingTxn(ref, lean);
+
+        ref.atomicSet(1);
+        assertTrue(tx1.retryListener.isOpen());
+        assertFalse(tx2.retryListener.isOpen());
+
+        assertTrue(tx1.softReset());
+        ref.awaitHandoff(tx1, notZeroPredicate);
+        tx1.abort();
+
+        assertTrue(tx2.retryListener.isOpen());
+        assertHasListeners(ref);
+    }
+
+    @Test
+    public void whenWokenUpTxnCommitsWithoutWrite_thenHandoffPassedOn() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        GammaTxn tx1 = newWaitingTxn(ref, false);
+        GammaTxn tx2 = newWaitingTxn(ref, false);
+
+        ref.atomicSet(1);
+
+        assertTrue(tx1.softReset());
+        ref.awaitHandoff(tx1, notZeroPredicate);
+        tx1.commit();
+
+        assertTrue(tx2.retryListener.isOpen());
+    }
+
+    @Test
+    public void whenWokenUpTxnWritesRef_thenNextOnlyWokenUpWhenPredicateStillHolds() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        GammaTxn tx1 = newWaitingTxn(ref, false);
+        GammaTxn tx2 = newWaitingTxn(ref, false);
+
+        ref.atomicSet(1);
+
+        assertTrue(tx1.softReset());
+        ref.awaitHandoff(tx1, notZeroPredicate);
+        ref.decrement(tx1);
+        tx1.commit();
+
+        assertFalse(tx2.retryListener.isOpen());
+        assertHasListeners(ref, tx2.retryListener);
+        assertEquals(0, ref.atomicGet());
+    }
+
+    @Test
+    public void whenWokenUpTxnRetriesAgain_thenHandoffPassedOn() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        GammaTxn tx1 = newWaitingTxn(ref, false);
+        GammaTxn tx2 = newWaitingTxn(ref, false);
+
+        ref.atomicSet(1);
+
+        assertTrue(tx1.softReset());
+        try {
+            ref.awaitHandoff(tx1, newEqualsPredicate(10));
+            fail();
+        } catch (RetryError expected) {
+        }
+
+        assertTrue(tx2.retryListener.isOpen());
+    }
+
+    @Test
+    public void whenPredicateNoLongerHolds_thenHandoffNotPassedOn() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        GammaTxn tx1 = newWaitingTxn(ref, false);
+        GammaTxn tx2 = newWaitingTxn(ref, false);
+
+        ref.atomicSet(1);
+        assertTrue(tx1.retryListener.isOpen());
+        //another transaction used the change in the meantime.
+        ref.atomicSet(0);
+
+        assertTrue(tx1.softReset());
+        tx1.abort();
+
+        assertFalse(tx2.retryListener.isOpen());
+        assertHasListeners(ref, tx2.retryListener);
+    }
+
+    @Test
+    public void whenLatchOfWaitingTxnReset_thenSkipped() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        GammaTxn tx1 = newWaitingTxn(ref, false);
+        GammaTxn tx2 = newWaitingTxn(ref, false);
+        //tx1 stopped waiting, e.g. because of a timeout.
+        tx1.retryListener.reset();
+
+        ref.atomicSet(1);
+
+        assertFalse(tx1.retryListener.isOpen());
+        assertTrue(tx2.retryListener.isOpen());
+        assertHasListeners(ref);
+    }
+
+    @Test
+    public void whenWaitingWithoutHandoff_thenAllWokenUp() {
+        GammaTxnLong ref = new GammaTxnLong(stm);
+        GammaTxn tx1 = newWaitingTxn(ref, false);
+        GammaTxn tx2 = stm.newDefaultTxn();
+        try {
+            ref.await(tx2, notZeroPredicate);
+            fail();
+        } catch (RetryError expected) {
+        }
+        GammaTxn tx3 = newWaitingTxn(ref, false);
+
+        ref.atomicSet(1);
+
+        assertTrue(tx1.retryListener.isOpen());
+        assertTrue(tx2.retryListener.isOpen());
+        assertFalse(tx3.retryListener.isOpen());
+    }
+}
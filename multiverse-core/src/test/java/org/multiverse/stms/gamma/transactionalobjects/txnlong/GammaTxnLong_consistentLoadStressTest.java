@@ -69,7 +69,9 @@ public class GammaTxnLong_consistentLoadStressTest implements GammaConstants {
                         inconsistencyCount.incrementAndGet();
                         System.out.printf("Inconsistency detected, version %s and value %s\n", tranlocal.version, tranlocal.long_value);
                     }
-                    if (tranlocal.hasDepartObligation) {
+                    if (tranlocal.readerSlot >= 0) {
+                        ref.departFromReaderSlot(tranlocal.readerSlot, false, false);
+                    } else if (tranlocal.hasDepartObligation) {
                         ref.departAfterReading();
                     }
                 }
@@ -96,8 +98,8 @@ public class GammaTxnLong_consistentLoadStressTest implements GammaConstants {
                     continue;
                 }
 
-                ref.long_value = ref.version + 1;
-                ref.version = ref.version + 1;
+                ref.long_value = ref.getVersion() + 1;
+                ref.version = ref.getVersion() + 1;
                 ref.departAfterUpdateAndUnlock();
 
                 k++;
@@ -0,0 +1,170 @@
+package org.multiverse.stms.gamma.transactionalobjects.txnlong;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.api.exceptions.ReadWriteConflict;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.GammaTxnRefFactory;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactionalobjects.VersionedValue;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.fat.FatVariableLengthGammaTxn;
+
+import static org.junit.Assert.*;
+import static org.multiverse.TestUtils.assertIsAborted;
+import static org.multiverse.TestUtils.assertIsCommitted;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+
+public class GammaTxnLong_historyTest {
+
+    private GammaStm stm;
+
+    @Before
+    public void setUp() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.globalCommitClockEnabled = true;
+        stm = new GammaStm(config);
+        clearThreadLocalTxn();
+    }
+
+    private GammaTxnRefFactory newRefFactory(int historyDepth) {
+        return stm.getTxRefFactoryBuilder()
+                .setHistoryDepth(historyDepth)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whenNegativeDepth_thenIllegalArgumentException() {
+        stm.getTxRefFactoryBuilder().setHistoryDepth(-1);
+    }
+
+    @Test
+    public void whenGlobalCommitClockNotEnabled_thenIllegalStateException() {
+        GammaStm stm = new GammaStm();
+
+        try {
+            stm.getTxRefFactoryBuilder().setHistoryDepth(1);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void whenHistoryDisabled_thenNoHistory() {
+        GammaTxnLong ref = newRefFactory(0).newTxnLong(10);
+
+        ref.atomicSet(20);
+
+        assertNull(ref.___getHistory());
+    }
+
+    @Test
+    public void whenUpdatedWithoutSnapshots_thenOnlyLastValueKept() {
+        GammaTxnLong ref = newRefFactory(4).newTxnLong(10);
+        long initialVersion = ref.getVersion();
+
+        ref.atomicSet(20);
+        long version = ref.getVersion();
+        ref.atomicSet(30);
+
+        VersionedValue history = ref.___getHistory();
+        assertNotNull(history);
+        assertEquals(version, history.version);
+        assertEquals(20, history.long_value);
+        assertNull(history.next);
+        assertTrue(initialVersion < version);
+    }
+
+    @Test
+    public void whenSnapshotActive_thenHistoryKeptUpToDepth() {
+        GammaTxnLong ref = newRefFactory(2).newTxnLong(10);
+        GammaTxnLong other = newRefFactory(0).newTxnLong(0);
+
+        FatVariableLengthGammaTxn tx = newReadonlyTransaction();
+        other.get(tx);
+
+        ref.atomicSet(20);
+        ref.atomicSet(30);
+        ref.atomicSet(40);
+
+        VersionedValue history = ref.___getHistory();
+        assertEquals(30, history.long_value);
+        assertEquals(20, history.next.long_value);
+        assertNull(history.next.next);
+        tx.abort();
+    }
+
+    @Test
+    public void whenReadonlyAndUpdatedAfterStart_thenOldValueRead() {
+        GammaTxnRefFactory refFactory = newRefFactory(4);
+        GammaTxnLong ref1 = refFactory.newTxnLong(10);
+        GammaTxnLong ref2 = refFactory.newTxnLong(10);
+
+        FatVariableLengthGammaTxn tx = newReadonlyTransaction();
+        assertEquals(10, ref1.get(tx));
+
+        transfer(ref1, ref2, 5);
+
+        assertEquals(10, ref2.get(tx));
+        tx.commit();
+
+        assertIsCommitted(tx);
+        assertNull(tx.snapshotClock);
+        assertEquals(Long.MAX_VALUE, stm.getGlobalCommitClock().getSnapshotHorizon());
+    }
+
+    @Test
+    public void whenReadonlyAndNoHistory_thenReadWriteConflict() {
+        GammaTxnRefFactory refFactory = newRefFactory(0);
+        GammaTxnLong ref1 = refFactory.newTxnLong(10);
+        GammaTxnLong ref2 = refFactory.newTxnLong(10);
+
+        FatVariableLengthGammaTxn tx = newReadonlyTransaction();
+        ref1.get(tx);
+
+        transfer(ref1, ref2, 5);
+
+        try {
+            ref2.get(tx);
+            fail();
+        } catch (ReadWriteConflict expected) {
+        }
+
+        assertIsAborted(tx);
+        assertNull(tx.snapshotClock);
+    }
+
+    @Test
+    public void whenUpdateTransaction_thenHistoryNotUsed() {
+        GammaTxnRefFactory refFactory = newRefFactory(4);
+        GammaTxnLong ref1 = refFactory.newTxnLong(10);
+        GammaTxnLong ref2 = refFactory.newTxnLong(10);
+
+        FatVariableLengthGammaTxn tx = new FatVariableLengthGammaTxn(stm);
+        ref1.get(tx);
+
+        transfer(ref1, ref2, 5);
+
+        try {
+            ref2.get(tx);
+            fail();
+        } catch (ReadWriteConflict expected) {
+        }
+
+        assertIsAborted(tx);
+    }
+
+    private FatVariableLengthGammaTxn newReadonlyTransaction() {
+        GammaTxnConfig config = new GammaTxnConfig(stm)
+                .setReadonly(true);
+        return new FatVariableLengthGammaTxn(config);
+    }
+
+    private void transfer(GammaTxnLong from, GammaTxnLong to, long amount) {
+        FatVariableLengthGammaTxn tx = new FatVariableLengthGammaTxn(stm);
+        from.decrement(tx, amount);
+        to.increment(tx, amount);
+        tx.commit();
+    }
+}
@@ -0,0 +1,232 @@
+package org.multiverse.stms.gamma.transactionalobjects.txnlong;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.api.exceptions.LockedException;
+import org.multiverse.api.exceptions.ReadWriteConflict;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactionalobjects.Tranlocal;
+import org.multiverse.stms.gamma.transactions.GammaTxn;
+import org.multiverse.stms.gamma.transactions.fat.FatMonoGammaTxn;
+import org.multiverse.stms.gamma.transactions.lean.LeanFixedLengthGammaTxn;
+import org.multiverse.stms.gamma.transactions.lean.LeanMonoGammaTxn;
+
+import static org.junit.Assert.*;
+import static org.multiverse.TestUtils.assertIsAborted;
+import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
+import static org.multiverse.stms.gamma.GammaTestUtils.*;
+import static org.multiverse.stms.gamma.transactionalobjects.AbstractGammaObject.MASK_VERSION_EXCLUSIVELOCK;
+
+public class GammaTxnLong_seqLockTest implements GammaConstants {
+
+    private GammaStm stm;
+
+    @Before
+    public void setUp() {
+        GammaStmConfig config = new GammaStmConfig();
+        config.seqLockEnabled = true;
+        stm = new GammaStm(config);
+        clearThreadLocalTxn();
+    }
+
+    private static boolean isVersionLocked(GammaTxnLong ref) {
+        return (ref.version & MASK_VERSION_EXCLUSIVELOCK) != 0;
+    }
+
+    @Test
+    public void whenExclusiveLockAcquired_thenVersionLocked() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        long initialVersion = ref.getVersion();
+
+        ref.arriveAndLock(1, LOCKMODE_EXCLUSIVE);
+
+        assertTrue(isVersionLocked(ref));
+        assertEquals(initialVersion, ref.getVersion());
+
+        ref.departAfterFailureAndUnlock();
+
+        assertFalse(isVersionLocked(ref));
+        assertEquals(initialVersion, ref.version);
+    }
+
+    @Test
+    public void whenReadOrWriteLockAcquired_thenVersionNotLocked() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+
+        ref.arriveAndLock(1, LOCKMODE_READ);
+        assertFalse(isVersionLocked(ref));
+        ref.departAfterFailureAndUnlock();
+
+        ref.arriveAndLock(1, LOCKMODE_WRITE);
+        assertFalse(isVersionLocked(ref));
+        ref.departAfterFailureAndUnlock();
+
+        assertFalse(isVersionLocked(ref));
+    }
+
+    @Test
+    public void whenWriteLockUpgraded_thenVersionLocked() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        long initialVersion = ref.getVersion();
+        ref.arriveAndLock(1, LOCKMODE_WRITE);
+
+        ref.upgradeWriteLock();
+
+        assertTrue(isVersionLocked(ref));
+
+        ref.departAfterReadingAndUnlock();
+
+        assertFalse(isVersionLocked(ref));
+        assertEquals(initialVersion, ref.version);
+    }
+
+    @Test
+    public void whenSeqLockDisabled_thenVersionNeverLocked() {
+        GammaTxnLong ref = new GammaTxnLong(new GammaStm(), 10);
+
+        ref.arriveAndLock(1, LOCKMODE_EXCLUSIVE);
+
+        assertFalse(isVersionLocked(ref));
+    }
+
+    @Test
+    public void whenCommitted_thenVersionNotLocked() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        long initialVersion = ref.getVersion();
+
+        GammaTxn tx = stm.newDefaultTxn();
+        ref.set(tx, 20);
+        tx.commit();
+
+        assertFalse(isVersionLocked(ref));
+        assertVersionAndValue(ref, initialVersion + 1, 20);
+        assertLockMode(ref, LOCKMODE_NONE);
+    }
+
+    @Test
+    public void whenAtomicSet_thenVersionNotLocked() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        long initialVersion = ref.getVersion();
+
+        ref.atomicSet(20);
+
+        assertFalse(isVersionLocked(ref));
+        assertVersionAndValue(ref, initialVersion + 1, 20);
+    }
+
+    @Test
+    public void whenExclusivelyLockedByOther_thenFatReadFails() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        GammaTxn otherTx = stm.newDefaultTxn();
+        ref.openForRead(otherTx, LOCKMODE_EXCLUSIVE);
+
+        GammaTxn tx = new FatMonoGammaTxn(stm);
+        try {
+            ref.get(tx);
+            fail();
+        } catch (ReadWriteConflict expected) {
+        }
+
+        assertIsAborted(tx);
+        assertRefHasExclusiveLock(ref, otherTx);
+    }
+
+    @Test
+    public void whenExclusivelyLockedByOther_thenLeanMonoReadFails() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        GammaTxn otherTx = stm.newDefaultTxn();
+        ref.openForRead(otherTx, LOCKMODE_EXCLUSIVE);
+
+        LeanMonoGammaTxn tx = new LeanMonoGammaTxn(stm);
+        try {
+            ref.openForRead(tx, LOCKMODE_NONE);
+            fail();
+        } catch (ReadWriteConflict expected) {
+        }
+
+        assertIsAborted(tx);
+        assertRefHasExclusiveLock(ref, otherTx);
+    }
+
+    @Test
+    public void whenExclusivelyLockedByOther_thenLeanFixedLengthReadFails() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        GammaTxn otherTx = stm.newDefaultTxn();
+        ref.openForRead(otherTx, LOCKMODE_EXCLUSIVE);
+
+        LeanFixedLengthGammaTxn tx = new LeanFixedLengthGammaTxn(stm);
+        try {
+            ref.openForRead(tx, LOCKMODE_NONE);
+            fail();
+        } catch (ReadWriteConflict expected) {
+        }
+
+        assertIsAborted(tx);
+        assertRefHasExclusiveLock(ref, otherTx);
+    }
+
+    @Test
+    public void whenNotLocked_thenLeanReadsSucceed() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        long version = ref.getVersion();
+
+        Tranlocal tranlocal = ref.openForRead(new LeanMonoGammaTxn(stm), LOCKMODE_NONE);
+        assertEquals(version, tranlocal.version);
+        assertEquals(10, tranlocal.long_value);
+
+        tranlocal = ref.openForRead(new LeanFixedLengthGammaTxn(stm), LOCKMODE_NONE);
+        assertEquals(version, tranlocal.version);
+        assertEquals(10, tranlocal.long_value);
+    }
+
+    @Test
+    public void hasReadConflict_whenExclusivelyLockedByOther() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        GammaTxn tx = stm.newDefaultTxn();
+        Tranlocal tranlocal = ref.openForRead(tx, LOCKMODE_NONE);
+
+        GammaTxn otherTx = stm.newDefaultTxn();
+        ref.openForRead(otherTx, LOCKMODE_EXCLUSIVE);
+
+        assertTrue(ref.hasReadConflict(tranlocal));
+
+        otherTx.abort();
+
+        assertFalse(ref.hasReadConflict(tranlocal));
+    }
+
+    @Test
+    public void atomicGet_whenExclusivelyLocked_thenLockedException() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        GammaTxn otherTx = stm.newDefaultTxn();
+        ref.openForRead(otherTx, LOCKMODE_EXCLUSIVE);
+
+        try {
+            ref.atomicGet();
+            fail();
+        } catch (LockedException expected) {
+        }
+
+        otherTx.abort();
+
+        assertEquals(10, ref.atomicGet());
+    }
+
+    @Test
+    public void whenLockedByOwnTransaction_thenCommitSucceeds() {
+        GammaTxnLong ref = new GammaTxnLong(stm, 10);
+        long initialVersion = ref.getVersion();
+
+        GammaTxn tx = stm.newDefaultTxn();
+        Tranlocal tranlocal = ref.openForWrite(tx, LOCKMODE_EXCLUSIVE);
+        assertEquals(initialVersion, tranlocal.version);
+        tranlocal.long_value = 20;
+        tx.commit();
+
+        assertFalse(isVersionLocked(ref));
+        assertVersionAndValue(ref, initialVersion + 1, 20);
+    }
+}
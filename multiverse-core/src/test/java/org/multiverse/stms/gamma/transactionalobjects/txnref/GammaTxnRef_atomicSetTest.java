@@ -14,6 +14,7 @@ import static org.junit.Assert.fail;
 import static org.multiverse.TestUtils.assertOrecValue;
 import static org.multiverse.api.TxnThreadLocal.clearThreadLocalTxn;
 import static org.multiverse.stms.gamma.GammaTestUtils.*;
+import static org.multiverse.stms.gamma.transactionalobjects.AbstractGammaObject.READBIASED_WRITE_WEIGHT;
 import static org.multiverse.stms.gamma.transactionalobjects.AbstractGammaObject.setReadonlyCount;
 import static org.multiverse.stms.gamma.transactionalobjects.AbstractGammaObject.setSurplus;
 
@@ -188,9 +189,9 @@ public class GammaTxnRef_atomicSetTest {
         System.out.println(ref.toDebugString());
 
         assertSame(newValue, result);
-        assertWriteBiased(ref);
+        assertReadBiased(ref);
         assertSurplus(ref, 0);
-        assertReadonlyCount(ref, 0);
+        assertReadonlyCount(ref, READBIASED_WRITE_WEIGHT);
         assertLockMode(ref, LockMode.None);
         assertGlobalConflictCount(stm, globalConflictCount);
         assertVersionAndValue(ref, initialVersion+1, newValue);
@@ -211,9 +212,9 @@ public class GammaTxnRef_atomicSetTest {
         System.out.println(ref.toDebugString());
 
         assertSame(newValue, result);
-        assertWriteBiased(ref);
+        assertReadBiased(ref);
         assertSurplus(ref, 0);
-        assertReadonlyCount(ref, 0);
+        assertReadonlyCount(ref, READBIASED_WRITE_WEIGHT);
         assertLockMode(ref, LockMode.None);
         assertGlobalConflictCount(stm, globalConflictCount+1);
         assertVersionAndValue(ref, initialVersion+1, newValue);
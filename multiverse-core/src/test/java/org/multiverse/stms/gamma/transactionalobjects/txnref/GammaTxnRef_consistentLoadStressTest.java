@@ -69,7 +69,9 @@ public class GammaTxnRef_consistentLoadStressTest implements GammaConstants {
                         inconsistencyCount.incrementAndGet();
                         System.out.println("Inconsistency detected");
                     }
-                    if (tranlocal.hasDepartObligation) {
+                    if (tranlocal.readerSlot >= 0) {
+                        ref.departFromReaderSlot(tranlocal.readerSlot, false, false);
+                    } else if (tranlocal.hasDepartObligation) {
                         ref.departAfterReading();
                     }
                 }
@@ -97,7 +99,7 @@ public class GammaTxnRef_consistentLoadStressTest implements GammaConstants {
                     continue;
                 }
 
-                Long value = ref.version + 1;
+                Long value = ref.getVersion() + 1;
                 ref.ref_value = value;
                 ref.version = value;
                 ref.departAfterUpdateAndUnlock();
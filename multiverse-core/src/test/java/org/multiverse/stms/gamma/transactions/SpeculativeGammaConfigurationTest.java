@@ -11,24 +11,6 @@ public class SpeculativeGammaConfigurationTest {
         SpeculativeGammaConfiguration config = new SpeculativeGammaConfiguration();
 
         assertFalse(config.fat);
-        assertFalse(config.nonRefTypeDetected);
-        assertFalse(config.commuteDetected);
-        assertFalse(config.orelseDetected);
-        assertFalse(config.listenersDetected);
-        assertFalse(config.locksDetected);
-        assertFalse(config.abortOnlyDetected);
-        assertFalse(config.ensureDetected);
-        assertFalse(config.constructedObjectsDetected);
-        assertEquals(1, config.minimalLength);
-    }
-
-    @Test
-    public void newWithNonRefType() {
-        SpeculativeGammaConfiguration config = new SpeculativeGammaConfiguration()
-                .newWithNonRefType();
-
-        assertTrue(config.fat);
-        assertTrue(config.nonRefTypeDetected);
         assertFalse(config.commuteDetected);
         assertFalse(config.orelseDetected);
         assertFalse(config.listenersDetected);
@@ -45,7 +27,6 @@ public class SpeculativeGammaConfigurationTest {
                 .newWithEnsure();
 
         assertTrue(config.fat);
-        assertFalse(config.nonRefTypeDetected);
         assertFalse(config.commuteDetected);
         assertFalse(config.orelseDetected);
         assertFalse(config.listenersDetected);
@@ -62,7 +43,6 @@ public class SpeculativeGammaConfigurationTest {
                 .newWithAbortOnly();
 
         assertTrue(config.fat);
-        assertFalse(config.nonRefTypeDetected);
         assertFalse(config.commuteDetected);
         assertFalse(config.orelseDetected);
         assertFalse(config.listenersDetected);
@@ -79,7 +59,6 @@ public class SpeculativeGammaConfigurationTest {
                 .newWithCommute();
 
         assertTrue(config.fat);
-        assertFalse(config.nonRefTypeDetected);
         assertTrue(config.commuteDetected);
         assertFalse(config.orelseDetected);
         assertFalse(config.listenersDetected);
@@ -96,7 +75,6 @@ public class SpeculativeGammaConfigurationTest {
                 .newWithListeners();
 
         assertTrue(config.fat);
-        assertFalse(config.nonRefTypeDetected);
         assertFalse(config.commuteDetected);
         assertFalse(config.orelseDetected);
         assertTrue(config.listenersDetected);
@@ -113,7 +91,6 @@ public class SpeculativeGammaConfigurationTest {
                 .newWithOrElse();
 
         assertTrue(config.fat);
-        assertFalse(config.nonRefTypeDetected);
         assertFalse(config.commuteDetected);
         assertTrue(config.orelseDetected);
         assertFalse(config.listenersDetected);
@@ -130,7 +107,6 @@ public class SpeculativeGammaConfigurationTest {
                 .newWithMinimalLength(10);
 
         assertFalse(config.fat);
-        assertFalse(config.nonRefTypeDetected);
         assertFalse(config.commuteDetected);
         assertFalse(config.orelseDetected);
         assertFalse(config.listenersDetected);
@@ -148,7 +124,6 @@ public class SpeculativeGammaConfigurationTest {
 
 
         assertTrue(config.fat);
-        assertFalse(config.nonRefTypeDetected);
         assertFalse(config.commuteDetected);
         assertFalse(config.orelseDetected);
         assertFalse(config.listenersDetected);
@@ -166,7 +141,6 @@ public class SpeculativeGammaConfigurationTest {
 
 
         assertTrue(config.fat);
-        assertFalse(config.nonRefTypeDetected);
         assertFalse(config.commuteDetected);
         assertFalse(config.orelseDetected);
         assertFalse(config.listenersDetected);
@@ -0,0 +1,39 @@
+package org.multiverse.stms.gamma.transactions;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.multiverse.stms.gamma.transactions.StripedGammaTxnPool.putStripedGammaTxnPool;
+import static org.multiverse.stms.gamma.transactions.StripedGammaTxnPool.takeStripedGammaTxnPool;
+
+public class StripedGammaTxnPoolTest {
+
+    @Test
+    public void whenTaken_thenNotNull() {
+        GammaTxnPool pool = takeStripedGammaTxnPool();
+
+        assertNotNull(pool);
+        putStripedGammaTxnPool(pool);
+    }
+
+    @Test
+    public void whenPutBack_thenSamePoolTakenAgain() {
+        GammaTxnPool pool = takeStripedGammaTxnPool();
+        putStripedGammaTxnPool(pool);
+
+        GammaTxnPool found = takeStripedGammaTxnPool();
+
+        assertSame(pool, found);
+        putStripedGammaTxnPool(found);
+    }
+
+    @Test
+    public void whenTakenTwice_thenDifferentPools() {
+        GammaTxnPool pool1 = takeStripedGammaTxnPool();
+        GammaTxnPool pool2 = takeStripedGammaTxnPool();
+
+        assertNotSame(pool1, pool2);
+        putStripedGammaTxnPool(pool1);
+        putStripedGammaTxnPool(pool2);
+    }
+}
@@ -9,10 +9,8 @@ public class FatFixedLengthGammaTxn_abortTest extends FatGammaTxn_abortTest<FatF
 
     @Override
     protected void assertCleaned(FatFixedLengthGammaTxn tx) {
-        Tranlocal node = tx.head;
-        while (node != null) {
+        for (Tranlocal node : tx.array) {
             assertNull(node.owner);
-            node = node.next;
         }
     }
 
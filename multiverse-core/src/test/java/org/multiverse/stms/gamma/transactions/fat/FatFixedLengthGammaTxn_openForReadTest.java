@@ -28,6 +28,11 @@ public class FatFixedLengthGammaTxn_openForReadTest extends FatGammaTxn_openForR
         return new GammaTxnConfig(stm).maxFixedLengthTransactionSize;
     }
 
+    @Override
+    protected long getReadVersion(FatFixedLengthGammaTxn tx) {
+        return tx.readVersion;
+    }
+
     @Test
     public void richmansConflict_multipleReadsOnSameRef() {
         GammaTxnLong ref = new GammaTxnLong(stm);
@@ -9,6 +9,7 @@ import org.multiverse.api.exceptions.*;
 import org.multiverse.api.functions.Functions;
 import org.multiverse.stms.gamma.GammaConstants;
 import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
 import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
 import org.multiverse.stms.gamma.transactionalobjects.Tranlocal;
 import org.multiverse.stms.gamma.transactions.GammaTxn;
@@ -35,6 +36,14 @@ public abstract class FatGammaTxn_openForReadTest<T extends GammaTxn> implements
 
     protected abstract T newTransaction(GammaTxnConfig config);
 
+    /**
+     * Gets the read version of a transaction that uses the GlobalCommitClock. Only the transactions that can read
+     * more than one ref have one.
+     */
+    protected long getReadVersion(T tx) {
+        throw new UnsupportedOperationException();
+    }
+
 
     @Test
     public void whenArrive() {
@@ -847,4 +856,87 @@ public abstract class FatGammaTxn_openForReadTest<T extends GammaTxn> implements
         assertEquals(initialValue, ref.long_value);
         assertEquals(initialVersion, ref.version);
     }
+
+    @Test
+    public void globalCommitClock_whenRead_thenNoArrive() {
+        //the mono transaction doesn't need a read version, a single read always is consistent.
+        assumeTrue(getMaxCapacity() > 1);
+
+        GammaStmConfig stmConfig = new GammaStmConfig();
+        stmConfig.globalCommitClockEnabled = true;
+        stm = new GammaStm(stmConfig);
+
+        long initialValue = 10;
+        GammaTxnLong ref = new GammaTxnLong(stm, initialValue);
+        long initialVersion = ref.getVersion();
+
+        T tx = newTransaction(new GammaTxnConfig(stm));
+        Tranlocal tranlocal = ref.openForRead(tx, LOCKMODE_NONE);
+
+        assertFalse(tx.richmansMansConflictScan);
+        assertFalse(tranlocal.hasDepartObligation);
+        assertEquals(initialValue, tranlocal.long_value);
+        assertEquals(stm.getGlobalCommitClock().time(), getReadVersion(tx));
+        assertSurplus(ref, 0);
+        assertIsActive(tx);
+        assertVersionAndValue(ref, initialVersion, initialValue);
+        assertRefHasNoLocks(ref);
+    }
+
+    @Test
+    public void globalCommitClock_whenNewerUnrelatedRef_thenReadVersionExtended() {
+        assumeTrue(getMaxCapacity() > 1);
+
+        GammaStmConfig stmConfig = new GammaStmConfig();
+        stmConfig.globalCommitClockEnabled = true;
+        stm = new GammaStm(stmConfig);
+
+        GammaTxnLong ref1 = new GammaTxnLong(stm, 10);
+        GammaTxnLong ref2 = new GammaTxnLong(stm, 20);
+
+        T tx = newTransaction(new GammaTxnConfig(stm));
+        ref1.openForRead(tx, LOCKMODE_NONE);
+        long readVersion = getReadVersion(tx);
+
+        ref2.atomicIncrementAndGet(1);
+
+        Tranlocal tranlocal = ref2.openForRead(tx, LOCKMODE_NONE);
+
+        assertEquals(21, tranlocal.long_value);
+        assertEquals(stm.getGlobalCommitClock().time(), ref2.getVersion());
+        assertTrue(getReadVersion(tx) > readVersion);
+        assertEquals(ref2.getVersion(), getReadVersion(tx));
+        assertIsActive(tx);
+    }
+
+    @Test
+    public void globalCommitClock_whenConflict() {
+        assumeTrue(getMaxCapacity() > 1);
+
+        GammaStmConfig stmConfig = new GammaStmConfig();
+        stmConfig.globalCommitClockEnabled = true;
+        stm = new GammaStm(stmConfig);
+
+        GammaTxnLong ref1 = new GammaTxnLong(stm, 10);
+        long initialValue2 = 20;
+        GammaTxnLong ref2 = new GammaTxnLong(stm, initialValue2);
+
+        T tx = newTransaction(new GammaTxnConfig(stm));
+        ref1.openForRead(tx, LOCKMODE_NONE);
+
+        ref1.atomicIncrementAndGet(1);
+        ref2.atomicIncrementAndGet(1);
+        long version2 = ref2.getVersion();
+
+        try {
+            ref2.openForRead(tx, LOCKMODE_NONE);
+            fail();
+        } catch (ReadWriteConflict expected) {
+        }
+
+        assertIsAborted(tx);
+        assertSurplus(ref2, 0);
+        assertVersionAndValue(ref2, version2, initialValue2 + 1);
+        assertRefHasNoLocks(ref2);
+    }
 }
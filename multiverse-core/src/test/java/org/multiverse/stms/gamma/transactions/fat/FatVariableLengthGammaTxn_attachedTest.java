@@ -0,0 +1,176 @@
+package org.multiverse.stms.gamma.transactions.fat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactionalobjects.Tranlocal;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+
+import static org.junit.Assert.*;
+import static org.multiverse.TestUtils.assertIsAborted;
+import static org.multiverse.TestUtils.assertIsCommitted;
+import static org.multiverse.stms.gamma.GammaTestUtils.assertRefHasNoLocks;
+import static org.multiverse.stms.gamma.GammaTestUtils.assertVersionAndValue;
+
+/**
+ * Tests the attached tranlocals of the FatVariableLengthGammaTxn; the tranlocals in the order they are opened that
+ * are used to commit/abort etc. without scanning the complete (expanded) array.
+ */
+public class FatVariableLengthGammaTxn_attachedTest implements GammaConstants {
+
+    private GammaStm stm;
+
+    @Before
+    public void setUp() {
+        stm = new GammaStm();
+    }
+
+    private FatVariableLengthGammaTxn newTransaction(int refCount) {
+        GammaTxnConfig config = new GammaTxnConfig(stm)
+                .setMaximumPoorMansConflictScanLength(refCount);
+        return new FatVariableLengthGammaTxn(config);
+    }
+
+    private static GammaTxnLong[] newRefs(GammaStm stm, int refCount) {
+        GammaTxnLong[] refs = new GammaTxnLong[refCount];
+        for (int k = 0; k < refCount; k++) {
+            refs[k] = new GammaTxnLong(stm);
+        }
+        return refs;
+    }
+
+    private static void assertArrayEmpty(FatVariableLengthGammaTxn tx) {
+        for (int k = 0; k < tx.array.length; k++) {
+            assertNull("array not empty at " + k, tx.array[k]);
+        }
+    }
+
+    @Test
+    public void whenOpened_thenAttachedInOrder() {
+        FatVariableLengthGammaTxn tx = newTransaction(100);
+        GammaTxnLong[] refs = newRefs(stm, 100);
+
+        Tranlocal[] tranlocals = new Tranlocal[refs.length];
+        for (int k = 0; k < refs.length; k++) {
+            tranlocals[k] = refs[k].openForWrite(tx, LOCKMODE_NONE);
+        }
+
+        assertEquals(refs.length, tx.size());
+        for (int k = 0; k < refs.length; k++) {
+            assertSame(tranlocals[k], tx.attached[k]);
+        }
+    }
+
+    @Test
+    public void whenOpenedAgain_thenNotAttachedAgain() {
+        FatVariableLengthGammaTxn tx = newTransaction(10);
+        GammaTxnLong ref = new GammaTxnLong(stm);
+
+        ref.openForRead(tx, LOCKMODE_NONE);
+        ref.openForWrite(tx, LOCKMODE_NONE);
+
+        assertEquals(1, tx.size());
+        assertNull(tx.attached[1]);
+    }
+
+    @Test
+    public void whenAbortedAfterExpand_thenArrayEmpty() {
+        FatVariableLengthGammaTxn tx = newTransaction(1000);
+        GammaTxnLong[] refs = newRefs(stm, 1000);
+
+        for (GammaTxnLong ref : refs) {
+            ref.openForWrite(tx, LOCKMODE_EXCLUSIVE);
+        }
+
+        tx.abort();
+
+        assertIsAborted(tx);
+        assertArrayEmpty(tx);
+        for (int k = 0; k < refs.length; k++) {
+            assertNull(tx.attached[k]);
+            assertRefHasNoLocks(refs[k]);
+        }
+    }
+
+    @Test
+    public void whenReusedAfterExpand_thenOnlyNewRefsCommitted() {
+        FatVariableLengthGammaTxn tx = newTransaction(1000);
+        GammaTxnLong[] refs = newRefs(stm, 1000);
+
+        for (GammaTxnLong ref : refs) {
+            ref.openForWrite(tx, LOCKMODE_NONE).long_value++;
+        }
+        tx.abort();
+        tx.softReset();
+
+        int arrayLength = tx.array.length;
+        long version = refs[0].getVersion();
+        refs[0].openForWrite(tx, LOCKMODE_NONE).long_value = 10;
+        refs[1].openForWrite(tx, LOCKMODE_NONE).long_value = 20;
+        assertEquals(2, tx.size());
+        assertEquals(arrayLength, tx.array.length);
+
+        tx.commit();
+
+        assertIsCommitted(tx);
+        assertVersionAndValue(refs[0], version + 1, 10);
+        assertVersionAndValue(refs[1], version + 1, 20);
+        for (int k = 2; k < refs.length; k++) {
+            assertVersionAndValue(refs[k], version, 0);
+            assertRefHasNoLocks(refs[k]);
+        }
+    }
+
+    @Test
+    public void whenCommitted_thenAttachedCleared() {
+        FatVariableLengthGammaTxn tx = newTransaction(100);
+        GammaTxnLong[] refs = newRefs(stm, 100);
+
+        for (GammaTxnLong ref : refs) {
+            ref.openForWrite(tx, LOCKMODE_NONE).long_value++;
+        }
+
+        tx.commit();
+
+        for (int k = 0; k < refs.length; k++) {
+            assertNull(tx.attached[k]);
+            assertEquals(1, refs[k].atomicGet());
+        }
+    }
+
+    @Test
+    public void whenHardResetAfterCommit_thenArrayReused() {
+        FatVariableLengthGammaTxn tx = newTransaction(10);
+        GammaTxnLong[] refs = newRefs(stm, 2);
+        Tranlocal[] array = tx.array;
+
+        for (GammaTxnLong ref : refs) {
+            ref.openForWrite(tx, LOCKMODE_NONE).long_value++;
+        }
+        tx.commit();
+        tx.hardReset();
+
+        assertSame(array, tx.array);
+        assertArrayEmpty(tx);
+    }
+
+    @Test
+    public void whenHardReset_thenAttachedCleared() {
+        FatVariableLengthGammaTxn tx = newTransaction(100);
+        GammaTxnLong[] refs = newRefs(stm, 100);
+
+        for (GammaTxnLong ref : refs) {
+            ref.openForRead(tx, LOCKMODE_NONE);
+        }
+        tx.abort();
+        tx.hardReset();
+
+        assertEquals(0, tx.size());
+        for (int k = 0; k < refs.length; k++) {
+            assertNull(tx.attached[k]);
+        }
+        assertArrayEmpty(tx);
+    }
+}
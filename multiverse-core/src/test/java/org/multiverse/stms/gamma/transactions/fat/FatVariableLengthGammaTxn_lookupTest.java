@@ -0,0 +1,104 @@
+package org.multiverse.stms.gamma.transactions.fat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactionalobjects.Tranlocal;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the hash table of the FatVariableLengthGammaTxn that is used to find the tranlocal of a ref.
+ */
+public class FatVariableLengthGammaTxn_lookupTest implements GammaConstants {
+
+    private GammaStm stm;
+
+    @Before
+    public void setUp() {
+        stm = new GammaStm();
+    }
+
+    private FatVariableLengthGammaTxn newTransaction(int refCount) {
+        GammaTxnConfig config = new GammaTxnConfig(stm)
+                .setMaximumPoorMansConflictScanLength(refCount);
+        return new FatVariableLengthGammaTxn(config);
+    }
+
+    private static void assertPowerOfTwo(int length) {
+        assertTrue("length " + length + " is not a power of 2", length > 0 && (length & (length - 1)) == 0);
+    }
+
+    @Test
+    public void whenNew_thenArrayLengthPowerOfTwo() {
+        FatVariableLengthGammaTxn tx = newTransaction(10);
+
+        assertPowerOfTwo(tx.array.length);
+    }
+
+    @Test
+    public void whenNothingOpened_thenNotFound() {
+        FatVariableLengthGammaTxn tx = newTransaction(10);
+        GammaTxnLong ref = new GammaTxnLong(stm);
+
+        assertNull(tx.getRefTranlocal(ref));
+    }
+
+    @Test
+    public void whenManyOpened_thenAllFound() {
+        FatVariableLengthGammaTxn tx = newTransaction(10000);
+        GammaTxnLong[] refs = new GammaTxnLong[10000];
+        Tranlocal[] tranlocals = new Tranlocal[refs.length];
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = new GammaTxnLong(stm);
+            tranlocals[k] = refs[k].openForRead(tx, LOCKMODE_NONE);
+        }
+
+        assertEquals(refs.length, tx.size());
+        for (int k = 0; k < refs.length; k++) {
+            assertSame(tranlocals[k], tx.getRefTranlocal(refs[k]));
+        }
+    }
+
+    @Test
+    public void whenManyOpened_thenOthersNotFound() {
+        FatVariableLengthGammaTxn tx = newTransaction(1000);
+        for (int k = 0; k < 1000; k++) {
+            new GammaTxnLong(stm).openForRead(tx, LOCKMODE_NONE);
+        }
+
+        for (int k = 0; k < 1000; k++) {
+            assertNull(tx.getRefTranlocal(new GammaTxnLong(stm)));
+        }
+    }
+
+    @Test
+    public void whenExpanded_thenPowerOfTwoAndAtMostHalfFull() {
+        FatVariableLengthGammaTxn tx = newTransaction(1000);
+        for (int k = 0; k < 1000; k++) {
+            new GammaTxnLong(stm).openForRead(tx, LOCKMODE_NONE);
+
+            assertPowerOfTwo(tx.array.length);
+            assertTrue(tx.size() * 2 <= tx.array.length);
+        }
+    }
+
+    @Test
+    public void whenReusedAfterCommit_thenPreviousRefsNotFound() {
+        FatVariableLengthGammaTxn tx = newTransaction(100);
+        GammaTxnLong[] refs = new GammaTxnLong[100];
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = new GammaTxnLong(stm);
+            refs[k].openForWrite(tx, LOCKMODE_NONE).long_value++;
+        }
+        tx.commit();
+        tx.hardReset();
+
+        for (GammaTxnLong ref : refs) {
+            assertNull(tx.getRefTranlocal(ref));
+        }
+    }
+}
@@ -18,6 +18,11 @@ public class FatVariableLengthGammaTxn_openForReadTest extends FatGammaTxn_openF
         return Integer.MAX_VALUE;
     }
 
+    @Override
+    protected long getReadVersion(FatVariableLengthGammaTxn tx) {
+        return tx.readVersion;
+    }
+
     @Override
     protected FatVariableLengthGammaTxn newTransaction() {
         return new FatVariableLengthGammaTxn(stm);
@@ -0,0 +1,230 @@
+package org.multiverse.stms.gamma.transactions.lean;
+
+import org.junit.Test;
+import org.multiverse.api.exceptions.SpeculativeConfigurationError;
+import org.multiverse.stms.gamma.GammaConstants;
+import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.GammaStmConfig;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
+import org.multiverse.stms.gamma.transactionalobjects.LinkedTranlocal;
+import org.multiverse.stms.gamma.transactionalobjects.Tranlocal;
+import org.multiverse.stms.gamma.transactions.GammaTxnConfig;
+import org.multiverse.stms.gamma.transactions.GammaTxnPool;
+
+import static org.junit.Assert.*;
+import static org.multiverse.TestUtils.assertIsAborted;
+
+public class LeanFixedLengthGammaTxn_tranlocalsTest implements GammaConstants {
+
+    private static GammaStm newStm(boolean linked) {
+        GammaStmConfig config = new GammaStmConfig();
+        config.linkedTranlocalsEnabled = linked;
+        return new GammaStm(config);
+    }
+
+    private static GammaTxnLong[] newRefs(GammaStm stm, int count) {
+        GammaTxnLong[] refs = new GammaTxnLong[count];
+        for (int k = 0; k < refs.length; k++) {
+            refs[k] = new GammaTxnLong(stm, k);
+        }
+        return refs;
+    }
+
+    @Test
+    public void whenArray_thenNoChain() {
+        LeanFixedLengthGammaTxn tx = new LeanFixedLengthGammaTxn(newStm(false));
+
+        assertNull(tx.head);
+        for (Tranlocal tranlocal : tx.array) {
+            assertFalse(tranlocal instanceof LinkedTranlocal);
+        }
+    }
+
+    @Test
+    public void whenOpened_thenFilledFromTheFront() {
+        whenOpened_thenFilledFromTheFront(false);
+    }
+
+    @Test
+    public void whenLinkedAndOpened_thenFilledFromTheFront() {
+        whenOpened_thenFilledFromTheFront(true);
+    }
+
+    private void whenOpened_thenFilledFromTheFront(boolean linked) {
+        GammaStm stm = newStm(linked);
+        LeanFixedLengthGammaTxn tx = new LeanFixedLengthGammaTxn(stm);
+        GammaTxnLong[] refs = newRefs(stm, tx.array.length);
+
+        for (int k = 0; k < refs.length; k++) {
+            Tranlocal tranlocal = refs[k].openForWrite(tx, LOCKMODE_NONE);
+
+            assertSame(tx.array[k], tranlocal);
+            assertEquals(k + 1, tx.size);
+            for (int l = k + 1; l < tx.array.length; l++) {
+                assertNull(tx.array[l].owner);
+            }
+        }
+
+        //opening them again doesn't use more tranlocals.
+        for (int k = refs.length - 1; k >= 0; k--) {
+            assertSame(tx.array[k], refs[k].openForWrite(tx, LOCKMODE_NONE));
+        }
+        assertEquals(refs.length, tx.size);
+    }
+
+    @Test
+    public void whenFull_thenSpeculativeConfigurationError() {
+        whenFull_thenSpeculativeConfigurationError(false);
+    }
+
+    @Test
+    public void whenLinkedAndFull_thenSpeculativeConfigurationError() {
+        whenFull_thenSpeculativeConfigurationError(true);
+    }
+
+    private void whenFull_thenSpeculativeConfigurationError(boolean linked) {
+        GammaStm stm = newStm(linked);
+        LeanFixedLengthGammaTxn tx = new LeanFixedLengthGammaTxn(new GammaTxnConfig(stm, 3));
+        GammaTxnLong[] refs = newRefs(stm, 4);
+
+        refs[0].openForRead(tx, LOCKMODE_NONE);
+        refs[1].openForRead(tx, LOCKMODE_NONE);
+        refs[2].openForRead(tx, LOCKMODE_NONE);
+
+        try {
+            refs[3].openForRead(tx, LOCKMODE_NONE);
+            fail();
+        } catch (SpeculativeConfigurationError expected) {
+        }
+
+        assertIsAborted(tx);
+        assertEquals(4, tx.getConfig().getSpeculativeConfiguration().minimalLength);
+        for (Tranlocal tranlocal : tx.array) {
+            assertNull(tranlocal.owner);
+        }
+    }
+
+    @Test
+    public void whenCommitted_thenAllChangesWritten() {
+        whenCommitted_thenAllChangesWritten(false);
+    }
+
+    @Test
+    public void whenLinkedAndCommitted_thenAllChangesWritten() {
+        whenCommitted_thenAllChangesWritten(true);
+    }
+
+    private void whenCommitted_thenAllChangesWritten(boolean linked) {
+        GammaStm stm = newStm(linked);
+        LeanFixedLengthGammaTxn tx = new LeanFixedLengthGammaTxn(stm);
+        GammaTxnLong[] refs = newRefs(stm, 5);
+
+        //the refs are opened out of order and some of them multiple times, so the chain order differs from the
+        //array order.
+        int[] order = {2, 0, 2, 4, 1, 0, 3, 4, 2};
+        for (int index : order) {
+            refs[index].openForWrite(tx, LOCKMODE_NONE).long_value++;
+        }
+        tx.commit();
+
+        assertEquals(2, refs[0].atomicGet());
+        assertEquals(2, refs[1].atomicGet());
+        assertEquals(5, refs[2].atomicGet());
+        assertEquals(4, refs[3].atomicGet());
+        assertEquals(6, refs[4].atomicGet());
+        for (Tranlocal tranlocal : tx.array) {
+            assertNull(tranlocal.owner);
+        }
+    }
+
+    @Test
+    public void whenLinkedAndOpened_thenMovedInFront() {
+        GammaStm stm = newStm(true);
+        LeanFixedLengthGammaTxn tx = new LeanFixedLengthGammaTxn(stm);
+        GammaTxnLong[] refs = newRefs(stm, 3);
+
+        Tranlocal tranlocal0 = refs[0].openForRead(tx, LOCKMODE_NONE);
+        refs[1].openForRead(tx, LOCKMODE_NONE);
+        Tranlocal tranlocal2 = refs[2].openForRead(tx, LOCKMODE_NONE);
+
+        assertSame(tranlocal2, tx.head);
+
+        refs[0].openForRead(tx, LOCKMODE_NONE);
+
+        assertSame(tranlocal0, tx.head);
+        //the array order is not changed by the chain.
+        assertSame(tranlocal0, tx.array[0]);
+        assertSame(tranlocal2, tx.array[2]);
+        assertChainContainsAll(tx);
+    }
+
+    @Test
+    public void whenLinkedAndHardReset_thenChainInArrayOrder() {
+        GammaStm stm = newStm(true);
+        LeanFixedLengthGammaTxn tx = new LeanFixedLengthGammaTxn(stm);
+        GammaTxnLong[] refs = newRefs(stm, 3);
+
+        refs[0].openForRead(tx, LOCKMODE_NONE);
+        refs[1].openForRead(tx, LOCKMODE_NONE);
+        refs[2].openForRead(tx, LOCKMODE_NONE);
+        tx.commit();
+        tx.hardReset();
+
+        LinkedTranlocal node = tx.head;
+        for (int k = 0; k < tx.array.length; k++) {
+            assertSame(tx.array[k], node);
+            node = node.next;
+        }
+        assertNull(node);
+    }
+
+    @Test
+    public void whenReturnedToPool_thenTranlocalsReused() {
+        whenReturnedToPool_thenTranlocalsReused(false);
+    }
+
+    @Test
+    public void whenLinkedAndReturnedToPool_thenTranlocalsReused() {
+        whenReturnedToPool_thenTranlocalsReused(true);
+    }
+
+    private void whenReturnedToPool_thenTranlocalsReused(boolean linked) {
+        GammaStm stm = newStm(linked);
+        GammaTxnPool pool = new GammaTxnPool();
+        LeanFixedLengthGammaTxn tx = new LeanFixedLengthGammaTxn(stm);
+        Tranlocal[] tranlocals = tx.array.clone();
+
+        GammaTxnLong[] refs = newRefs(stm, 4);
+        for (GammaTxnLong ref : refs) {
+            ref.openForWrite(tx, LOCKMODE_NONE).long_value++;
+        }
+        tx.commit();
+        pool.put(tx);
+
+        LeanFixedLengthGammaTxn taken = pool.takeLeanFixedLength();
+        assertSame(tx, taken);
+        taken.init(new GammaTxnConfig(stm).init());
+
+        assertEquals(0, taken.size);
+        for (int k = 0; k < tranlocals.length; k++) {
+            assertSame(tranlocals[k], taken.array[k]);
+            assertNull(taken.array[k].owner);
+        }
+
+        GammaTxnLong[] otherRefs = newRefs(stm, 2);
+        assertSame(tranlocals[0], otherRefs[0].openForRead(taken, LOCKMODE_NONE));
+        assertSame(tranlocals[1], otherRefs[1].openForRead(taken, LOCKMODE_NONE));
+        assertEquals(2, taken.size);
+    }
+
+    private static void assertChainContainsAll(LeanFixedLengthGammaTxn tx) {
+        int count = 0;
+        LinkedTranlocal previous = null;
+        for (LinkedTranlocal node = tx.head; node != null; node = node.next) {
+            assertSame(previous, node.previous);
+            previous = node;
+            count++;
+        }
+        assertEquals(tx.array.length, count);
+    }
+}
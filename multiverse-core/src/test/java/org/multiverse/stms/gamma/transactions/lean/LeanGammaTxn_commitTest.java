@@ -6,6 +6,8 @@ import org.multiverse.api.LockMode;
 import org.multiverse.api.exceptions.DeadTxnException;
 import org.multiverse.api.exceptions.ReadWriteConflict;
 import org.multiverse.stms.gamma.GammaStm;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnInteger;
+import org.multiverse.stms.gamma.transactionalobjects.GammaTxnLong;
 import org.multiverse.stms.gamma.transactionalobjects.GammaTxnRef;
 import org.multiverse.stms.gamma.transactionalobjects.Tranlocal;
 import org.multiverse.stms.gamma.transactions.GammaTxn;
@@ -58,6 +60,45 @@ public abstract class LeanGammaTxn_commitTest<T extends GammaTxn> {
         assertVersionAndValue(ref, initialVersion+1, newValue);
     }
 
+    @Test
+    public void whenLongRefUpdated() {
+        long initialValue = 10;
+        GammaTxnLong ref = new GammaTxnLong(stm, initialValue);
+        long initialVersion = ref.getVersion();
+
+        T tx = newTransaction();
+        ref.incrementAndGet(tx, 5);
+        tx.commit();
+
+        assertIsCommitted(tx);
+        assertRefHasNoLocks(ref);
+        assertSurplus(ref, 0);
+        assertVersionAndValue(ref, initialVersion + 1, initialValue + 5);
+        assertClearedAfterCommit();
+    }
+
+    @Test
+    public void whenIntRefAndRefUpdated() {
+        assumeTrue(getMaximumLength() > 1);
+
+        GammaTxnInteger ref1 = new GammaTxnInteger(stm, 10);
+        long initialVersion1 = ref1.getVersion();
+        GammaTxnRef<String> ref2 = new GammaTxnRef<String>(stm, "foo");
+        long initialVersion2 = ref2.getVersion();
+
+        T tx = newTransaction();
+        ref1.set(tx, 20);
+        ref2.set(tx, "bar");
+        tx.commit();
+
+        assertIsCommitted(tx);
+        assertRefHasNoLocks(ref1);
+        assertRefHasNoLocks(ref2);
+        assertVersionAndValue(ref1, initialVersion1 + 1, 20);
+        assertVersionAndValue(ref2, initialVersion2 + 1, "bar");
+        assertClearedAfterCommit();
+    }
+
     @Test
     public void whenUnused() {
         T tx = newTransaction();
@@ -16,6 +16,8 @@ import org.multiverse.stms.gamma.transactions.GammaTxn;
 import static org.junit.Assert.*;
 import static org.junit.Assume.assumeTrue;
 import static org.multiverse.TestUtils.*;
+import static org.multiverse.stms.gamma.GammaStmUtils.booleanAsLong;
+import static org.multiverse.stms.gamma.GammaStmUtils.doubleAsLong;
 import static org.multiverse.stms.gamma.GammaTestUtils.*;
 
 public abstract class LeanGammaTxn_openForReadTest<T extends GammaTxn> implements GammaConstants {
@@ -88,79 +90,79 @@ public abstract class LeanGammaTxn_openForReadTest<T extends GammaTxn> implement
     }
 
     @Test
-    public void whenIntRef_thenSpeculativeConfigurationError() {
+    public void whenIntRef_thenLeanTransactionUsed() {
         int initialValue = 10;
         GammaTxnInteger ref = new GammaTxnInteger(stm, initialValue);
         long initialVersion = ref.getVersion();
 
         T tx = newTransaction();
-        try {
-            ref.openForRead(tx, LOCKMODE_NONE);
-            fail();
-        } catch (SpeculativeConfigurationError expected) {
-        }
+        Tranlocal tranlocal = ref.openForRead(tx, LOCKMODE_NONE);
 
-        assertIsAborted(tx);
+        assertIsActive(tx);
+        assertSame(ref, tranlocal.owner);
+        assertEquals(TRANLOCAL_READ, tranlocal.mode);
+        assertEquals(initialVersion, tranlocal.version);
+        assertEquals(initialValue, tranlocal.long_value);
         assertRefHasNoLocks(ref);
+        assertSurplus(ref, 0);
         assertVersionAndValue(ref, initialVersion, initialValue);
-        assertSpeculativeConfigurationNonRefTypeRequired(tx);
     }
 
     @Test
-    public void whenBooleanRef_thenSpeculativeConfigurationError() {
+    public void whenBooleanRef_thenLeanTransactionUsed() {
         boolean initialValue = true;
         GammaTxnBoolean ref = new GammaTxnBoolean(stm, initialValue);
         long initialVersion = ref.getVersion();
 
         T tx = newTransaction();
-        try {
-            ref.openForRead(tx, LOCKMODE_NONE);
-            fail();
-        } catch (SpeculativeConfigurationError expected) {
-        }
+        Tranlocal tranlocal = ref.openForRead(tx, LOCKMODE_NONE);
 
-        assertIsAborted(tx);
+        assertIsActive(tx);
+        assertSame(ref, tranlocal.owner);
+        assertEquals(TRANLOCAL_READ, tranlocal.mode);
+        assertEquals(initialVersion, tranlocal.version);
+        assertEquals(booleanAsLong(initialValue), tranlocal.long_value);
         assertRefHasNoLocks(ref);
+        assertSurplus(ref, 0);
         assertVersionAndValue(ref, initialVersion, initialValue);
-        assertSpeculativeConfigurationNonRefTypeRequired(tx);
     }
 
     @Test
-    public void whenTxnDouble_thenSpeculativeConfigurationError() {
+    public void whenTxnDouble_thenLeanTransactionUsed() {
         double initialValue = 10;
         GammaTxnDouble ref = new GammaTxnDouble(stm, initialValue);
         long initialVersion = ref.getVersion();
 
         T tx = newTransaction();
-        try {
-            ref.openForRead(tx, LOCKMODE_NONE);
-            fail();
-        } catch (SpeculativeConfigurationError expected) {
-        }
+        Tranlocal tranlocal = ref.openForRead(tx, LOCKMODE_NONE);
 
-        assertIsAborted(tx);
+        assertIsActive(tx);
+        assertSame(ref, tranlocal.owner);
+        assertEquals(TRANLOCAL_READ, tranlocal.mode);
+        assertEquals(initialVersion, tranlocal.version);
+        assertEquals(doubleAsLong(initialValue), tranlocal.long_value);
         assertRefHasNoLocks(ref);
+        assertSurplus(ref, 0);
         assertVersionAndValue(ref, initialVersion, initialValue);
-        assertSpeculativeConfigurationNonRefTypeRequired(tx);
     }
 
     @Test
-    public void whenLongRef_thenSpeculativeConfigurationError() {
+    public void whenLongRef_thenLeanTransactionUsed() {
         long initialValue = 10;
         GammaTxnLong ref = new GammaTxnLong(stm, initialValue);
         long initialVersion = ref.getVersion();
 
         T tx = newTransaction();
-        try {
-            ref.openForRead(tx, LOCKMODE_NONE);
-            fail();
-        } catch (SpeculativeConfigurationError expected) {
-        }
+        Tranlocal tranlocal = ref.openForRead(tx, LOCKMODE_NONE);
 
-        assertIsAborted(tx);
+        assertIsActive(tx);
+        assertSame(ref, tranlocal.owner);
+        assertEquals(TRANLOCAL_READ, tranlocal.mode);
+        assertEquals(initialVersion, tranlocal.version);
+        assertEquals(initialValue, tranlocal.long_value);
         assertRefHasNoLocks(ref);
+        assertSurplus(ref, 0);
         assertVersionAndValue(ref, initialVersion, initialValue);
-        assertSpeculativeConfigurationNonRefTypeRequired(tx);
     }
 
 
@@ -0,0 +1,48 @@
+package org.multiverse.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StripesTest {
+
+    @Test
+    public void whenCreated_thenLengthIsPowerOfTwo() {
+        Stripes<Object> stripes = new Stripes<Object>();
+
+        int length = stripes.length();
+        assertTrue(length >= Runtime.getRuntime().availableProcessors() * 4);
+        assertEquals(0, length & (length - 1));
+    }
+
+    @Test
+    public void whenEmpty_thenTakeReturnsNull() {
+        Stripes<Object> stripes = new Stripes<Object>();
+
+        assertNull(stripes.take());
+    }
+
+    @Test
+    public void whenPut_thenTakenBySameThread() {
+        Stripes<Object> stripes = new Stripes<Object>();
+        Object item = new Object();
+
+        stripes.put(item);
+
+        assertSame(item, stripes.take());
+        assertNull(stripes.take());
+    }
+
+    @Test
+    public void whenStripeOccupied_thenPutDropsItem() {
+        Stripes<Object> stripes = new Stripes<Object>();
+        Object item1 = new Object();
+        Object item2 = new Object();
+
+        stripes.put(item1);
+        stripes.put(item2);
+
+        assertSame(item1, stripes.take());
+        assertNull(stripes.take());
+    }
+}